@@ -0,0 +1,126 @@
+package benchmarks;
+
+// System imports
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import controller.CommandController;
+import core.ModelGenerator;
+import model.UMLClassManager;
+import views.ConsoleView;
+
+/**
+ * Feeds generated commands to ConsoleView.execCommand, one command per operation,
+ * so the score is commands per second. Output goes to a stream that discards it.
+ * <p>
+ * Commands come in blocks that add a class, give it members and a relationship,
+ * edit and list it and finally remove it again, so the model keeps its size no
+ * matter how many commands run. Run main, or pass -prof gc to the benchmarks jar,
+ * for the bytes allocated per command.
+ * @author Ryan
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class ConsoleBenchmark {
+	private static final long SEED = 420;
+
+	// Number of command blocks in the generated stream
+	private static final int BLOCKS = 256;
+
+	// Stream that discards everything the console prints
+	private static final PrintStream NULL_OUTPUT = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {}
+
+		@Override
+		public void write(byte[] b, int off, int len) {}
+	});
+
+	// Size of the model the commands run against
+	@Param({"100", "10000"})
+	public int classes;
+
+	private ConsoleView console;
+	private String[] commands;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		UMLClassManager model = new ModelGenerator(SEED).generate(classes);
+		console = new ConsoleView(model, new CommandController(model));
+		commands = generateCommands(new Random(SEED), classes);
+	}
+
+	/**
+	 * Generate the command stream
+	 * @param random - source of the classes commands refer to
+	 * @param classes - number of classes in the model
+	 * @return - commands, every block leaves the model as it found it
+	 */
+	static String[] generateCommands(Random random, int classes) {
+		ArrayList<String> commands = new ArrayList<String>();
+		for(int block = 0; block < BLOCKS; block++) {
+			String name = "Cmd" + block;
+			String renamed = "Renamed" + block;
+			String other = ModelGenerator.className(random.nextInt(classes));
+
+			commands.add("add class " + name);
+			commands.add("add field " + name + " int count");
+			commands.add("add method " + name + " void run int times, String label");
+			commands.add("add relationship " + name + " aggregation " + other);
+			commands.add("edit field " + name + " count total");
+			commands.add("edit method " + name + " run execute int times, String label");
+			commands.add("edit relationship " + name + " aggregation " + other + " composition");
+			commands.add("list classes " + name);
+			commands.add("list relationships " + name);
+			commands.add("remove method " + name + " execute int times, String label");
+			commands.add("remove field " + name + " total");
+			commands.add("remove relationship " + name + " composition " + other);
+			commands.add("edit class " + name + " " + renamed);
+			commands.add("remove class " + renamed);
+		}
+		return commands.toArray(new String[commands.size()]);
+	}
+
+	@Benchmark
+	public int execCommand() {
+		String command = commands[next];
+		next = next + 1 == commands.length ? 0 : next + 1;
+		return console.execCommand(command, NULL_OUTPUT);
+	}
+
+	/**
+	 * Run the console benchmark with the GC profiler
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(ConsoleBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+}
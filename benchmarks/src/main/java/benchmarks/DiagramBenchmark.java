@@ -0,0 +1,191 @@
+package benchmarks;
+
+// System imports
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import controller.GUIController;
+import core.ModelGenerator;
+import model.UMLClass;
+import model.UMLClassManager;
+import views.GUIView;
+import views.components.DiagramPanel;
+import views.components.GUIClass;
+
+/**
+ * Paints a DiagramPanel of generated classes and relationships into an offscreen
+ * image, without a window, so rendering can be measured on a headless machine.
+ * <p>
+ * The diagram belongs to a non-human GUIView, like in the GUI tests. With the
+ * "testable" components only the relationships are drawn, since testable panels do
+ * not paint. With the "swing" components the classes are real lightweight Swing
+ * panels in a human DiagramPanel, and the whole diagram is painted like on screen.
+ * @author Ryan
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+public class DiagramBenchmark {
+	private static final long SEED = 420;
+
+	// Size of the offscreen image, a full HD screen
+	private static final int WIDTH = 1920;
+	private static final int HEIGHT = 1080;
+
+	@Param({"100", "1000", "10000"})
+	public int classes;
+
+	// Relationships per class
+	@Param({"1"})
+	public double relationships;
+
+	@Param({"testable", "swing"})
+	public String components;
+
+	private UMLClassManager model;
+	private DiagramPanel diagram;
+	private BufferedImage image;
+	private Graphics2D graphics;
+
+	// Class that is dragged and the offset it moves back and forth by
+	private GUIClass dragged;
+	private int dragOffset;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		model = new ModelGenerator(SEED).relationships(relationships).generate(classes);
+		diagram = buildDiagram(model, components.equals("swing"));
+		dragged = diagram.getGuiClasses().get(ModelGenerator.className(classes - 1));
+
+		image = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_RGB);
+		graphics = image.createGraphics();
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		graphics.dispose();
+	}
+
+	/**
+	 * Build a diagram showing every class of the model
+	 * @param model - model to show
+	 * @param swing - true for real Swing class components, false for testable ones
+	 * @return - diagram sized to the image
+	 */
+	static DiagramPanel buildDiagram(UMLClassManager model, boolean swing) {
+		GUIView view = new GUIView(new GUIController(model), model, false);
+		DiagramPanel diagram;
+		if(swing) {
+			// The view only creates testable classes, so add Swing ones to a human panel
+			diagram = new DiagramPanel(view, true);
+			for(Object className : model.getClassNames()) {
+				UMLClass umlClass = model.getClass((String)className);
+				GUIClass guiClass = new GUIClass(umlClass, true);
+				guiClass.addMouseListener(diagram);
+				guiClass.addMouseMotionListener(diagram);
+				diagram.getGuiClasses().put(umlClass.getName(), guiClass);
+				diagram.add(guiClass);
+			}
+		}
+		else {
+			// Same path as a model change notification
+			diagram = view.getDiagram();
+			for(Object className : model.getClassNames())
+				diagram.updated(null, "addClass", model.getClass((String)className));
+		}
+		diagram.setSize(new Dimension(WIDTH, HEIGHT));
+		diagram.validate();
+		return diagram;
+	}
+
+	// Paint the diagram into the image
+	private void render() {
+		if(components.equals("swing"))
+			diagram.paint(graphics);
+		else
+			diagram.paintComponent(graphics);
+	}
+
+	@Benchmark
+	public BufferedImage paint() {
+		render();
+		return image;
+	}
+
+	/**
+	 * A single mouse drag of a class followed by the repaint it asks for
+	 */
+	@Benchmark
+	public BufferedImage drag() {
+		dragOffset = dragOffset == 0 ? 10 : 0;
+		diagram.mouseDragged(new MouseEvent(dragged, MouseEvent.MOUSE_DRAGGED, 0, InputEvent.BUTTON1_DOWN_MASK,
+				0, 0, dragOffset, dragOffset, 1, false, MouseEvent.BUTTON1));
+		render();
+		return image;
+	}
+
+	/**
+	 * Bytes of heap the diagram keeps per class, measured once per iteration.
+	 * JMH clears the counter after setup, so the benchmark copies it in.
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.EVENTS)
+	public static class Memory {
+		public long bytesPerClass;
+		private long measured;
+
+		@Setup(Level.Iteration)
+		public void measure(DiagramBenchmark benchmark) {
+			long before = usedHeap();
+			DiagramPanel diagram = buildDiagram(benchmark.model, benchmark.components.equals("swing"));
+			long after = usedHeap();
+			measured = (after - before) / benchmark.classes;
+
+			// Keep the diagram reachable until the heap was measured
+			if(diagram.getGuiClasses().isEmpty())
+				measured = 0;
+		}
+
+		// Heap in use after a full collection
+		private static long usedHeap() {
+			Runtime runtime = Runtime.getRuntime();
+			for(int i = 0; i < 3; i++)
+				System.gc();
+			return runtime.totalMemory() - runtime.freeMemory();
+		}
+	}
+
+	/**
+	 * Cost of creating the components of every class. Also reports the heap the
+	 * diagram keeps per class.
+	 */
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	public DiagramPanel build(Memory memory) {
+		memory.bytesPerClass = memory.measured;
+		return buildDiagram(model, components.equals("swing"));
+	}
+}
@@ -0,0 +1,120 @@
+package benchmarks;
+
+// System imports
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import core.ModelGenerator;
+import model.UMLClassManager;
+
+/**
+ * Measures single edits of UMLClassManager on generated models of 10 to 1M classes.
+ * <p>
+ * Every benchmark undoes its own edit (add then remove, rename then rename back), so
+ * the model keeps its size for the whole run and the score is the cost of the pair.
+ * Edits go to classes picked from a fixed random sequence so every run touches the
+ * same classes.
+ * @author Ryan
+ *
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class ModelBenchmark {
+	private static final long SEED = 420;
+
+	// Length of the sequence of picked classes, a power of two
+	private static final int PICKS = 1024;
+
+	@Param({"10", "1000", "100000", "1000000"})
+	public int classes;
+
+	private UMLClassManager model;
+
+	// Indices of the classes edits go to
+	private int[] picks;
+	private int next;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		model = generator().generate(classes);
+
+		Random random = new Random(SEED);
+		picks = new int[PICKS];
+		for(int i = 0; i < PICKS; i++)
+			picks[i] = random.nextInt(classes);
+	}
+
+	// Generated models have no realizations, so benchmarks can add their own
+	private static ModelGenerator generator() {
+		return new ModelGenerator(SEED).mix(1, 1, 1, 0);
+	}
+
+	// Name of the next class to edit
+	private String pick() {
+		next = (next + 1) & (PICKS - 1);
+		return ModelGenerator.className(picks[next]);
+	}
+
+	@Benchmark
+	public int addRemoveClass() {
+		return model.addClass("Bench") + model.removeClass("Bench");
+	}
+
+	@Benchmark
+	public int addRemoveField() {
+		String className = pick();
+		return model.addFields(className, "int", "bench") + model.removeFields(className, "bench");
+	}
+
+	@Benchmark
+	public int addRemoveMethod() {
+		String className = pick();
+		return model.addMethods(className, "void", "bench", "int a") + model.removeMethods(className, "bench", "int a");
+	}
+
+	/**
+	 * Generated models have no realizations, so the pair never touches an existing relationship
+	 */
+	@Benchmark
+	public int addRemoveRelationship() {
+		String source = pick();
+		String destination = pick();
+		return model.addRelationship(source, "realization", destination) + model.removeRelationship(source, "realization", destination);
+	}
+
+	@Benchmark
+	public int editClass() {
+		String className = pick();
+		return model.editClass(className, "Bench") + model.editClass("Bench", className);
+	}
+
+	/**
+	 * Cost of building the whole model from nothing through addClass, addFields,
+	 * addMethods and addRelationship
+	 */
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Warmup(iterations = 2)
+	@Measurement(iterations = 5)
+	public UMLClassManager generate() {
+		return generator().generate(classes);
+	}
+}
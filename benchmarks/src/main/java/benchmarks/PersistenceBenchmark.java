@@ -0,0 +1,211 @@
+package benchmarks;
+
+// System imports
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import core.ModelGenerator;
+import core.UMLFileIO;
+import model.CompactModel;
+import model.UMLClassManager;
+
+/**
+ * Measures saving and loading generated models, from the JSON string API down
+ * to the streaming file API, for plain and gzip files.
+ * <p>
+ * Scores are operations per second. Every benchmark also counts the megabytes of
+ * JSON it produced or consumed, which JMH lists as MB/s next to the score. Compressed
+ * files are counted by their JSON size so the rates of both formats compare.
+ * Pass -bm sample -tu ms for latency percentiles instead. Run main, or pass -prof gc
+ * to the benchmarks jar, to also see allocation rates.
+ * @author Ryan
+ *
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PersistenceBenchmark {
+	private static final long SEED = 420;
+
+	@Param({"100", "10000", "100000"})
+	public int classes;
+
+	private UMLClassManager model;
+	private String json;
+	private double megabytes;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		model = new ModelGenerator(SEED).generate(classes);
+		json = model.convertToJSON();
+		megabytes = json.getBytes(StandardCharsets.UTF_8).length / 1e6;
+	}
+
+	/**
+	 * Save file of the generated model, in each supported format
+	 */
+	@State(Scope.Benchmark)
+	public static class SaveFile {
+		@Param({"json", "json.gz"})
+		public String format;
+
+		private File file;
+		private UMLFileIO fileIO;
+
+		@Setup(Level.Trial)
+		public void setup(PersistenceBenchmark benchmark) throws IOException {
+			file = File.createTempFile("uml-benchmark", "." + format);
+			fileIO = new UMLFileIO();
+			fileIO.setFile(file.getPath());
+			if(fileIO.writeToFile(benchmark.json) != 0)
+				throw new IOException("Could not write " + file);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			file.delete();
+		}
+	}
+
+	/**
+	 * Megabytes of JSON handled, reported by JMH as a rate
+	 */
+	@State(Scope.Thread)
+	@AuxCounters(AuxCounters.Type.OPERATIONS)
+	public static class Throughput {
+		public double megabytes;
+
+		@Setup(Level.Iteration)
+		public void reset() {
+			megabytes = 0;
+		}
+	}
+
+	@Benchmark
+	public String convertToJSON(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return model.convertToJSON();
+	}
+
+	@Benchmark
+	public void writeJSON(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		model.writeJSON(NullWriter.INSTANCE);
+	}
+
+	@Benchmark
+	public int parseJSON(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return new UMLClassManager().parseJSON(json);
+	}
+
+	@Benchmark
+	public int parseJSONStream(Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return new UMLClassManager().parseJSON(new StringReader(json));
+	}
+
+	@Benchmark
+	public int writeToFile(SaveFile file, Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return file.fileIO.writeToFile(json);
+	}
+
+	@Benchmark
+	public Object[] readFile(SaveFile file, Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return file.fileIO.readFile();
+	}
+
+	/**
+	 * Full save through the file API, from the model to the file
+	 */
+	@Benchmark
+	public int saveModel(SaveFile file, Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return file.fileIO.saveModel(model);
+	}
+
+	/**
+	 * Full load through the file API, from the file to a new model
+	 */
+	@Benchmark
+	public int loadModel(SaveFile file, Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return file.fileIO.loadModel(new UMLClassManager());
+	}
+
+	/**
+	 * Full load with the records parsed on the common fork/join pool. Compare pool sizes
+	 * with -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N
+	 */
+	@Benchmark
+	public int loadModelParallel(SaveFile file, Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return file.fileIO.loadModel(new UMLClassManager(), true);
+	}
+
+	@Benchmark
+	public CompactModel loadCompact(SaveFile file, Throughput throughput) {
+		throughput.megabytes += megabytes;
+		return (CompactModel)file.fileIO.loadCompact()[0];
+	}
+
+	/**
+	 * Run every persistence benchmark with the GC profiler
+	 */
+	public static void main(String[] args) throws RunnerException {
+		new Runner(new OptionsBuilder()
+				.include(PersistenceBenchmark.class.getSimpleName())
+				.addProfiler(GCProfiler.class)
+				.build()).run();
+	}
+
+	/**
+	 * Writer that discards everything, so only the cost of producing JSON is measured
+	 */
+	private static final class NullWriter extends Writer {
+		static final NullWriter INSTANCE = new NullWriter();
+
+		@Override
+		public void write(char[] buffer, int offset, int length) {}
+
+		@Override
+		public void write(String text, int offset, int length) {}
+
+		@Override
+		public void write(int c) {}
+
+		@Override
+		public void flush() {}
+
+		@Override
+		public void close() {}
+	}
+}
@@ -1,7 +1,11 @@
 package controller;
 
+import java.io.IOException;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.function.Consumer;
 
+import layout.AutoLayout;
 import model.UMLClassManager;
 
 public class CommandController extends UMLController {
@@ -15,96 +19,155 @@ public class CommandController extends UMLController {
 	
 	@Override
 	public int addClass(String className, int x, int y) {
-		int result = getModel().addClass(className);
-		if(result == 0) {
-			result = getModel().setClassLocation(className, x, y);
-			
-			notify("addClass", getModel());
-		}
-		return result;
+		return timed("controller.addClass", () -> {
+			int result = getModel().addClass(className);
+			if(result == 0) {
+				result = getModel().setClassLocation(className, x, y);
+				trackLayout(layout -> layout.update(className));
+				
+				notify("addClass", getModel());
+			}
+			return result;
+		});
 	}
 	
 	public int editClass(String className, String newName) {
-		int result = getModel().editClass(className, newName);
-		if(result == 0)
-			notify("editClass", getModel());
-		return result;
+		return timed("controller.editClass", () -> {
+			int result = getModel().editClass(className, newName);
+			if(result == 0) {
+				trackLayout(layout -> layout.rename(className, newName));
+				notify("editClass", getModel());
+			}
+			return result;
+		});
 	}
 	
 	public int editField(String className, String oldName, String newName) {
-		int result = getModel().editFields(className, oldName, newName);
-		if(result == 0)
-			notify("editField", getModel());
-		return result;
+		return timed("controller.editField", () -> {
+			int result = getModel().editFields(className, oldName, newName);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				notify("editField", getModel());
+			}
+			return result;
+		});
 	}
 	
 	public int editRelationships(String className, String oldRType, String destClass, String newRType)
 	{
-		int result = getModel().editRelationships(className, oldRType, destClass, newRType );
-		if (result == 0)
-			notify("editRelationship", getModel());
-		return result;
+		return timed("controller.editRelationships", () -> {
+			int result = getModel().editRelationships(className, oldRType, destClass, newRType );
+			if (result == 0)
+				notify("editRelationship", getModel());
+			return result;
+		});
 	}
 	
 	public int editMethod(String className, String oldName, String newName, String params) {
-		int result = getModel().editMethods(className, oldName, newName, params);
-		if(result == 0)
-			notify("editClass", getModel());
-		return result;
+		return timed("controller.editMethod", () -> {
+			int result = getModel().editMethods(className, oldName, newName, params);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				notify("editClass", getModel());
+			}
+			return result;
+		});
 	}
 
 	public int addClass(String className) {
-		return addClass(className, 0, 0);
+		int result = addClass(className, 0, 0);
+		if(result == 0)
+			placeClass(className);
+		return result;
 	}	
 
 	public int removeClass(String className) {
-		int result = getModel().removeClass(className);
-		if(result == 0)
-			notify("removeClass", getModel());
-		return result;
+		return timed("controller.removeClass", () -> {
+			int result = getModel().removeClass(className);
+			if(result == 0) {
+				trackLayout(layout -> layout.remove(className));
+				notify("removeClass", getModel());
+			}
+			return result;
+		});
 	}
 
 	public int addField(String className, String type, String fieldName) {
-		int result = getModel().addFields(className, type, fieldName);
-		if(result == 0)
-			notify("addField", getModel());
-		return result;
+		return timed("controller.addField", () -> {
+			int result = getModel().addFields(className, type, fieldName);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				notify("addField", getModel());
+			}
+			return result;
+		});
 	}
 
 	public int removeField(String className, String fieldName) {
-		int result = getModel().removeFields(className, fieldName);
-		if(result == 0)
-			notify("removeField", getModel());
-		return result;
+		return timed("controller.removeField", () -> {
+			int result = getModel().removeFields(className, fieldName);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				notify("removeField", getModel());
+			}
+			return result;
+		});
 	}
 
 	public int addMethod(String className, String returnType, String methodName, String params) {
-		int result = getModel().addMethods(className, returnType, methodName, params);
-		if(result == 0)
-			notify("addMethod", getModel());
-		return result;
+		return timed("controller.addMethod", () -> {
+			int result = getModel().addMethods(className, returnType, methodName, params);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				notify("addMethod", getModel());
+			}
+			return result;
+		});
 	}
 
 	public int removeMethod(String className, String methodName, String params) {
-		int result = getModel().removeMethods(className, methodName, params);
-		if(result == 0)
-			notify("removeMethod", getModel());
-		return result;
+		return timed("controller.removeMethod", () -> {
+			int result = getModel().removeMethods(className, methodName, params);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				notify("removeMethod", getModel());
+			}
+			return result;
+		});
 	}
 
 	public int addRelationship(String class1, String type, String class2) {
-		int result = getModel().addRelationship(class1, type, class2);
-		if(result == 0)
-			notify("addRelationship", getModel());
-		return result;
+		return timed("controller.addRelationship", () -> {
+			int result = getModel().addRelationship(class1, type, class2);
+			if(result == 0) {
+				notify("addRelationship", getModel());
+				placeRelated(class1, class2);
+			}
+			return result;
+		});
 	}
 	
 
 	public int removeRelationship(String class1, String type, String class2) {
-		int result = getModel().removeRelationship(class1, type, class2);
-		if(result == 0)
-			notify("removeRelationship", getModel());
-		return result;
+		return timed("controller.removeRelationship", () -> {
+			int result = getModel().removeRelationship(class1, type, class2);
+			if(result == 0) {
+				trackLayout(layout -> layout.unrelate(class1, class2));
+				notify("removeRelationship", getModel());
+			}
+			return result;
+		});
+	}
+	
+	public int layout(String mode) {
+		return timed("controller.layout", () -> {
+			int result = new AutoLayout().layout(getModel(), mode);
+			if(result == 0) {
+				modelReplaced();
+				notify("layout", getModel());
+			}
+			return result;
+		});
 	}
 
 	public ArrayList<String[]> printClasses() {
@@ -122,6 +185,48 @@ public class CommandController extends UMLController {
 		return result;
 	}
 
+	public boolean printClasses(Consumer<String[]> boxes) {
+		boolean result = getModel().printClasses(boxes);
+		if(result)
+			notify("printClasses", getModel());
+		return result;
+	}
+
+	public boolean printClasses(Writer out) throws IOException {
+		boolean result = getModel().printClasses(out);
+		if(result)
+			notify("printClasses", getModel());
+		return result;
+	}
+
+	public boolean printClasses(String className, Writer out) throws IOException {
+		boolean result = getModel().printClasses(className, out);
+		if(result)
+			notify("printClasses", getModel());
+		return result;
+	}
+
+	public boolean printRelationships(Consumer<String[]> boxes) {
+		boolean result = getModel().printRelationships(boxes);
+		if(result)
+			notify("printRelationships", getModel());
+		return result;
+	}
+
+	public boolean printRelationships(Writer out) throws IOException {
+		boolean result = getModel().printRelationships(out);
+		if(result)
+			notify("printRelationships", getModel());
+		return result;
+	}
+
+	public int printRelationships(String className, Writer out) throws IOException {
+		int result = getModel().printRelationships(className, out);
+		if(result >= 0)
+			notify("printRelationships", getModel());
+		return result;
+	}
+
 	public String[] printClasses(String className) {
 		String[] result = getModel().printClasses(className);
 		if(result != null)
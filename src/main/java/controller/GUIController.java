@@ -4,11 +4,13 @@ package controller;
 // System imports
 
 // Local imports
+import layout.AutoLayout;
 import model.UMLClass;
 import model.UMLClassManager;
 
 /**
- * Controller for the GUIView
+ * Controller for the GUIView. Every action returns its code, which the
+ * view shows to the user when it is an error.
  * @author ryan
  *
  */
@@ -21,15 +23,18 @@ public class GUIController extends UMLController {
 	 *  Add class with specified location
 	 */
 	public int addClass(String className, int x, int y) {
-		int result = model.addClass(className);
-		if(result == 0) {
-			// Set classes x and y location
-			result = model.setClassLocation(className, x, y);
-			
-			// Notify observers of change
-			notify("addClass", getModel().getClass(className));
-		}
-		return result;
+		return timed("controller.addClass", () -> {
+			int result = model.addClass(className);
+			if(result == 0) {
+				// Set classes x and y location
+				result = model.setClassLocation(className, x, y);
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observers of change
+				notify("addClass", getModel().getClass(className));
+			}
+			return result;
+		});
 	}
 
 	/**
@@ -37,7 +42,10 @@ public class GUIController extends UMLController {
 	 */
 	@Override
 	public int addClass(String className) {
-		return addClass(className, 0, 0);
+		int result = addClass(className, 0, 0);
+		if(result == 0)
+			placeClass(className);
+		return result;
 	}
 
 	/**
@@ -47,111 +55,168 @@ public class GUIController extends UMLController {
 	public int removeClass(String className) {
 		// Save instance of class
 		UMLClass temp = model.getClass(className);
-		int result = model.removeClass(className);
-		if(result == 0) {
-			// Notify observer of change
-			notify("removeClass", temp);
-		}
-		return result;
+		return timed("controller.removeClass", () -> {
+			int result = model.removeClass(className);
+			if(result == 0) {
+				trackLayout(layout -> layout.remove(className));
+				
+				// Notify observer of change
+				notify("removeClass", temp);
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int addField(String className, String fieldName, String type) {
-		int result = model.addFields(className, fieldName, type);
-		if(result == 0) {
-			// Notify observer of change
-			notify("fieldChange", model.getClass(className));
-		}
-		return result;
+		return timed("controller.addField", () -> {
+			int result = model.addFields(className, fieldName, type);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observer of change
+				notify("fieldChange", model.getClass(className));
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int removeField(String className, String fieldName) {
-		int result = model.removeFields(className, fieldName);
-		if(result == 0) {
-			// Notify observer of change
-			notify("fieldChange", model.getClass(className));
-		}
-		return result;
+		return timed("controller.removeField", () -> {
+			int result = model.removeFields(className, fieldName);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observer of change
+				notify("fieldChange", model.getClass(className));
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int addMethod(String className, String returnType, String methodName, String params) {
-		int result = model.addMethods(className, returnType, methodName, params);
-		if(result == 0) {
-			// Notify observer of change
-			notify("methodChange", model.getClass(className));
-		}
-		return result;
+		return timed("controller.addMethod", () -> {
+			int result = model.addMethods(className, returnType, methodName, params);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observer of change
+				notify("methodChange", model.getClass(className));
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int removeMethod(String className, String methodName, String params) {
-		int result = model.removeMethods(className, methodName, params);
-		if(result == 0) {
-			// Notify observer of change
-			notify("methodChange", model.getClass(className));
-		}
-		return result;
+		return timed("controller.removeMethod", () -> {
+			int result = model.removeMethods(className, methodName, params);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observer of change
+				notify("methodChange", model.getClass(className));
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int addRelationship(String class1, String type, String class2) {
-		int result = model.addRelationship(class1, type, class2);
-		if(result == 0) {
-			// Notify observer of change
-			notify("relationshipChange", model);
-		}
-		return result;
+		return timed("controller.addRelationship", () -> {
+			int result = model.addRelationship(class1, type, class2);
+			if(result == 0) {
+				// Notify observer of change
+				notify("relationshipChange", model);
+				placeRelated(class1, class2);
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int removeRelationship(String class1, String type, String class2) {
-		int result = model.removeRelationship(class1, type, class2);
-		if(result == 0) {
-			// Notify observer of change
-			notify("relationshipChange", model);
-		}
-		return result;
+		return timed("controller.removeRelationship", () -> {
+			int result = model.removeRelationship(class1, type, class2);
+			if(result == 0) {
+				trackLayout(layout -> layout.unrelate(class1, class2));
+				
+				// Notify observer of change
+				notify("relationshipChange", model);
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int editClass(String oldClass, String newClass) {
-		int result = model.editClass(oldClass, newClass);
-		if(result == 0) {
-			// Notify observer of change
-			notify("classChange", model.getClass(newClass));
-		}
-		return result;
+		return timed("controller.editClass", () -> {
+			int result = model.editClass(oldClass, newClass);
+			if(result == 0) {
+				trackLayout(layout -> layout.rename(oldClass, newClass));
+				
+				// Notify observer of change
+				notify("classChange", model.getClass(newClass));
+			}
+			return result;
+		});
 	}
 
 	@Override
 	public int editField(String className, String oldField, String newField) {
-		int result = model.editFields(className, oldField, newField);
-		if(result == 0) {
-			// Notify observer of change
-			notify("fieldChange", model.getClass(className));
-		}
-		return result;
+		return timed("controller.editField", () -> {
+			int result = model.editFields(className, oldField, newField);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observer of change
+				notify("fieldChange", model.getClass(className));
+			}
+			return result;
+		});
 	}
 	
 	@Override
 	public int editRelationships(String originClass, String oldType, String destClass, String newType) {
-		int result = model.editRelationships(originClass, oldType, destClass, newType);
-		if (result == 0) {
-			notify("editRelationships", model);
-		}
-		return result;
+		return timed("controller.editRelationships", () -> {
+			int result = model.editRelationships(originClass, oldType, destClass, newType);
+			if (result == 0) {
+				notify("editRelationships", model);
+			}
+			return result;
+		});
 	}
 	
 
 	@Override
 	public int editMethod(String className, String oldMethod, String newMethod, String params) {
-		int result = model.editMethods(className, oldMethod, newMethod, params);
-		if(result == 0) {
-			// Notify observer of change
-			notify("methodChange", model.getClass(className));
-		}
-		return result;
+		return timed("controller.editMethod", () -> {
+			int result = model.editMethods(className, oldMethod, newMethod, params);
+			if(result == 0) {
+				trackLayout(layout -> layout.update(className));
+				
+				// Notify observer of change
+				notify("methodChange", model.getClass(className));
+			}
+			return result;
+		});
+	}
+
+	/**
+	 * Arrange every class with the automatic layout
+	 * @param mode - AutoLayout.FORCE or AutoLayout.LAYERED
+	 */
+	@Override
+	public int layout(String mode) {
+		return timed("controller.layout", () -> {
+			AutoLayout.Pending layout = prepareLayout(mode);
+			if(layout == null)
+				return 112;
+			layout.run();
+			moveClasses(layout);
+			return 0;
+		});
 	}
 }
@@ -1,11 +1,21 @@
 package controller;
 
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+import core.EditorEvents;
+import core.Metrics;
+import layout.AutoLayout;
+import layout.IncrementalLayout;
 import model.UMLClassManager;
 import observe.Observable;
 
 public abstract class UMLController extends Observable {
 	protected UMLClassManager model;
 	
+	// Places classes as they are added or related, null while turned off
+	private IncrementalLayout incremental;
+	
 	public UMLController(UMLClassManager model) {
 		this.model = model;
 	}
@@ -14,6 +24,134 @@ public abstract class UMLController extends Observable {
 		return model;
 	}
 	
+	/**
+	 * Run an action that changes the model, recording its latency for the
+	 * stats command and committing its Flight Recorder event
+	 * @param operation - name of the action
+	 * @param action - the action, returning its code
+	 * @return - code returned by the action
+	 */
+	protected int timed(String operation, IntSupplier action) {
+		long start = Metrics.start();
+		EditorEvents.Mutation event = new EditorEvents.Mutation();
+		event.begin();
+		int result = action.getAsInt();
+		event.end();
+		if(event.shouldCommit()) {
+			event.operation = operation;
+			event.classes = model.getClassCount();
+			event.relationships = model.getRelationshipCount();
+			event.result = result;
+			event.commit();
+		}
+		return Metrics.record(operation, start, result);
+	}
+	
+	/**
+	 * Turn incremental layout on or off. While on, classes added without a
+	 * location and classes that gain a relationship are moved next to their
+	 * related classes, and observers get a "classMoved" event for each.
+	 * @param on - true to place classes
+	 */
+	public void setIncrementalLayout(boolean on) {
+		incremental = on ? new IncrementalLayout(model) : null;
+	}
+	
+	/**
+	 * Check if incremental layout is on
+	 * @return - true if classes are placed as they are edited
+	 */
+	public boolean isIncrementalLayout() {
+		return incremental != null;
+	}
+	
+	/**
+	 * Tell the incremental layout that a class was moved outside the controller,
+	 * such as by dragging it
+	 * @param className - name of the class
+	 */
+	public void locationChanged(String className) {
+		if(incremental != null)
+			incremental.update(className);
+	}
+	
+	/**
+	 * Tell the incremental layout that the whole model changed, such as after loading a file
+	 */
+	public void modelReplaced() {
+		if(incremental != null)
+			incremental.invalidate();
+	}
+	
+	/**
+	 * Place a class added without a location next to the class placed before it
+	 * @param className - name of the added class
+	 */
+	protected void placeClass(String className) {
+		if(incremental == null)
+			return;
+		long start = Metrics.start();
+		if(incremental.place(className))
+			notify("classMoved", model.getClass(className));
+		Metrics.record("layout.place", start);
+	}
+	
+	/**
+	 * Place the less related class of a new relationship next to its related classes
+	 * @param class1 - first class of the relationship
+	 * @param class2 - second class of the relationship
+	 */
+	protected void placeRelated(String class1, String class2) {
+		if(incremental == null)
+			return;
+		long start = Metrics.start();
+		String moved = incremental.relate(class1, class2);
+		if(moved != null)
+			notify("classMoved", model.getClass(moved));
+		Metrics.record("layout.place", start);
+	}
+	
+	/**
+	 * Keep the incremental layout in step with an edit that moves no classes
+	 * @param change - edit to apply to the layout
+	 */
+	protected void trackLayout(Consumer<IncrementalLayout> change) {
+		if(incremental != null)
+			change.accept(incremental);
+	}
+	
+	/**
+	 * Read the model for the automatic layout, so its positions can be computed
+	 * away from the event thread
+	 * @param mode - AutoLayout.FORCE or AutoLayout.LAYERED
+	 * @return - layout to run, null if the mode is not a layout
+	 */
+	public AutoLayout.Pending prepareLayout(String mode) {
+		return new AutoLayout().prepare(model, mode);
+	}
+	
+	/**
+	 * Move the classes to the positions of a layout that has run
+	 * @param layout - layout from prepareLayout
+	 * @return - 0
+	 */
+	public int applyLayout(AutoLayout.Pending layout) {
+		return timed("controller.applyLayout", () -> {
+			moveClasses(layout);
+			return 0;
+		});
+	}
+	
+	/**
+	 * Write the positions of a layout to the model and tell the observers
+	 * @param layout - layout that has run
+	 */
+	protected void moveClasses(AutoLayout.Pending layout) {
+		layout.apply(model);
+		modelReplaced();
+		notify("layout", model);
+	}
+	
 	public abstract int addClass(String className);
 	public abstract int addClass(String className, int x, int y);
 	public abstract int removeClass(String className);
@@ -30,4 +168,6 @@ public abstract class UMLController extends Observable {
 	public abstract int addRelationship(String class1, String type, String class2);
 	public abstract int removeRelationship(String class1, String type, String class2);
 	public abstract int editRelationships(String originClass, String oldType, String destClass, String newType);
+	
+	public abstract int layout(String mode);
 }
@@ -0,0 +1,208 @@
+// Package name
+package core;
+
+// System imports
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Java Flight Recorder events of the editor, so a recording can tie a slow save,
+ * load or paint to the size of the model. Every event has the usual JFR duration
+ * and is only committed when a recording enables it; when none does, creating and
+ * beginning an event is optimized away.
+ * <p>
+ * Events follow the JFR pattern:
+ * <pre>
+ * EditorEvents.Save event = new EditorEvents.Save();
+ * event.begin();
+ * ...
+ * if(event.shouldCommit()) {
+ * 	event.classes = ...;
+ * 	event.commit();
+ * }
+ * </pre>
+ * Record them with -XX:StartFlightRecording or JDK Mission Control, they are
+ * listed under the "UML Editor" category.
+ * @author Ryan
+ *
+ */
+public final class EditorEvents {
+	private EditorEvents() {}
+
+	/**
+	 * An action of a controller that changes the model
+	 */
+	@Name("umleditor.ModelMutation")
+	@Label("Model Mutation")
+	@Category({"UML Editor", "Model"})
+	@Description("Action of a controller that changes the model")
+	@StackTrace(false)
+	public static class Mutation extends Event {
+		@Label("Operation")
+		public String operation;
+
+		@Label("Classes")
+		@Description("Classes in the model after the action")
+		public int classes;
+
+		@Label("Relationships")
+		@Description("Relationships in the model after the action")
+		public int relationships;
+
+		@Label("Result")
+		@Description("Code returned by the action, 0 on success")
+		public int result;
+	}
+
+	/**
+	 * Saving a model to a file
+	 */
+	@Name("umleditor.Save")
+	@Label("Save Model")
+	@Category({"UML Editor", "File"})
+	@StackTrace(false)
+	public static class Save extends Event {
+		@Label("Path")
+		public String path;
+
+		@Label("Classes")
+		public int classes;
+
+		@Label("Relationships")
+		public int relationships;
+
+		@Label("File Size")
+		@Description("Bytes written to the file, after compression")
+		@DataAmount(DataAmount.BYTES)
+		public long bytes;
+
+		@Label("Result")
+		public int result;
+	}
+
+	/**
+	 * Loading a model from a file
+	 */
+	@Name("umleditor.Load")
+	@Label("Load Model")
+	@Category({"UML Editor", "File"})
+	@StackTrace(false)
+	public static class Load extends Event {
+		@Label("Path")
+		public String path;
+
+		@Label("Parallel")
+		public boolean parallel;
+
+		@Label("Classes")
+		@Description("Classes in the model after loading")
+		public int classes;
+
+		@Label("Relationships")
+		@Description("Relationships in the model after loading")
+		public int relationships;
+
+		@Label("File Size")
+		@Description("Bytes read from the file, before decompression")
+		@DataAmount(DataAmount.BYTES)
+		public long bytes;
+
+		@Label("Result")
+		public int result;
+	}
+
+	/**
+	 * One phase of loading a model. The file is streamed, so "parse" and "read"
+	 * also cover reading and decompressing it. A parallel load reads records in
+	 * "read" while the pool binds them, then waits for them in "bind". "link"
+	 * shares names and links relationships to the loaded classes.
+	 */
+	@Name("umleditor.LoadPhase")
+	@Label("Load Phase")
+	@Category({"UML Editor", "File"})
+	@StackTrace(false)
+	public static class LoadPhase extends Event {
+		@Label("Phase")
+		public String phase;
+
+		@Label("Classes")
+		public int classes;
+
+		@Label("Relationships")
+		public int relationships;
+
+		/**
+		 * Begin timing a phase
+		 * @return - event to finish once the phase is done
+		 */
+		public static LoadPhase start() {
+			LoadPhase event = new LoadPhase();
+			event.begin();
+			return event;
+		}
+
+		/**
+		 * End the phase and commit it if a recording wants it
+		 * @param phase - name of the phase
+		 * @param classes - classes handled by the phase
+		 * @param relationships - relationships handled by the phase
+		 */
+		public void finish(String phase, int classes, int relationships) {
+			end();
+			if(shouldCommit()) {
+				this.phase = phase;
+				this.classes = classes;
+				this.relationships = relationships;
+				commit();
+			}
+		}
+	}
+
+	/**
+	 * A paint pass of the diagram
+	 */
+	@Name("umleditor.Paint")
+	@Label("Paint Diagram")
+	@Category({"UML Editor", "GUI"})
+	@StackTrace(false)
+	public static class Paint extends Event {
+		@Label("Classes")
+		@Description("Class components in the diagram")
+		public int classes;
+
+		@Label("Relationships")
+		@Description("Relationship lines drawn")
+		public int relationships;
+
+		@Label("Width")
+		public int width;
+
+		@Label("Height")
+		public int height;
+	}
+
+	/**
+	 * Delivery of a notification to the observers of a controller or model
+	 */
+	@Name("umleditor.Dispatch")
+	@Label("Event Dispatch")
+	@Category({"UML Editor", "Events"})
+	@StackTrace(false)
+	public static class Dispatch extends Event {
+		@Label("Tag")
+		@Description("Tag of the notification, the first one of a batch")
+		public String tag;
+
+		@Label("Events")
+		@Description("Notifications delivered, more than one when batching")
+		public int events;
+
+		@Label("Observers")
+		public int observers;
+	}
+}
@@ -2,23 +2,22 @@
 package core;
 
 // System imports
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Map;
 
 // Local imports
 
 /**
- * Class to help with error handling. Contains a map of error codes to their string equivalents.
+ * Class to help with error handling. Contains a read-only map of error codes to their string equivalents.
  *
  */
 public class ErrorHandler {
 	// Map with the relationship: error_code -> String representation of error
-	public static final HashMap<Integer, String> ERROR_TABLE = createErrorTable();
-	
-	// Last stored error code
-	public static int LAST_CODE = 0;
+	public static final Map<Integer, String> ERROR_TABLE = createErrorTable();
 	
 	// Initializer for ERROR_TABLE
-	private static final HashMap<Integer, String> createErrorTable() {
+	private static final Map<Integer, String> createErrorTable() {
 		// Create temporary map
 		HashMap<Integer, String> tempMap = new HashMap<Integer, String>();
 		
@@ -36,6 +35,9 @@ public class ErrorHandler {
 		tempMap.put(110, "Unable to set GUI look and feel.");
 		tempMap.put(111, "Unable to export to PNG");
 		tempMap.put(112, "Invalid input entered.");
+		tempMap.put(113, "One or more script commands failed.");
+		tempMap.put(114, "Unable to write output.");
+		tempMap.put(115, "Command is not allowed in a script.");
 		tempMap.put(200, "Class not added. Duplicate class.");
 		tempMap.put(201, "Class not removed. Class does not exist.");
 		tempMap.put(202, "Relationship is not of a valid type.");
@@ -54,7 +56,7 @@ public class ErrorHandler {
 		tempMap.put(408, "Method name entered is invalid.");
 		tempMap.put(409, "Field name entered is invalid.");
 		tempMap.put(410, "Relationship of this type already exists between specified classes");
-		return tempMap;
+		return Collections.unmodifiableMap(tempMap);
 	}
 	
 	/**
@@ -67,14 +69,4 @@ public class ErrorHandler {
 			return "Error " + code + ": " + ERROR_TABLE.get(code);
 		return "No such error found";
 	}
-	
-	/**
-	 * Set the last code and return the passed in code for convenience
-	 * @param code - return code
-	 * @return the passed in code
-	 */
-	public static final int setCode(int code) {
-		LAST_CODE = code;
-		return code;
-	}
 }
\ No newline at end of file
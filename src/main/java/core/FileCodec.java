@@ -0,0 +1,49 @@
+// Package name
+package core;
+
+// System imports
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+
+/**
+ * Pluggable encoding for save files. A codec wraps the raw file streams so
+ * that the model is compressed/decompressed while it is being written/read.
+ * @author Ryan
+ *
+ */
+public interface FileCodec {
+	/**
+	 * Get the file extension associated with this codec (ex. ".gz")
+	 * @return - extension including the leading '.'
+	 */
+	public String getExtension();
+
+	/**
+	 * Get the number of leading bytes needed to identify this codec
+	 * @return - length of the magic number
+	 */
+	public int getMagicLength();
+
+	/**
+	 * Check if the first bytes of a file belong to this codec
+	 * @param header - the first bytes of the file
+	 * @param length - the number of valid bytes in header
+	 * @return - true if this codec can decode the file
+	 */
+	public boolean matches(byte[] header, int length);
+
+	/**
+	 * Wrap a raw output stream so that written bytes are encoded
+	 * @param out - raw file stream
+	 * @return - encoding stream
+	 */
+	public OutputStream encode(OutputStream out) throws IOException;
+
+	/**
+	 * Wrap a raw input stream so that read bytes are decoded
+	 * @param in - raw file stream
+	 * @return - decoding stream
+	 */
+	public InputStream decode(InputStream in) throws IOException;
+}
@@ -0,0 +1,45 @@
+// Package name
+package core;
+
+// System imports
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Codec for gzip compressed save files (*.json.gz)
+ * @author Ryan
+ *
+ */
+public class GzipCodec implements FileCodec {
+	// Size of the deflater buffers
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	@Override
+	public String getExtension() {
+		return ".gz";
+	}
+
+	@Override
+	public int getMagicLength() {
+		return 2;
+	}
+
+	@Override
+	public boolean matches(byte[] header, int length) {
+		// Gzip streams always start with 0x1f 0x8b
+		return length >= 2 && (header[0] & 0xff) == 0x1f && (header[1] & 0xff) == 0x8b;
+	}
+
+	@Override
+	public OutputStream encode(OutputStream out) throws IOException {
+		return new GZIPOutputStream(out, BUFFER_SIZE);
+	}
+
+	@Override
+	public InputStream decode(InputStream in) throws IOException {
+		return new GZIPInputStream(in, BUFFER_SIZE);
+	}
+}
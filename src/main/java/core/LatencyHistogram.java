@@ -0,0 +1,138 @@
+// Package name
+package core;
+
+// System imports
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Histogram of latencies in nanoseconds with log-linear buckets, in the style of
+ * HdrHistogram. Every power of two is split into 32 linear sub-buckets, so any
+ * recorded value is known to within about 3% using a fixed 15 KB of counts.
+ * Recording is lock free and can happen from several threads at once.
+ * @author Ryan
+ *
+ */
+public final class LatencyHistogram {
+	// Sub-buckets per power of two, as a number of bits
+	private static final int SUB_BUCKET_BITS = 5;
+	private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+	// Enough buckets for every positive long
+	private static final int BUCKETS = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+
+	private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong total = new AtomicLong();
+	private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Record a latency
+	 * @param nanos - latency in nanoseconds, negative values count as 0
+	 */
+	public void record(long nanos) {
+		if(nanos < 0)
+			nanos = 0;
+		counts.incrementAndGet(bucket(nanos));
+		count.incrementAndGet();
+		total.addAndGet(nanos);
+		min.accumulateAndGet(nanos, Math::min);
+		max.accumulateAndGet(nanos, Math::max);
+	}
+
+	/**
+	 * Find the bucket of a value. Values below 2 * SUB_BUCKETS get their own bucket,
+	 * above that each power of two is split into SUB_BUCKETS equal parts.
+	 */
+	static int bucket(long value) {
+		int msb = 63 - Long.numberOfLeadingZeros(value);
+		if(msb < SUB_BUCKET_BITS)
+			return (int)value;
+		int shift = msb - SUB_BUCKET_BITS;
+		return ((shift + 1) << SUB_BUCKET_BITS) + (int)((value >>> shift) - SUB_BUCKETS);
+	}
+
+	/**
+	 * Get the highest value that falls in a bucket
+	 */
+	static long highestValue(int bucket) {
+		if(bucket < 2 * SUB_BUCKETS)
+			return bucket;
+		int shift = (bucket >>> SUB_BUCKET_BITS) - 1;
+		long sub = SUB_BUCKETS + (bucket & (SUB_BUCKETS - 1));
+		return ((sub + 1) << shift) - 1;
+	}
+
+	/**
+	 * Get the number of recorded values
+	 * @return - count
+	 */
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Get the mean of the recorded values
+	 * @return - mean in nanoseconds, 0 if nothing was recorded
+	 */
+	public double getMean() {
+		long n = count.get();
+		return n == 0 ? 0 : (double)total.get() / n;
+	}
+
+	/**
+	 * Get the smallest recorded value
+	 * @return - minimum in nanoseconds, 0 if nothing was recorded
+	 */
+	public long getMin() {
+		long value = min.get();
+		return value == Long.MAX_VALUE ? 0 : value;
+	}
+
+	/**
+	 * Get the largest recorded value
+	 * @return - maximum in nanoseconds
+	 */
+	public long getMax() {
+		return max.get();
+	}
+
+	/**
+	 * Get the value below which the given percentage of values fall
+	 * @param percentile - percentage between 0 and 100
+	 * @return - value in nanoseconds, accurate to the bucket width, never above the maximum
+	 */
+	public long getValueAtPercentile(double percentile) {
+		long n = count.get();
+		if(n == 0)
+			return 0;
+		long target = Math.max(1, (long)Math.ceil(Math.min(percentile, 100) / 100 * n));
+		long seen = 0;
+		for(int i = 0; i < BUCKETS; i++) {
+			seen += counts.get(i);
+			if(seen >= target)
+				return Math.min(highestValue(i), getMax());
+		}
+		return getMax();
+	}
+
+	/**
+	 * Pass every non-empty bucket to the visitor, from low to high
+	 * @param visitor - receives the highest value of the bucket and its count
+	 */
+	public void forEachBucket(BucketVisitor visitor) {
+		for(int i = 0; i < BUCKETS; i++) {
+			long bucketCount = counts.get(i);
+			if(bucketCount != 0)
+				visitor.visit(highestValue(i), bucketCount);
+		}
+	}
+
+	/**
+	 * Receives the buckets of a histogram
+	 */
+	public interface BucketVisitor {
+		void visit(long highestValue, long count);
+	}
+}
@@ -0,0 +1,179 @@
+// Package name
+package core;
+
+// System imports
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Latency metrics of the editor, one histogram per operation. Operations are
+ * named by area, such as "controller.addClass", "command.add class", "file.save"
+ * and "diagram.paint".
+ * <p>
+ * Timed code calls start before the operation and record after it:
+ * <pre>
+ * long start = Metrics.start();
+ * ...
+ * Metrics.record("file.save", start);
+ * </pre>
+ * While metrics are disabled start returns 0 without reading the clock and record
+ * returns straight away, so the only cost is reading a flag. Metrics are off
+ * unless the uml.metrics system property is true or they are turned on.
+ * @author Ryan
+ *
+ */
+public final class Metrics {
+	private static volatile boolean enabled = Boolean.getBoolean("uml.metrics");
+
+	// Histograms by operation name, created on first use
+	private static final ConcurrentHashMap<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<String, LatencyHistogram>();
+
+	private Metrics() {}
+
+	/**
+	 * Turn metrics on or off. Recorded values are kept.
+	 * @param on - true to record
+	 */
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	/**
+	 * Check if metrics are being recorded
+	 * @return - true if enabled
+	 */
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * Start timing an operation
+	 * @return - start time to pass to record, 0 if metrics are disabled
+	 */
+	public static long start() {
+		return enabled ? System.nanoTime() : 0;
+	}
+
+	/**
+	 * Record the time since start for an operation
+	 * @param operation - name of the operation
+	 * @param start - value returned by start
+	 */
+	public static void record(String operation, long start) {
+		if(start != 0)
+			histogram(operation).record(System.nanoTime() - start);
+	}
+
+	/**
+	 * Record the time since start for an operation and pass its result on
+	 * @param operation - name of the operation
+	 * @param start - value returned by start
+	 * @param result - result of the operation
+	 * @return - result
+	 */
+	public static int record(String operation, long start, int result) {
+		if(start != 0)
+			histogram(operation).record(System.nanoTime() - start);
+		return result;
+	}
+
+	/**
+	 * Get the histogram of an operation, creating it if needed
+	 * @param operation - name of the operation
+	 * @return - histogram
+	 */
+	public static LatencyHistogram histogram(String operation) {
+		LatencyHistogram histogram = HISTOGRAMS.get(operation);
+		if(histogram == null)
+			histogram = HISTOGRAMS.computeIfAbsent(operation, key -> new LatencyHistogram());
+		return histogram;
+	}
+
+	/**
+	 * Get every histogram sorted by operation name
+	 * @return - histograms by operation
+	 */
+	public static TreeMap<String, LatencyHistogram> getHistograms() {
+		return new TreeMap<String, LatencyHistogram>(HISTOGRAMS);
+	}
+
+	/**
+	 * Forget everything recorded so far
+	 */
+	public static void reset() {
+		HISTOGRAMS.clear();
+	}
+
+	/**
+	 * Print a table of every operation with its count and latencies in microseconds
+	 * @param output - where to print the table
+	 */
+	public static void print(PrintStream output) {
+		TreeMap<String, LatencyHistogram> histograms = getHistograms();
+		output.println("Metrics are " + (enabled ? "on" : "off") + ". Latencies in microseconds.");
+		if(histograms.isEmpty()) {
+			output.println("Nothing recorded yet.");
+			return;
+		}
+
+		int width = "operation".length();
+		for(String operation : histograms.keySet())
+			width = Math.max(width, operation.length());
+
+		output.println(String.format("%-" + width + "s %10s %10s %10s %10s %10s %10s", "operation", "count", "mean", "p50", "p90", "p99", "max"));
+		for(Map.Entry<String, LatencyHistogram> entry : histograms.entrySet()) {
+			LatencyHistogram h = entry.getValue();
+			output.println(String.format("%-" + width + "s %10d %10.1f %10.1f %10.1f %10.1f %10.1f", entry.getKey(), h.getCount(),
+					h.getMean() / 1000, h.getValueAtPercentile(50) / 1000.0, h.getValueAtPercentile(90) / 1000.0,
+					h.getValueAtPercentile(99) / 1000.0, h.getMax() / 1000.0));
+		}
+	}
+
+	/**
+	 * Write every histogram as JSON. Latencies are in nanoseconds and buckets are
+	 * [highest value, count] pairs, so the full distribution can be rebuilt.
+	 * @param writer - destination of the JSON
+	 */
+	public static void writeJSON(Writer writer) throws IOException {
+		JsonWriter json = new JsonWriter(writer);
+		json.setIndent("  ");
+		json.beginObject();
+		json.name("enabled").value(enabled);
+		json.name("unit").value("ns");
+		json.name("operations").beginObject();
+		for(Map.Entry<String, LatencyHistogram> entry : getHistograms().entrySet()) {
+			LatencyHistogram h = entry.getValue();
+			json.name(entry.getKey()).beginObject();
+			json.name("count").value(h.getCount());
+			json.name("mean").value(h.getMean());
+			json.name("min").value(h.getMin());
+			json.name("p50").value(h.getValueAtPercentile(50));
+			json.name("p90").value(h.getValueAtPercentile(90));
+			json.name("p99").value(h.getValueAtPercentile(99));
+			json.name("p999").value(h.getValueAtPercentile(99.9));
+			json.name("max").value(h.getMax());
+			json.name("buckets").beginArray();
+			IOException[] failure = new IOException[1];
+			h.forEachBucket((highestValue, count) -> {
+				try {
+					json.beginArray().value(highestValue).value(count).endArray();
+				} catch(IOException e) {
+					failure[0] = e;
+				}
+			});
+			if(failure[0] != null)
+				throw failure[0];
+			json.endArray();
+			json.endObject();
+		}
+		json.endObject();
+		json.endObject();
+		json.flush();
+	}
+}
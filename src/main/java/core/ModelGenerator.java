@@ -0,0 +1,381 @@
+// Package name
+package core;
+
+// System imports
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+
+// Local imports
+import model.Field;
+import model.Method;
+import model.UMLClass;
+import model.UMLClassManager;
+
+/**
+ * Generates synthetic models for performance tests, benchmarks and reproducing
+ * large diagrams. The same seed and settings always give the same model.
+ * <p>
+ * Member counts follow an exponential distribution around the configured means,
+ * so most classes are small and a few are large. Some field and parameter types
+ * refer to other classes. Relationship targets are biased towards classes that
+ * are already targets, giving a few popular classes like in real designs.
+ * <p>
+ * Run from the command line, or with UMLDriver generate, to write a model in the
+ * save format or as a console script. See printUsage for the options.
+ * @author Ryan
+ *
+ */
+public class ModelGenerator {
+	// Words class and member names are built from
+	private static final String[] CLASS_WORDS = {"Account", "Order", "Customer", "Invoice", "Product", "Shipment", "Payment", "Address", "Report", "Session", "Event", "Node"};
+	private static final String[] FIELD_WORDS = {"id", "name", "count", "total", "owner", "parent", "state", "created", "size", "value"};
+	private static final String[] METHOD_WORDS = {"get", "set", "update", "find", "create", "load", "save", "validate", "print", "run"};
+	private static final String[] PARAM_WORDS = {"a", "b", "c", "d", "e", "f", "g", "h"};
+
+	// Relationship types in the order of the mix weights
+	private static final String[] RELATIONSHIP_TYPES = {"aggregation", "composition", "inheritance", "realization"};
+
+	// Distance between classes on the grid
+	private static final int SPACING = 200;
+
+	// Chance that a member type refers to another class instead of a primitive
+	private static final double CLASS_TYPE_CHANCE = 0.2;
+
+	// Chance that a relationship goes to a class that is already a target
+	private static final double POPULAR_CHANCE = 0.5;
+
+	private final long seed;
+	private double fields = 3;
+	private double methods = 3;
+	private double params = 1.5;
+	private double relationships = 1.0;
+	private int[] mix = {3, 2, 3, 2};
+
+	/**
+	 * Create a generator
+	 * @param seed - seed of the random choices
+	 */
+	public ModelGenerator(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Set the mean number of fields per class
+	 * @param fields - mean fields per class
+	 * @return - this generator
+	 */
+	public ModelGenerator fields(double fields) {
+		this.fields = fields;
+		return this;
+	}
+
+	/**
+	 * Set the mean number of methods per class
+	 * @param methods - mean methods per class
+	 * @return - this generator
+	 */
+	public ModelGenerator methods(double methods) {
+		this.methods = methods;
+		return this;
+	}
+
+	/**
+	 * Set the mean number of parameters per method
+	 * @param params - mean parameters per method
+	 * @return - this generator
+	 */
+	public ModelGenerator params(double params) {
+		this.params = params;
+		return this;
+	}
+
+	/**
+	 * Set the number of relationships per class
+	 * @param relationships - relationships per class
+	 * @return - this generator
+	 */
+	public ModelGenerator relationships(double relationships) {
+		this.relationships = relationships;
+		return this;
+	}
+
+	/**
+	 * Set how often each relationship type is picked
+	 * @param aggregation - weight of aggregations
+	 * @param composition - weight of compositions
+	 * @param inheritance - weight of inheritance
+	 * @param realization - weight of realizations
+	 * @return - this generator
+	 */
+	public ModelGenerator mix(int aggregation, int composition, int inheritance, int realization) {
+		mix = new int[] {aggregation, composition, inheritance, realization};
+		return this;
+	}
+
+	/**
+	 * Get the name of a generated class
+	 * @param index - index of the class
+	 * @return - class name
+	 */
+	public static String className(int index) {
+		return CLASS_WORDS[index % CLASS_WORDS.length] + (index / CLASS_WORDS.length);
+	}
+
+	/**
+	 * Generate a model through the editing API
+	 * @param classes - number of classes
+	 * @return - new model
+	 */
+	public UMLClassManager generate(int classes) {
+		Random random = new Random(seed);
+		UMLClassManager model = new UMLClassManager();
+		int columns = Math.max(1, (int)Math.sqrt(classes));
+
+		for(int i = 0; i < classes; i++) {
+			String name = className(i);
+			model.addClass(name);
+
+			int fieldCount = sample(random, fields);
+			for(int f = 0; f < fieldCount; f++)
+				model.addFields(name, type(random, classes), memberName(FIELD_WORDS, f));
+
+			int methodCount = sample(random, methods);
+			for(int m = 0; m < methodCount; m++)
+				model.addMethods(name, type(random, classes), memberName(METHOD_WORDS, m), paramList(random, classes));
+
+			model.setClassLocation(name, (i % columns) * SPACING, (i / columns) * SPACING);
+		}
+
+		// Duplicates and self references are skipped, so a dense model may end up with fewer
+		int total = (int)Math.round(classes * relationships);
+		int mixTotal = 0;
+		for(int weight : mix)
+			mixTotal += weight;
+		ArrayList<String> targets = new ArrayList<String>();
+		for(int r = 0; r < total && classes > 1 && mixTotal > 0; r++) {
+			String source = className(random.nextInt(classes));
+			String destination = !targets.isEmpty() && random.nextDouble() < POPULAR_CHANCE
+					? targets.get(random.nextInt(targets.size()))
+					: className(random.nextInt(classes));
+			String type = pickType(random, mixTotal);
+			if(!source.equals(destination) && model.addRelationship(source, type, destination) == 0)
+				targets.add(destination);
+		}
+		return model;
+	}
+
+	/**
+	 * Draw a count from an exponential distribution
+	 * @param random - source of randomness
+	 * @param mean - mean count
+	 * @return - count, at least 0
+	 */
+	private static int sample(Random random, double mean) {
+		if(mean <= 0)
+			return 0;
+		return (int)Math.floor(-mean * Math.log(1 - random.nextDouble()) + 0.5);
+	}
+
+	// Name of the n-th member, unique within its class
+	private static String memberName(String[] words, int n) {
+		String word = words[n % words.length];
+		return n < words.length ? word : word + (n / words.length);
+	}
+
+	// Pick a member type, mostly primitives and sometimes another class
+	private static String type(Random random, int classes) {
+		if(random.nextDouble() < CLASS_TYPE_CHANCE)
+			return className(random.nextInt(classes));
+		return UMLClass.types[random.nextInt(UMLClass.types.length)];
+	}
+
+	// Build a parameter list such as "int a, Order3 b"
+	private String paramList(Random random, int classes) {
+		int count = Math.min(sample(random, params), PARAM_WORDS.length);
+		StringBuilder list = new StringBuilder();
+		for(int p = 0; p < count; p++) {
+			if(p > 0)
+				list.append(", ");
+			list.append(type(random, classes)).append(' ').append(PARAM_WORDS[p]);
+		}
+		return list.toString();
+	}
+
+	// Pick a relationship type by the mix weights
+	private String pickType(Random random, int mixTotal) {
+		int pick = random.nextInt(mixTotal);
+		for(int i = 0; i < mix.length; i++) {
+			pick -= mix[i];
+			if(pick < 0)
+				return RELATIONSHIP_TYPES[i];
+		}
+		return RELATIONSHIP_TYPES[0];
+	}
+
+	/**
+	 * Write a model as a console script that rebuilds it. Console commands
+	 * cannot place classes, so locations are not kept.
+	 * @param model - model to write
+	 * @param out - destination of the script
+	 */
+	public static void writeScript(UMLClassManager model, Writer out) throws IOException {
+		PrintWriter writer = new PrintWriter(out);
+		for(Object className : model.getClassNames())
+			writer.println("add class " + className);
+
+		for(Object className : model.getClassNames()) {
+			UMLClass umlClass = model.getClass((String)className);
+			for(Map.Entry<String, Field> entry : umlClass.getFields().entrySet()) {
+				Field field = entry.getValue();
+				writer.println("add field " + className + " " + field.getType() + " " + field.getName());
+			}
+			for(Method method : umlClass.getMethodSignatures().values()) {
+				// Strip the parentheses around the parameter list
+				String params = method.getParams();
+				params = params.substring(1, params.length() - 1);
+				writer.println("add method " + className + " " + method.getReturnType() + " " + method.getName() + (params.isEmpty() ? "" : " " + params));
+			}
+		}
+
+		model.getRelationships().forEach((key, relation) ->
+			writer.println("add relationship " + relation.getClass1().getName() + " " + relation.getType() + " " + relation.getClass2().getName()));
+		writer.flush();
+		if(writer.checkError())
+			throw new IOException("Could not write script");
+	}
+
+	/**
+	 * Print how to run the generator
+	 */
+	private static void printUsage(PrintWriter out) {
+		out.println("Usage: generate [options]");
+		out.println("  --classes <n>         number of classes (default 1000)");
+		out.println("  --seed <n>            seed of the random choices (default 420)");
+		out.println("  --fields <mean>       mean fields per class (default 3)");
+		out.println("  --methods <mean>      mean methods per class (default 3)");
+		out.println("  --params <mean>       mean parameters per method (default 1.5)");
+		out.println("  --relationships <n>   relationships per class (default 1)");
+		out.println("  --mix <a,c,i,r>       weights of aggregation, composition, inheritance and realization (default 3,2,3,2)");
+		out.println("  --format <json|script> save format or console script (default json)");
+		out.println("  --out <file>          file to write, a .gz extension compresses the save format (default standard output)");
+		out.flush();
+	}
+
+	/**
+	 * Generate a model and write it as the arguments ask
+	 * @param args - command line options, see usage
+	 * @return - 0 on success, error code otherwise
+	 */
+	public static int run(String[] args) {
+		int classes = 1000;
+		long seed = 420;
+		String format = "json";
+		String outPath = null;
+		PrintWriter errors = new PrintWriter(new OutputStreamWriter(System.err, StandardCharsets.UTF_8));
+
+		// Options are read before the generator exists, since it needs the seed
+		double[] means = {3, 3, 1.5, 1.0};
+		int[] mix = {3, 2, 3, 2};
+		try {
+			for(int i = 0; i < args.length; i++) {
+				String option = args[i];
+				if(option.equals("--help")) {
+					printUsage(errors);
+					return 0;
+				}
+				if(i + 1 >= args.length)
+					throw new IllegalArgumentException("Missing value for " + option);
+				String value = args[++i];
+				switch(option) {
+				case "--classes": classes = Integer.parseInt(value); break;
+				case "--seed": seed = Long.parseLong(value); break;
+				case "--fields": means[0] = Double.parseDouble(value); break;
+				case "--methods": means[1] = Double.parseDouble(value); break;
+				case "--params": means[2] = Double.parseDouble(value); break;
+				case "--relationships": means[3] = Double.parseDouble(value); break;
+				case "--mix":
+					String[] weights = value.split(",");
+					if(weights.length != 4)
+						throw new IllegalArgumentException("--mix takes four weights");
+					for(int w = 0; w < 4; w++)
+						mix[w] = Integer.parseInt(weights[w].trim());
+					break;
+				case "--format":
+					if(!value.equals("json") && !value.equals("script"))
+						throw new IllegalArgumentException("Unknown format " + value);
+					format = value;
+					break;
+				case "--out": outPath = value; break;
+				default: throw new IllegalArgumentException("Unknown option " + option);
+				}
+			}
+			if(classes < 0)
+				throw new IllegalArgumentException("--classes can not be negative");
+		} catch(IllegalArgumentException e) {
+			errors.println(e.getMessage());
+			printUsage(errors);
+			return 112;
+		}
+
+		ModelGenerator generator = new ModelGenerator(seed).fields(means[0]).methods(means[1]).params(means[2])
+				.relationships(means[3]).mix(mix[0], mix[1], mix[2], mix[3]);
+		UMLClassManager model = generator.generate(classes);
+
+		// Save files go through UMLFileIO so compressed extensions work
+		if(outPath != null && format.equals("json")) {
+			UMLFileIO fileIO = new UMLFileIO();
+			fileIO.setFile(outPath);
+			int result = fileIO.saveModel(model);
+			if(result != 0)
+				errors.println(ErrorHandler.toString(result));
+			errors.flush();
+			return result;
+		}
+
+		try {
+			if(outPath == null) {
+				// Flush instead of closing, so System.out stays open for the caller
+				Writer out = new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8));
+				write(model, format, out);
+				out.flush();
+			}
+			else {
+				try(Writer out = Files.newBufferedWriter(Paths.get(outPath), StandardCharsets.UTF_8)) {
+					write(model, format, out);
+				}
+			}
+		} catch(IOException e) {
+			int result = outPath == null ? 114 : 302;
+			errors.println(ErrorHandler.toString(result));
+			errors.flush();
+			return result;
+		}
+		return 0;
+	}
+
+	/**
+	 * Write the model in the given format
+	 * @param model - model to write
+	 * @param format - "json" or "script"
+	 * @param out - destination, left open
+	 */
+	private static void write(UMLClassManager model, String format, Writer out) throws IOException {
+		if(format.equals("json"))
+			model.writeJSON(out);
+		else
+			writeScript(model, out);
+	}
+
+	public static void main(String[] args) {
+		System.exit(run(args));
+	}
+}
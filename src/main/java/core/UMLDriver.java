@@ -3,9 +3,12 @@ package core;
 
 import controller.CommandController;
 import controller.GUIController;
+import model.ConcurrentUMLClassManager;
 import model.UMLClassManager;
 
 // System imports
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 // Local imports
 import views.ConsoleView;
@@ -20,13 +23,23 @@ public class UMLDriver {
 	public static void main(String[] args) {
 		// Check if GUI mode
 		boolean gui = args.length > 0 && args[0].equals("gui");
+		// Check if script mode
+		boolean script = args.length > 1 && args[0].equals("script");
 		
-		// Create model
-		UMLClassManager model = new UMLClassManager();
+		// Generate a synthetic model instead of starting the editor
+		if(args.length > 0 && args[0].equals("generate"))
+			System.exit(ModelGenerator.run(Arrays.copyOfRange(args, 1, args.length)));
+		
+		// Create model, one other threads can read while it is edited if asked for
+		UMLClassManager model = Boolean.getBoolean("uml.concurrent") ? new ConcurrentUMLClassManager() : new UMLClassManager();
 		
 		if(gui) {
 			new GUIView(new GUIController(model), model).show();
 		}
+		else if(script) {
+			int result = new ConsoleView(model, new CommandController(model)).runScript(Paths.get(args[1]), System.out, System.err);
+			System.exit(result == 0 ? 0 : 1);
+		}
 		else
 			new ConsoleView(model, new CommandController(model)).start();
 	}
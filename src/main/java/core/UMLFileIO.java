@@ -1,61 +1,100 @@
 package core;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.FileWriter;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.PrintWriter;
-import java.util.Scanner;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+import com.google.gson.JsonParseException;
+
+import model.CompactModel;
+import model.UMLClassManager;
 
 /**
  * @author Ryan Mass
  * @author Benjamin
  */
 public class UMLFileIO {
-	
+	// Size of the buffers between the file and the codec
+	private static final int BUFFER_SIZE = 64 * 1024;
+
+	// Codecs that save files may be encoded with
+	private static final ArrayList<FileCodec> CODECS = createCodecs();
+
 	private File saveFile;
-	
+
 	public UMLFileIO() {}
-	 /**  
-     * 
+
+	// Initializer for CODECS
+	private static final ArrayList<FileCodec> createCodecs() {
+		ArrayList<FileCodec> codecs = new ArrayList<FileCodec>();
+		codecs.add(new GzipCodec());
+		return codecs;
+	}
+
+	/**
+	 * Register an additional codec for reading and writing save files
+	 * @param codec - codec to register
+	 */
+	public static final void registerCodec(FileCodec codec) {
+		synchronized(CODECS) {
+			CODECS.add(0, codec);
+		}
+	}
+
+	/**
+	 * Check if the given path ends with the extension of a registered codec
+	 * @param filePath - path to check
+	 * @return - true if the path has a compressed extension
+	 */
+	public static final boolean isCompressedPath(String filePath) {
+		return codecForPath(filePath) != null;
+	}
+
+	 /**
+     *
      */
 	public int setFile (String filePath)  {
 		saveFile = new File (filePath); // creates a reference
 		return 0;
 	}
-	 
+
 	/**
-	 * Writes text to file  
+	 * Writes text to file
      * @param text text to write to file
      */
 	public int writeToFile (String text)  {
+		long start = Metrics.start();
+		
 		// If the file doesn't exist try to create
 		if(saveFile.exists() == false){
 			try {
 				saveFile.createNewFile();
 			} catch (IOException e) {
-				return 301;
+				return Metrics.record("file.write", start, 301);
 			}
-		}	
-		
-		FileWriter writer;
-		try {
-			writer = new FileWriter(saveFile);
-		} catch (IOException e) {
-			return 302;
 		}
-		PrintWriter printer = new PrintWriter(writer);
-		printer.print(text); 
-		printer.close(); // Force close
-		try {
-			writer.close();
+
+		try (Writer writer = openWriter()) {
+			writer.write(text);
 		} catch (IOException e) {
-			// TODO Auto-generated catch block
-			e.printStackTrace();
+			return Metrics.record("file.write", start, 302);
 		}
-		return 0;
+		return Metrics.record("file.write", start, 0);
 	}
-	 /**  
+	 /**
      *@return - an Object array of the format [readMessage, return code]
      */
 	public Object[] readFile()  {
@@ -63,22 +102,236 @@ public class UMLFileIO {
 		if(!fileSet() || !fileExists()) {
 			return new Object[] {"", 105};
 		}
+
+		long start = Metrics.start();
+		StringBuilder result = new StringBuilder();
+		try (BufferedReader reader = new BufferedReader(openReader())) {
+			String line;
+			while ((line = reader.readLine()) != null) {
+				result.append(line);
+			}
+		} catch (IOException e) {
+			Metrics.record("file.read", start);
+			return new Object[]{"", 303};
+		}
+		Metrics.record("file.read", start);
+		return new Object[]{result.toString(), 0};
+
+	}
+
+	/**
+	 * Stream the given model to the file as JSON, compressing it if the
+	 * file has a codec extension. A concurrent model writes a snapshot, so
+	 * edits made while the file is written do not end up half saved.
+	 * @param model - model to save
+	 * @return - 0 on success, error code otherwise
+	 */
+	public int saveModel(UMLClassManager model) {
+		long start = Metrics.start();
+		EditorEvents.Save event = new EditorEvents.Save();
+		event.begin();
+		
+		int result = 0;
+		
+		// If the file doesn't exist try to create
+		if(!saveFile.exists()) {
+			try {
+				saveFile.createNewFile();
+			} catch (IOException e) {
+				result = 301;
+			}
+		}
+
+		if(result == 0) {
+			try (Writer writer = openWriter()) {
+				model.writeJSON(writer);
+			} catch (IOException | JsonParseException e) {
+				result = 302;
+			}
+		}
+		
+		event.end();
+		if(event.shouldCommit()) {
+			event.path = saveFile.getPath();
+			event.classes = model.getClassCount();
+			event.relationships = model.getRelationshipCount();
+			event.bytes = saveFile.length();
+			event.result = result;
+			event.commit();
+		}
+		return Metrics.record("file.save", start, result);
+	}
+
+	/**
+	 * Stream JSON from the file into the given model, decompressing it
+	 * if the file starts with the magic bytes of a codec
+	 * @param model - model to load into
+	 * @return - 0 on success, error code otherwise
+	 */
+	public int loadModel(UMLClassManager model) {
+		return loadModel(model, false);
+	}
+
+	/**
+	 * Stream JSON from the file into the given model
+	 * @param model - model to load into
+	 * @param parallel - bind and validate class records across all cores
+	 * @return - 0 on success, error code otherwise
+	 */
+	public int loadModel(UMLClassManager model, boolean parallel) {
+		// Ensure file exists
+		if(!fileSet() || !fileExists()) {
+			return 105;
+		}
+
+		long start = Metrics.start();
+		EditorEvents.Load event = new EditorEvents.Load();
+		event.begin();
+		
+		int result;
+		try (Reader reader = openReader()) {
+			result = parallel ? model.parseJSONParallel(reader) : model.parseJSON(reader);
+		} catch (IOException | JsonParseException | IllegalStateException e) {
+			// The JSON is not shaped like a saved model
+			result = 303;
+		}
 		
-		Scanner sc;
+		event.end();
+		if(event.shouldCommit()) {
+			event.path = saveFile.getPath();
+			event.parallel = parallel;
+			event.classes = model.getClassCount();
+			event.relationships = model.getRelationshipCount();
+			event.bytes = saveFile.length();
+			event.result = result;
+			event.commit();
+		}
+		return Metrics.record(parallel ? "file.load parallel" : "file.load", start, result);
+	}
+
+	/**
+	 * Stream the file into a read-only CompactModel, for looking through or
+	 * exporting a large model without building its classes as objects
+	 * @return - an Object array of the format [CompactModel, return code], the model is null on error
+	 */
+	public Object[] loadCompact() {
+		// Ensure file exists
+		if(!fileSet() || !fileExists()) {
+			return new Object[] {null, 105};
+		}
+
+		long start = Metrics.start();
+		Object[] loaded;
+		try (Reader reader = openReader()) {
+			loaded = CompactModel.read(reader);
+		} catch (IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+			// The JSON is not shaped like a saved model
+			Metrics.record("file.load compact", start, 303);
+			return new Object[] {null, 303};
+		}
+		Metrics.record("file.load compact", start, (int)loaded[1]);
+		return loaded;
+	}
+
+	/**
+	 * Stream a CompactModel to the file as JSON, in the same format saveModel writes
+	 * @param model - compact model to save
+	 * @return - 0 on success, error code otherwise
+	 */
+	public int saveCompact(CompactModel model) {
+		long start = Metrics.start();
+		int result = 0;
+		try (Writer writer = openWriter()) {
+			model.writeJSON(writer);
+		} catch (IOException e) {
+			result = 302;
+		}
+		return Metrics.record("file.save compact", start, result);
+	}
+
+	/**
+	 * Open a buffered writer to the file. Output is encoded with the codec
+	 * matching the file extension, if there is one.
+	 * @return - writer to the file
+	 */
+	public Writer openWriter() throws IOException {
+		OutputStream out = new BufferedOutputStream(new FileOutputStream(saveFile), BUFFER_SIZE);
+		FileCodec codec = codecForPath(saveFile.getName());
+		if(codec != null) {
+			try {
+				out = codec.encode(out);
+			} catch(IOException e) {
+				out.close();
+				throw e;
+			}
+		}
+		return new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE);
+	}
+
+	/**
+	 * Open a buffered reader to the file. The format is detected from the
+	 * magic bytes at the start of the file rather than the extension.
+	 * @return - reader of the file
+	 */
+	public Reader openReader() throws IOException {
+		InputStream in = new BufferedInputStream(new FileInputStream(saveFile), BUFFER_SIZE);
 		try {
-			sc = new Scanner(saveFile);
-		} catch (FileNotFoundException e) {
-			return new Object[]{"", 303};
+			FileCodec codec = codecForHeader(in);
+			if(codec != null)
+				in = codec.decode(in);
+		} catch(IOException e) {
+			in.close();
+			throw e;
 		}
-		String result = "";
-		while (sc.hasNextLine()) {
-			result += sc.nextLine();
+		return new InputStreamReader(in, StandardCharsets.UTF_8);
+	}
+
+	/**
+	 * Find the codec whose magic bytes begin the stream, leaving the stream unread
+	 * @param in - stream supporting mark/reset
+	 * @return - matching codec, or null if the stream is plain text
+	 */
+	private static FileCodec codecForHeader(InputStream in) throws IOException {
+		synchronized(CODECS) {
+			// Peek at enough bytes for the longest magic number
+			int maxLength = 0;
+			for(FileCodec codec : CODECS)
+				maxLength = Math.max(maxLength, codec.getMagicLength());
+
+			byte[] header = new byte[maxLength];
+			in.mark(maxLength);
+			int length = 0;
+			while(length < maxLength) {
+				int read = in.read(header, length, maxLength - length);
+				if(read < 0)
+					break;
+				length += read;
+			}
+			in.reset();
+
+			for(FileCodec codec : CODECS) {
+				if(codec.matches(header, length))
+					return codec;
+			}
 		}
-		sc.close();
-		return new Object[]{result, 0};
+		return null;
+	}
 
+	/**
+	 * Find the codec associated with the extension of the given path
+	 * @param filePath - path of the file
+	 * @return - matching codec, or null if the path is plain text
+	 */
+	private static FileCodec codecForPath(String filePath) {
+		synchronized(CODECS) {
+			for(FileCodec codec : CODECS) {
+				if(filePath.endsWith(codec.getExtension()))
+					return codec;
+			}
+		}
+		return null;
 	}
-	
+
 	/**
 	 * Check if the file to save to has been set
 	 * @return - True if the file is set
@@ -86,7 +339,7 @@ public class UMLFileIO {
 	public boolean fileSet() {
 		return saveFile != null;
 	}
-	
+
 	/**
 	 * Make sure set file exists
 	 * @return - True if file exists
@@ -94,11 +347,11 @@ public class UMLFileIO {
 	public boolean fileExists() {
 		return saveFile.exists();
 	}
-	
+
 	/**
-	 * @return saved File  
+	 * @return saved File
 	 */
 	public File getFile() {
-		return saveFile; 
+		return saveFile;
 	}
 }
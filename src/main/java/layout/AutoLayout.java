@@ -0,0 +1,161 @@
+// Package name
+package layout;
+
+// Local imports
+import model.UMLClassManager;
+
+/**
+ * Arranges every class of a model automatically and writes the positions back
+ * with setClassLocation. Two layouts are available:
+ * <ul>
+ * <li>force - a force directed layout that puts related classes near each other,
+ * suited to any model. Uses several threads on large models.</li>
+ * <li>layered - rows of inheritance and realization hierarchies with parents on
+ * top, suited to class trees. Classes outside a hierarchy go in rows below.</li>
+ * </ul>
+ * Class sizes are estimated from their text, so the layouts work the same
+ * without a GUI. The same model and settings always give the same positions.
+ * <pre>
+ * new AutoLayout().spacing(60).layout(model, AutoLayout.LAYERED);
+ * </pre>
+ * To keep a GUI responsive, prepare reads the model into a Pending layout whose
+ * positions can be computed on another thread and applied afterwards.
+ * @author Ryan
+ *
+ */
+public class AutoLayout {
+	// Names of the layouts
+	public static final String FORCE = "force";
+	public static final String LAYERED = "layered";
+
+	// Distance of the top left class from the corner of the diagram
+	private static final int MARGIN = 20;
+
+	private int iterations = 200;
+	private int spacing = 40;
+	private double theta = 0.9;
+	private long seed = 1;
+
+	/**
+	 * Set the number of steps of the force layout
+	 * @param iterations - number of steps
+	 * @return - this layout
+	 */
+	public AutoLayout iterations(int iterations) {
+		this.iterations = Math.max(1, iterations);
+		return this;
+	}
+
+	/**
+	 * Set the space to keep between classes
+	 * @param spacing - space in pixels
+	 * @return - this layout
+	 */
+	public AutoLayout spacing(int spacing) {
+		this.spacing = Math.max(0, spacing);
+		return this;
+	}
+
+	/**
+	 * Set the Barnes-Hut accuracy of the force layout. 0 computes every pair of
+	 * classes exactly, around 1 is faster and still close.
+	 * @param theta - accuracy
+	 * @return - this layout
+	 */
+	public AutoLayout theta(double theta) {
+		this.theta = Math.max(0, theta);
+		return this;
+	}
+
+	/**
+	 * Set the seed used to spread classes that start on the same spot
+	 * @param seed - seed of the start positions
+	 * @return - this layout
+	 */
+	public AutoLayout seed(long seed) {
+		this.seed = seed;
+		return this;
+	}
+
+	/**
+	 * Lay out a model
+	 * @param model - model to arrange
+	 * @param mode - FORCE or LAYERED
+	 * @return - 0 on success, 112 if the mode is not a layout
+	 */
+	public int layout(UMLClassManager model, String mode) {
+		Pending pending = prepare(model, mode);
+		if(pending == null)
+			return 112;
+		pending.run();
+		pending.apply(model);
+		return 0;
+	}
+
+	/**
+	 * Read a model into a layout that is computed later. Only this and apply
+	 * touch the model, so they run on the thread that edits it and run can go
+	 * anywhere else.
+	 * @param model - model to arrange
+	 * @param mode - FORCE or LAYERED
+	 * @return - layout to run, null if the mode is not a layout
+	 */
+	public Pending prepare(UMLClassManager model, String mode) {
+		if(mode.equalsIgnoreCase(FORCE))
+			return new Pending(new LayoutGraph(model), true);
+		if(mode.equalsIgnoreCase(LAYERED))
+			return new Pending(new LayoutGraph(model), false);
+		return null;
+	}
+
+	/**
+	 * Arrange a model with the force directed layout
+	 * @param model - model to arrange
+	 */
+	public void force(UMLClassManager model) {
+		LayoutGraph graph = new LayoutGraph(model);
+		new ForceLayout(graph, iterations, spacing, theta, seed).run();
+		graph.apply(model, MARGIN);
+	}
+
+	/**
+	 * Arrange a model in layers by its inheritance and realization hierarchies
+	 * @param model - model to arrange
+	 */
+	public void layered(UMLClassManager model) {
+		LayoutGraph graph = new LayoutGraph(model);
+		new LayeredLayout(graph, spacing).run();
+		graph.apply(model, MARGIN);
+	}
+
+	/**
+	 * Positions of a model that was read by prepare, computed apart from the model
+	 */
+	public final class Pending {
+		private final LayoutGraph graph;
+		private final boolean force;
+
+		private Pending(LayoutGraph graph, boolean force) {
+			this.graph = graph;
+			this.force = force;
+		}
+
+		/**
+		 * Compute the positions without touching the model, on any thread
+		 */
+		public void run() {
+			if(force)
+				new ForceLayout(graph, iterations, spacing, theta, seed).run();
+			else
+				new LayeredLayout(graph, spacing).run();
+		}
+
+		/**
+		 * Write the positions to the model. Classes removed since prepare are skipped.
+		 * @param model - model that was prepared
+		 */
+		public void apply(UMLClassManager model) {
+			graph.apply(model, MARGIN);
+		}
+	}
+}
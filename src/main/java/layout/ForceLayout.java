@@ -0,0 +1,198 @@
+// Package name
+package layout;
+
+// System imports
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.stream.IntStream;
+
+/**
+ * Force directed layout after Fruchterman and Reingold. Every pair of classes
+ * pushes apart, related classes pull together and a weak gravity keeps
+ * unrelated groups from drifting off. The push of far away classes comes from
+ * a Barnes-Hut quadtree, so an iteration costs O(n log n) instead of O(n^2).
+ * <p>
+ * Forces of an iteration only read the positions of the previous one, so they
+ * are computed in parallel for large models. Classes start where they are,
+ * except classes sharing a spot, which are spread on a spiral first. Once the
+ * forces settle, boxes that still overlap are moved to the nearest free spot.
+ * @author Ryan
+ *
+ */
+final class ForceLayout {
+	// Models this size and above compute forces on several threads
+	private static final int PARALLEL_THRESHOLD = 512;
+
+	// Classes per parallel task
+	private static final int CHUNK = 128;
+
+	// Pull towards the center of the layout. With the push between classes it
+	// packs them evenly, about as far apart as the ideal distance times 1.8.
+	private static final double GRAVITY = 1.0;
+
+	// Ideal distance between the centers of related classes, relative to the box size and spacing
+	private static final double SCALE = 0.75;
+
+	private final LayoutGraph graph;
+	private final int iterations;
+	private final double spacing;
+	private final double theta;
+	private final long seed;
+
+	// Centers of the boxes while the forces run
+	private final double[] cx;
+	private final double[] cy;
+	private final double[] fx;
+	private final double[] fy;
+
+	/**
+	 * Create a layout
+	 * @param graph - classes to lay out
+	 * @param iterations - number of force steps
+	 * @param spacing - space to keep between boxes
+	 * @param theta - Barnes-Hut accuracy, lower is more accurate and slower
+	 * @param seed - seed of the start positions of classes that share a spot
+	 */
+	ForceLayout(LayoutGraph graph, int iterations, double spacing, double theta, long seed) {
+		this.graph = graph;
+		this.iterations = iterations;
+		this.spacing = spacing;
+		this.theta = theta;
+		this.seed = seed;
+		cx = new double[graph.size];
+		cy = new double[graph.size];
+		fx = new double[graph.size];
+		fy = new double[graph.size];
+	}
+
+	/**
+	 * Run the layout, leaving the top left corners in the graph
+	 */
+	void run() {
+		int n = graph.size;
+		if(n == 0)
+			return;
+
+		double k = (graph.meanBoxSize() + spacing) * SCALE;
+		spread(k);
+
+		QuadTree tree = new QuadTree();
+		double temperature = k * Math.sqrt(n) / 2;
+		int chunks = (n + CHUNK - 1) / CHUNK;
+		for(int iteration = 0; iteration < iterations; iteration++) {
+			double centerX = 0;
+			double centerY = 0;
+			for(int i = 0; i < n; i++) {
+				centerX += cx[i];
+				centerY += cy[i];
+			}
+			double gx = centerX / n;
+			double gy = centerY / n;
+
+			tree.build(cx, cy, n);
+			IntStream tasks = IntStream.range(0, chunks);
+			if(n >= PARALLEL_THRESHOLD)
+				tasks = tasks.parallel();
+			tasks.forEach(chunk -> forces(tree, chunk * CHUNK, Math.min(n, (chunk + 1) * CHUNK), k, gx, gy));
+
+			// Move every class along its force, at most by the temperature
+			double limit = temperature;
+			tasks = IntStream.range(0, n);
+			if(n >= PARALLEL_THRESHOLD)
+				tasks = tasks.parallel();
+			tasks.forEach(i -> {
+				double length = Math.sqrt(fx[i] * fx[i] + fy[i] * fy[i]);
+				if(length > limit) {
+					fx[i] *= limit / length;
+					fy[i] *= limit / length;
+				}
+				cx[i] += fx[i];
+				cy[i] += fy[i];
+			});
+
+			// Cool down linearly, ending with small adjustments
+			temperature = Math.max(k / 20, temperature - temperature / (iterations - iteration));
+		}
+
+		for(int i = 0; i < n; i++) {
+			graph.x[i] = cx[i] - graph.width[i] / 2.0;
+			graph.y[i] = cy[i] - graph.height[i] / 2.0;
+		}
+		removeOverlaps();
+	}
+
+	// Forces on the classes from first up to last
+	private void forces(QuadTree tree, int first, int last, double k, double gx, double gy) {
+		int[] stack = new int[256];
+		double[] push = new double[2];
+		double k2 = k * k;
+		for(int i = first; i < last; i++) {
+			tree.repulsion(i, cx[i], cy[i], theta, k2, stack, push);
+			double forceX = push[0];
+			double forceY = push[1];
+
+			for(int e = graph.adjacencyStart[i]; e < graph.adjacencyStart[i + 1]; e++) {
+				int j = graph.neighbours[e];
+				double dx = cx[j] - cx[i];
+				double dy = cy[j] - cy[i];
+				double distance = Math.sqrt(dx * dx + dy * dy);
+				forceX += dx * distance / k;
+				forceY += dy * distance / k;
+			}
+
+			forceX += (gx - cx[i]) * GRAVITY;
+			forceY += (gy - cy[i]) * GRAVITY;
+			fx[i] = forceX;
+			fy[i] = forceY;
+		}
+	}
+
+	// Start from the current centers, spreading classes that share a spot on a spiral around it
+	private void spread(double k) {
+		Random random = new Random(seed);
+		HashSet<Long> taken = new HashSet<Long>();
+		int shared = 0;
+		for(int i = 0; i < graph.size; i++) {
+			cx[i] = graph.x[i] + graph.width[i] / 2.0;
+			cy[i] = graph.y[i] + graph.height[i] / 2.0;
+			long spot = ((long)graph.x[i] << 32) ^ ((long)graph.y[i] & 0xFFFFFFFFL);
+			if(!taken.add(spot)) {
+				// Golden angle steps fill a disk evenly
+				shared++;
+				double angle = shared * 2.399963229728653 + random.nextDouble() * 0.1;
+				double radius = k * Math.sqrt(shared) * 0.6;
+				cx[i] += radius * Math.cos(angle);
+				cy[i] += radius * Math.sin(angle);
+			}
+		}
+	}
+
+	// Place classes from the center outwards, moving any that overlap a placed class
+	private void removeOverlaps() {
+		int n = graph.size;
+		double gx = 0;
+		double gy = 0;
+		for(int i = 0; i < n; i++) {
+			gx += cx[i] / n;
+			gy += cy[i] / n;
+		}
+		Integer[] order = new Integer[n];
+		double[] distance = new double[n];
+		for(int i = 0; i < n; i++) {
+			order[i] = i;
+			distance[i] = (cx[i] - gx) * (cx[i] - gx) + (cy[i] - gy) * (cy[i] - gy);
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(distance[a], distance[b]));
+
+		SpatialIndex index = new SpatialIndex(graph.meanBoxSize() + spacing);
+		double[] spot = new double[2];
+		double gap = spacing / 2;
+		for(int i : order) {
+			index.findFree(graph.x[i], graph.y[i], graph.width[i], graph.height[i], gap, -1, Integer.MAX_VALUE, spot);
+			graph.x[i] = spot[0];
+			graph.y[i] = spot[1];
+			index.insert(i, spot[0], spot[1], graph.width[i], graph.height[i]);
+		}
+	}
+}
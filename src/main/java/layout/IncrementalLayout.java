@@ -0,0 +1,287 @@
+// Package name
+package layout;
+
+// System imports
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+// Local imports
+import model.UMLClass;
+import model.UMLClassManager;
+import model.UMLRelationship;
+
+/**
+ * Places single classes as the model is edited, instead of arranging the whole
+ * diagram again. A new class, or one that just gained a relationship, is moved
+ * to the free spot closest to the classes it is related to. Every other class
+ * stays where it is.
+ * <p>
+ * Class boxes are kept in a SpatialIndex and relationships in an adjacency map,
+ * so placing a class only reads its neighbours and the boxes around the spot it
+ * goes to. Both are built from the model on first use. The owner reports every
+ * change through the methods below; changes made behind its back, such as
+ * loading a file or a full layout, are reported with invalidate, which rebuilds
+ * on the next use.
+ * @author Ryan
+ *
+ */
+public class IncrementalLayout {
+	// Space kept between classes, the same as AutoLayout leaves, and their distance from the corner of the diagram
+	private static final int GAP = 20;
+	private static final int MARGIN = 20;
+
+	// Grid cell of the index, about the size of a class box
+	private static final int CELL = 256;
+
+	// A class closer than this many box sizes to its neighbours is left alone
+	private static final double NEAR = 2.5;
+
+	// Rings of spots to try around the target. Beyond them the neighbourhood is
+	// considered full and the class goes on the target, so the cost stays local.
+	private static final int MAX_RINGS = 32;
+
+	private final UMLClassManager model;
+	private SpatialIndex index;
+
+	// Id of every class in the index, and ids freed by removed classes
+	private final HashMap<String, Integer> ids = new HashMap<String, Integer>();
+	private final ArrayDeque<Integer> freeIds = new ArrayDeque<Integer>();
+
+	// Number of relationships between each pair of classes, in both directions
+	private final HashMap<String, HashMap<String, Integer>> neighbours = new HashMap<String, HashMap<String, Integer>>();
+
+	// Class placed last, new classes without relationships go next to it
+	private String lastPlaced;
+	private boolean valid;
+
+	/**
+	 * Create a layout for a model
+	 * @param model - model whose classes are placed
+	 */
+	public IncrementalLayout(UMLClassManager model) {
+		this.model = model;
+	}
+
+	/**
+	 * Forget the index, it is rebuilt from the model when next needed
+	 */
+	public void invalidate() {
+		valid = false;
+	}
+
+	// Index every class and relationship of the model
+	private void rebuild() {
+		index = new SpatialIndex(CELL);
+		index.setMinimum(MARGIN, MARGIN);
+		ids.clear();
+		freeIds.clear();
+		neighbours.clear();
+		for(Object className : model.getClassNames())
+			insert((String)className, model.getClass((String)className));
+		for(UMLRelationship relation : model.getRelationships().values())
+			link(relation.getClass1().getName(), relation.getClass2().getName(), 1);
+		valid = true;
+	}
+
+	private void ensureValid() {
+		if(!valid)
+			rebuild();
+	}
+
+	// Add or move a class box to its current spot and size
+	private int insert(String className, UMLClass umlClass) {
+		Integer id = ids.get(className);
+		if(id == null) {
+			id = freeIds.isEmpty() ? ids.size() : freeIds.pop();
+			ids.put(className, id);
+		}
+		int[] box = LayoutGraph.estimateBox(umlClass);
+		index.insert(id, umlClass.getX(), umlClass.getY(), box[0], box[1]);
+		return id;
+	}
+
+	// Change the relationship count between two classes
+	private void link(String class1, String class2, int change) {
+		if(class1.equals(class2))
+			return;
+		count(class1, class2, change);
+		count(class2, class1, change);
+	}
+
+	private void count(String from, String to, int change) {
+		HashMap<String, Integer> counts = neighbours.get(from);
+		if(counts == null) {
+			if(change < 0)
+				return;
+			counts = new HashMap<String, Integer>();
+			neighbours.put(from, counts);
+		}
+		int total = counts.getOrDefault(to, 0) + change;
+		if(total > 0)
+			counts.put(to, total);
+		else
+			counts.remove(to);
+		if(counts.isEmpty())
+			neighbours.remove(from);
+	}
+
+	/**
+	 * Record a class at its current spot, after it was added at a chosen spot,
+	 * moved by hand or had members added or removed
+	 * @param className - name of the class
+	 */
+	public void update(String className) {
+		if(!valid)
+			return;
+		UMLClass umlClass = model.getClass(className);
+		if(umlClass != null)
+			insert(className, umlClass);
+	}
+
+	/**
+	 * Forget a removed class and its relationships
+	 * @param className - name of the class
+	 */
+	public void remove(String className) {
+		if(!valid)
+			return;
+		Integer id = ids.remove(className);
+		if(id != null) {
+			index.remove(id);
+			freeIds.push(id);
+		}
+		HashMap<String, Integer> counts = neighbours.remove(className);
+		if(counts != null) {
+			for(String other : counts.keySet())
+				count(other, className, -Integer.MAX_VALUE);
+		}
+		if(className.equals(lastPlaced))
+			lastPlaced = null;
+	}
+
+	/**
+	 * Follow a class that was renamed
+	 * @param oldName - previous name
+	 * @param newName - current name
+	 */
+	public void rename(String oldName, String newName) {
+		if(!valid)
+			return;
+		Integer id = ids.remove(oldName);
+		if(id != null)
+			ids.put(newName, id);
+		HashMap<String, Integer> counts = neighbours.remove(oldName);
+		if(counts != null) {
+			neighbours.put(newName, counts);
+			for(Map.Entry<String, Integer> entry : counts.entrySet()) {
+				HashMap<String, Integer> other = neighbours.get(entry.getKey());
+				other.remove(oldName);
+				other.put(newName, entry.getValue());
+			}
+		}
+		if(oldName.equals(lastPlaced))
+			lastPlaced = newName;
+	}
+
+	/**
+	 * Record a new relationship and place whichever of the two classes has
+	 * fewer relationships next to its neighbours
+	 * @param class1 - first class of the relationship
+	 * @param class2 - second class of the relationship
+	 * @return - name of the class that moved, null if neither did
+	 */
+	public String relate(String class1, String class2) {
+		// A rebuild already reads the new relationship from the model
+		if(valid)
+			link(class1, class2, 1);
+		else
+			rebuild();
+		String moving = degree(class2) < degree(class1) ? class2 : class1;
+		return place(moving) ? moving : null;
+	}
+
+	/**
+	 * Record a removed relationship. Neither class moves, since the classes they
+	 * are still related to have not moved either.
+	 * @param class1 - first class of the relationship
+	 * @param class2 - second class of the relationship
+	 */
+	public void unrelate(String class1, String class2) {
+		if(valid)
+			link(class1, class2, -1);
+	}
+
+	private int degree(String className) {
+		HashMap<String, Integer> counts = neighbours.get(className);
+		return counts == null ? 0 : counts.size();
+	}
+
+	/**
+	 * Move a class to the free spot closest to the middle of its related
+	 * classes, or next to the class placed last if it has none. A class already
+	 * near its neighbours and clear of other classes stays where it is.
+	 * @param className - name of the class
+	 * @return - true if the class moved
+	 */
+	public boolean place(String className) {
+		ensureValid();
+		UMLClass umlClass = model.getClass(className);
+		if(umlClass == null)
+			return false;
+		int id = insert(className, umlClass);
+		int[] box = LayoutGraph.estimateBox(umlClass);
+
+		// Middle of the related classes
+		double targetX = 0;
+		double targetY = 0;
+		int related = 0;
+		HashMap<String, Integer> counts = neighbours.get(className);
+		if(counts != null) {
+			for(String other : counts.keySet()) {
+				Integer otherId = ids.get(other);
+				if(otherId == null || !index.contains(otherId))
+					continue;
+				double[] center = index.center(otherId);
+				targetX += center[0];
+				targetY += center[1];
+				related++;
+			}
+		}
+		if(related > 0) {
+			targetX /= related;
+			targetY /= related;
+		}
+		else if(lastPlaced != null && !lastPlaced.equals(className) && ids.containsKey(lastPlaced)) {
+			double[] center = index.center(ids.get(lastPlaced));
+			targetX = center[0];
+			targetY = center[1];
+		}
+		else {
+			// Nothing to go near, keep the spot it has if it is free
+			targetX = umlClass.getX() + box[0] / 2.0;
+			targetY = umlClass.getY() + box[1] / 2.0;
+		}
+
+		// Leave a class that is already close and clear alone
+		double dx = umlClass.getX() + box[0] / 2.0 - targetX;
+		double dy = umlClass.getY() + box[1] / 2.0 - targetY;
+		double near = NEAR * (Math.max(box[0], box[1]) + GAP);
+		if(dx * dx + dy * dy <= near * near && umlClass.getX() >= MARGIN && umlClass.getY() >= MARGIN
+				&& !index.overlaps(umlClass.getX(), umlClass.getY(), box[0], box[1], GAP, id)) {
+			lastPlaced = className;
+			return false;
+		}
+
+		double[] spot = new double[2];
+		index.findFree(targetX - box[0] / 2.0, targetY - box[1] / 2.0, box[0], box[1], GAP, id, MAX_RINGS, spot);
+		int x = (int)Math.round(spot[0]);
+		int y = (int)Math.round(spot[1]);
+		lastPlaced = className;
+		if(x == umlClass.getX() && y == umlClass.getY())
+			return false;
+		model.setClassLocation(className, x, y);
+		index.insert(id, x, y, box[0], box[1]);
+		return true;
+	}
+}
@@ -0,0 +1,373 @@
+// Package name
+package layout;
+
+// System imports
+import java.util.Arrays;
+
+/**
+ * Layered layout after Sugiyama for inheritance and realization hierarchies.
+ * Parents sit on a row above their children:
+ * <ol>
+ * <li>cycles are broken by leaving out the edges a depth first search finds going back</li>
+ * <li>every class goes one layer below its lowest parent</li>
+ * <li>each layer is ordered by the mean position of its neighbours in the layer before,
+ * sweeping down and up a few times to untangle crossings</li>
+ * <li>classes are moved over their neighbours, keeping their order and the spacing</li>
+ * </ol>
+ * Other relationships do not affect the layers. Classes outside any hierarchy
+ * are put in a grid below it. Every step is linear in the size of the model,
+ * apart from sorting the layers.
+ * @author Ryan
+ *
+ */
+final class LayeredLayout {
+	// Passes of ordering and of positioning the layers
+	private static final int ORDER_SWEEPS = 4;
+	private static final int POSITION_SWEEPS = 4;
+
+	private final LayoutGraph graph;
+	private final double spacing;
+
+	// Hierarchy without the edges that close cycles, parents to children and back
+	private int[] childStart;
+	private int[] children;
+	private int[] parentStart;
+	private int[] parents;
+
+	private int[] layer;
+	private int[][] layers;
+	private double[] position;
+
+	// Top of the rows below the hierarchy
+	private double restTop;
+
+	/**
+	 * Create a layout
+	 * @param graph - classes to lay out
+	 * @param spacing - space to keep between boxes
+	 */
+	LayeredLayout(LayoutGraph graph, double spacing) {
+		this.graph = graph;
+		this.spacing = spacing;
+	}
+
+	/**
+	 * Run the layout, leaving the top left corners in the graph
+	 */
+	void run() {
+		int n = graph.size;
+		if(n == 0)
+			return;
+		buildHierarchy();
+		assignLayers();
+		orderLayers();
+		positionLayers();
+		placeRest();
+	}
+
+	// Keep only the hierarchy edges that a depth first search does not find going back
+	private void buildHierarchy() {
+		int n = graph.size;
+		int edges = graph.hierarchyChild.length;
+		int[] start = new int[n + 1];
+		for(int e = 0; e < edges; e++)
+			start[graph.hierarchyParent[e] + 1]++;
+		for(int i = 0; i < n; i++)
+			start[i + 1] += start[i];
+		int[] down = new int[edges];
+		int[] fill = new int[n];
+		for(int e = 0; e < edges; e++)
+			down[start[graph.hierarchyParent[e]] + fill[graph.hierarchyParent[e]]++] = graph.hierarchyChild[e];
+
+		// 0 unvisited, 1 on the search path, 2 done
+		byte[] state = new byte[n];
+		boolean[] keep = new boolean[edges];
+		int[] stack = new int[n];
+		int[] next = new int[n];
+		for(int root = 0; root < n; root++) {
+			if(state[root] != 0)
+				continue;
+			int top = 0;
+			stack[top++] = root;
+			state[root] = 1;
+			next[root] = start[root];
+			while(top > 0) {
+				int node = stack[top - 1];
+				if(next[node] == start[node + 1]) {
+					state[node] = 2;
+					top--;
+					continue;
+				}
+				int e = next[node]++;
+				int child = down[e];
+				if(state[child] == 1)
+					continue;
+				keep[e] = true;
+				if(state[child] == 0) {
+					state[child] = 1;
+					next[child] = start[child];
+					stack[top++] = child;
+				}
+			}
+		}
+
+		int kept = 0;
+		for(boolean k : keep) {
+			if(k)
+				kept++;
+		}
+		childStart = new int[n + 1];
+		parentStart = new int[n + 1];
+		for(int p = 0; p < n; p++) {
+			for(int e = start[p]; e < start[p + 1]; e++) {
+				if(keep[e]) {
+					childStart[p + 1]++;
+					parentStart[down[e] + 1]++;
+				}
+			}
+		}
+		for(int i = 0; i < n; i++) {
+			childStart[i + 1] += childStart[i];
+			parentStart[i + 1] += parentStart[i];
+		}
+		children = new int[kept];
+		parents = new int[kept];
+		Arrays.fill(fill, 0);
+		int[] parentFill = new int[n];
+		for(int p = 0; p < n; p++) {
+			for(int e = start[p]; e < start[p + 1]; e++) {
+				if(keep[e]) {
+					children[childStart[p] + fill[p]++] = down[e];
+					parents[parentStart[down[e]] + parentFill[down[e]]++] = p;
+				}
+			}
+		}
+	}
+
+	// Put every class one layer below its lowest parent, in topological order
+	private void assignLayers() {
+		int n = graph.size;
+		layer = new int[n];
+		int[] waiting = new int[n];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		for(int i = 0; i < n; i++) {
+			waiting[i] = parentStart[i + 1] - parentStart[i];
+			if(waiting[i] == 0)
+				queue[tail++] = i;
+		}
+		int depth = 0;
+		while(head < tail) {
+			int node = queue[head++];
+			depth = Math.max(depth, layer[node]);
+			for(int e = childStart[node]; e < childStart[node + 1]; e++) {
+				int child = children[e];
+				layer[child] = Math.max(layer[child], layer[node] + 1);
+				if(--waiting[child] == 0)
+					queue[tail++] = child;
+			}
+		}
+
+		// Classes outside the hierarchy are placed separately
+		int[] sizes = new int[depth + 1];
+		for(int i = 0; i < n; i++) {
+			if(inHierarchy(i))
+				sizes[layer[i]]++;
+		}
+		layers = new int[depth + 1][];
+		for(int l = 0; l <= depth; l++)
+			layers[l] = new int[sizes[l]];
+	}
+
+	private boolean inHierarchy(int i) {
+		return childStart[i + 1] > childStart[i] || parentStart[i + 1] > parentStart[i];
+	}
+
+	// First order by a depth first search from the roots, so trees stay together, then sweep
+	private void orderLayers() {
+		int n = graph.size;
+		position = new double[n];
+		int[] fill = new int[layers.length];
+		boolean[] seen = new boolean[n];
+		int[] stack = new int[n];
+		for(int root = 0; root < n; root++) {
+			if(seen[root] || !inHierarchy(root) || parentStart[root + 1] > parentStart[root])
+				continue;
+			int top = 0;
+			stack[top++] = root;
+			seen[root] = true;
+			while(top > 0) {
+				int node = stack[--top];
+				position[node] = fill[layer[node]];
+				layers[layer[node]][fill[layer[node]]++] = node;
+				// Pushed in reverse so the first child is visited first
+				for(int e = childStart[node + 1] - 1; e >= childStart[node]; e--) {
+					int child = children[e];
+					if(!seen[child]) {
+						seen[child] = true;
+						stack[top++] = child;
+					}
+				}
+			}
+		}
+
+		for(int sweep = 0; sweep < ORDER_SWEEPS; sweep++) {
+			for(int l = 1; l < layers.length; l++)
+				sortByBarycenter(layers[l], parentStart, parents);
+			for(int l = layers.length - 2; l >= 0; l--)
+				sortByBarycenter(layers[l], childStart, children);
+		}
+	}
+
+	// Order a layer by the mean index of its neighbours in the layer next to it
+	private void sortByBarycenter(int[] nodes, int[] start, int[] adjacent) {
+		double[] key = new double[nodes.length];
+		Integer[] order = new Integer[nodes.length];
+		for(int i = 0; i < nodes.length; i++) {
+			int node = nodes[i];
+			order[i] = i;
+			int count = start[node + 1] - start[node];
+			if(count == 0) {
+				key[i] = position[node];
+				continue;
+			}
+			double total = 0;
+			for(int e = start[node]; e < start[node + 1]; e++)
+				total += position[adjacent[e]];
+			key[i] = total / count;
+		}
+		Arrays.sort(order, (a, b) -> Double.compare(key[a], key[b]));
+		int[] sorted = new int[nodes.length];
+		for(int i = 0; i < nodes.length; i++)
+			sorted[i] = nodes[order[i]];
+		for(int i = 0; i < nodes.length; i++) {
+			nodes[i] = sorted[i];
+			position[sorted[i]] = i;
+		}
+	}
+
+	// Pack the layers, then move classes over their neighbours and stack the layers
+	private void positionLayers() {
+		// Position now holds the center of each box
+		for(int[] nodes : layers) {
+			double x = 0;
+			for(int node : nodes) {
+				position[node] = x + graph.width[node] / 2.0;
+				x += graph.width[node] + spacing;
+			}
+		}
+
+		for(int sweep = 0; sweep < POSITION_SWEEPS; sweep++) {
+			for(int l = 1; l < layers.length; l++)
+				alignLayer(layers[l], parentStart, parents);
+			for(int l = layers.length - 2; l >= 0; l--)
+				alignLayer(layers[l], childStart, children);
+		}
+
+		double y = 0;
+		for(int[] nodes : layers) {
+			int tallest = 0;
+			for(int node : nodes) {
+				graph.x[node] = position[node] - graph.width[node] / 2.0;
+				graph.y[node] = y;
+				tallest = Math.max(tallest, graph.height[node]);
+			}
+			y += tallest + 2 * spacing;
+		}
+		restTop = y;
+	}
+
+	/**
+	 * Move a layer as close as it can to the mean center of each class's
+	 * neighbours without changing its order or breaking the spacing. This is an
+	 * isotonic regression, solved by pooling adjacent classes that push into
+	 * each other, so it is linear in the size of the layer.
+	 */
+	private void alignLayer(int[] nodes, int[] start, int[] adjacent) {
+		int size = nodes.length;
+		if(size == 0)
+			return;
+
+		// Offset of each center from the first one when the layer is packed tight
+		double[] offset = new double[size];
+		double[] target = new double[size];
+		for(int i = 0; i < size; i++) {
+			int node = nodes[i];
+			if(i > 0)
+				offset[i] = offset[i - 1] + (graph.width[nodes[i - 1]] + graph.width[node]) / 2.0 + spacing;
+			int count = start[node + 1] - start[node];
+			double wanted = position[node];
+			if(count > 0) {
+				double total = 0;
+				for(int e = start[node]; e < start[node + 1]; e++)
+					total += position[adjacent[e]];
+				wanted = total / count;
+			}
+			target[i] = wanted - offset[i];
+		}
+
+		// Pools of classes that share one shift, kept as a stack
+		double[] mean = new double[size];
+		int[] weight = new int[size];
+		int pools = 0;
+		for(int i = 0; i < size; i++) {
+			mean[pools] = target[i];
+			weight[pools] = 1;
+			pools++;
+			while(pools > 1 && mean[pools - 2] > mean[pools - 1]) {
+				int total = weight[pools - 2] + weight[pools - 1];
+				mean[pools - 2] = (mean[pools - 2] * weight[pools - 2] + mean[pools - 1] * weight[pools - 1]) / total;
+				weight[pools - 2] = total;
+				pools--;
+			}
+		}
+		int i = 0;
+		for(int p = 0; p < pools; p++) {
+			for(int w = 0; w < weight[p]; w++, i++)
+				position[nodes[i]] = mean[p] + offset[i];
+		}
+	}
+
+	// Put the classes outside the hierarchy in rows below it
+	private void placeRest() {
+		int n = graph.size;
+		double width = 0;
+		double rest = 0;
+		int count = 0;
+		for(int i = 0; i < n; i++) {
+			if(inHierarchy(i))
+				width = Math.max(width, graph.x[i] + graph.width[i]);
+			else {
+				rest += graph.width[i] + spacing;
+				count++;
+			}
+		}
+		if(count == 0)
+			return;
+
+		// As wide as the hierarchy, or about square when there is little hierarchy
+		double rowWidth = Math.max(width, Math.sqrt(rest * (rest / count)));
+		double left = 0;
+		for(int i = 0; i < n; i++) {
+			if(inHierarchy(i))
+				left = Math.min(left, graph.x[i]);
+		}
+		double x = left;
+		double y = restTop;
+		int tallest = 0;
+		for(int i = 0; i < n; i++) {
+			if(inHierarchy(i))
+				continue;
+			if(x > left && x + graph.width[i] > left + rowWidth) {
+				x = left;
+				y += tallest + spacing;
+				tallest = 0;
+			}
+			graph.x[i] = x;
+			graph.y[i] = y;
+			x += graph.width[i] + spacing;
+			tallest = Math.max(tallest, graph.height[i]);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+// Package name
+package layout;
+
+// System imports
+import java.util.HashMap;
+import java.util.Map;
+
+// Local imports
+import model.Field;
+import model.Method;
+import model.UMLClass;
+import model.UMLClassManager;
+import model.UMLRelationship;
+
+/**
+ * Classes and relationships of a model as arrays indexed by class, the form the
+ * layouts work on. Box sizes are estimated from the text of each class, since
+ * the model does not know how large its classes are drawn.
+ * @author Ryan
+ *
+ */
+final class LayoutGraph {
+	// Estimated size of the text in a class box, matching the default GUI font
+	private static final int CHAR_WIDTH = 7;
+	private static final int LINE_HEIGHT = 17;
+	// Border and padding around the text, and the separators between sections
+	private static final int PADDING = 24;
+	private static final int SEPARATOR = 6;
+
+	final int size;
+	final String[] names;
+	final double[] x;
+	final double[] y;
+	final int[] width;
+	final int[] height;
+
+	// Undirected adjacency of every relationship, as offsets into neighbours
+	final int[] adjacencyStart;
+	final int[] neighbours;
+
+	// Inheritance and realization as child to parent pairs
+	final int[] hierarchyChild;
+	final int[] hierarchyParent;
+
+	// Index of every class by name
+	private final HashMap<String, Integer> index;
+
+	/**
+	 * Read the classes and relationships of a model
+	 * @param model - model to lay out
+	 */
+	LayoutGraph(UMLClassManager model) {
+		Object[] classNames = model.getClassNames();
+		size = classNames.length;
+		names = new String[size];
+		x = new double[size];
+		y = new double[size];
+		width = new int[size];
+		height = new int[size];
+		index = new HashMap<String, Integer>(size * 2);
+
+		for(int i = 0; i < size; i++) {
+			UMLClass umlClass = model.getClass((String)classNames[i]);
+			names[i] = umlClass.getName();
+			x[i] = umlClass.getX();
+			y[i] = umlClass.getY();
+			int[] box = estimateBox(umlClass);
+			width[i] = box[0];
+			height[i] = box[1];
+			index.put(names[i], i);
+		}
+
+		// Count relationships per class before filling the adjacency
+		Map<String, UMLRelationship> relationships = model.getRelationships();
+		int[] sources = new int[relationships.size()];
+		int[] targets = new int[relationships.size()];
+		int edges = 0;
+		int hierarchy = 0;
+		for(UMLRelationship relation : relationships.values()) {
+			Integer source = index.get(relation.getClass1().getName());
+			Integer target = index.get(relation.getClass2().getName());
+			if(source == null || target == null || source.intValue() == target.intValue())
+				continue;
+			sources[edges] = source;
+			targets[edges] = target;
+			edges++;
+			if(isHierarchy(relation.getType()))
+				hierarchy++;
+		}
+
+		adjacencyStart = new int[size + 1];
+		for(int e = 0; e < edges; e++) {
+			adjacencyStart[sources[e] + 1]++;
+			adjacencyStart[targets[e] + 1]++;
+		}
+		for(int i = 0; i < size; i++)
+			adjacencyStart[i + 1] += adjacencyStart[i];
+		neighbours = new int[2 * edges];
+		int[] fill = new int[size];
+		for(int e = 0; e < edges; e++) {
+			neighbours[adjacencyStart[sources[e]] + fill[sources[e]]++] = targets[e];
+			neighbours[adjacencyStart[targets[e]] + fill[targets[e]]++] = sources[e];
+		}
+
+		// The first class of an inheritance or realization is the child
+		hierarchyChild = new int[hierarchy];
+		hierarchyParent = new int[hierarchy];
+		int h = 0;
+		for(UMLRelationship relation : relationships.values()) {
+			Integer source = index.get(relation.getClass1().getName());
+			Integer target = index.get(relation.getClass2().getName());
+			if(source == null || target == null || source.intValue() == target.intValue() || !isHierarchy(relation.getType()))
+				continue;
+			hierarchyChild[h] = source;
+			hierarchyParent[h] = target;
+			h++;
+		}
+	}
+
+	// Check if a relationship type orders classes from parent to child
+	private static boolean isHierarchy(String type) {
+		return type.equalsIgnoreCase("inheritance") || type.equalsIgnoreCase("realization");
+	}
+
+	/**
+	 * Estimate the drawn size of a class from its longest line and number of lines
+	 * @param umlClass - class to measure
+	 * @return - {width, height}
+	 */
+	static int[] estimateBox(UMLClass umlClass) {
+		int longest = umlClass.getName().length();
+		int lines = 1;
+		int sections = 0;
+		if(!umlClass.getFields().isEmpty()) {
+			sections++;
+			for(Field field : umlClass.getFields().values()) {
+				longest = Math.max(longest, field.getType().length() + 1 + field.getName().length());
+				lines++;
+			}
+		}
+		if(!umlClass.getMethodSignatures().isEmpty()) {
+			sections++;
+			for(Method method : umlClass.getMethodSignatures().values()) {
+				longest = Math.max(longest, method.getReturnType().length() + 1 + method.getName().length() + method.getParams().length());
+				lines++;
+			}
+		}
+		return new int[] {longest * CHAR_WIDTH + PADDING, lines * LINE_HEIGHT + sections * SEPARATOR + PADDING};
+	}
+
+	/**
+	 * Get the index of a class
+	 * @param name - class name
+	 * @return - index, -1 if the class is not in the graph
+	 */
+	int indexOf(String name) {
+		Integer i = index.get(name);
+		return i == null ? -1 : i;
+	}
+
+	/**
+	 * Get the number of relationships of a class
+	 * @param i - class index
+	 * @return - degree
+	 */
+	int degree(int i) {
+		return adjacencyStart[i + 1] - adjacencyStart[i];
+	}
+
+	/**
+	 * Get the mean of the larger side of every box
+	 * @return - mean box size, 0 for an empty graph
+	 */
+	double meanBoxSize() {
+		if(size == 0)
+			return 0;
+		double total = 0;
+		for(int i = 0; i < size; i++)
+			total += Math.max(width[i], height[i]);
+		return total / size;
+	}
+
+	/**
+	 * Write the positions back to the model, moved so the top left class sits at the margin
+	 * @param model - model to write to
+	 * @param margin - distance from the top and left edge
+	 */
+	void apply(UMLClassManager model, int margin) {
+		double minX = Double.MAX_VALUE;
+		double minY = Double.MAX_VALUE;
+		for(int i = 0; i < size; i++) {
+			minX = Math.min(minX, x[i]);
+			minY = Math.min(minY, y[i]);
+		}
+		for(int i = 0; i < size; i++) {
+			x[i] = Math.round(x[i] - minX + margin);
+			y[i] = Math.round(y[i] - minY + margin);
+			model.setClassLocation(names[i], (int)x[i], (int)y[i]);
+		}
+	}
+}
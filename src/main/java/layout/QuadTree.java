@@ -0,0 +1,203 @@
+// Package name
+package layout;
+
+// System imports
+import java.util.Arrays;
+
+/**
+ * Barnes-Hut quadtree over the class centers. Each node keeps the number of
+ * classes below it and the sum of their positions, so the repulsion of a far
+ * away group of classes is approximated by a single body at its center of mass.
+ * Nodes live in parallel arrays that are reused between builds.
+ * <p>
+ * Building is single threaded. Once built, the tree is only read, so forces can
+ * be computed from several threads at once.
+ * @author Ryan
+ *
+ */
+final class QuadTree {
+	// Leaf states of the body array
+	private static final int EMPTY = -1;
+	private static final int INTERNAL = -2;
+	private static final int CLUSTER = -3;
+
+	// Squares smaller than this keep all of their bodies as one cluster
+	private static final double MIN_SIZE = 1e-3;
+
+	private int nodes;
+	private double[] minX = new double[64];
+	private double[] minY = new double[64];
+	private double[] side = new double[64];
+	private double[] mass = new double[64];
+	private double[] sumX = new double[64];
+	private double[] sumY = new double[64];
+	private int[] body = new int[64];
+	private int[] firstChild = new int[64];
+
+	// Positions of the bodies while building
+	private double[] bodyX;
+	private double[] bodyY;
+
+	/**
+	 * Build the tree over the given positions
+	 * @param x - x of every body
+	 * @param y - y of every body
+	 * @param count - number of bodies
+	 */
+	void build(double[] x, double[] y, int count) {
+		double left = Double.MAX_VALUE;
+		double top = Double.MAX_VALUE;
+		double right = -Double.MAX_VALUE;
+		double bottom = -Double.MAX_VALUE;
+		for(int i = 0; i < count; i++) {
+			left = Math.min(left, x[i]);
+			top = Math.min(top, y[i]);
+			right = Math.max(right, x[i]);
+			bottom = Math.max(bottom, y[i]);
+		}
+
+		bodyX = x;
+		bodyY = y;
+		nodes = 0;
+		newNode(left, top, Math.max(right - left, bottom - top) + 1);
+		for(int i = 0; i < count; i++)
+			insert(i);
+		bodyX = null;
+		bodyY = null;
+	}
+
+	// Add a node and return its index
+	private int newNode(double left, double top, double size) {
+		if(nodes == body.length)
+			grow();
+		int node = nodes++;
+		minX[node] = left;
+		minY[node] = top;
+		side[node] = size;
+		mass[node] = 0;
+		sumX[node] = 0;
+		sumY[node] = 0;
+		body[node] = EMPTY;
+		firstChild[node] = -1;
+		return node;
+	}
+
+	private void grow() {
+		int capacity = body.length * 2;
+		minX = Arrays.copyOf(minX, capacity);
+		minY = Arrays.copyOf(minY, capacity);
+		side = Arrays.copyOf(side, capacity);
+		mass = Arrays.copyOf(mass, capacity);
+		sumX = Arrays.copyOf(sumX, capacity);
+		sumY = Arrays.copyOf(sumY, capacity);
+		body = Arrays.copyOf(body, capacity);
+		firstChild = Arrays.copyOf(firstChild, capacity);
+	}
+
+	// Walk down from the root, adding the body to every node on the way
+	private void insert(int b) {
+		double bx = bodyX[b];
+		double by = bodyY[b];
+		int node = 0;
+		while(true) {
+			if(body[node] == EMPTY) {
+				body[node] = b;
+				add(node, bx, by);
+				return;
+			}
+			if(body[node] >= 0) {
+				// Bodies on the same spot can not be split apart
+				if(side[node] < MIN_SIZE)
+					body[node] = CLUSTER;
+				else
+					split(node);
+			}
+			add(node, bx, by);
+			if(body[node] == CLUSTER)
+				return;
+			node = childFor(node, bx, by);
+		}
+	}
+
+	private void add(int node, double bx, double by) {
+		mass[node]++;
+		sumX[node] += bx;
+		sumY[node] += by;
+	}
+
+	// Turn a leaf holding one body into an internal node with four children
+	private void split(int node) {
+		int old = body[node];
+		double half = side[node] / 2;
+		double left = minX[node];
+		double top = minY[node];
+		body[node] = INTERNAL;
+
+		int first = newNode(left, top, half);
+		newNode(left + half, top, half);
+		newNode(left, top + half, half);
+		newNode(left + half, top + half, half);
+		firstChild[node] = first;
+
+		// Move the old body down, the node itself already counts it
+		int child = childFor(node, bodyX[old], bodyY[old]);
+		body[child] = old;
+		add(child, bodyX[old], bodyY[old]);
+	}
+
+	// Child square the point falls in
+	private int childFor(int node, double px, double py) {
+		double half = side[node] / 2;
+		int quadrant = (px >= minX[node] + half ? 1 : 0) + (py >= minY[node] + half ? 2 : 0);
+		return firstChild[node] + quadrant;
+	}
+
+	/**
+	 * Add the repulsion of every other body on one body
+	 * @param b - index of the body
+	 * @param bx - x of the body
+	 * @param by - y of the body
+	 * @param theta - accuracy, a group is used whole when its side is below theta times its distance
+	 * @param strength - square of the ideal distance, the repulsion at distance d is strength / d
+	 * @param stack - scratch array, grown when the tree is deeper than it holds
+	 * @param force - receives the force as {x, y}
+	 */
+	void repulsion(int b, double bx, double by, double theta, double strength, int[] stack, double[] force) {
+		double fx = 0;
+		double fy = 0;
+		double theta2 = theta * theta;
+		int top = 0;
+		stack[top++] = 0;
+		while(top > 0) {
+			int node = stack[--top];
+			if(mass[node] == 0 || body[node] == b)
+				continue;
+
+			double cx = sumX[node] / mass[node];
+			double cy = sumY[node] / mass[node];
+			double dx = bx - cx;
+			double dy = by - cy;
+			double d2 = dx * dx + dy * dy;
+
+			if(body[node] != INTERNAL || side[node] * side[node] < theta2 * d2) {
+				// A cluster holding this body sits on top of it, so leave it out
+				if(d2 < 1e-6)
+					continue;
+				double scale = strength * mass[node] / d2;
+				fx += dx * scale;
+				fy += dy * scale;
+			}
+			else {
+				if(top + 4 > stack.length)
+					stack = Arrays.copyOf(stack, stack.length * 2);
+				int first = firstChild[node];
+				stack[top++] = first;
+				stack[top++] = first + 1;
+				stack[top++] = first + 2;
+				stack[top++] = first + 3;
+			}
+		}
+		force[0] = fx;
+		force[1] = fy;
+	}
+}
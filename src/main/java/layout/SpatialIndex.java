@@ -0,0 +1,228 @@
+// Package name
+package layout;
+
+// System imports
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Uniform grid of class boxes, for finding the boxes near a spot without
+ * looking at every class. Each box is listed in every cell it covers, so with
+ * cells about the size of a box a query only reads a handful of cells.
+ * @author Ryan
+ *
+ */
+final class SpatialIndex {
+	private final double cellSize;
+
+	// Boxes by cell, the first entry of each array is the number of boxes in it
+	private final HashMap<Long, int[]> cells = new HashMap<Long, int[]>();
+
+	// Top left corner and size of every box, by id
+	private double[] left = new double[16];
+	private double[] top = new double[16];
+	private double[] width = new double[16];
+	private double[] height = new double[16];
+	private boolean[] present = new boolean[16];
+
+	// Query number each box was last seen in, so boxes in several cells are visited once
+	private int[] visited = new int[16];
+	private int query;
+
+	// Lowest top left corner findFree may return
+	private double minX = -Double.MAX_VALUE;
+	private double minY = -Double.MAX_VALUE;
+
+	/**
+	 * Create an empty index
+	 * @param cellSize - side of a grid cell, about the size of a box
+	 */
+	SpatialIndex(double cellSize) {
+		this.cellSize = Math.max(1, cellSize);
+	}
+
+	/**
+	 * Keep the spots found by findFree right of and below a corner
+	 * @param x - lowest left edge
+	 * @param y - lowest top edge
+	 */
+	void setMinimum(double x, double y) {
+		minX = x;
+		minY = y;
+	}
+
+	/**
+	 * Check if a box is in the index
+	 * @param id - id of the box
+	 * @return - true if the box was inserted and not removed
+	 */
+	boolean contains(int id) {
+		return id >= 0 && id < present.length && present[id];
+	}
+
+	/**
+	 * Get the center of a box in the index
+	 * @param id - id of the box
+	 * @return - {x, y} of the center
+	 */
+	double[] center(int id) {
+		return new double[] {left[id] + width[id] / 2, top[id] + height[id] / 2};
+	}
+
+	/**
+	 * Add a box
+	 * @param id - id of the box, such as the index of its class
+	 * @param x - left edge
+	 * @param y - top edge
+	 * @param w - width
+	 * @param h - height
+	 */
+	void insert(int id, double x, double y, double w, double h) {
+		if(id >= present.length)
+			grow(Math.max(id + 1, present.length * 2));
+		if(present[id])
+			remove(id);
+		left[id] = x;
+		top[id] = y;
+		width[id] = w;
+		height[id] = h;
+		present[id] = true;
+
+		for(long cx = cell(x); cx <= cell(x + w); cx++) {
+			for(long cy = cell(y); cy <= cell(y + h); cy++) {
+				Long key = key(cx, cy);
+				int[] list = cells.get(key);
+				if(list == null)
+					list = new int[4];
+				else if(list[0] + 1 == list.length)
+					list = Arrays.copyOf(list, list.length * 2);
+				list[++list[0]] = id;
+				cells.put(key, list);
+			}
+		}
+	}
+
+	/**
+	 * Remove a box
+	 * @param id - id of the box
+	 */
+	void remove(int id) {
+		if(id >= present.length || !present[id])
+			return;
+		present[id] = false;
+		for(long cx = cell(left[id]); cx <= cell(left[id] + width[id]); cx++) {
+			for(long cy = cell(top[id]); cy <= cell(top[id] + height[id]); cy++) {
+				Long key = key(cx, cy);
+				int[] list = cells.get(key);
+				if(list == null)
+					continue;
+				for(int i = 1; i <= list[0]; i++) {
+					if(list[i] == id) {
+						list[i] = list[list[0]--];
+						break;
+					}
+				}
+				if(list[0] == 0)
+					cells.remove(key);
+			}
+		}
+	}
+
+	/**
+	 * Check if a box would overlap any box in the index
+	 * @param x - left edge
+	 * @param y - top edge
+	 * @param w - width
+	 * @param h - height
+	 * @param gap - space to keep between boxes
+	 * @param ignore - id of a box to leave out, -1 for none
+	 * @return - true if the box comes closer than gap to another box
+	 */
+	boolean overlaps(double x, double y, double w, double h, double gap, int ignore) {
+		query++;
+		for(long cx = cell(x - gap); cx <= cell(x + w + gap); cx++) {
+			for(long cy = cell(y - gap); cy <= cell(y + h + gap); cy++) {
+				int[] list = cells.get(key(cx, cy));
+				if(list == null)
+					continue;
+				for(int i = 1; i <= list[0]; i++) {
+					int id = list[i];
+					if(id == ignore || visited[id] == query)
+						continue;
+					visited[id] = query;
+					if(x < left[id] + width[id] + gap && left[id] < x + w + gap
+							&& y < top[id] + height[id] + gap && top[id] < y + h + gap)
+						return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Find the free spot closest to a wanted position, searching outwards ring by
+	 * ring. Only the cells around each candidate are read, so the cost depends on
+	 * how crowded the neighbourhood is, not on the number of boxes.
+	 * @param x - wanted left edge
+	 * @param y - wanted top edge
+	 * @param w - width of the box
+	 * @param h - height of the box
+	 * @param gap - space to keep between boxes
+	 * @param ignore - id of a box to leave out, -1 for none
+	 * @param maxRings - rings to search before giving up
+	 * @param spot - receives the free position as {x, y}, the wanted one if none was found
+	 * @return - true if a free spot was found
+	 */
+	boolean findFree(double x, double y, double w, double h, double gap, int ignore, int maxRings, double[] spot) {
+		x = Math.max(x, minX);
+		y = Math.max(y, minY);
+		spot[0] = x;
+		spot[1] = y;
+		if(!overlaps(x, y, w, h, gap, ignore))
+			return true;
+
+		// Half the smaller side of the box, so a free spot is not missed by much
+		double step = Math.max(1, (Math.min(w, h) + gap) / 2);
+		for(int ring = 1; ring <= maxRings; ring++) {
+			double best = Double.MAX_VALUE;
+			for(int dx = -ring; dx <= ring; dx++) {
+				// Only the edge of the ring, the inside was already tried
+				int stride = Math.abs(dx) == ring ? 1 : 2 * ring;
+				for(int dy = -ring; dy <= ring; dy += stride) {
+					double distance = (double)dx * dx + (double)dy * dy;
+					if(distance >= best)
+						continue;
+					double cx = x + dx * step;
+					double cy = y + dy * step;
+					if(cx < minX || cy < minY)
+						continue;
+					if(!overlaps(cx, cy, w, h, gap, ignore)) {
+						best = distance;
+						spot[0] = cx;
+						spot[1] = cy;
+					}
+				}
+			}
+			if(best != Double.MAX_VALUE)
+				return true;
+		}
+		return false;
+	}
+
+	private long cell(double coordinate) {
+		return (long)Math.floor(coordinate / cellSize);
+	}
+
+	private static Long key(long cx, long cy) {
+		return (cx << 32) ^ (cy & 0xFFFFFFFFL);
+	}
+
+	private void grow(int capacity) {
+		left = Arrays.copyOf(left, capacity);
+		top = Arrays.copyOf(top, capacity);
+		width = Arrays.copyOf(width, capacity);
+		height = Arrays.copyOf(height, capacity);
+		present = Arrays.copyOf(present, capacity);
+		visited = Arrays.copyOf(visited, capacity);
+	}
+}
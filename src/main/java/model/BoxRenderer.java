@@ -0,0 +1,136 @@
+package model;
+
+// System imports
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Renders a UMLClass as a text box for the console:
+ * <pre>
+ * +-----------+
+ * |   name    |
+ * | int field |
+ * |void m(int)|
+ * +-----------+
+ * </pre>
+ * Widths are measured in one pass and every line is padded into a reused char
+ * buffer. Rendered boxes are memoized on the UMLClass until it changes.
+ * A renderer is not thread safe, use one per thread.
+ * @author Ryan
+ *
+ */
+public class BoxRenderer {
+	private static final String NEW_LINE = System.lineSeparator();
+
+	// Reused text of the rows inside the box
+	private final ArrayList<String> rows = new ArrayList<String>();
+
+	// Reused buffer each line is padded into
+	private char[] line = new char[64];
+
+	/**
+	 * Get the class box as an array of lines, rendering it only if the class
+	 * changed since it was last rendered. The array is shared, do not modify it.
+	 * @param umlClass - class to render
+	 * @return - lines of the box, top border first
+	 */
+	public String[] render(UMLClass umlClass) {
+		String[] box = umlClass.getRenderedBox();
+		if(box == null) {
+			box = renderLines(umlClass);
+			umlClass.setRenderedBox(box);
+		}
+		return box;
+	}
+
+	/**
+	 * Stream the class box to the writer, each line followed by the line separator
+	 * @param umlClass - class to render
+	 * @param out - destination of the box
+	 */
+	public void render(UMLClass umlClass, Writer out) throws IOException {
+		for(String line : render(umlClass)) {
+			out.write(line);
+			out.write(NEW_LINE);
+		}
+	}
+
+	/**
+	 * Render the class box as an array of lines
+	 * @param umlClass - class to render
+	 * @return - lines of the box, top border first
+	 */
+	private String[] renderLines(UMLClass umlClass) {
+		int width = measure(umlClass);
+		String[] box = new String[rows.size() + 2];
+
+		int length = border(width);
+		String border = new String(line, 0, length);
+		box[0] = border;
+		for(int i = 0; i < rows.size(); i++) {
+			length = pad(rows.get(i), width);
+			box[i + 1] = new String(line, 0, length);
+		}
+		box[box.length - 1] = border;
+
+		rows.clear();
+		return box;
+	}
+
+	/**
+	 * Collect the rows of the class and find the widest one
+	 * @param umlClass - class to measure
+	 * @return - width of the box contents
+	 */
+	private int measure(UMLClass umlClass) {
+		rows.clear();
+		rows.add(umlClass.getName());
+		for(Map.Entry<String, Field> entry : umlClass.getFields().entrySet())
+			rows.add(entry.getValue().toString());
+		for(Method method : umlClass.getMethodSignatures().values())
+			rows.add(method.toString());
+
+		int width = 0;
+		for(int i = 0; i < rows.size(); i++)
+			width = Math.max(width, rows.get(i).length());
+
+		// Make sure the line buffer fits the borders
+		if(line.length < width + 2)
+			line = new char[Math.max(width + 2, line.length * 2)];
+		return width;
+	}
+
+	/**
+	 * Fill the line buffer with the top/bottom border
+	 * @param width - width of the box contents
+	 * @return - length of the line
+	 */
+	private int border(int width) {
+		line[0] = '+';
+		Arrays.fill(line, 1, width + 1, '-');
+		line[width + 1] = '+';
+		return width + 2;
+	}
+
+	/**
+	 * Fill the line buffer with text centered between the box sides.
+	 * When the padding is uneven the extra space goes on the right.
+	 * @param text - text of the row
+	 * @param width - width of the box contents
+	 * @return - length of the line
+	 */
+	private int pad(String text, int width) {
+		int spaces = width - text.length();
+		int left = spaces / 2;
+
+		line[0] = '|';
+		Arrays.fill(line, 1, left + 1, ' ');
+		text.getChars(0, text.length(), line, left + 1);
+		Arrays.fill(line, left + 1 + text.length(), width + 1, ' ');
+		line[width + 1] = '|';
+		return width + 2;
+	}
+}
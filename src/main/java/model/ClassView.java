@@ -0,0 +1,65 @@
+package model;
+
+// System imports
+import java.util.Map;
+
+/**
+ * Read-only access to a class. UMLClass implements it, and so do the classes
+ * of a CompactModel, so code that only reads classes can take either.
+ * @author Ryan
+ *
+ */
+public interface ClassView {
+	/**
+	 * Get the name of the class
+	 * @return - name
+	 */
+	String getName();
+
+	/**
+	 * Get the x coordinate of the class
+	 * @return - x
+	 */
+	int getX();
+
+	/**
+	 * Get the y coordinate of the class
+	 * @return - y
+	 */
+	int getY();
+
+	/**
+	 * Check if the class has a given field
+	 * @param fieldName - name of the field
+	 * @return - true if class has field
+	 */
+	boolean hasField(String fieldName);
+
+	/**
+	 * Check if the class has a given method
+	 * @param methodName - name of the method
+	 * @param params - parameter list, whitespace does not need to match
+	 * @return - true if class has method
+	 */
+	boolean hasMethod(String methodName, String params);
+
+	/**
+	 * Get a method by its name and parameter list
+	 * @param methodName - name of the method
+	 * @param params - parameter list, whitespace does not need to match
+	 * @return - the method, null if the class does not have it
+	 */
+	Method getMethod(String methodName, String params);
+
+	/**
+	 * Get the fields of the class by name
+	 * @return - fields
+	 */
+	Map<String, Field> getFields();
+
+	/**
+	 * Get the methods of the class by signature
+	 * @return - methods
+	 */
+	Map<MethodSignature, Method> getMethodSignatures();
+}
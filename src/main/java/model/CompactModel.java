@@ -0,0 +1,743 @@
+package model;
+
+// System imports
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Compact, column oriented storage for very large models. Classes are numbered
+ * 0..n-1, coordinates live in int arrays and the fields and methods of every
+ * class are packed into shared int tables of symbol ids, so a member costs a
+ * few ints instead of an object, its strings and a hash map entry.
+ * <p>
+ * The structure is fixed once built: coordinates can change, classes and members
+ * cannot. Classes are handed out as read-only ClassView flyweights that read from
+ * the tables; getFields and getMethodSignatures build their maps on each call.
+ * Use toManager to get an editable model.
+ * <p>
+ * Models are built from a UMLClassManager or streamed straight from a save file,
+ * and are written back in the same JSON format. UMLFileIO.loadCompact and
+ * saveCompact open, inspect and export large save files this way without
+ * building their classes as objects. Files are checked the way every load
+ * checks them, so a file loadModel rejects is rejected here with the same code.
+ * <p>
+ * This is a side format for tools that read and convert large save files, not
+ * a mode the editor runs in. The console, the GUI, rendering, layout and the
+ * memory estimate all work on a UMLClassManager.
+ * @author Ryan
+ *
+ */
+public final class CompactModel {
+	// Every distinct string, members refer to them by index
+	private final String[] symbols;
+
+	// Classes by id
+	private final int classCount;
+	private final String[] classNames;
+	private final int[] xs;
+	private final int[] ys;
+
+	// Members of class i are at [fieldStart[i], fieldStart[i + 1]) and [methodStart[i], methodStart[i + 1])
+	private final int[] fieldStart;
+	private final int[] fieldNames;
+	private final int[] fieldTypes;
+	private final int[] methodStart;
+	private final int[] methodReturnTypes;
+	private final int[] methodNames;
+	private final int[] methodParams;
+
+	// Relationships as class id pairs and a type symbol, in model order
+	private final int relationCount;
+	private final int[] relationClass1;
+	private final int[] relationClass2;
+	private final int[] relationTypes;
+
+	// Open addressing table from class name to id + 1
+	private final int[] nameSlots;
+
+	private CompactModel(Builder builder) {
+		symbols = builder.symbolList.toArray(new String[builder.symbolList.size()]);
+		classCount = builder.classCount;
+		classNames = Arrays.copyOf(builder.classNames, classCount);
+		xs = Arrays.copyOf(builder.xs, classCount);
+		ys = Arrays.copyOf(builder.ys, classCount);
+		fieldStart = Arrays.copyOf(builder.fieldStart, classCount + 1);
+		fieldNames = builder.fieldNames.toArray();
+		fieldTypes = builder.fieldTypes.toArray();
+		methodStart = Arrays.copyOf(builder.methodStart, classCount + 1);
+		methodReturnTypes = builder.methodReturnTypes.toArray();
+		methodNames = builder.methodNames.toArray();
+		methodParams = builder.methodParams.toArray();
+		relationCount = builder.relationClass1.size;
+		relationClass1 = builder.relationClass1.toArray();
+		relationClass2 = builder.relationClass2.toArray();
+		relationTypes = builder.relationTypes.toArray();
+
+		// Size the name table to at most half full
+		int slots = Integer.highestOneBit(Math.max(2, classCount) * 2 - 1) << 1;
+		nameSlots = new int[slots];
+		for(int id = 0; id < classCount; id++) {
+			int slot = classNames[id].hashCode() & (slots - 1);
+			while(nameSlots[slot] != 0)
+				slot = (slot + 1) & (slots - 1);
+			nameSlots[slot] = id + 1;
+		}
+	}
+
+	/**
+	 * Build a compact copy of a model. For a ConcurrentUMLClassManager call this
+	 * inside read so the model does not change while it is copied.
+	 * @param model - model to copy
+	 * @return - compact model
+	 */
+	public static CompactModel of(UMLClassManager model) {
+		Builder builder = new Builder();
+		for(Map.Entry<String, UMLClass> entry : model.getClassList().entrySet()) {
+			UMLClass umlClass = entry.getValue();
+			builder.beginClass();
+			builder.name(umlClass.getName());
+			for(Field field : umlClass.getFields().values())
+				builder.field(field.getName(), field.getType());
+			for(Method method : umlClass.getMethodSignatures().values())
+				builder.method(method.getReturnType(), method.getName(), method.getParamList());
+			builder.location(umlClass.getX(), umlClass.getY());
+			builder.endClass(entry.getKey());
+		}
+		for(UMLRelationship relation : model.getRelationships().values())
+			builder.relationship(relation.getClass1().getName(), relation.getType(), relation.getClass2().getName());
+		return builder.build();
+	}
+
+	/**
+	 * Stream a saved model straight into compact storage, without building the
+	 * classes as objects. Classes, members and relationships are checked like
+	 * any other load.
+	 * @param in - source of the JSON, in the UMLClassManager.writeJSON format
+	 * @return - [0] compact model, null if the file is not valid, [1] 0 or the error code
+	 * @throws JsonParseException - if the JSON is not shaped like a saved model
+	 */
+	public static Object[] read(Reader in) throws IOException {
+		JsonReader reader = new JsonReader(in);
+		Builder builder = new Builder();
+
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String section = reader.nextName();
+			if(reader.peek() == JsonToken.NULL) {
+				reader.skipValue();
+			}
+			else if(section.equals("classList")) {
+				reader.beginObject();
+				while(reader.hasNext())
+					readClass(reader, builder, reader.nextName());
+				reader.endObject();
+			}
+			else if(section.equals("relationships")) {
+				reader.beginObject();
+				while(reader.hasNext()) {
+					reader.nextName();
+					readRelationship(reader, builder);
+				}
+				reader.endObject();
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		CompactModel model = builder.build();
+		return new Object[] {model, builder.code};
+	}
+
+	/**
+	 * Read one class record into the builder
+	 * @param key - key the class was saved under
+	 */
+	private static void readClass(JsonReader reader, Builder builder, String key) throws IOException {
+		builder.beginClass();
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String property = reader.nextName();
+			if(reader.peek() == JsonToken.NULL) {
+				reader.skipValue();
+			}
+			else if(property.equals("name")) {
+				builder.name(reader.nextString());
+			}
+			else if(property.equals("fields")) {
+				reader.beginObject();
+				while(reader.hasNext()) {
+					reader.nextName();
+					String[] member = readMember(reader, "name", "type", null);
+					builder.field(member[0], member[1]);
+				}
+				reader.endObject();
+			}
+			else if(property.equals("methods")) {
+				reader.beginObject();
+				while(reader.hasNext()) {
+					reader.nextName();
+					String[] member = readMember(reader, "returnType", "name", "params");
+					builder.method(member[0], member[1], member[2]);
+				}
+				reader.endObject();
+			}
+			else if(property.equals("x")) {
+				builder.xs[builder.classCount - 1] = reader.nextInt();
+			}
+			else if(property.equals("y")) {
+				builder.ys[builder.classCount - 1] = reader.nextInt();
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		builder.endClass(key);
+	}
+
+	/**
+	 * Read the named string properties of a field or method record
+	 * @return - the values in the order of the property names, null if missing
+	 */
+	private static String[] readMember(JsonReader reader, String first, String second, String third) throws IOException {
+		String[] values = new String[3];
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String property = reader.nextName();
+			if(reader.peek() == JsonToken.NULL)
+				reader.skipValue();
+			else if(property.equals(first))
+				values[0] = reader.nextString();
+			else if(property.equals(second))
+				values[1] = reader.nextString();
+			else if(property.equals(third))
+				values[2] = reader.nextString();
+			else
+				reader.skipValue();
+		}
+		reader.endObject();
+		return values;
+	}
+
+	/**
+	 * Read one relationship record into the builder, keeping only the class names and type
+	 */
+	private static void readRelationship(JsonReader reader, Builder builder) throws IOException {
+		String class1 = null;
+		String class2 = null;
+		String type = null;
+		reader.beginObject();
+		while(reader.hasNext()) {
+			String property = reader.nextName();
+			if(property.equals("class1") || property.equals("class2")) {
+				// Only the name of the embedded class record is needed
+				String name = null;
+				reader.beginObject();
+				while(reader.hasNext()) {
+					if(reader.nextName().equals("name"))
+						name = reader.nextString();
+					else
+						reader.skipValue();
+				}
+				reader.endObject();
+				if(property.equals("class1"))
+					class1 = name;
+				else
+					class2 = name;
+			}
+			else if(property.equals("type")) {
+				type = reader.nextString();
+			}
+			else {
+				reader.skipValue();
+			}
+		}
+		reader.endObject();
+		builder.relationship(class1, type, class2);
+	}
+
+	/**
+	 * Stream the model as JSON, in the same format as UMLClassManager.writeJSON
+	 * @param out - destination of the JSON
+	 */
+	public void writeJSON(Writer out) throws IOException {
+		// Match the output of Gson's pretty printing
+		JsonWriter writer = new JsonWriter(out);
+		writer.setIndent("  ");
+		writer.setHtmlSafe(true);
+
+		writer.beginObject();
+		writer.name("classList").beginObject();
+		for(int id = 0; id < classCount; id++) {
+			writer.name(classNames[id]);
+			writeClass(writer, id);
+		}
+		writer.endObject();
+
+		writer.name("relationships").beginObject();
+		for(int i = 0; i < relationCount; i++) {
+			String type = symbols[relationTypes[i]];
+			writer.name(UMLRelationship.GENERATE_STRING(classNames[relationClass1[i]], type, classNames[relationClass2[i]]));
+			writer.beginObject();
+			writer.name("class1");
+			writeClass(writer, relationClass1[i]);
+			writer.name("class2");
+			writeClass(writer, relationClass2[i]);
+			writer.name("type").value(type);
+			writer.endObject();
+		}
+		writer.endObject();
+		writer.endObject();
+		writer.flush();
+	}
+
+	/**
+	 * Write one class record
+	 */
+	private void writeClass(JsonWriter writer, int id) throws IOException {
+		writer.beginObject();
+		writer.name("name").value(classNames[id]);
+
+		writer.name("fields").beginObject();
+		for(int m = fieldStart[id]; m < fieldStart[id + 1]; m++) {
+			writer.name(symbols[fieldNames[m]]).beginObject();
+			writer.name("name").value(symbols[fieldNames[m]]);
+			writer.name("type").value(symbols[fieldTypes[m]]);
+			writer.endObject();
+		}
+		writer.endObject();
+
+		writer.name("methods").beginObject();
+		for(int m = methodStart[id]; m < methodStart[id + 1]; m++) {
+			writer.name(symbols[methodNames[m]] + symbols[methodParams[m]]).beginObject();
+			writer.name("returnType").value(symbols[methodReturnTypes[m]]);
+			writer.name("name").value(symbols[methodNames[m]]);
+			writer.name("params").value(symbols[methodParams[m]]);
+			writer.endObject();
+		}
+		writer.endObject();
+
+		writer.name("x").value(xs[id]);
+		writer.name("y").value(ys[id]);
+		writer.endObject();
+	}
+
+	/**
+	 * Build an editable model holding the same classes and relationships
+	 * @return - new model
+	 */
+	public UMLClassManager toManager() {
+		LinkedHashMap<String, UMLClass> classList = new LinkedHashMap<String, UMLClass>();
+		for(int id = 0; id < classCount; id++) {
+			UMLClass umlClass = new UMLClass(classNames[id]);
+			for(int m = fieldStart[id]; m < fieldStart[id + 1]; m++)
+				umlClass.addField(symbols[fieldTypes[m]], symbols[fieldNames[m]]);
+			for(int m = methodStart[id]; m < methodStart[id + 1]; m++)
+				umlClass.addMethod(symbols[methodReturnTypes[m]], symbols[methodNames[m]], symbols[methodParams[m]]);
+			umlClass.setLocation(xs[id], ys[id]);
+			classList.put(classNames[id], umlClass);
+		}
+
+		LinkedHashMap<String, UMLRelationship> relationships = new LinkedHashMap<String, UMLRelationship>();
+		for(int i = 0; i < relationCount; i++) {
+			String type = symbols[relationTypes[i]];
+			String name1 = classNames[relationClass1[i]];
+			String name2 = classNames[relationClass2[i]];
+			relationships.put(UMLRelationship.GENERATE_STRING(name1, type, name2),
+					new UMLRelationship(classList.get(name1), type, classList.get(name2)));
+		}
+
+		UMLClassManager model = new UMLClassManager();
+		model.setModel(classList, relationships);
+		return model;
+	}
+
+	/**
+	 * Get the number of classes
+	 * @return - class count
+	 */
+	public int getClassCount() {
+		return classCount;
+	}
+
+	/**
+	 * Get the number of fields and methods of all classes
+	 * @return - member count
+	 */
+	public int getMemberCount() {
+		return fieldNames.length + methodNames.length;
+	}
+
+	/**
+	 * Get the number of relationships
+	 * @return - relationship count
+	 */
+	public int getRelationshipCount() {
+		return relationCount;
+	}
+
+	/**
+	 * Get the id of a class
+	 * @param className - name of class
+	 * @return - id, -1 if the class does not exist
+	 */
+	public int getClassId(String className) {
+		int mask = nameSlots.length - 1;
+		for(int slot = className.hashCode() & mask; nameSlots[slot] != 0; slot = (slot + 1) & mask) {
+			int id = nameSlots[slot] - 1;
+			if(classNames[id].equals(className))
+				return id;
+		}
+		return -1;
+	}
+
+	/**
+	 * Get a view of the class with the given name
+	 * @param className - name of class
+	 * @return - flyweight view, null if the class does not exist
+	 */
+	public ClassView getClass(String className) {
+		int id = getClassId(className);
+		return id < 0 ? null : new View(this, id);
+	}
+
+	/**
+	 * Get a view of the class with the given id
+	 * @param id - class id
+	 * @return - flyweight view
+	 */
+	public ClassView getClass(int id) {
+		if(id < 0 || id >= classCount)
+			throw new IndexOutOfBoundsException("No class " + id);
+		return new View(this, id);
+	}
+
+	/**
+	 * Get views of every class in model order. Views are created as the list is read.
+	 * @return - list of flyweight views
+	 */
+	public List<ClassView> getClasses() {
+		return new AbstractList<ClassView>() {
+			@Override
+			public ClassView get(int index) {
+				return CompactModel.this.getClass(index);
+			}
+
+			@Override
+			public int size() {
+				return classCount;
+			}
+		};
+	}
+
+	/**
+	 * Get the first class of a relationship
+	 * @param index - relationship index, in model order
+	 * @return - flyweight view of the class
+	 */
+	public ClassView getRelationshipClass1(int index) {
+		return getClass(relationClass1[index]);
+	}
+
+	/**
+	 * Get the type of a relationship
+	 * @param index - relationship index, in model order
+	 * @return - relationship type
+	 */
+	public String getRelationshipType(int index) {
+		return symbols[relationTypes[index]];
+	}
+
+	/**
+	 * Get the second class of a relationship
+	 * @param index - relationship index, in model order
+	 * @return - flyweight view of the class
+	 */
+	public ClassView getRelationshipClass2(int index) {
+		return getClass(relationClass2[index]);
+	}
+
+	/**
+	 * Set the location of a class
+	 * @param id - class id
+	 * @param x - new x coordinate
+	 * @param y - new y coordinate
+	 */
+	public void setLocation(int id, int x, int y) {
+		xs[id] = x;
+		ys[id] = y;
+	}
+
+	/**
+	 * Class backed by the tables of a CompactModel. A view holds only the model
+	 * and the class id, move it with CompactModel.setLocation.
+	 */
+	private static final class View implements ClassView {
+		private final CompactModel model;
+		private final int id;
+
+		View(CompactModel model, int id) {
+			this.model = model;
+			this.id = id;
+		}
+
+		@Override
+		public String getName() {
+			return model.classNames[id];
+		}
+
+		@Override
+		public int getX() {
+			return model.xs[id];
+		}
+
+		@Override
+		public int getY() {
+			return model.ys[id];
+		}
+
+		@Override
+		public boolean hasField(String fieldName) {
+			for(int m = model.fieldStart[id]; m < model.fieldStart[id + 1]; m++) {
+				if(model.symbols[model.fieldNames[m]].equals(fieldName))
+					return true;
+			}
+			return false;
+		}
+
+		@Override
+		public boolean hasMethod(String methodName, String params) {
+			return findMethod(methodName, params) >= 0;
+		}
+
+		@Override
+		public Method getMethod(String methodName, String params) {
+			int m = findMethod(methodName, params);
+			return m < 0 ? null : method(m);
+		}
+
+		/**
+		 * Find the row of a method in the method table
+		 * @return - row, -1 if the class does not have the method
+		 */
+		private int findMethod(String methodName, String params) {
+			String[] symbols = model.symbols;
+			for(int m = model.methodStart[id]; m < model.methodStart[id + 1]; m++) {
+				if(MethodSignature.matches(methodName, params, symbols[model.methodNames[m]], symbols[model.methodParams[m]]))
+					return m;
+			}
+			return -1;
+		}
+
+		// Build a detached Method from a row of the method table
+		private Method method(int m) {
+			String[] symbols = model.symbols;
+			return new Method(symbols[model.methodReturnTypes[m]], symbols[model.methodNames[m]], symbols[model.methodParams[m]]);
+		}
+
+		/**
+		 * Build a map of the fields. Changes to it are not stored.
+		 */
+		@Override
+		public HashMap<String, Field> getFields() {
+			HashMap<String, Field> fields = new HashMap<String, Field>();
+			for(int m = model.fieldStart[id]; m < model.fieldStart[id + 1]; m++) {
+				String name = model.symbols[model.fieldNames[m]];
+				fields.put(name, new Field(model.symbols[model.fieldTypes[m]], name));
+			}
+			return fields;
+		}
+
+		/**
+		 * Build a map of the methods. Changes to it are not stored.
+		 */
+		@Override
+		public HashMap<MethodSignature, Method> getMethodSignatures() {
+			HashMap<MethodSignature, Method> methods = new HashMap<MethodSignature, Method>();
+			for(int m = model.methodStart[id]; m < model.methodStart[id + 1]; m++) {
+				Method method = method(m);
+				methods.put(new MethodSignature(method.getName(), method.getParamList()), method);
+			}
+			return methods;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			return other instanceof View && ((View)other).model == model && ((View)other).id == id;
+		}
+
+		@Override
+		public int hashCode() {
+			return System.identityHashCode(model) * 31 + id;
+		}
+	}
+
+	/**
+	 * Collects classes in order while a model is copied or read, checking them
+	 * with the same checks as every other load
+	 */
+	private static final class Builder {
+		final HashMap<String, Integer> symbolIds = new HashMap<String, Integer>();
+		final ArrayList<String> symbolList = new ArrayList<String>();
+
+		int classCount;
+		String[] classNames = new String[16];
+		int[] xs = new int[16];
+		int[] ys = new int[16];
+		int[] fieldStart = new int[17];
+		int[] methodStart = new int[17];
+
+		final IntList fieldNames = new IntList();
+		final IntList fieldTypes = new IntList();
+		final IntList methodReturnTypes = new IntList();
+		final IntList methodNames = new IntList();
+		final IntList methodParams = new IntList();
+
+		// Relationships are resolved to ids once every class is known
+		final ArrayList<String[]> relationRecords = new ArrayList<String[]>();
+		final IntList relationClass1 = new IntList();
+		final IntList relationClass2 = new IntList();
+		final IntList relationTypes = new IntList();
+
+		// Name and canonical parameters of every method of the current class
+		final HashSet<String> classMethods = new HashSet<String>();
+
+		// Error code of the first invalid class, member or relationship
+		int code;
+
+		// Keep the first error found
+		void fail(int error) {
+			if(code == 0)
+				code = error;
+		}
+
+		// Get the id of a string, adding it if it is new
+		int symbol(String text) {
+			if(text == null)
+				text = "";
+			Integer id = symbolIds.get(text);
+			if(id == null) {
+				id = symbolList.size();
+				symbolIds.put(text, id);
+				symbolList.add(text);
+			}
+			return id;
+		}
+
+		void beginClass() {
+			if(classCount == classNames.length) {
+				int capacity = classCount * 2;
+				classNames = Arrays.copyOf(classNames, capacity);
+				xs = Arrays.copyOf(xs, capacity);
+				ys = Arrays.copyOf(ys, capacity);
+				fieldStart = Arrays.copyOf(fieldStart, capacity + 1);
+				methodStart = Arrays.copyOf(methodStart, capacity + 1);
+			}
+			classCount++;
+			fieldStart[classCount] = fieldNames.size;
+			methodStart[classCount] = methodNames.size;
+			classMethods.clear();
+		}
+
+		void endClass(String key) {
+			String name = classNames[classCount - 1];
+			if(!UMLClassManager.validName(name) || !key.equals(name))
+				fail(407);
+		}
+
+		void name(String name) {
+			classNames[classCount - 1] = name == null ? null : symbolList.get(symbol(name));
+		}
+
+		void location(int x, int y) {
+			xs[classCount - 1] = x;
+			ys[classCount - 1] = y;
+		}
+
+		void field(String name, String type) {
+			fail(UMLClassManager.validateLoadedField(name, type));
+			fieldNames.add(symbol(name));
+			fieldTypes.add(symbol(type));
+			fieldStart[classCount] = fieldNames.size;
+		}
+
+		void method(String returnType, String name, String params) {
+			fail(UMLClassManager.validateLoadedMethod(name, returnType));
+			String canonical = params == null ? "" : MethodSignature.canonical(params);
+
+			// Two methods with the same signature once canonical would load as one
+			if(!classMethods.add(name + "(" + canonical))
+				fail(303);
+			methodReturnTypes.add(symbol(returnType));
+			methodNames.add(symbol(name));
+			methodParams.add(symbol(canonical));
+			methodStart[classCount] = methodNames.size;
+		}
+
+		void relationship(String class1, String type, String class2) {
+			relationRecords.add(new String[] {class1, type, class2});
+		}
+
+		/**
+		 * Resolve the relationships and build the model
+		 * @return - the model, null if anything read was invalid
+		 */
+		CompactModel build() {
+			if(code != 0)
+				return null;
+			HashMap<String, Integer> ids = new HashMap<String, Integer>();
+			for(int id = 0; id < classCount; id++) {
+				if(ids.put(classNames[id], id) != null)
+					throw new JsonParseException("Duplicate class " + classNames[id]);
+			}
+
+			for(String[] record : relationRecords) {
+				Integer class1 = record[0] == null ? null : ids.get(record[0]);
+				Integer class2 = record[2] == null ? null : ids.get(record[2]);
+				if(class1 == null || class2 == null)
+					fail(107);
+				else if(!UMLClassManager.validLoadedType(record[0], record[1], record[2]))
+					fail(202);
+				if(code != 0)
+					return null;
+				relationClass1.add(class1);
+				relationClass2.add(class2);
+				relationTypes.add(symbol(record[1]));
+			}
+			return new CompactModel(this);
+		}
+	}
+
+	/**
+	 * Growable array of ints
+	 */
+	private static final class IntList {
+		int[] values = new int[16];
+		int size;
+
+		void add(int value) {
+			if(size == values.length)
+				values = Arrays.copyOf(values, size * 2);
+			values[size++] = value;
+		}
+
+		int[] toArray() {
+			return Arrays.copyOf(values, size);
+		}
+	}
+}
@@ -0,0 +1,341 @@
+package model;
+
+// System imports
+import java.io.IOException;
+import java.io.ObjectStreamException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * UMLClassManager that can be shared between threads. Any number of readers
+ * (listing, exporting, analysis) run in parallel, while edits are serialized and
+ * wait for the readers in progress to finish.
+ * <p>
+ * The lock is reentrant, since edits call other edits (editRelationships removes
+ * and adds a relationship) and printing calls other printing methods.
+ * Loading parses the file before taking the write lock, so readers are only
+ * blocked while the loaded model is swapped in. Snapshots are taken under the
+ * read lock, so saving runs alongside other readers and only holds edits back
+ * while the snapshot copies what changed; it can also be called inside read.
+ * <p>
+ * getClass and getRelationships return copies taken under the read lock, so
+ * callers can use them while other threads edit. Changing a copy does not
+ * change the model; edit through the model's methods, and use read or write to
+ * run several calls as one consistent step. Edits return a Result per call and
+ * never touch shared state, so every thread gets the outcome of its own edit.
+ * <p>
+ * Start the editor with -Duml.concurrent=true to use this model, so other
+ * threads in the same JVM can read it while it is edited.
+ * @author Ryan
+ *
+ */
+public class ConcurrentUMLClassManager extends UMLClassManager {
+	// Version ID for serialization
+	private static final long serialVersionUID = 1L;
+
+	// Guards classList and relationships, not saved
+	private final transient ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+	// Lets one reader at a time update the change tracking while taking a snapshot, not saved
+	private final transient Object snapshotLock = new Object();
+
+	/**
+	 * Create an empty model
+	 */
+	public ConcurrentUMLClassManager() {
+		super();
+	}
+
+	/**
+	 * Run several reads as one step, no edit can happen in between
+	 * @param action - reads to run
+	 * @return - result of the action
+	 */
+	public <T> T read(Supplier<T> action) {
+		lock.readLock().lock();
+		try {
+			return action.get();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	/**
+	 * Run several edits as one step, no other thread sees the model in between
+	 * @param action - edits to run
+	 * @return - result of the action
+	 */
+	public <T> T write(Supplier<T> action) {
+		lock.writeLock().lock();
+		try {
+			return action.get();
+		}
+		finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	/**
+	 * A reader that writes its output, the IOException is passed on to the caller
+	 */
+	private interface IOAction<T> {
+		T run() throws IOException;
+	}
+
+	/**
+	 * Run a read that writes output under the read lock
+	 * @param action - read to run
+	 * @return - result of the action
+	 */
+	private <T> T readIO(IOAction<T> action) throws IOException {
+		lock.readLock().lock();
+		try {
+			return action.run();
+		}
+		finally {
+			lock.readLock().unlock();
+		}
+	}
+
+	// Edits
+
+	@Override
+	public Result tryAddClass(String name) {
+		return write(() -> super.tryAddClass(name));
+	}
+
+	@Override
+	public Result tryAddMethods(String className, String returnType, String methodName, String params) {
+		return write(() -> super.tryAddMethods(className, returnType, methodName, params));
+	}
+
+	@Override
+	public Result tryAddFields(String className, String type, String fieldName) {
+		return write(() -> super.tryAddFields(className, type, fieldName));
+	}
+
+	@Override
+	public Result tryRemoveFields(String className, String fieldName) {
+		return write(() -> super.tryRemoveFields(className, fieldName));
+	}
+
+	@Override
+	public Result tryRemoveMethods(String className, String methodName, String params) {
+		return write(() -> super.tryRemoveMethods(className, methodName, params));
+	}
+
+	@Override
+	public Result tryEditClass(String oldName, String newName) {
+		return write(() -> super.tryEditClass(oldName, newName));
+	}
+
+	@Override
+	public Result tryEditRelationships(String originClass, String oldType, String destClass, String newType) {
+		return write(() -> super.tryEditRelationships(originClass, oldType, destClass, newType));
+	}
+
+	@Override
+	public Result tryEditFields(String className, String oldField, String newName) {
+		return write(() -> super.tryEditFields(className, oldField, newName));
+	}
+
+	@Override
+	public Result tryEditMethods(String className, String oldMethod, String newName, String params) {
+		return write(() -> super.tryEditMethods(className, oldMethod, newName, params));
+	}
+
+	@Override
+	public Result tryRemoveClass(String className) {
+		return write(() -> super.tryRemoveClass(className));
+	}
+
+	@Override
+	public Result tryAddRelationship(String srcClass, String type, String destClass) {
+		return write(() -> super.tryAddRelationship(srcClass, type, destClass));
+	}
+
+	@Override
+	public Result tryRemoveRelationship(String srcClass, String type, String destClass) {
+		return write(() -> super.tryRemoveRelationship(srcClass, type, destClass));
+	}
+
+	@Override
+	public Result trySetClassLocation(String className, int x, int y) {
+		return write(() -> super.trySetClassLocation(className, x, y));
+	}
+
+	@Override
+	protected void setModel(LinkedHashMap<String, UMLClass> classList, LinkedHashMap<String, UMLRelationship> relationships) {
+		write(() -> {
+			super.setModel(classList, relationships);
+			return null;
+		});
+	}
+
+	// Loading
+
+	@Override
+	public int parseJSON(Reader reader) {
+		// Parse without holding the lock, then swap the loaded model in
+		UMLClassManager loaded = new UMLClassManager(getSymbols());
+		int result = loaded.parseJSON(reader);
+		if(result == 0)
+			setModel(loaded.getClassList(), loaded.getRelationships());
+		return result;
+	}
+
+	@Override
+	public int parseJSONParallel(Reader reader) throws IOException {
+		// Parse without holding the lock, then swap the loaded model in
+		UMLClassManager loaded = new UMLClassManager(getSymbols());
+		int result = loaded.parseJSONParallel(reader);
+		if(result == 0)
+			setModel(loaded.getClassList(), loaded.getRelationships());
+		return result;
+	}
+
+	// Reads
+
+	@Override
+	public boolean empty() {
+		return read(() -> super.empty());
+	}
+
+	@Override
+	public ArrayList<String[]> printClasses() {
+		return read(() -> super.printClasses());
+	}
+
+	@Override
+	public boolean printClasses(Consumer<String[]> boxes) {
+		return read(() -> super.printClasses(boxes));
+	}
+
+	@Override
+	public String[] printClasses(String className) {
+		return read(() -> super.printClasses(className));
+	}
+
+	@Override
+	public boolean printClasses(Writer out) throws IOException {
+		return readIO(() -> super.printClasses(out));
+	}
+
+	@Override
+	public boolean printClasses(String className, Writer out) throws IOException {
+		return readIO(() -> super.printClasses(className, out));
+	}
+
+	@Override
+	public ArrayList<ArrayList<String[]>> printRelationships() {
+		return read(() -> super.printRelationships());
+	}
+
+	@Override
+	public boolean printRelationships(Consumer<String[]> boxes) {
+		return read(() -> super.printRelationships(boxes));
+	}
+
+	@Override
+	public boolean printRelationships(Writer out) throws IOException {
+		return readIO(() -> super.printRelationships(out));
+	}
+
+	@Override
+	public int printRelationships(String className, Writer out) throws IOException {
+		return readIO(() -> super.printRelationships(className, out));
+	}
+
+	@Override
+	public ArrayList<String[]> printRelationships(String className) {
+		return read(() -> super.printRelationships(className));
+	}
+
+	@Override
+	public Object[] listRelationships(String className) {
+		return read(() -> super.listRelationships(className));
+	}
+
+	// Snapshots
+
+	@Override
+	public ModelSnapshot snapshot() {
+		// The read lock keeps edits out, so the recorded changes only need guarding from other snapshots
+		return read(() -> {
+			synchronized(snapshotLock) {
+				return super.snapshot();
+			}
+		});
+	}
+
+	@Override
+	public String convertToJSON() {
+		StringWriter out = new StringWriter();
+		writeJSON(out);
+		return out.toString();
+	}
+
+	@Override
+	public void writeJSON(Writer writer) {
+		// Serialize a snapshot so saving never blocks edits
+		snapshot().writeJSON(writer);
+	}
+
+	@Override
+	public UMLClass getClass(String className) {
+		return read(() -> {
+			UMLClass umlClass = super.getClass(className);
+			return umlClass == null ? null : new UMLClass(umlClass);
+		});
+	}
+
+	@Override
+	public LinkedHashMap<String, UMLRelationship> getRelationships() {
+		return read(() -> {
+			// Link the copies to copies of their classes, each class copied once
+			HashMap<String, UMLClass> copies = new HashMap<String, UMLClass>();
+			LinkedHashMap<String, UMLRelationship> relationships = new LinkedHashMap<String, UMLRelationship>();
+			for(Map.Entry<String, UMLRelationship> entry : super.getRelationships().entrySet()) {
+				UMLRelationship relation = entry.getValue();
+				UMLClass class1 = copies.computeIfAbsent(relation.getClass1().getName(), name -> new UMLClass(relation.getClass1()));
+				UMLClass class2 = copies.computeIfAbsent(relation.getClass2().getName(), name -> new UMLClass(relation.getClass2()));
+				relationships.put(entry.getKey(), new UMLRelationship(class1, relation.getType(), class2));
+			}
+			return relationships;
+		});
+	}
+
+	@Override
+	public int getRelationshipCount() {
+		return read(() -> super.getRelationshipCount());
+	}
+
+	@Override
+	public Object[] getClassNames() {
+		return read(() -> super.getClassNames());
+	}
+
+	@Override
+	public int getClassCount() {
+		return read(() -> super.getClassCount());
+	}
+
+	/**
+	 * Rebuild the lock after deserialization
+	 * @return - a model holding the deserialized classes
+	 */
+	private Object readResolve() throws ObjectStreamException {
+		ConcurrentUMLClassManager model = new ConcurrentUMLClassManager();
+		model.setModel(getClassList(), super.getRelationships());
+		return model;
+	}
+}
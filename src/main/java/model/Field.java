@@ -10,6 +10,9 @@ public class Field  implements Serializable {
 	private String name;
 	private String type;
 	
+	// Class the field belongs to, told when the field changes. Not saved
+	private transient UMLClass owner;
+	
 	/**
 	 * basic constructor given type and name
 	 * @param name field name
@@ -20,6 +23,14 @@ public class Field  implements Serializable {
 		this.type = type;
 	}
 	
+	/**
+	 * Copy a field, the copy does not belong to any class
+	 * @param other - field to copy
+	 */
+	Field(Field other) {
+		this(other.type, other.name);
+	}
+	
 	/**
 	 * pulls the field name
 	 * @return field name
@@ -41,6 +52,7 @@ public class Field  implements Serializable {
 	 */
 	public void setName(String name) {
 		this.name = name;
+		changed();
 	}
 	
 	/**
@@ -48,6 +60,31 @@ public class Field  implements Serializable {
 	 */
 	public void setType(String type) {
 		this.type = type;
+		changed();
+	}
+	
+	/**
+	 * Set the class the field belongs to
+	 * @param owner - owning class
+	 */
+	void setOwner(UMLClass owner) {
+		this.owner = owner;
+	}
+	
+	/**
+	 * Swap the type for its shared instance, the text does not change
+	 * @param symbols - table of shared names
+	 */
+	void intern(SymbolTable symbols) {
+		type = symbols.intern(type);
+	}
+	
+	/**
+	 * Tell the owning class that the field changed
+	 */
+	private void changed() {
+		if(owner != null)
+			owner.invalidate();
 	}
 	
 	@Override
@@ -0,0 +1,353 @@
+package model;
+
+// System imports
+import java.io.PrintStream;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estimate of the heap a model keeps alive, broken down by category, computed
+ * from the model's structures instead of a heap dump.
+ * <p>
+ * Sizes assume a 64-bit JVM with compressed references (heaps below 32 GB) and
+ * compact strings, which is the default since Java 9: 12 byte object headers,
+ * 4 byte references and objects padded to 8 bytes. Hash tables are assumed to
+ * be at the capacity their size would grow them to. Names are shared across the
+ * model through its symbol table, so every String and method signature is only
+ * counted once, in the first category that reaches it.
+ * <p>
+ * Once a snapshot has been taken, the model keeps the last one to build the
+ * next from, along with the changes recorded since. Both are counted under
+ * snapshot; the copies share their names with the model.
+ * <p>
+ * Views add their own categories, such as GUI components, with add.
+ * @author Ryan
+ *
+ */
+public final class MemoryFootprint {
+	// Categories of the estimate
+	public static final String CLASSES = "classes";
+	public static final String FIELDS = "fields";
+	public static final String METHODS = "methods";
+	public static final String RELATIONSHIPS = "relationships";
+	public static final String RELATIONSHIP_KEYS = "relationship keys";
+	public static final String SYMBOL_TABLE = "symbol table";
+	public static final String SNAPSHOT = "snapshot";
+	public static final String GUI_COMPONENTS = "GUI components";
+	public static final String LABEL_CACHES = "label caches";
+
+	// Bytes of a reference
+	public static final int REFERENCE = 4;
+
+	// Layout of the JVM
+	private static final int HEADER = 12;
+	private static final int ARRAY_HEADER = 16;
+	private static final int ALIGNMENT = 8;
+
+	// Shallow sizes of the objects the model is built from
+	private static final long STRING = object(1, 6);
+	private static final long HASH_MAP = object(4, 16);
+	private static final long HASH_SET = object(1, 0);
+	private static final long LINKED_HASH_MAP = object(6, 17);
+	private static final long HASH_NODE = object(3, 4);
+	private static final long LINKED_HASH_NODE = object(5, 4);
+	private static final long WEAK_HASH_MAP = object(6, 16) + object(2, 8) + object(0, 0);
+	private static final long WEAK_ENTRY = object(6, 4);
+	private static final long WEAK_REFERENCE = object(4, 0);
+	private static final int SYMBOL_STRIPES = 16;
+	private static final long UML_CLASS = object(5, 8);
+	private static final long FIELD = object(3, 0);
+	private static final long METHOD = object(4, 0);
+	private static final long SIGNATURE = object(4, 4);
+	private static final long RELATIONSHIP = object(3, 0);
+	private static final long MODEL_SNAPSHOT = object(4, 16);
+	private static final long PERSISTENT_MAP = object(1, 0);
+	private static final long TREE_NODE = object(5, 8);
+	private static final long CLASS_ENTRY = object(2, 8);
+	private static final long RELATION_ENTRY = object(5, 8);
+
+	// Bytes and number of objects per category, in the order they were added
+	private final LinkedHashMap<String, long[]> categories = new LinkedHashMap<String, long[]>();
+
+	// Shared objects that were already counted
+	private final IdentityHashMap<Object, Boolean> seen = new IdentityHashMap<Object, Boolean>();
+
+	/**
+	 * Estimate the heap kept by a model. Reads the model without locking, so it
+	 * should not be edited at the same time.
+	 * @param model - model to measure
+	 * @return - estimate with the model's categories
+	 */
+	public static MemoryFootprint of(UMLClassManager model) {
+		MemoryFootprint footprint = new MemoryFootprint();
+		for(String category : new String[] {CLASSES, FIELDS, METHODS, RELATIONSHIPS, RELATIONSHIP_KEYS, SYMBOL_TABLE, SNAPSHOT, LABEL_CACHES})
+			footprint.add(category, 0, 0);
+		footprint.add(CLASSES, 0, LINKED_HASH_MAP + table(model.getClassList().size()));
+		for(Map.Entry<String, UMLClass> entry : model.getClassList().entrySet())
+			footprint.addClass(entry.getKey(), entry.getValue());
+
+		footprint.add(RELATIONSHIP_KEYS, 0, LINKED_HASH_MAP + table(model.getRelationships().size()));
+		for(Map.Entry<String, UMLRelationship> entry : model.getRelationships().entrySet()) {
+			footprint.add(RELATIONSHIP_KEYS, 1, LINKED_HASH_NODE + footprint.string(entry.getKey()));
+			footprint.add(RELATIONSHIPS, 1, footprint.once(entry.getValue()) ? RELATIONSHIP + footprint.string(entry.getValue().getType()) : 0);
+		}
+
+		// Only the table itself, the names in it were counted where they are used
+		int symbols = model.getSymbols().size();
+		footprint.add(SYMBOL_TABLE, symbols, SYMBOL_STRIPES * (WEAK_HASH_MAP + table(symbols / SYMBOL_STRIPES))
+				+ symbols * (WEAK_ENTRY + WEAK_REFERENCE));
+
+		footprint.addSnapshot(model);
+		return footprint;
+	}
+
+	// Add the snapshot the model keeps, the changes recorded since and the relationship index
+	private void addSnapshot(UMLClassManager model) {
+		ModelSnapshot snapshot = model.getLastSnapshot();
+		if(snapshot == null)
+			return;
+		int classes = snapshot.getClassCount();
+		int relations = snapshot.getRelationshipCount();
+
+		// Each class and relationship is in two persistent maps, by key and by order
+		long bytes = MODEL_SNAPSHOT + 4 * PERSISTENT_MAP + 2L * (classes + relations) * TREE_NODE
+				+ classes * CLASS_ENTRY + relations * RELATION_ENTRY;
+		for(UMLClass copy : snapshot.getClasses())
+			bytes += copy(copy);
+
+		// The recorded changes hold keys shared with the model
+		bytes += 2 * (HASH_SET + LINKED_HASH_MAP) + table(model.getChangedClasses().size()) + table(model.getChangedRelations().size())
+				+ (long)(model.getChangedClasses().size() + model.getChangedRelations().size()) * LINKED_HASH_NODE;
+		Map<String, HashSet<String>> index = model.getClassRelations();
+		bytes += HASH_MAP + table(index.size());
+		for(HashSet<String> keys : index.values())
+			bytes += HASH_NODE + HASH_SET + hashMap(keys.size());
+		add(SNAPSHOT, classes + relations, bytes);
+	}
+
+	// Bytes of a class copied into a snapshot, not counting names already counted
+	private long copy(UMLClass umlClass) {
+		long bytes = UML_CLASS + hashMap(umlClass.getFields().size()) + hashMap(umlClass.getMethodSignatures().size())
+				+ string(umlClass.getName());
+		for(Field field : umlClass.getFields().values())
+			bytes += FIELD + string(field.getName()) + string(field.getType());
+		for(Map.Entry<MethodSignature, Method> entry : umlClass.getMethodSignatures().entrySet()) {
+			Method method = entry.getValue();
+			bytes += METHOD + signature(entry.getKey()) + string(method.getName()) + string(method.getReturnType())
+					+ string(method.getParamList());
+		}
+		return bytes;
+	}
+
+	// Add a class, its members and its rendered box
+	private void addClass(String key, UMLClass umlClass) {
+		long maps = 2 * HASH_MAP + table(umlClass.getFields().size()) + table(umlClass.getMethodSignatures().size());
+		add(CLASSES, 1, LINKED_HASH_NODE + UML_CLASS + string(key) + string(umlClass.getName()) + maps);
+
+		for(Map.Entry<String, Field> entry : umlClass.getFields().entrySet()) {
+			Field field = entry.getValue();
+			add(FIELDS, 1, HASH_NODE + FIELD + string(entry.getKey()) + string(field.getName()) + string(field.getType()));
+		}
+
+		for(Map.Entry<MethodSignature, Method> entry : umlClass.getMethodSignatures().entrySet()) {
+			Method method = entry.getValue();
+			add(METHODS, 1, HASH_NODE + METHOD + signature(entry.getKey()) + string(method.getName())
+					+ string(method.getReturnType()) + string(method.getParamList()));
+		}
+
+		String[] box = umlClass.getRenderedBox();
+		if(box != null) {
+			long bytes = array(box.length, REFERENCE);
+			for(String line : box)
+				bytes += string(line);
+			add(LABEL_CACHES, 1, bytes);
+		}
+	}
+
+	// Bytes of a method signature and its parameter arrays, 0 if already counted
+	private long signature(MethodSignature signature) {
+		if(!once(signature))
+			return 0;
+		int count = signature.getParameterCount();
+		long bytes = SIGNATURE + string(signature.getName()) + string(signature.getParams());
+		if(count > 0)
+			bytes += 2 * array(count, REFERENCE);
+		for(int i = 0; i < count; i++)
+			bytes += string(signature.getParameterType(i)) + string(signature.getParameterName(i));
+		return bytes;
+	}
+
+	/**
+	 * Add bytes to a category, creating it if needed
+	 * @param category - name of the category
+	 * @param count - number of objects the bytes are for
+	 * @param bytes - estimated bytes
+	 */
+	public void add(String category, long count, long bytes) {
+		long[] totals = categories.get(category);
+		if(totals == null) {
+			totals = new long[2];
+			categories.put(category, totals);
+		}
+		totals[0] += bytes;
+		totals[1] += count;
+	}
+
+	/**
+	 * Check if a shared object is being counted for the first time
+	 * @param shared - object that may be referenced from several places
+	 * @return - true the first time the object is passed in
+	 */
+	public boolean once(Object shared) {
+		return seen.put(shared, Boolean.TRUE) == null;
+	}
+
+	/**
+	 * Get the bytes of a String and its characters, counted once per instance
+	 * @param text - string to measure
+	 * @return - bytes, 0 if null or already counted
+	 */
+	public long string(String text) {
+		if(text == null || !once(text))
+			return 0;
+		// Compact strings store one byte per character unless a character needs two
+		int width = 1;
+		for(int i = 0; i < text.length() && width == 1; i++) {
+			if(text.charAt(i) > 0xFF)
+				width = 2;
+		}
+		return STRING + array(text.length(), width);
+	}
+
+	/**
+	 * Get the size of an object, padded
+	 * @param references - number of reference fields
+	 * @param primitiveBytes - bytes of primitive fields
+	 * @return - bytes
+	 */
+	public static long object(int references, int primitiveBytes) {
+		return align(HEADER + references * REFERENCE + primitiveBytes);
+	}
+
+	/**
+	 * Get the size of an array, padded
+	 * @param length - number of elements
+	 * @param elementBytes - bytes per element, REFERENCE for object arrays
+	 * @return - bytes
+	 */
+	public static long array(int length, int elementBytes) {
+		return align(ARRAY_HEADER + (long)length * elementBytes);
+	}
+
+	/**
+	 * Get the size of the bucket array of a hash table holding size entries,
+	 * at the power of two capacity it grows to with the default load factor
+	 * @param size - number of entries
+	 * @return - bytes of the bucket array, 0 while the table is still empty
+	 */
+	public static long table(int size) {
+		if(size == 0)
+			return 0;
+		int capacity = 16;
+		while(capacity * 3L / 4 < size)
+			capacity <<= 1;
+		return array(capacity, REFERENCE);
+	}
+
+	/**
+	 * Get the size of a HashMap with its bucket array and entries, not counting
+	 * the keys and values
+	 * @param size - number of entries
+	 * @return - bytes
+	 */
+	public static long hashMap(int size) {
+		return HASH_MAP + table(size) + (long)size * HASH_NODE;
+	}
+
+	// Round up to the object alignment
+	private static long align(long bytes) {
+		return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+	}
+
+	/**
+	 * Get the estimated bytes of a category
+	 * @param category - name of the category
+	 * @return - bytes, 0 if the category has nothing
+	 */
+	public long getBytes(String category) {
+		long[] totals = categories.get(category);
+		return totals == null ? 0 : totals[0];
+	}
+
+	/**
+	 * Get the number of objects counted in a category
+	 * @param category - name of the category
+	 * @return - count, 0 if the category has nothing
+	 */
+	public long getCount(String category) {
+		long[] totals = categories.get(category);
+		return totals == null ? 0 : totals[1];
+	}
+
+	/**
+	 * Get the estimated bytes of every category together
+	 * @return - total bytes
+	 */
+	public long getTotal() {
+		long total = 0;
+		for(long[] totals : categories.values())
+			total += totals[0];
+		return total;
+	}
+
+	/**
+	 * Get the names of the categories, in the order they were added
+	 * @return - category names
+	 */
+	public String[] getCategories() {
+		return categories.keySet().toArray(new String[categories.size()]);
+	}
+
+	/**
+	 * Print a table of every category with its count, size and share of the total
+	 * @param output - where to print the table
+	 */
+	public void print(PrintStream output) {
+		output.print(toString());
+	}
+
+	@Override
+	public String toString() {
+		long total = getTotal();
+		StringBuilder out = new StringBuilder();
+		String line = System.lineSeparator();
+		out.append(String.format("%-18s %10s %12s %6s", "category", "count", "bytes", "share")).append(line);
+		for(Map.Entry<String, long[]> entry : categories.entrySet()) {
+			long bytes = entry.getValue()[0];
+			out.append(String.format("%-18s %10d %12s %5.1f%%", entry.getKey(), entry.getValue()[1], formatBytes(bytes),
+					total == 0 ? 0.0 : 100.0 * bytes / total)).append(line);
+		}
+		out.append(String.format("%-18s %10s %12s", "total", "", formatBytes(total))).append(line);
+		return out.toString();
+	}
+
+	/**
+	 * Format a number of bytes with a binary unit, such as "1.5 MB"
+	 * @param bytes - number of bytes
+	 * @return - formatted size
+	 */
+	public static String formatBytes(long bytes) {
+		if(bytes < 1024)
+			return bytes + " B";
+		String[] units = {"KB", "MB", "GB", "TB"};
+		double value = bytes;
+		int unit = -1;
+		while(value >= 1024 && unit < units.length - 1) {
+			value /= 1024;
+			unit++;
+		}
+		return String.format("%.1f %s", value, units[unit]);
+	}
+}
@@ -15,6 +15,9 @@ public class Method implements Serializable {
 	private String name;
 	private String params;
 	
+	// Class the method belongs to, told when the method changes. Not saved
+	private transient UMLClass owner;
+	
 	/**
 	 * basic constructor given name, return type, and parameter list
 	 * @param name the method name
@@ -27,11 +30,20 @@ public class Method implements Serializable {
 		this.params = params;
 	}
 	
+	/**
+	 * Copy a method, the copy does not belong to any class
+	 * @param other - method to copy
+	 */
+	Method(Method other) {
+		this(other.returnType, other.name, other.params);
+	}
+	
 	/**
 	 * sets method name
 	 */
 	public void setName(String name) {
 		this.name = name;
+		changed();
 	}
 	
 	/**
@@ -39,6 +51,7 @@ public class Method implements Serializable {
 	 */
 	public void setReturnType(String returnType) {
 		this.returnType = returnType;
+		changed();
 	}
 	
 	/**
@@ -46,6 +59,40 @@ public class Method implements Serializable {
 	 */
 	public void setParams(String params) {
 		this.params = params;
+		changed();
+	}
+	
+	/**
+	 * Set the class the method belongs to
+	 * @param owner - owning class
+	 */
+	void setOwner(UMLClass owner) {
+		this.owner = owner;
+	}
+	
+	/**
+	 * Swap the return type and parameter list for their shared instances, the text does not change
+	 * @param symbols - table of shared names
+	 */
+	void intern(SymbolTable symbols) {
+		returnType = symbols.intern(returnType);
+		params = symbols.intern(params);
+	}
+	
+	/**
+	 * Tell the owning class that the method changed
+	 */
+	private void changed() {
+		if(owner != null)
+			owner.invalidate();
+	}
+	
+	/**
+	 * Get the parameter list as stored, without parentheses
+	 * @return - parameter list
+	 */
+	String getParamList() {
+		return params;
 	}
 	
 	/**
@@ -0,0 +1,294 @@
+package model;
+
+// System imports
+import java.io.IOException;
+import java.util.ArrayList;
+
+import com.google.gson.TypeAdapter;
+import com.google.gson.annotations.JsonAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Parsed method signature: the method name and its parameter types and names.
+ * Parameter lists are kept in a canonical form, with runs of whitespace collapsed
+ * and one space after every comma, so "int a,int  b" and "int a, int b" are the
+ * same signature. The hash is computed once, and lookups by name and raw parameter
+ * text compare against the canonical form in place without building any Strings.
+ * <p>
+ * Signatures key the methods of a UMLClass and are saved as "name" + "params",
+ * the same key the saved files have always used.
+ * @author Ryan
+ *
+ */
+@JsonAdapter(MethodSignature.KeyAdapter.class)
+public final class MethodSignature {
+	// Reused lookup key per thread, so lookups do not allocate
+	private static final ThreadLocal<Lookup> LOOKUPS = ThreadLocal.withInitial(Lookup::new);
+
+	private static final String[] NO_PARAMETERS = new String[0];
+
+	private final String name;
+	private final String params;
+	private final String[] types;
+	private final String[] names;
+	private final int hash;
+
+	/**
+	 * Parse a signature
+	 * @param name - method name
+	 * @param params - parameter list as typed, without the parentheses
+	 */
+	public MethodSignature(String name, CharSequence params) {
+		this(name, canonical(params));
+	}
+
+	// Create a signature from a canonical parameter list
+	private MethodSignature(String name, String params) {
+		this.name = name;
+		this.params = params;
+		this.hash = (int)walk(name, params, null, null);
+
+		// Split the list into "type name" pairs, ignoring commas inside generics
+		ArrayList<String> parts = new ArrayList<String>();
+		int depth = 0;
+		int start = 0;
+		for(int i = 0; i < params.length(); i++) {
+			char c = params.charAt(i);
+			if(c == '<')
+				depth++;
+			else if(c == '>')
+				depth--;
+			else if(c == ',' && depth == 0) {
+				parts.add(params.substring(start, i).trim());
+				start = i + 1;
+			}
+		}
+		if(params.length() > 0)
+			parts.add(params.substring(start).trim());
+
+		types = parts.isEmpty() ? NO_PARAMETERS : new String[parts.size()];
+		names = parts.isEmpty() ? NO_PARAMETERS : new String[parts.size()];
+		for(int i = 0; i < parts.size(); i++) {
+			String part = parts.get(i);
+			int space = part.lastIndexOf(' ');
+			types[i] = space < 0 ? part : part.substring(0, space);
+			names[i] = space < 0 ? "" : part.substring(space + 1);
+		}
+	}
+
+	/**
+	 * Get a copy of the signature whose parameter list and types are the shared
+	 * instances from the table
+	 * @param symbols - table of shared names
+	 * @return - equal signature
+	 */
+	MethodSignature intern(SymbolTable symbols) {
+		MethodSignature interned = new MethodSignature(name, symbols.intern(params));
+		for(int i = 0; i < types.length; i++) {
+			interned.types[i] = symbols.intern(types[i]);
+			interned.names[i] = names[i];
+		}
+		return interned;
+	}
+
+	/**
+	 * Get a key that finds the signature of name(params) in a map without allocating.
+	 * The key is reused by the next lookup on the same thread, so use it right away.
+	 * @param name - method name
+	 * @param params - parameter list as typed
+	 * @return - lookup key for get, containsKey and remove
+	 */
+	static Object lookup(String name, CharSequence params) {
+		Lookup key = LOOKUPS.get();
+		key.name = name;
+		key.params = params;
+		key.hash = (int)walk(name, params, null, null);
+		return key;
+	}
+
+	/**
+	 * Get the canonical form of a parameter list
+	 * @param params - parameter list as typed
+	 * @return - canonical parameter list
+	 */
+	public static String canonical(CharSequence params) {
+		StringBuilder out = new StringBuilder(params.length());
+		walk("", params, null, out);
+		return out.toString();
+	}
+
+	/**
+	 * Walk the canonical form of a parameter list, hashing it together with the name.
+	 * Whitespace runs become one space, leading and trailing whitespace and whitespace
+	 * before a comma are dropped, and every comma is followed by one space.
+	 * @param name - method name, hashed first
+	 * @param params - parameter list as typed
+	 * @param expected - canonical list to compare with, null to skip
+	 * @param out - buffer to write the canonical list to, null to skip
+	 * @return - the hash, or Long.MIN_VALUE if the list does not match expected
+	 */
+	private static long walk(String name, CharSequence params, String expected, StringBuilder out) {
+		int h = name.hashCode() * 31 + '(';
+		int matched = 0;
+		boolean space = false;
+		boolean started = false;
+		for(int i = 0; i < params.length(); i++) {
+			char c = params.charAt(i);
+			if(Character.isWhitespace(c)) {
+				space = started;
+				continue;
+			}
+
+			if(c == ',') {
+				// Drop the space before the comma and always put one after it
+				space = false;
+			}
+			else if(space) {
+				if(expected != null && (matched >= expected.length() || expected.charAt(matched++) != ' '))
+					return Long.MIN_VALUE;
+				if(out != null)
+					out.append(' ');
+				h = h * 31 + ' ';
+				space = false;
+			}
+
+			if(expected != null && (matched >= expected.length() || expected.charAt(matched++) != c))
+				return Long.MIN_VALUE;
+			if(out != null)
+				out.append(c);
+			h = h * 31 + c;
+			started = true;
+			if(c == ',')
+				space = true;
+		}
+		if(expected != null && matched != expected.length())
+			return Long.MIN_VALUE;
+		return h * 31 + ')';
+	}
+
+	/**
+	 * Check if this is the signature of name(params)
+	 * @param name - method name
+	 * @param params - parameter list as typed
+	 * @return - true if both have the same canonical form
+	 */
+	public boolean matches(String name, CharSequence params) {
+		return matches(name, params, this.name, this.params);
+	}
+
+	/**
+	 * Check if name(params) has the given name and canonical parameter list
+	 * @param name - method name
+	 * @param params - parameter list as typed
+	 * @param expectedName - name to compare with
+	 * @param expectedParams - canonical parameter list to compare with
+	 * @return - true if both have the same canonical form
+	 */
+	static boolean matches(String name, CharSequence params, String expectedName, String expectedParams) {
+		return expectedName.equals(name) && walk(name, params, expectedParams, null) != Long.MIN_VALUE;
+	}
+
+	/**
+	 * Get the method name
+	 * @return - name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Get the canonical parameter list, without the parentheses
+	 * @return - parameter list
+	 */
+	public String getParams() {
+		return params;
+	}
+
+	/**
+	 * Get the number of parameters
+	 * @return - parameter count
+	 */
+	public int getParameterCount() {
+		return types.length;
+	}
+
+	/**
+	 * Get the type of a parameter
+	 * @param index - parameter index
+	 * @return - type
+	 */
+	public String getParameterType(int index) {
+		return types[index];
+	}
+
+	/**
+	 * Get the name of a parameter
+	 * @param index - parameter index
+	 * @return - name, empty if the parameter only has a type
+	 */
+	public String getParameterName(int index) {
+		return names[index];
+	}
+
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if(this == other)
+			return true;
+		if(!(other instanceof MethodSignature))
+			return false;
+		MethodSignature signature = (MethodSignature)other;
+		return hash == signature.hash && name.equals(signature.name) && params.equals(signature.params);
+	}
+
+	/**
+	 * Get the key form of the signature, name followed by the parameter list
+	 */
+	@Override
+	public String toString() {
+		return name + params;
+	}
+
+	/**
+	 * Lookup key that equals the signature with the same name and canonical parameters
+	 */
+	private static final class Lookup {
+		String name;
+		CharSequence params;
+		int hash;
+
+		@Override
+		public int hashCode() {
+			return hash;
+		}
+
+		@Override
+		public boolean equals(Object other) {
+			if(!(other instanceof MethodSignature))
+				return false;
+			MethodSignature signature = (MethodSignature)other;
+			return hash == signature.hash && signature.matches(name, params);
+		}
+	}
+
+	/**
+	 * Saves signatures as their key form. Keys cannot be split back into a name and
+	 * parameters, so loaded keys are rebuilt from the methods they belong to.
+	 */
+	static final class KeyAdapter extends TypeAdapter<MethodSignature> {
+		@Override
+		public void write(JsonWriter out, MethodSignature signature) throws IOException {
+			out.value(signature.toString());
+		}
+
+		@Override
+		public MethodSignature read(JsonReader in) throws IOException {
+			return new MethodSignature(in.nextString(), "");
+		}
+	}
+}
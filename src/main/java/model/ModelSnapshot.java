@@ -0,0 +1,252 @@
+package model;
+
+// System imports
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Set;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonIOException;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * Immutable, versioned view of a UMLClassManager at one point in time. Readers
+ * such as exporters can iterate a snapshot while the model keeps changing,
+ * without holding any lock.
+ * <p>
+ * A snapshot is built from the previous one by copying only the classes and
+ * relationships that changed since. Both are kept in persistent maps, so the
+ * new snapshot shares everything else with the old one and taking it costs
+ * O(changes) time and memory. Classes are kept in the order they were added.
+ * <p>
+ * The classes handed out are private copies, do not modify them.
+ * @author Ryan
+ *
+ */
+public final class ModelSnapshot {
+	// Snapshot of a model that has no classes
+	static final ModelSnapshot EMPTY = new ModelSnapshot(0, 0, PersistentTreeMap.<String, ClassEntry>empty(),
+			PersistentTreeMap.<Long, ClassEntry>empty(), PersistentTreeMap.<String, RelationEntry>empty(),
+			PersistentTreeMap.<Long, RelationEntry>empty());
+
+	private final long version;
+
+	// Next position given to an added class or relationship
+	private final long nextSeq;
+
+	// Classes by name and in the order they were added
+	private final PersistentTreeMap<String, ClassEntry> classes;
+	private final PersistentTreeMap<Long, ClassEntry> classOrder;
+
+	// Relationships by key and in the order they were added
+	private final PersistentTreeMap<String, RelationEntry> relationships;
+	private final PersistentTreeMap<Long, RelationEntry> relationOrder;
+
+	private ModelSnapshot(long version, long nextSeq, PersistentTreeMap<String, ClassEntry> classes,
+			PersistentTreeMap<Long, ClassEntry> classOrder, PersistentTreeMap<String, RelationEntry> relationships,
+			PersistentTreeMap<Long, RelationEntry> relationOrder) {
+		this.version = version;
+		this.nextSeq = nextSeq;
+		this.classes = classes;
+		this.classOrder = classOrder;
+		this.relationships = relationships;
+		this.relationOrder = relationOrder;
+	}
+
+	/**
+	 * Build the next snapshot by copying the changed classes and relationships from the model
+	 * @param classList - classes of the model
+	 * @param changedClasses - names of classes added, changed or removed since this snapshot
+	 * @param relationList - relationships of the model
+	 * @param changedRelations - keys of relationships added, changed or removed since this snapshot
+	 * @return - new snapshot, this snapshot is unchanged
+	 */
+	ModelSnapshot update(LinkedHashMap<String, UMLClass> classList, Set<String> changedClasses,
+			LinkedHashMap<String, UMLRelationship> relationList, Set<String> changedRelations) {
+		long seq = nextSeq;
+		PersistentTreeMap<String, ClassEntry> newClasses = classes;
+		PersistentTreeMap<Long, ClassEntry> newClassOrder = classOrder;
+		for(String name : changedClasses) {
+			ClassEntry old = newClasses.get(name);
+			UMLClass source = classList.get(name);
+			if(old != null && old.source != source) {
+				// Removed, or removed and added again at the end
+				newClasses = newClasses.remove(name);
+				newClassOrder = newClassOrder.remove(old.seq);
+				old = null;
+			}
+			if(source != null) {
+				ClassEntry entry = new ClassEntry(old != null ? old.seq : seq++, source, new UMLClass(source));
+				newClasses = newClasses.put(name, entry);
+				newClassOrder = newClassOrder.put(entry.seq, entry);
+			}
+		}
+
+		PersistentTreeMap<String, RelationEntry> newRelations = relationships;
+		PersistentTreeMap<Long, RelationEntry> newRelationOrder = relationOrder;
+		for(String key : changedRelations) {
+			RelationEntry old = newRelations.get(key);
+			UMLRelationship source = relationList.get(key);
+			if(old != null && old.source != source) {
+				newRelations = newRelations.remove(key);
+				newRelationOrder = newRelationOrder.remove(old.seq);
+				old = null;
+			}
+			if(source != null) {
+				RelationEntry entry = new RelationEntry(old != null ? old.seq : seq++, key, source);
+				newRelations = newRelations.put(key, entry);
+				newRelationOrder = newRelationOrder.put(entry.seq, entry);
+			}
+		}
+
+		return new ModelSnapshot(version + 1, seq, newClasses, newClassOrder, newRelations, newRelationOrder);
+	}
+
+	/**
+	 * Get the version of the snapshot, which goes up every time the model changed in between
+	 * @return - version
+	 */
+	public long getVersion() {
+		return version;
+	}
+
+	/**
+	 * Get the number of classes
+	 * @return - class count
+	 */
+	public int getClassCount() {
+		return classes.size();
+	}
+
+	/**
+	 * Get the number of relationships
+	 * @return - relationship count
+	 */
+	public int getRelationshipCount() {
+		return relationships.size();
+	}
+
+	/**
+	 * Get a class as it was when the snapshot was taken
+	 * @param className - name of class
+	 * @return - copy of the class, null if it did not exist
+	 */
+	public UMLClass getClass(String className) {
+		ClassEntry entry = classes.get(className);
+		return entry == null ? null : entry.copy;
+	}
+
+	/**
+	 * Get the classes in the order they were added
+	 * @return - copies of the classes
+	 */
+	public Iterable<UMLClass> getClasses() {
+		return () -> new Iterator<UMLClass>() {
+			private final Iterator<ClassEntry> entries = classOrder.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return entries.hasNext();
+			}
+
+			@Override
+			public UMLClass next() {
+				return entries.next().copy;
+			}
+		};
+	}
+
+	/**
+	 * Get the relationships in the order they were added, linked to the classes of this snapshot
+	 * @return - relationships
+	 */
+	public Iterable<UMLRelationship> getRelationships() {
+		return () -> new Iterator<UMLRelationship>() {
+			private final Iterator<RelationEntry> entries = relationOrder.iterator();
+
+			@Override
+			public boolean hasNext() {
+				return entries.hasNext();
+			}
+
+			@Override
+			public UMLRelationship next() {
+				RelationEntry entry = entries.next();
+				return new UMLRelationship(ModelSnapshot.this.getClass(entry.class1), entry.type, ModelSnapshot.this.getClass(entry.class2));
+			}
+		};
+	}
+
+	/**
+	 * Stream the snapshot as JSON, in the same format as UMLClassManager.writeJSON
+	 * @param out - destination of the JSON
+	 */
+	public void writeJSON(Writer out) {
+		Gson gson = new Gson();
+		try {
+			// Match the output of Gson's pretty printing
+			JsonWriter writer = new JsonWriter(out);
+			writer.setIndent("  ");
+
+			writer.beginObject();
+			writer.name("classList").beginObject();
+			for(ClassEntry entry : classOrder) {
+				writer.name(entry.copy.getName());
+				gson.toJson(entry.copy, UMLClass.class, writer);
+			}
+			writer.endObject();
+
+			writer.name("relationships").beginObject();
+			for(RelationEntry entry : relationOrder) {
+				writer.name(entry.key);
+				gson.toJson(new UMLRelationship(getClass(entry.class1), entry.type, getClass(entry.class2)), UMLRelationship.class, writer);
+			}
+			writer.endObject();
+			writer.endObject();
+			writer.flush();
+		}
+		catch(IOException e) {
+			// Fail the same way as Gson writing the model
+			throw new JsonIOException(e);
+		}
+	}
+
+	/**
+	 * A class as it was when it was copied
+	 */
+	private static final class ClassEntry {
+		final long seq;
+		// Instance in the model, to tell a changed class from a new one with the same name
+		final UMLClass source;
+		final UMLClass copy;
+
+		ClassEntry(long seq, UMLClass source, UMLClass copy) {
+			this.seq = seq;
+			this.source = source;
+			this.copy = copy;
+		}
+	}
+
+	/**
+	 * A relationship as it was when it was copied, its classes are looked up by name
+	 */
+	private static final class RelationEntry {
+		final long seq;
+		final UMLRelationship source;
+		final String key;
+		final String class1;
+		final String type;
+		final String class2;
+
+		RelationEntry(long seq, String key, UMLRelationship source) {
+			this.seq = seq;
+			this.source = source;
+			this.key = key;
+			this.class1 = source.getClass1().getName();
+			this.type = source.getType();
+			this.class2 = source.getClass2().getName();
+		}
+	}
+}
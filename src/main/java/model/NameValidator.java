@@ -0,0 +1,90 @@
+package model;
+
+/**
+ * Checks class, field, method and type names. A valid name starts with an ASCII
+ * letter and only contains ASCII letters, digits, '_' and '-'.
+ * Validation uses a lookup table built once, so checking a name never allocates.
+ * @author Anthony
+ *
+ */
+public final class NameValidator {
+	// ALLOWED[c] is true if c may appear in a name
+	private static final boolean[] ALLOWED = createAllowed();
+
+	private NameValidator() {}
+
+	// Initializer for ALLOWED
+	private static final boolean[] createAllowed() {
+		boolean[] allowed = new boolean[128];
+		for(char c = 'a'; c <= 'z'; c++)
+			allowed[c] = true;
+		for(char c = 'A'; c <= 'Z'; c++)
+			allowed[c] = true;
+		for(char c = '0'; c <= '9'; c++)
+			allowed[c] = true;
+		allowed['_'] = true;
+		allowed['-'] = true;
+		return allowed;
+	}
+
+	/**
+	 * Check if a name is valid
+	 * @param name - name to check
+	 * @return - true if valid, false if null, empty or containing invalid characters
+	 */
+	public static boolean isValid(CharSequence name) {
+		if(name == null || name.length() == 0)
+			return false;
+
+		// First character must be a letter
+		char first = name.charAt(0);
+		if(!((first >= 'a' && first <= 'z') || (first >= 'A' && first <= 'Z')))
+			return false;
+
+		for(int i = 1; i < name.length(); i++) {
+			char c = name.charAt(i);
+			if(c >= ALLOWED.length || !ALLOWED[c])
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Check many names in one pass, for batch imports
+	 * @param names - names to check
+	 * @return - index of the first invalid name, -1 if every name is valid
+	 */
+	public static int findInvalid(CharSequence[] names) {
+		return findInvalid(names, 0, names.length);
+	}
+
+	/**
+	 * Check a range of names in one pass
+	 * @param names - names to check
+	 * @param from - first index to check (inclusive)
+	 * @param to - last index to check (exclusive)
+	 * @return - index of the first invalid name, -1 if every name in the range is valid
+	 */
+	public static int findInvalid(CharSequence[] names, int from, int to) {
+		for(int i = from; i < to; i++) {
+			if(!isValid(names[i]))
+				return i;
+		}
+		return -1;
+	}
+
+	/**
+	 * Check many names in one pass, for batch imports
+	 * @param names - names to check
+	 * @return - index of the first invalid name, -1 if every name is valid
+	 */
+	public static int findInvalid(Iterable<? extends CharSequence> names) {
+		int i = 0;
+		for(CharSequence name : names) {
+			if(!isValid(name))
+				return i;
+			i++;
+		}
+		return -1;
+	}
+}
@@ -0,0 +1,418 @@
+package model;
+
+// System imports
+import java.io.CharArrayReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.MalformedJsonException;
+
+import core.EditorEvents;
+
+/**
+ * Loads a saved model by cutting the classList and relationships sections into
+ * chunks of raw records and parsing and validating each chunk on a fork/join pool.
+ * The reading thread only finds where records begin and end, so the parsing itself
+ * runs in parallel. Relationships are linked to the loaded classes in a final
+ * sequential pass.
+ * @author Ryan
+ *
+ */
+class ParallelModelLoader {
+	// Number of records handed to the pool at a time
+	private static final int CHUNK_SIZE = 512;
+
+	// Chunks smaller than this are parsed on a single thread
+	private static final int SPLIT_THRESHOLD = 64;
+
+	// Gson instances are thread safe, so all tasks share one
+	private static final Gson GSON = new Gson();
+
+	private final ForkJoinPool pool;
+
+	// Table the types and parameter lists of loaded classes are shared through
+	private final SymbolTable symbols;
+
+	// Error code of the first chunk that failed, so the chunks still running stop early
+	private final AtomicInteger failure = new AtomicInteger();
+
+	// Loaded model
+	private LinkedHashMap<String, UMLClass> classList;
+	private LinkedHashMap<String, UMLRelationship> relationships;
+
+	/**
+	 * Create a loader that runs on the common fork/join pool
+	 * @param symbols - table to share loaded names through
+	 */
+	ParallelModelLoader(SymbolTable symbols) {
+		this(ForkJoinPool.commonPool(), symbols);
+	}
+
+	/**
+	 * Create a loader that runs on the given pool
+	 * @param pool - pool to parse records on
+	 * @param symbols - table to share loaded names through
+	 */
+	ParallelModelLoader(ForkJoinPool pool, SymbolTable symbols) {
+		this.pool = pool;
+		this.symbols = symbols;
+	}
+
+	/**
+	 * Load the model from the given JSON reader. Chunks still queued or running
+	 * are stopped if the file turns out to be invalid.
+	 * @param in - source of the JSON
+	 * @return - 0 on success, error code otherwise
+	 */
+	int load(Reader in) throws IOException {
+		// Chunks of class records that have been handed to the pool, in file order
+		ArrayList<ClassChunkTask> classTasks = new ArrayList<ClassChunkTask>();
+		ArrayList<RelationChunkTask> relationTasks = new ArrayList<RelationChunkTask>();
+		int result = 303;
+		try {
+			result = load(new RecordScanner(in), classTasks, relationTasks);
+		}
+		catch(MalformedJsonException e) {
+			result = 303;
+		}
+		finally {
+			if(result != 0) {
+				cancel(classTasks);
+				cancel(relationTasks);
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Stop every chunk that has not finished
+	 * @param tasks - submitted chunks
+	 */
+	private void cancel(ArrayList<? extends ChunkTask> tasks) {
+		failure.compareAndSet(0, 303);
+		for(ChunkTask task : tasks)
+			task.cancel(false);
+	}
+
+	/**
+	 * Read the file, submitting chunks of records as they are read, then link the model
+	 * @param scanner - scanner over the JSON
+	 * @param classTasks - list to add submitted class chunks to
+	 * @param relationTasks - list to add submitted relationship chunks to
+	 * @return - 0 on success, error code otherwise
+	 */
+	private int load(RecordScanner scanner, ArrayList<ClassChunkTask> classTasks, ArrayList<RelationChunkTask> relationTasks) throws IOException {
+		// Anything else than an object is not a saved model
+		if(scanner.peek() != '{')
+			return 303;
+
+		EditorEvents.LoadPhase phase = EditorEvents.LoadPhase.start();
+		int classCount = 0;
+		int relationCount = 0;
+		scanner.expect('{');
+		if(scanner.peek() != '}') {
+			do {
+				String section = scanner.readString();
+				scanner.expect(':');
+				boolean classes = section.equals("classList");
+
+				// Other sections and empty ones have nothing to load
+				if(!classes && !section.equals("relationships"))
+					scanner.scanValue(null);
+				else if(scanner.nextNull())
+					continue;
+				else if(scanner.peek() != '{')
+					return 303;
+				else if(classes)
+					classCount += readSection(scanner, classTasks, true);
+				else
+					relationCount += readSection(scanner, relationTasks, false);
+			} while(scanner.next('}'));
+		}
+		else {
+			scanner.expect('}');
+		}
+		phase.finish("read", classCount, relationCount);
+
+		// Wait for every chunk and collect the classes in their original order
+		phase = EditorEvents.LoadPhase.start();
+		classList = new LinkedHashMap<String, UMLClass>();
+		for(ClassChunkTask task : classTasks) {
+			// Chunks stopped early return the code of the one that failed first
+			if(task.join() != 0)
+				return failure.get();
+			for(UMLClass c : task.classes)
+				classList.put(c.getName(), c);
+		}
+		for(RelationChunkTask task : relationTasks) {
+			if(task.join() != 0)
+				return failure.get();
+		}
+		phase.finish("bind", classList.size(), relationCount);
+
+		// Link relationships against the loaded instances
+		phase = EditorEvents.LoadPhase.start();
+		relationships = new LinkedHashMap<String, UMLRelationship>();
+		for(RelationChunkTask task : relationTasks) {
+			for(String[] record : task.records) {
+				int code = UMLClassManager.linkLoaded(classList, record[0], record[1], record[2], symbols, relationships);
+				if(code != 0)
+					return code;
+			}
+		}
+		phase.finish("link", classList.size(), relationships.size());
+
+		return 0;
+	}
+
+	/**
+	 * Scan a section object, submitting a task for every full chunk of records
+	 * @param scanner - scanner positioned at the section object
+	 * @param tasks - list to add submitted tasks to
+	 * @param classes - true for the classList section, false for relationships
+	 * @return - number of records read
+	 */
+	@SuppressWarnings("unchecked")
+	private <T extends ChunkTask> int readSection(RecordScanner scanner, ArrayList<T> tasks, boolean classes) throws IOException {
+		RecordScanner.Chunk chunk = new RecordScanner.Chunk(CHUNK_SIZE, 0);
+		int total = 0;
+
+		scanner.expect('{');
+		if(scanner.peek() == '}') {
+			scanner.expect('}');
+			return 0;
+		}
+		do {
+			String key = scanner.readString();
+			scanner.expect(':');
+			scanner.scanValue(chunk);
+			chunk.endRecord(key);
+			total++;
+
+			// Hand the full chunk to the pool and keep reading, expecting the next to be as long
+			if(chunk.isFull()) {
+				tasks.add((T)submit(chunk, classes));
+				chunk = new RecordScanner.Chunk(CHUNK_SIZE, chunk.length);
+			}
+		} while(scanner.next('}'));
+
+		if(chunk.count > 0)
+			tasks.add((T)submit(chunk, classes));
+		return total;
+	}
+
+	/**
+	 * Submit a chunk of records to the pool
+	 */
+	private ChunkTask submit(RecordScanner.Chunk chunk, boolean classes) {
+		ChunkTask task;
+		if(classes)
+			task = new ClassChunkTask(chunk, 0, chunk.count, new UMLClass[chunk.count], symbols, failure);
+		else
+			task = new RelationChunkTask(chunk, 0, chunk.count, new String[chunk.count][], failure);
+		pool.execute(task);
+		return task;
+	}
+
+	/**
+	 * Get the loaded classes
+	 * @return - classList
+	 */
+	LinkedHashMap<String, UMLClass> getClassList() {
+		return classList;
+	}
+
+	/**
+	 * Get the linked relationships
+	 * @return - relationships
+	 */
+	LinkedHashMap<String, UMLRelationship> getRelationships() {
+		return relationships;
+	}
+
+	/**
+	 * Parses a range of raw records, splitting large ranges in half. Each task
+	 * writes only its own range of the shared output array.
+	 */
+	private abstract static class ChunkTask extends RecursiveTask<Integer> {
+		private static final long serialVersionUID = 1L;
+
+		protected final RecordScanner.Chunk chunk;
+		protected final int start;
+		protected final int end;
+		protected final AtomicInteger failure;
+
+		ChunkTask(RecordScanner.Chunk chunk, int start, int end, AtomicInteger failure) {
+			this.chunk = chunk;
+			this.start = start;
+			this.end = end;
+			this.failure = failure;
+		}
+
+		/**
+		 * Create a task for part of this task's range
+		 */
+		protected abstract ChunkTask split(int start, int end);
+
+		/**
+		 * Parse and check a single record
+		 * @param i - index of the record in the chunk
+		 * @param reader - reader over the text of the record
+		 * @return - 0 on success, error code otherwise
+		 */
+		protected abstract int parse(int i, JsonReader reader) throws IOException;
+
+		@Override
+		protected Integer compute() {
+			// Split until the range is small enough
+			if(end - start > SPLIT_THRESHOLD) {
+				int mid = (start + end) >>> 1;
+				ChunkTask left = split(start, mid);
+				ChunkTask right = split(mid, end);
+				ForkJoinTask.invokeAll(left, right);
+				int code = left.join();
+				return code != 0 ? code : right.join();
+			}
+
+			for(int i = start; i < end; i++) {
+				// Another chunk failed, the load is abandoned
+				if(failure.get() != 0)
+					return failure.get();
+				int offset = chunk.starts[i];
+				JsonReader reader = new JsonReader(new CharArrayReader(chunk.text, offset, chunk.starts[i + 1] - offset));
+				int code;
+				try {
+					code = parse(i, reader);
+				}
+				catch(IOException | JsonParseException | IllegalStateException | NumberFormatException e) {
+					code = 303;
+				}
+				if(code != 0) {
+					failure.compareAndSet(0, code);
+					return code;
+				}
+			}
+			return 0;
+		}
+	}
+
+	/**
+	 * Binds and validates a range of class records
+	 */
+	private static class ClassChunkTask extends ChunkTask {
+		private static final long serialVersionUID = 1L;
+
+		private final UMLClass[] classes;
+		private final SymbolTable symbols;
+
+		ClassChunkTask(RecordScanner.Chunk chunk, int start, int end, UMLClass[] classes, SymbolTable symbols, AtomicInteger failure) {
+			super(chunk, start, end, failure);
+			this.classes = classes;
+			this.symbols = symbols;
+		}
+
+		@Override
+		protected ChunkTask split(int start, int end) {
+			return new ClassChunkTask(chunk, start, end, classes, symbols, failure);
+		}
+
+		@Override
+		protected int parse(int i, JsonReader reader) {
+			UMLClass umlClass = GSON.fromJson(reader, UMLClass.class);
+			int code = UMLClassManager.validateLoaded(chunk.keys[i], umlClass);
+			if(code == 0)
+				code = umlClass.intern(symbols);
+			if(code != 0)
+				return code;
+			classes[i] = umlClass;
+			return 0;
+		}
+	}
+
+	/**
+	 * Reads the class names and type out of a range of relationship records
+	 */
+	private static class RelationChunkTask extends ChunkTask {
+		private static final long serialVersionUID = 1L;
+
+		// Relationships as [class1, type, class2], linked once every class is loaded
+		private final String[][] records;
+
+		RelationChunkTask(RecordScanner.Chunk chunk, int start, int end, String[][] records, AtomicInteger failure) {
+			super(chunk, start, end, failure);
+			this.records = records;
+		}
+
+		@Override
+		protected ChunkTask split(int start, int end) {
+			return new RelationChunkTask(chunk, start, end, records, failure);
+		}
+
+		@Override
+		protected int parse(int i, JsonReader reader) throws IOException {
+			String[] record = new String[3];
+			records[i] = record;
+
+			// A relationship that is not an object has no classes to link
+			if(reader.peek() != JsonToken.BEGIN_OBJECT)
+				return 0;
+			reader.beginObject();
+			while(reader.hasNext()) {
+				String property = reader.nextName();
+				if(property.equals("class1"))
+					record[0] = readClassName(reader);
+				else if(property.equals("class2"))
+					record[2] = readClassName(reader);
+				else if(property.equals("type"))
+					record[1] = readString(reader);
+				else
+					reader.skipValue();
+			}
+			reader.endObject();
+			return 0;
+		}
+
+		/**
+		 * Read the name out of an embedded class record, skipping its members
+		 * @param reader - reader positioned at the class record
+		 * @return - class name
+		 */
+		private static String readClassName(JsonReader reader) throws IOException {
+			String name = null;
+			if(reader.peek() != JsonToken.BEGIN_OBJECT) {
+				reader.skipValue();
+				return null;
+			}
+			reader.beginObject();
+			while(reader.hasNext()) {
+				if(reader.nextName().equals("name"))
+					name = readString(reader);
+				else
+					reader.skipValue();
+			}
+			reader.endObject();
+			return name;
+		}
+
+		/**
+		 * Read a string that may be null, like the serial loader's binding does
+		 */
+		private static String readString(JsonReader reader) throws IOException {
+			if(reader.peek() == JsonToken.NULL) {
+				reader.nextNull();
+				return null;
+			}
+			return reader.nextString();
+		}
+	}
+}
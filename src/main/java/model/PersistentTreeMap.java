@@ -0,0 +1,205 @@
+package model;
+
+// System imports
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted map. put and remove return a new map that shares every
+ * untouched node with the old one, so each update copies only the O(log n)
+ * nodes on the path to the key. Balanced as a treap whose priorities are
+ * derived from the key hash, so the shape does not depend on insertion order.
+ * @author Ryan
+ *
+ * @param <K> - key type
+ * @param <V> - value type
+ */
+final class PersistentTreeMap<K extends Comparable<? super K>, V> implements Iterable<V> {
+	@SuppressWarnings("rawtypes")
+	private static final PersistentTreeMap EMPTY = new PersistentTreeMap<>(null);
+
+	private final Node<K, V> root;
+
+	private PersistentTreeMap(Node<K, V> root) {
+		this.root = root;
+	}
+
+	/**
+	 * Get the empty map
+	 * @return - map without entries
+	 */
+	@SuppressWarnings("unchecked")
+	static <K extends Comparable<? super K>, V> PersistentTreeMap<K, V> empty() {
+		return EMPTY;
+	}
+
+	/**
+	 * Get the number of entries
+	 * @return - size
+	 */
+	int size() {
+		return size(root);
+	}
+
+	/**
+	 * Get the value stored under key
+	 * @param key - key to look up
+	 * @return - value, null if the key is not in the map
+	 */
+	V get(K key) {
+		Node<K, V> node = root;
+		while(node != null) {
+			int cmp = key.compareTo(node.key);
+			if(cmp == 0)
+				return node.value;
+			node = cmp < 0 ? node.left : node.right;
+		}
+		return null;
+	}
+
+	/**
+	 * Get a map with key set to value
+	 * @param key - key to set
+	 * @param value - new value
+	 * @return - updated map, this map is unchanged
+	 */
+	PersistentTreeMap<K, V> put(K key, V value) {
+		return new PersistentTreeMap<K, V>(insert(root, key, value, priority(key)));
+	}
+
+	/**
+	 * Get a map without key
+	 * @param key - key to remove
+	 * @return - updated map, this map if the key was not present
+	 */
+	PersistentTreeMap<K, V> remove(K key) {
+		if(get(key) == null)
+			return this;
+		return new PersistentTreeMap<K, V>(delete(root, key));
+	}
+
+	/**
+	 * Iterate over the values in key order
+	 */
+	@Override
+	public Iterator<V> iterator() {
+		return new Iterator<V>() {
+			private final ArrayDeque<Node<K, V>> stack = pushLeft(new ArrayDeque<Node<K, V>>(), root);
+
+			@Override
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			@Override
+			public V next() {
+				if(stack.isEmpty())
+					throw new NoSuchElementException();
+				Node<K, V> node = stack.pop();
+				pushLeft(stack, node.right);
+				return node.value;
+			}
+		};
+	}
+
+	// Push node and its chain of left children
+	private static <K, V> ArrayDeque<Node<K, V>> pushLeft(ArrayDeque<Node<K, V>> stack, Node<K, V> node) {
+		for(; node != null; node = node.left)
+			stack.push(node);
+		return stack;
+	}
+
+	private static int size(Node<?, ?> node) {
+		return node == null ? 0 : node.size;
+	}
+
+	// Spread the key hash so sequential keys still get random looking priorities
+	private static int priority(Object key) {
+		int h = key.hashCode() * 0x9E3779B9;
+		h ^= h >>> 16;
+		h *= 0x85EBCA6B;
+		return h ^ (h >>> 13);
+	}
+
+	private static <K extends Comparable<? super K>, V> Node<K, V> insert(Node<K, V> node, K key, V value, int priority) {
+		if(node == null)
+			return new Node<K, V>(key, value, priority, null, null);
+
+		int cmp = key.compareTo(node.key);
+		if(cmp == 0)
+			return new Node<K, V>(key, value, node.priority, node.left, node.right);
+
+		// The new node belongs above this one, split the subtree around it
+		if(priority > node.priority) {
+			Node<K, V>[] parts = split(node, key);
+			return new Node<K, V>(key, value, priority, parts[0], parts[1]);
+		}
+
+		if(cmp < 0)
+			return new Node<K, V>(node.key, node.value, node.priority, insert(node.left, key, value, priority), node.right);
+		return new Node<K, V>(node.key, node.value, node.priority, node.left, insert(node.right, key, value, priority));
+	}
+
+	private static <K extends Comparable<? super K>, V> Node<K, V> delete(Node<K, V> node, K key) {
+		int cmp = key.compareTo(node.key);
+		if(cmp == 0)
+			return merge(node.left, node.right);
+		if(cmp < 0)
+			return new Node<K, V>(node.key, node.value, node.priority, delete(node.left, key), node.right);
+		return new Node<K, V>(node.key, node.value, node.priority, node.left, delete(node.right, key));
+	}
+
+	/**
+	 * Split a subtree into the nodes below key and above key, dropping key itself
+	 * @return - [lower, upper]
+	 */
+	@SuppressWarnings({"unchecked", "rawtypes"})
+	private static <K extends Comparable<? super K>, V> Node<K, V>[] split(Node<K, V> node, K key) {
+		if(node == null)
+			return new Node[2];
+
+		int cmp = key.compareTo(node.key);
+		if(cmp == 0)
+			return new Node[] {node.left, node.right};
+		if(cmp < 0) {
+			Node<K, V>[] parts = split(node.left, key);
+			parts[1] = new Node<K, V>(node.key, node.value, node.priority, parts[1], node.right);
+			return parts;
+		}
+		Node<K, V>[] parts = split(node.right, key);
+		parts[0] = new Node<K, V>(node.key, node.value, node.priority, node.left, parts[0]);
+		return parts;
+	}
+
+	/**
+	 * Join two subtrees where every key of lower is below every key of upper
+	 */
+	private static <K, V> Node<K, V> merge(Node<K, V> lower, Node<K, V> upper) {
+		if(lower == null)
+			return upper;
+		if(upper == null)
+			return lower;
+		if(lower.priority > upper.priority)
+			return new Node<K, V>(lower.key, lower.value, lower.priority, lower.left, merge(lower.right, upper));
+		return new Node<K, V>(upper.key, upper.value, upper.priority, merge(lower, upper.left), upper.right);
+	}
+
+	private static final class Node<K, V> {
+		final K key;
+		final V value;
+		final int priority;
+		final Node<K, V> left;
+		final Node<K, V> right;
+		final int size;
+
+		Node(K key, V value, int priority, Node<K, V> left, Node<K, V> right) {
+			this.key = key;
+			this.value = value;
+			this.priority = priority;
+			this.left = left;
+			this.right = right;
+			this.size = 1 + size(left) + size(right);
+		}
+	}
+}
@@ -0,0 +1,312 @@
+package model;
+
+// System imports
+import java.io.IOException;
+import java.io.Reader;
+import java.util.Arrays;
+
+import com.google.gson.stream.MalformedJsonException;
+
+/**
+ * Finds where JSON values begin and end without parsing them. Only strings,
+ * escapes and the nesting of objects and arrays are tracked, so a record can be
+ * cut out of a stream far more cheaply than building its tree, and its text
+ * handed to another thread to be parsed in full.
+ * @author Ryan
+ *
+ */
+final class RecordScanner {
+	private final Reader in;
+	private final char[] buffer = new char[64 * 1024];
+	private int pos;
+	private int limit;
+
+	// Open objects and arrays of the value being scanned
+	private char[] stack = new char[32];
+
+	// Chunk the value being scanned is copied into, null while skipping
+	private Chunk sink;
+
+	// Start of the part of the buffer not yet copied into the sink
+	private int mark;
+
+	/**
+	 * Create a scanner reading from the given stream
+	 * @param in - source of the JSON
+	 */
+	RecordScanner(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Skip whitespace and get the next character without consuming it
+	 * @return - next character, -1 at the end of the stream
+	 */
+	int peek() throws IOException {
+		while(true) {
+			if(pos == limit && !fill())
+				return -1;
+			char c = buffer[pos];
+			if(c != ' ' && c != '\n' && c != '\r' && c != '\t')
+				return c;
+			pos++;
+		}
+	}
+
+	/**
+	 * Consume the next character after any whitespace
+	 * @param expected - character that must come next
+	 */
+	void expect(char expected) throws IOException {
+		if(peek() != expected)
+			throw syntax("Expected '" + expected + "'");
+		pos++;
+	}
+
+	/**
+	 * Consume a ',' between members, or the '}' or ']' that closes them
+	 * @param close - closing character of the object or array
+	 * @return - true if another member follows
+	 */
+	boolean next(char close) throws IOException {
+		int c = peek();
+		if(c == ',') {
+			pos++;
+			return true;
+		}
+		if(c == close) {
+			pos++;
+			return false;
+		}
+		throw syntax("Expected ',' or '" + close + "'");
+	}
+
+	/**
+	 * Read a string, decoding its escapes
+	 * @return - the string
+	 */
+	String readString() throws IOException {
+		expect('"');
+		StringBuilder out = new StringBuilder();
+		while(true) {
+			// Copy runs of plain characters at once
+			int start = pos;
+			while(pos < limit && buffer[pos] != '"' && buffer[pos] != '\\')
+				pos++;
+			out.append(buffer, start, pos - start);
+
+			char c = read();
+			if(c == '"')
+				return out.toString();
+			if(c == '\\')
+				out.append(readEscape());
+		}
+	}
+
+	/**
+	 * Scan one value, copying its text into the chunk
+	 * @param out - chunk to copy the value into, null to skip it
+	 */
+	void scanValue(Chunk out) throws IOException {
+		int c = peek();
+		if(c < 0)
+			throw syntax("Expected a value");
+
+		sink = out;
+		mark = pos;
+		try {
+			if(c == '{' || c == '[') {
+				scanNested();
+			}
+			else if(c == '"') {
+				pos++;
+				skipString();
+			}
+			else {
+				scanLiteral();
+			}
+			if(out != null)
+				out.append(buffer, mark, pos - mark);
+		}
+		finally {
+			sink = null;
+		}
+	}
+
+	/**
+	 * Check if the next value is the literal null, consuming it if it is
+	 * @return - true if a null was consumed
+	 */
+	boolean nextNull() throws IOException {
+		if(peek() != 'n')
+			return false;
+		scanValue(null);
+		return true;
+	}
+
+	// Scan an object or array, up to its matching closing bracket. This is the hot
+	// loop of a load, so it runs over the buffer directly and keeps whether it is
+	// inside a string or escape across refills.
+	private void scanNested() throws IOException {
+		int depth = 0;
+		boolean inString = false;
+		boolean escaped = false;
+		while(true) {
+			if(pos == limit && !fill())
+				throw syntax("Unexpected end of file");
+			char[] buffer = this.buffer;
+			int p = pos;
+			int end = limit;
+			while(p < end) {
+				char c = buffer[p++];
+				if(escaped) {
+					escaped = false;
+				}
+				else if(inString) {
+					// Skip the plain characters of the string at once
+					while(c != '"' && c != '\\' && p < end)
+						c = buffer[p++];
+					if(c == '"')
+						inString = false;
+					else if(c == '\\')
+						escaped = true;
+				}
+				else if(c == '"') {
+					inString = true;
+				}
+				else if(c == '{' || c == '[') {
+					if(depth == stack.length)
+						stack = Arrays.copyOf(stack, depth * 2);
+					stack[depth++] = c;
+				}
+				else if(c == '}' || c == ']') {
+					if(depth == 0 || stack[depth - 1] != (c == '}' ? '{' : '['))
+						throw syntax("Unexpected '" + c + "'");
+					if(--depth == 0) {
+						pos = p;
+						return;
+					}
+				}
+			}
+			pos = p;
+		}
+	}
+
+	// Scan the rest of a string whose opening quote was consumed
+	private void skipString() throws IOException {
+		while(true) {
+			char c = read();
+			if(c == '"')
+				return;
+			if(c == '\\')
+				read();
+		}
+	}
+
+	// Scan a number, true, false or null, up to the character that ends it
+	private void scanLiteral() throws IOException {
+		int length = 0;
+		while(pos < limit || fill()) {
+			char c = buffer[pos];
+			if(c == ',' || c == '}' || c == ']' || c == ':' || c == ' ' || c == '\n' || c == '\r' || c == '\t')
+				break;
+			pos++;
+			length++;
+		}
+		if(length == 0)
+			throw syntax("Expected a value");
+	}
+
+	// Decode the escape whose backslash was consumed
+	private char readEscape() throws IOException {
+		char c = read();
+		switch(c) {
+		case 'b':
+			return '\b';
+		case 'f':
+			return '\f';
+		case 'n':
+			return '\n';
+		case 'r':
+			return '\r';
+		case 't':
+			return '\t';
+		case 'u':
+			int value = 0;
+			for(int i = 0; i < 4; i++) {
+				int digit = Character.digit(read(), 16);
+				if(digit < 0)
+					throw syntax("Invalid escape");
+				value = value * 16 + digit;
+			}
+			return (char)value;
+		default:
+			return c;
+		}
+	}
+
+	// Consume the next character, which must exist
+	private char read() throws IOException {
+		if(pos == limit && !fill())
+			throw syntax("Unexpected end of file");
+		return buffer[pos++];
+	}
+
+	// Refill the buffer, copying what was scanned of the current value into the sink first
+	private boolean fill() throws IOException {
+		if(sink != null)
+			sink.append(buffer, mark, limit - mark);
+		mark = 0;
+		pos = 0;
+		limit = Math.max(0, in.read(buffer, 0, buffer.length));
+		return limit > 0;
+	}
+
+	private MalformedJsonException syntax(String message) {
+		return new MalformedJsonException(message);
+	}
+
+	/**
+	 * Text of a run of records, copied out of the stream back to back
+	 */
+	static final class Chunk {
+		char[] text;
+		int length;
+
+		// Record i is text[starts[i], starts[i + 1])
+		final int[] starts;
+		final String[] keys;
+		int count;
+
+		/**
+		 * Create a chunk with room for the given number of records
+		 * @param capacity - number of records
+		 * @param size - expected length of their text
+		 */
+		Chunk(int capacity, int size) {
+			text = new char[Math.max(size, 1024)];
+			starts = new int[capacity + 1];
+			keys = new String[capacity];
+		}
+
+		void append(char[] source, int offset, int count) {
+			if(length + count > text.length)
+				text = Arrays.copyOf(text, Math.max(text.length * 2, length + count));
+			System.arraycopy(source, offset, text, length, count);
+			length += count;
+		}
+
+		/**
+		 * End the record whose text was just appended
+		 * @param key - name the record was saved under
+		 */
+		void endRecord(String key) {
+			keys[count++] = key;
+			starts[count] = length;
+		}
+
+		boolean isFull() {
+			return count == keys.length;
+		}
+	}
+}
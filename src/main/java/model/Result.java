@@ -0,0 +1,109 @@
+package model;
+
+// Local imports
+import core.ErrorHandler;
+
+/**
+ * Outcome of a model edit: the return code and the entity it was applied to.
+ * Results are immutable and hold no shared state, so they can be passed
+ * between threads freely.
+ * <p>
+ * The entity is kept as its parts and only put together when it is asked for,
+ * so edits whose result is only checked for its code build no strings.
+ * @author Ryan
+ *
+ */
+public final class Result {
+	// 0 on success, error code from ErrorHandler.ERROR_TABLE otherwise
+	private final int code;
+
+	// Class name or relationship key, the class of a member
+	private final String name;
+
+	// Field or method name, null if the entity is a class or relationship
+	private final String member;
+
+	// Parameters of a method, null if the entity is not a method
+	private final String params;
+
+	/**
+	 * Create a result
+	 * @param code - return code, 0 on success
+	 * @param entity - the class, member or relationship the edit targeted
+	 */
+	public Result(int code, String entity) {
+		this(code, entity, null, null);
+	}
+
+	private Result(int code, String name, String member, String params) {
+		this.code = code;
+		this.name = name;
+		this.member = member;
+		this.params = params;
+	}
+
+	/**
+	 * Create the result of an edit of a field
+	 * @param code - return code, 0 on success
+	 * @param className - class of the field
+	 * @param fieldName - name of the field
+	 * @return - result naming "class.field"
+	 */
+	static Result field(int code, String className, String fieldName) {
+		return new Result(code, className, fieldName, null);
+	}
+
+	/**
+	 * Create the result of an edit of a method
+	 * @param code - return code, 0 on success
+	 * @param className - class of the method
+	 * @param methodName - name of the method
+	 * @param params - parameters of the method
+	 * @return - result naming "class.method(params)"
+	 */
+	static Result method(int code, String className, String methodName, String params) {
+		return new Result(code, className, methodName, params == null ? "" : params);
+	}
+
+	/**
+	 * Get the return code
+	 * @return - 0 on success, error code otherwise
+	 */
+	public int getCode() {
+		return code;
+	}
+
+	/**
+	 * Get the entity the edit targeted. Classes are named "class", fields
+	 * "class.field", methods "class.method(params)" and relationships by their key.
+	 * @return - name of the entity
+	 */
+	public String getEntity() {
+		if(member == null)
+			return name;
+		if(params == null)
+			return name + "." + member;
+		return name + "." + member + "(" + params + ")";
+	}
+
+	/**
+	 * Check if the edit was applied
+	 * @return - true if the code is 0
+	 */
+	public boolean isSuccess() {
+		return code == 0;
+	}
+
+	/**
+	 * Get the description of the code from ErrorHandler
+	 * @return - "Success" or the error message
+	 */
+	public String getMessage() {
+		return code == 0 ? "Success" : ErrorHandler.toString(code);
+	}
+
+	@Override
+	public String toString() {
+		return getEntity() + ": " + getMessage();
+	}
+}
@@ -0,0 +1,70 @@
+package model;
+
+// System imports
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Model-wide table of names. Type names and parameter lists are repeated across
+ * many classes ("int", "String", "()"), so every one the model stores is swapped
+ * for a single shared instance of the same text. Names that are mostly unique,
+ * such as class, field and method names, are not worth a table entry and are
+ * left alone.
+ * <p>
+ * Names are held weakly, so a name leaves the table once no model uses it any
+ * more, whether its class was removed or a different file was loaded.
+ * The table can be used from several threads at once, as the parallel loader does.
+ * @author Ryan
+ *
+ */
+public final class SymbolTable {
+	// Independently locked parts of the table, so threads interning different names rarely wait
+	private static final int STRIPES = 16;
+
+	private final WeakHashMap<String, WeakReference<String>>[] stripes;
+
+	/**
+	 * Create an empty table
+	 */
+	@SuppressWarnings("unchecked")
+	public SymbolTable() {
+		stripes = new WeakHashMap[STRIPES];
+		for(int i = 0; i < STRIPES; i++)
+			stripes[i] = new WeakHashMap<String, WeakReference<String>>();
+	}
+
+	/**
+	 * Get the shared instance of a name, adding it if it is new
+	 * @param name - name to look up
+	 * @return - the shared instance equal to name, null if name is null
+	 */
+	public String intern(String name) {
+		if(name == null)
+			return null;
+
+		WeakHashMap<String, WeakReference<String>> stripe = stripes[(name.hashCode() >>> 16 ^ name.hashCode()) & (STRIPES - 1)];
+		synchronized(stripe) {
+			WeakReference<String> shared = stripe.get(name);
+			String symbol = shared == null ? null : shared.get();
+			if(symbol != null)
+				return symbol;
+
+			stripe.put(name, new WeakReference<String>(name));
+			return name;
+		}
+	}
+
+	/**
+	 * Get the number of distinct names in the table that are still in use
+	 * @return - symbol count
+	 */
+	public int size() {
+		int size = 0;
+		for(WeakHashMap<String, WeakReference<String>> stripe : stripes) {
+			synchronized(stripe) {
+				size += stripe.size();
+			}
+		}
+		return size;
+	}
+}
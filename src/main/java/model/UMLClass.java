@@ -2,6 +2,7 @@ package model;
 
 // System imports
 import java.util.HashMap;
+import java.util.Map;
 import java.io.Serializable;
 
 // Local imports
@@ -11,20 +12,27 @@ import java.io.Serializable;
  * @author Anthony and Dylan
  * 
  */
-public class UMLClass implements Serializable {
+public class UMLClass implements Serializable, ClassView {
 	// Version ID for serialization
 	private static final long serialVersionUID = 1L;
 	
 	private String name;
 	public static final String [] types = {"int", "double", "float", "short", "long", "boolean", "String"};
 	private HashMap<String, Field> fields;
-	// Key = methodName + params
-	private HashMap<String, Method> methods;
+	// Key = parsed method name and parameter list
+	private HashMap<MethodSignature, Method> methods;
 	
 	// Coordinates of class, for GUI use only
 	private int x;
 	private int y;
 	
+	// Rendered text box of the class, cleared whenever the class changes. Not saved.
+	// Volatile so a box memoized by one reader thread is seen complete by the others
+	private transient volatile String[] renderedBox;
+	
+	// Model told about every change, so it knows what to copy into its next snapshot. Not saved
+	private transient UMLClassManager manager;
+	
 	/**
 	 * Constructor for class objects
 	 * @param name the desired name of the class
@@ -33,7 +41,21 @@ public class UMLClass implements Serializable {
 	public UMLClass(String name) {
 		this.name = name;
 		fields = new HashMap<String, Field>();
-		methods = new HashMap<String, Method>();
+		methods = new HashMap<MethodSignature, Method>();
+	}
+	
+	/**
+	 * Copy a class and all of its fields and methods
+	 * @param other - class to copy
+	 */
+	UMLClass(UMLClass other) {
+		this(other.name);
+		for(Map.Entry<String, Field> entry : other.fields.entrySet())
+			fields.put(entry.getKey(), new Field(entry.getValue()));
+		for(Map.Entry<MethodSignature, Method> entry : other.methods.entrySet())
+			methods.put(entry.getKey(), new Method(entry.getValue()));
+		x = other.x;
+		y = other.y;
 	}
 	
 	/**
@@ -42,7 +64,9 @@ public class UMLClass implements Serializable {
 	 */
 	public void addField(String type, String field) {
 		Field newField = new Field(type, field);
+		newField.setOwner(this);
 		fields.put(field, newField);
+		invalidate();
 	}
 	
 	/**
@@ -50,8 +74,13 @@ public class UMLClass implements Serializable {
 	 * @param method the name of the method to be added
 	 */
 	public void addMethod(String returnType, String method, String params) {
-		Method newMethod = new Method(returnType, method, params);
-		methods.put(method + params, newMethod);
+		MethodSignature signature = new MethodSignature(method, params);
+		if(manager != null)
+			signature = signature.intern(manager.getSymbols());
+		Method newMethod = new Method(returnType, method, signature.getParams());
+		newMethod.setOwner(this);
+		methods.put(signature, newMethod);
+		invalidate();
 	}
 	
 	/**
@@ -60,6 +89,7 @@ public class UMLClass implements Serializable {
 	 */
 	public void removeField(String field) {
 		fields.remove(field);
+		invalidate();
 	}
 	
 	/**
@@ -67,7 +97,8 @@ public class UMLClass implements Serializable {
 	 * @param method the name of the method to be removed
 	 */
 	public void removeMethod(String method, String params) {
-		methods.remove(method + params);
+		methods.remove(MethodSignature.lookup(method, params));
+		invalidate();
 	}
 	
 	/**
@@ -84,6 +115,87 @@ public class UMLClass implements Serializable {
 	 */
 	public void setName(String name) {
 		this.name = name;
+		invalidate();
+	}
+	
+	/**
+	 * Clear the rendered box so it is rebuilt the next time it is printed, and tell
+	 * the model the class changed. Called by every change to the class or its fields and methods.
+	 */
+	public void invalidate() {
+		renderedBox = null;
+		changed();
+	}
+	
+	/**
+	 * Tell the model this class changed
+	 */
+	private void changed() {
+		if(manager != null)
+			manager.classChanged(name);
+	}
+	
+	/**
+	 * Attach the class and its members to the model, so every later change is reported to it
+	 * @param manager - model the class belongs to
+	 */
+	void attach(UMLClassManager manager) {
+		this.manager = manager;
+		for(Field field : fields.values())
+			field.setOwner(this);
+		for(Method method : methods.values())
+			method.setOwner(this);
+	}
+	
+	/**
+	 * Swap the types and parameter lists of the class members for their shared instances, used after loading
+	 * @param symbols - table of shared names
+	 * @return - 0 on success, 303 if two saved methods have the same signature once their parameters are canonical
+	 */
+	int intern(SymbolTable symbols) {
+		if(fields != null) {
+			HashMap<String, Field> internedFields = new HashMap<String, Field>();
+			for(Map.Entry<String, Field> entry : fields.entrySet()) {
+				entry.getValue().intern(symbols);
+				internedFields.put(entry.getKey(), entry.getValue());
+			}
+			fields = internedFields;
+		}
+		if(methods != null) {
+			// Saved keys are only text, so rebuild the signatures from the methods
+			HashMap<MethodSignature, Method> internedMethods = new HashMap<MethodSignature, Method>();
+			for(Method method : methods.values()) {
+				method.intern(symbols);
+				String params = method.getParamList() == null ? "" : method.getParamList();
+				
+				// Keys that differ only in whitespace would silently drop a method
+				if(internedMethods.put(new MethodSignature(method.getName(), params).intern(symbols), method) != null)
+					return 303;
+			}
+			methods = internedMethods;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Get the memoized text box of the class
+	 * @return - rendered box, null if it needs to be rendered
+	 */
+	String[] getRenderedBox() {
+		return renderedBox;
+	}
+	
+	/**
+	 * Memoize the text box of the class. Members are (re)attached so their
+	 * setters invalidate it, since loaded members are not attached yet.
+	 * @param box - rendered box
+	 */
+	void setRenderedBox(String[] box) {
+		for(Field field : fields.values())
+			field.setOwner(this);
+		for(Method method : methods.values())
+			method.setOwner(this);
+		renderedBox = box;
 	}
 	
 	/**
@@ -92,7 +204,17 @@ public class UMLClass implements Serializable {
 	 * @return - true if class has method
 	 */
 	public boolean hasMethod(String methodName, String params) {
-		return methods.containsKey(methodName + params);
+		return methods.containsKey(MethodSignature.lookup(methodName, params));
+	}
+	
+	/**
+	 * Get a method by its name and parameter list
+	 * @param methodName - name of the method
+	 * @param params - parameter list, whitespace does not need to match
+	 * @return - the method, null if the class does not have it
+	 */
+	public Method getMethod(String methodName, String params) {
+		return methods.get(MethodSignature.lookup(methodName, params));
 	}
 	
 	/**
@@ -126,6 +248,7 @@ public class UMLClass implements Serializable {
 	 */
 	public void setX(int x) {
 		this.x = x;
+		changed();
 	}
 	
 	/**
@@ -134,6 +257,7 @@ public class UMLClass implements Serializable {
 	 */
 	public void setY(int y) {
 		this.y = y;
+		changed();
 	}
 	
 	/**
@@ -155,10 +279,26 @@ public class UMLClass implements Serializable {
 	}
 
 	/**
-	 * Get the methods that are in the class
+	 * Get the methods that are in the class by their saved key, the name
+	 * followed by the parameter list. The map is a copy, use getMethod to
+	 * look up a single method.
 	 * @return - methods
 	 */
 	public HashMap<String, Method> getMethods() {
+		HashMap<MethodSignature, Method> signatures = getMethodSignatures();
+		if(signatures == null)
+			return null;
+		HashMap<String, Method> byKey = new HashMap<String, Method>();
+		for(Map.Entry<MethodSignature, Method> entry : signatures.entrySet())
+			byKey.put(entry.getKey().toString(), entry.getValue());
+		return byKey;
+	}
+
+	/**
+	 * Get the methods that are in the class by their signature
+	 * @return - methods
+	 */
+	public HashMap<MethodSignature, Method> getMethodSignatures() {
 		return methods;
 	}
 }
\ No newline at end of file
@@ -2,17 +2,24 @@ package model;
 
 import java.util.ArrayList;
 //System imports
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.LinkedHashMap; 
 import java.util.Map;
-import java.util.regex.Matcher; 
-import java.util.regex.Pattern;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.io.IOException;
+import java.io.Reader;
 import java.io.Serializable;
+import java.io.StringReader;
+import java.io.Writer;
 import java.lang.reflect.Type;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 import com.google.gson.reflect.TypeToken;
 
-import core.ErrorHandler;
+import core.EditorEvents;
 
 /**
  * For adding and removing classes from the UML diagram
@@ -25,13 +32,40 @@ public class UMLClassManager implements Serializable {
 	
 	private LinkedHashMap<String, UMLClass> classList;
 	private LinkedHashMap<String, UMLRelationship> relationships;
+	
+	// Renderers are not thread safe, so every thread printing boxes gets its own
+	private static final ThreadLocal<BoxRenderer> RENDERERS = ThreadLocal.withInitial(BoxRenderer::new);
+	
+	// Shared instances of the types and parameter lists stored in the model. Not saved
+	private transient volatile SymbolTable symbols;
+	
+	// Last snapshot taken, null until the first one. Not saved
+	private transient ModelSnapshot snapshot;
+	
+	// Names of classes and keys of relationships changed since the last snapshot, in the
+	// order they were last added to the model so new ones keep the model order. Not saved
+	private transient LinkedHashSet<String> changedClasses;
+	private transient LinkedHashSet<String> changedRelations;
+	
+	// Keys of the relationships of each class, kept while changes are recorded so a
+	// renamed class finds its relationships without scanning them all. Not saved
+	private transient HashMap<String, HashSet<String>> classRelations;
 
 	/**
 	 * Default constructor if we don't have a linked list make one
 	 */
 	public UMLClassManager() {
+		this(new SymbolTable());
+	}
+	
+	/**
+	 * Create an empty model that stores names in the given symbol table
+	 * @param symbols - table shared with another model
+	 */
+	UMLClassManager(SymbolTable symbols) {
 		classList = new LinkedHashMap<String, UMLClass>();
 		relationships = new LinkedHashMap<String, UMLRelationship>();
+		this.symbols = symbols;
 	}
 	
 	public boolean empty() {
@@ -43,20 +77,32 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 if the new class was successfully added to the list
 	 */
 	public int addClass(String name) 
+	{
+		return tryAddClass(name).getCode();
+	}
+	
+	/**
+	 * Adds node of type UMLClass to list
+	 * @param name: name of class
+	 * @return result naming the class
+	 */
+	public Result tryAddClass(String name)
 	{
 		//check if name is valid
 		if (!validName(name))
 		{
-			return ErrorHandler.setCode(407);
+			return new Result(407, name);
 		}
 		//Prevent duplicates
 		if (classList.containsKey(name))
 		{
-			return ErrorHandler.setCode(200);
+			return new Result(200, name);
 		}
 		UMLClass newClass = new UMLClass(name);
 		classList.put(name, newClass);
-		return ErrorHandler.setCode(0);
+		newClass.attach(this);
+		classAdded(name);
+		return new Result(0, name);
 	}
 	/**
 	 * 
@@ -66,25 +112,35 @@ public class UMLClassManager implements Serializable {
 	 */
 	public int addMethods(String className, String returnType, String methodName, String params)
 	{
-
+		return tryAddMethods(className, returnType, methodName, params).getCode();
+	}
+	
+	/**
+	 * 
+	 * @param className - the class we want to add a method to
+	 * @param methodName - the name of the new method
+	 * @return result naming the method
+	 */
+	public Result tryAddMethods(String className, String returnType, String methodName, String params)
+	{
 		if (classList.containsKey(className))
 		{
-			if (classList.get(className).getMethods().containsKey(methodName + params)) 
+			if (classList.get(className).hasMethod(methodName, params)) 
 			{
-				return ErrorHandler.setCode(402);
+				return Result.method(402, className, methodName, params);
 			}
 			else if (!validName(returnType))
 			{
-				return ErrorHandler.setCode(203);
+				return Result.method(203, className, methodName, params);
 			}
 			else if (validName(methodName))
 			{
-				classList.get(className).addMethod(returnType, methodName, params);
-				return ErrorHandler.setCode(0);			
+				classList.get(className).addMethod(getSymbols().intern(returnType), methodName, params);
+				return Result.method(0, className, methodName, params);
 			}
-			return ErrorHandler.setCode(408);
+			return Result.method(408, className, methodName, params);
 		}
-		else return ErrorHandler.setCode(403);
+		else return Result.method(403, className, methodName, params);
 		
 	}
 
@@ -95,26 +151,37 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 on success and corresponding error code else
 	 */
 	public int addFields(String className, String type, String fieldName)
+	{
+		return tryAddFields(className, type, fieldName).getCode();
+	}
+	
+	/**
+	 * 
+	 * @param className - the class we want to add a field to
+	 * @param fieldName - the name of the new field
+	 * @return result naming the field
+	 */
+	public Result tryAddFields(String className, String type, String fieldName)
 	{
 		if (classList.containsKey(className))
 		{
 			if (classList.get(className).getFields().containsKey(fieldName)) 
 			{
-				return ErrorHandler.setCode(404);
+				return Result.field(404, className, fieldName);
 			}
 			else if (!validName(type))
 			{
-				return ErrorHandler.setCode(203);
+				return Result.field(203, className, fieldName);
 			}
 			else if (validName(fieldName))
 			{
 				
-				classList.get(className).addField(type, fieldName);
-				return ErrorHandler.setCode(0);
+				classList.get(className).addField(getSymbols().intern(type), fieldName);
+				return Result.field(0, className, fieldName);
 			}
-			return ErrorHandler.setCode(409);
+			return Result.field(409, className, fieldName);
 		}
-		else return ErrorHandler.setCode(403);
+		else return Result.field(403, className, fieldName);
 	}
 	/**
 	 * 
@@ -123,20 +190,31 @@ public class UMLClassManager implements Serializable {
 	 * @return - returns 0 on successful removal and corresponding error code in all other cases
 	 */
 	public int removeFields(String className, String fieldName)
+	{
+		return tryRemoveFields(className, fieldName).getCode();
+	}
+	
+	/**
+	 * 
+	 * @param className - class to remove field from
+	 * @param fieldName - fieldname to remove
+	 * @return - result naming the field
+	 */
+	public Result tryRemoveFields(String className, String fieldName)
 	{
 		if (classList.containsKey(className))
 		{
 			if (classList.get(className).getFields().containsKey(fieldName)) 
 			{
 				classList.get(className).removeField(fieldName);
-				return ErrorHandler.setCode(0);
+				return Result.field(0, className, fieldName);
 			}
 			else 
 			{
-				return ErrorHandler.setCode(405);
+				return Result.field(405, className, fieldName);
 			}
 		}
-		else return ErrorHandler.setCode(403);
+		else return Result.field(403, className, fieldName);
 	}
 
 	/**
@@ -147,20 +225,30 @@ public class UMLClassManager implements Serializable {
 	 */
 	public int removeMethods(String className, String methodName, String params)
 	{
-
+		return tryRemoveMethods(className, methodName, params).getCode();
+	}
+	
+	/**
+	 * 
+	 * @param className - the class we want to remove a method from
+	 * @param methodName - the name of the method we want to remove
+	 * @return - result naming the method
+	 */
+	public Result tryRemoveMethods(String className, String methodName, String params)
+	{
 		if (classList.containsKey(className))
 		{
-			if (classList.get(className).getMethods().containsKey(methodName + params)) 
+			if (classList.get(className).hasMethod(methodName, params)) 
 			{
 				classList.get(className).removeMethod(methodName, params);
-				return ErrorHandler.setCode(0);
+				return Result.method(0, className, methodName, params);
 			}
 			else 
 			{
-				return ErrorHandler.setCode(406);
+				return Result.method(406, className, methodName, params);
 			}
 		}
-		else return ErrorHandler.setCode(403);
+		else return Result.method(403, className, methodName, params);
 		
 	}
 	/**
@@ -170,43 +258,67 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 on successful name change and error code on failure 
 	 */
 	public int editClass(String oldName, String newName)
+	{
+		return tryEditClass(oldName, newName).getCode();
+	}
+	
+	/**
+	 * 
+	 * @param oldName; the class we want to edit 
+	 * @param newName; the name of the new class
+	 * @return result naming the class, by its new name on success
+	 */
+	public Result tryEditClass(String oldName, String newName)
 	{
 			//check if the new name doesn't already exist as a class name
 		if (classList.containsKey(newName))
 		{
-			return ErrorHandler.setCode(400);
+			return new Result(400, oldName);
 		}
 		if(!validName(newName))
-			return ErrorHandler.setCode(407);
+			return new Result(407, oldName);
 		if (classList.containsKey(oldName))
 		{
 			UMLClass tempCopy = classList.get(oldName);
 			tempCopy.setName(newName);
 			classList.remove(oldName);
 			classList.put(newName, tempCopy);
-			return ErrorHandler.setCode(0);
+			
+			// Relationships now name the class differently
+			classChanged(oldName);
+			classAdded(newName);
+			classRenamed(oldName, newName);
+			return new Result(0, newName);
 		}
-		return ErrorHandler.setCode(401);
+		return new Result(401, oldName);
 	}
 	
 	public int editRelationships(String originClass, String oldType, String destClass, String newType) 
+	{
+		return tryEditRelationships(originClass, oldType, destClass, newType).getCode();
+	}
+	
+	/**
+	 * Change the type of a relationship
+	 * @return result naming the relationship, by its new key on success
+	 */
+	public Result tryEditRelationships(String originClass, String oldType, String destClass, String newType) 
 	{
 		if(!relationshipExists(originClass, oldType, destClass))
 			{
-				return ErrorHandler.setCode(108);
+				return new Result(108, UMLRelationship.GENERATE_STRING(originClass, oldType, destClass));
 			}
 		if (!validRealationshipType(originClass, newType, destClass))
 			{
-				return ErrorHandler.setCode(202);
+				return new Result(202, UMLRelationship.GENERATE_STRING(originClass, oldType, destClass));
 			}
 		if (relationshipExists(originClass, newType, destClass))
 			{
-				return ErrorHandler.setCode(410);
+				return new Result(410, UMLRelationship.GENERATE_STRING(originClass, oldType, destClass));
 			}
 			//here we "edit" your relationship it's totally the same one!
-			removeRelationship(originClass, oldType,destClass);
-			addRelationship(originClass, newType, destClass);
-			return ErrorHandler.setCode(0);
+			tryRemoveRelationship(originClass, oldType,destClass);
+			return tryAddRelationship(originClass, newType, destClass);
 		
 	}
 		/**
@@ -216,26 +328,37 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 on successful name change and error code on failure 
 	 */
 	public int editFields(String className, String oldField, String newName)
+	{
+		return tryEditFields(className, oldField, newName).getCode();
+	}
+	
+	/**
+	 * @param className; the class holding the field we want to edit
+	 * @param oldField; the field we want to change 
+	 * @param newName; the name of the new field
+	 * @return result naming the field, by its new name on success
+	 */
+	public Result tryEditFields(String className, String oldField, String newName)
 	{
 			//check if the new name doesn't already exist as a class name
 		if (classList.containsKey(className)){
 			if (classList.get(className).getFields().containsKey(newName))
 			{
-				return ErrorHandler.setCode(404); 
+				return Result.field(404, className, oldField); 
 			}
 			if(!validName(newName))
-				return ErrorHandler.setCode(409);
+				return Result.field(409, className, oldField);
 			if (classList.get(className).getFields().containsKey(oldField))
 			{
 				//this is great code don't question it keep moving
 				String type = classList.get(className).getFields().get(oldField).getType();
 				classList.get(className).removeField(oldField);
 				classList.get(className).addField(type, newName);
-				return ErrorHandler.setCode(0);
+				return Result.field(0, className, newName);
 			}
-			return ErrorHandler.setCode(405);
+			return Result.field(405, className, oldField);
 		}
-		return ErrorHandler.setCode(403);
+		return Result.field(403, className, oldField);
 	}
 
 	/**
@@ -246,26 +369,38 @@ public class UMLClassManager implements Serializable {
 	 * @return - 0 on successful 'name change' and corresponding error codes in all other cases
 	 */
 	public int editMethods(String className, String oldMethod, String newName, String params)
+	{
+		return tryEditMethods(className, oldMethod, newName, params).getCode();
+	}
+	
+	/**
+	 * 
+	 * @param className - the class containing the method to edit
+	 * @param oldMethod - the method name to edit
+	 * @param newName - the new method name
+	 * @return - result naming the method, by its new name on success
+	 */
+	public Result tryEditMethods(String className, String oldMethod, String newName, String params)
 	{
 			//check if the new name doesn't already exist as a class name
 		if (classList.containsKey(className)){
-			if (classList.get(className).getMethods().containsKey(newName + params))
+			if (classList.get(className).hasMethod(newName, params))
 			{
-				return ErrorHandler.setCode(402); 
+				return Result.method(402, className, oldMethod, params); 
 			}
 			if(!validName(newName))
-				return ErrorHandler.setCode(408);
-			if (classList.get(className).getMethods().containsKey(oldMethod + params))
+				return Result.method(408, className, oldMethod, params);
+			if (classList.get(className).hasMethod(oldMethod, params))
 			{
 				//this is great code don't question it keep moving
-				String returnType = classList.get(className).getMethods().get(oldMethod + params).getReturnType();
+				String returnType = classList.get(className).getMethod(oldMethod, params).getReturnType();
 				classList.get(className).removeMethod(oldMethod, params);
 				classList.get(className).addMethod(returnType, newName, params);
-				return ErrorHandler.setCode(0);
+				return Result.method(0, className, newName, params);
 			}
-			return ErrorHandler.setCode(406);
+			return Result.method(406, className, oldMethod, params);
 		}
-		return ErrorHandler.setCode(403);
+		return Result.method(403, className, oldMethod, params);
 	}
 	
 	/**
@@ -274,19 +409,37 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 if the class was successfully removed from the list
 	 */
 	public int removeClass(String className) {
+		return tryRemoveClass(className).getCode();
+	}
+	
+	/**
+	 * Removes node of type UMLClass from list
+	 * @param className: name of class
+	 * @return result naming the class
+	 */
+	public Result tryRemoveClass(String className) {
 		if (classList.containsKey(className))
 		{
 			// Remove the class from the list of classes
 			classList.remove(className);
 			
 			// Remove any relationship involving the class
-			relationships.entrySet().removeIf(e -> e.getValue().hasClass(className));
+			relationships.entrySet().removeIf(e -> {
+				if(!e.getValue().hasClass(className))
+					return false;
+				unindexRelation(e.getKey(), e.getValue());
+				relationChanged(e.getKey());
+				return true;
+			});
 			
-			return ErrorHandler.setCode(0);
+			classChanged(className);
+			return new Result(0, className);
 		}
-		return ErrorHandler.setCode(201);
+		return new Result(201, className);
 	}
 	
+
+	
 	/**
 	 * Get the list of classes in the UML diagram
 	 * @return String of classes in format "[class1, class2, ...]"
@@ -304,6 +457,21 @@ public class UMLClassManager implements Serializable {
 		}
 	}
 	
+	/**
+	 * Stream the box of every class to the consumer as soon as it is generated
+	 * @param boxes - receives each class box, one line per element
+	 * @return false if there are no classes to print
+	 */
+	public boolean printClasses(Consumer<String[]> boxes) {
+		if(classList.isEmpty()) {
+			return false;
+		}
+		for(Map.Entry<String, UMLClass> entry : classList.entrySet()) {
+			boxes.accept(printClasses(entry.getValue().getName()));
+		}
+		return true;
+	}
+	
 	/**
 	 * Lists the relationships involving the provided in parameter.
 	 * @param className
@@ -313,125 +481,60 @@ public class UMLClassManager implements Serializable {
 		if(!classList.containsKey(className)) {
 			return null;
 		}
-		else {
-			ArrayList<String> boxString = new ArrayList<String>();
-			String[] fields = listFields(className);
-			String[] methods = listMethods(className);
-			int boxWidth = className.length();
-			boxString.add(className);
-			if(fields != null) {
-				for(String s : fields) {
-					boxString.add(s);
-					if(s.length() > boxWidth) {
-						boxWidth = s.length();
-					}
-				}
-			}
-			if(methods != null) {
-				for(String s : methods) {
-					boxString.add(s);
-					if(s.length() > boxWidth) {
-						boxWidth = s.length();
-					}
-				}
-			}
-			String top = "+";
-			for(int i = 0; i < boxWidth; i++) {
-				top += "-";
-			}
-			top += "+";
-			boxString.add(0, top);
-			
-			String[] classBox = new String[boxString.size() + 1];
-			String border = boxString.get(0);
-			classBox[0] = border;
-			for(int i = 1; i < boxString.size(); i++) {
-					classBox[i] = "|";
-					String spaces = "";
-					for(int j = boxString.get(i).length(); j < top.length() - 2; j++) {
-						spaces += " ";
-					}
-					classBox[i] += (spaces.substring(0, spaces.length()/2) + boxString.get(i) + spaces.substring(spaces.length()/2));
-					classBox[i] += "|";
-			}
-			classBox[classBox.length - 1] = border;
-			return classBox;
-		}
-		
+		// Copy the memoized box so callers can't change it
+		return renderer().render(classList.get(className)).clone();
 	}
 	
 	/**
-	 * makes sure a method or field name is valid.
-	 * @param name name to be checked
-	 * @return true if valid false otherwise
+	 * Stream the box of every class to the writer, each box followed by an empty line
+	 * @param out - destination of the boxes
+	 * @return false if there are no classes to print
 	 */
-	private boolean validName(String name)
-	{
-		
-		if (name == null || name.isEmpty()){
-			return false;
-		}
-		Pattern specialSearch = Pattern.compile("[^a-z0-9_-]", Pattern.CASE_INSENSITIVE);
-		Matcher m = specialSearch.matcher(name);
-		boolean specialChar = m.find();
-		if (specialChar){
+	public boolean printClasses(Writer out) throws IOException {
+		if(classList.isEmpty()) {
 			return false;
 		}
-		if (Character.isLetter(name.charAt(0)) && !name.contains(" ")){
-			return true;
+		BoxRenderer boxes = renderer();
+		for(Map.Entry<String, UMLClass> entry : classList.entrySet()) {
+			boxes.render(entry.getValue(), out);
+			out.write(System.lineSeparator());
 		}
-		return false;
+		return true;
 	}
 	
-	
 	/**
-	 * List the fields of the given class
-	 * @param className
-	 * @return String array of all fields;
+	 * Stream the box of the given class to the writer
+	 * @param className - class to print
+	 * @param out - destination of the box
+	 * @return false if the class does not exist
 	 */
-	private String[] listFields(String className) {
-		//instance of className
-		UMLClass inst = getClass(className);
-		// Make sure fields exists
-		if(inst.getFields().size() == 0) {
-			return null;
-		}
-		else {
-			//Set up string array and loop through fields to populate.
-			String[] result = new String[inst.getFields().size()];
-			int i = 0;
-			for(Map.Entry<String, Field> entry : inst.getFields().entrySet()) {
-				result[i] = entry.getValue().toString();
-				i++;
-			}
-			return result;
+	public boolean printClasses(String className, Writer out) throws IOException {
+		if(!classList.containsKey(className)) {
+			return false;
 		}
+		renderer().render(classList.get(className), out);
+		return true;
 	}
 	
 	/**
-	 * List the methods of the given class
-	 * @param className
-	 * @return String array of all methods;
+	 * Get the renderer used for class boxes on this thread
+	 * @return - renderer
 	 */
-	private String[] listMethods(String className) {
-		//instance of className
-		UMLClass inst = getClass(className);
-		// Make sure methods exists
-		if(inst.getMethods().size() == 0) {
-			return null;
-		}
-		else {
-			//set up string array by itterating through methods
-			String[] result = new String[inst.getMethods().size()];
-			int i = 0;
-			for(Map.Entry<String, Method> entry : inst.getMethods().entrySet()) {
-				result[i] = entry.getValue().toString();
-				i++;
-			}
-			return result;
-		}
+	private BoxRenderer renderer() {
+		return RENDERERS.get();
+	}
+	
+	/**
+	 * makes sure a method or field name is valid.
+	 * @param name name to be checked
+	 * @return true if valid false otherwise
+	 */
+	static boolean validName(String name)
+	{
+		return NameValidator.isValid(name);
 	}
 	
+	
 	/**
 	 * Create a relationship between the two given classes
 	 * @param srcClass - the first class's name
@@ -439,26 +542,39 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 if successfully added relationship, error code otherwise
 	 */
 	public int addRelationship(String srcClass, String type, String destClass) {
+		return tryAddRelationship(srcClass, type, destClass).getCode();
+	}
+	
+	/**
+	 * Create a relationship between the two given classes
+	 * @param srcClass - the first class's name
+	 * @param destClass - the second class's name
+	 * @return result naming the relationship by its key
+	 */
+	public Result tryAddRelationship(String srcClass, String type, String destClass) {
+		String key = UMLRelationship.GENERATE_STRING(srcClass, type, destClass);
+		
 		// Make sure both class names exist
 		if(!classList.containsKey(srcClass) || !classList.containsKey(destClass))
-			return ErrorHandler.setCode(107);
+			return new Result(107, key);
 		
 		// Make sure a relationship between both classes does not exist
 		if(relationshipExists(srcClass, type, destClass))
-			return ErrorHandler.setCode(106);
+			return new Result(106, key);
 		
 		//validate type
 		if(!validRealationshipType(srcClass, type, destClass))
-			return ErrorHandler.setCode(202);
+			return new Result(202, key);
 		
 		// If both classes exist and do not have a pre-existing relationship, then
 		//		create a new relationship between them if the type is valid
-		String key = UMLRelationship.GENERATE_STRING(srcClass, type, destClass);
 		UMLRelationship relation = new UMLRelationship(classList.get(srcClass), type, classList.get(destClass));
 		relationships.put(key, relation);
+		indexRelation(key, relation);
+		relationAdded(key);
 		
 		// Indicate success
-		return ErrorHandler.setCode(0);
+		return new Result(0, key);
 	}
 	
 	/**
@@ -468,27 +584,40 @@ public class UMLClassManager implements Serializable {
 	 * @return 0 if successfully removed the relationship, error code if otherwise
 	 */
 	public int removeRelationship(String srcClass, String type, String destClass) {
+		return tryRemoveRelationship(srcClass, type, destClass).getCode();
+	}
+	
+	/**
+	 * Remove the relationship between the two given classes
+	 * @param srcClass - the first class's name
+	 * @param destClass - the second class's name
+	 * @return result naming the relationship by its key
+	 */
+	public Result tryRemoveRelationship(String srcClass, String type, String destClass) {
+		String key = UMLRelationship.GENERATE_STRING(srcClass, type, destClass);
+		
 		// Make sure both class name exist
 		if(!classList.containsKey(srcClass) || !classList.containsKey(destClass))
-			return ErrorHandler.setCode(107);
+			return new Result(107, key);
 		
 		// Make sure there is a pre-existing relationship
 		if(!relationshipExists(srcClass, type, destClass))
-			return ErrorHandler.setCode(108);
+			return new Result(108, key);
 		
 		// Determine which class is the key in the relationships map
-		String key = UMLRelationship.GENERATE_STRING(srcClass, type, destClass);
 		if(!relationships.containsKey(key))
 			key = UMLRelationship.GENERATE_STRING(destClass, type, srcClass);
 		
 		// Remove the relationship from the map
-		relationships.remove(key);
+		unindexRelation(key, relationships.remove(key));
+		relationChanged(key);
 		
-		return ErrorHandler.setCode(0);
+		return new Result(0, key);
 	}
 	
 	/**
-	 * Prints relationships of the entire model
+	 * Prints relationships of the entire model, each relationship once as
+	 * [class1 box, relationship delimiter, class2 box]
 	 */
 	public ArrayList<ArrayList<String[]>> printRelationships() {
 		if(relationships.isEmpty()) {
@@ -496,16 +625,98 @@ public class UMLClassManager implements Serializable {
 		}
 		else {
 			ArrayList<ArrayList<String[]>> result = new ArrayList<ArrayList<String[]>>();
-			for(Map.Entry<String, UMLRelationship> r : relationships.entrySet()) {
-				String name2 = r.getValue().getClass2().getName();
-				if(!name2.equals(r.getValue().getClass1().getName())) {
-					result.add(printRelationships(r.getValue().getClass1().getName()));
+			printRelationships(new Consumer<String[]>() {
+				ArrayList<String[]> current;
+				
+				@Override
+				public void accept(String[] box) {
+					// Every relationship is three boxes
+					if(current == null || current.size() == 3) {
+						current = new ArrayList<String[]>(3);
+						result.add(current);
+					}
+					current.add(box);
 				}
-			}
+			});
 			return result;
 		}
 	}
 	
+	/**
+	 * Stream the relationships of the entire model to the consumer as they are generated.
+	 * Each relationship is visited once, and class boxes are only rendered if they changed.
+	 * @param boxes - receives each class box and relationship delimiter
+	 * @return false if there are no relationships to print
+	 */
+	public boolean printRelationships(Consumer<String[]> boxes) {
+		if(relationships.isEmpty()) {
+			return false;
+		}
+		for(Map.Entry<String, UMLRelationship> entry : relationships.entrySet()) {
+			UMLRelationship relation = entry.getValue();
+			boxes.accept(printClasses(relation.getClass1().getName()));
+			boxes.accept(relation.vertType());
+			boxes.accept(printClasses(relation.getClass2().getName()));
+		}
+		return true;
+	}
+	
+	/**
+	 * Stream the relationships of the entire model to the writer. Each relationship is
+	 * visited once and written as the two class boxes and the delimiter between them,
+	 * each followed by an empty line.
+	 * @param out - destination of the relationships
+	 * @return false if there are no relationships to print
+	 */
+	public boolean printRelationships(Writer out) throws IOException {
+		if(relationships.isEmpty()) {
+			return false;
+		}
+		for(Map.Entry<String, UMLRelationship> entry : relationships.entrySet()) {
+			writeRelationship(entry.getValue(), out);
+		}
+		return true;
+	}
+	
+	/**
+	 * Stream the relationships the given class has to the writer, in the same
+	 * format as printRelationships(Writer)
+	 * @param className - class whose relationships to print
+	 * @param out - destination of the relationships
+	 * @return number of relationships printed, -1 if the class does not exist
+	 */
+	public int printRelationships(String className, Writer out) throws IOException {
+		if(!classList.containsKey(className)) {
+			return -1;
+		}
+		int count = 0;
+		for(Map.Entry<String, UMLRelationship> entry : relationships.entrySet()) {
+			if(entry.getValue().hasClass(className)) {
+				writeRelationship(entry.getValue(), out);
+				count++;
+			}
+		}
+		return count;
+	}
+	
+	/**
+	 * Write one relationship as class box, delimiter, class box, each followed by an empty line
+	 * @param relation - relationship to write
+	 * @param out - destination
+	 */
+	private void writeRelationship(UMLRelationship relation, Writer out) throws IOException {
+		String newLine = System.lineSeparator();
+		renderer().render(classList.get(relation.getClass1().getName()), out);
+		out.write(newLine);
+		for(String line : relation.vertType()) {
+			out.write(line);
+			out.write(newLine);
+		}
+		out.write(newLine);
+		renderer().render(classList.get(relation.getClass2().getName()), out);
+		out.write(newLine);
+	}
+	
 	/**
 	 * List the relationships the given class has
 	 * @param className
@@ -564,12 +775,23 @@ public class UMLClassManager implements Serializable {
 	 * @param y - new y coordinate
 	 */
 	public int setClassLocation(String className, int x, int y) {
+		return trySetClassLocation(className, x, y).getCode();
+	}
+	
+	/**
+	 * Set the location of a class
+	 * @param className - the class to set location
+	 * @param x - new x coordinate
+	 * @param y - new y coordinate
+	 * @return result naming the class
+	 */
+	public Result trySetClassLocation(String className, int x, int y) {
 		if(classList.containsKey(className)) {
 			classList.get(className).setLocation(x, y);
-			return ErrorHandler.setCode(0);
+			return new Result(0, className);
 		}
 		
-		return ErrorHandler.setCode(109);
+		return new Result(109, className);
 	}
 	
 	/**
@@ -580,7 +802,7 @@ public class UMLClassManager implements Serializable {
 	public Object[] listRelationships(String className) {
 		// Make sure class exists
 		if(!classList.containsKey(className))
-			return new Object[]{"", ErrorHandler.setCode(107)};
+			return new Object[]{"", 107};
 		
 		// Find all relationships with className involved
 		String result = "[";
@@ -599,7 +821,7 @@ public class UMLClassManager implements Serializable {
 		
 		result += "]";
 		
-		return new Object[]{result, ErrorHandler.setCode(0)};
+		return new Object[]{result, 0};
 	}
 	
 	/**
@@ -618,23 +840,226 @@ public class UMLClassManager implements Serializable {
 		return jsonString;
 	}
 	
+	/**
+	 * Stream the class list as JSON to the given writer
+	 * @param writer - destination of the JSON
+	 */
+	public void writeJSON(Writer writer) {
+		// Create JSON builder and enable 'pretty printing' for multiple lines
+		Gson gson = new GsonBuilder().setPrettyPrinting().create();
+		
+		// Convert manager to JSON directly into the writer
+		gson.toJson(this, writer);
+	}
+	
 	/**
 	 * Parse JSON into classList
 	 * @return true if parsed successfully
 	 */
 	public int parseJSON(String json) {
+		return parseJSON(new StringReader(json));
+	}
+	
+	/**
+	 * Parse JSON streamed from the given reader into classList
+	 * @param reader - source of the JSON
+	 * @return 0 if parsed successfully
+	 */
+	public int parseJSON(Reader reader) {
 		// JSON parser object
 		Gson gson = new GsonBuilder().setPrettyPrinting().create();
 		
 		// Deep clone the manager
 		Type type = new TypeToken<UMLClassManager>(){}.getType();
-		UMLClassManager clonedManager = gson.fromJson(json, type);
+		EditorEvents.LoadPhase phase = EditorEvents.LoadPhase.start();
+		UMLClassManager clonedManager = gson.fromJson(reader, type);
+		
+		// Empty input has nothing to load
+		if(clonedManager == null)
+			return 303;
+		// A missing section is empty, as in parallel loads
+		LinkedHashMap<String, UMLClass> loadedClasses = clonedManager.getClassList();
+		LinkedHashMap<String, UMLRelationship> loadedRelations = clonedManager.getRelationships();
+		if(loadedClasses == null)
+			loadedClasses = new LinkedHashMap<String, UMLClass>();
+		if(loadedRelations == null)
+			loadedRelations = new LinkedHashMap<String, UMLRelationship>();
+		phase.finish("parse", loadedClasses.size(), loadedRelations.size());
+		
+		// Check every class the same way parallel loads do
+		for(Map.Entry<String, UMLClass> entry : loadedClasses.entrySet()) {
+			int code = validateLoaded(entry.getKey(), entry.getValue());
+			if(code != 0)
+				return code;
+		}
+		
+		// Share names and link relationships to the loaded classes, then set classList and relationships
+		phase = EditorEvents.LoadPhase.start();
+		LinkedHashMap<String, UMLRelationship> linked = new LinkedHashMap<String, UMLRelationship>();
+		int result = intern(loadedClasses, loadedRelations, linked);
+		if(result != 0)
+			return result;
+		setModel(loadedClasses, linked);
+		phase.finish("link", loadedClasses.size(), linked.size());
+		
+		return 0;
+	}
+	
+	/**
+	 * Parse JSON streamed from the given reader, binding and validating the class
+	 * records in parallel before linking relationships. The model is only replaced
+	 * if the whole file loads successfully.
+	 * @param reader - source of the JSON
+	 * @return 0 if parsed successfully
+	 */
+	public int parseJSONParallel(Reader reader) throws IOException {
+		ParallelModelLoader loader = new ParallelModelLoader(getSymbols());
+		int result = loader.load(reader);
+		if(result != 0)
+			return result;
 		
 		// Set classList and relationships
-		classList = clonedManager.getClassList();
-		relationships = clonedManager.getRelationships();
+		setModel(loader.getClassList(), loader.getRelationships());
 		
-		return ErrorHandler.setCode(0);
+		return 0;
+	}
+	
+	/**
+	 * Swap every name of freshly loaded classes for its shared instance, and link
+	 * the relationships to the loaded classes instead of their own copies
+	 * @param loadedClasses - classes bound from JSON
+	 * @param loadedRelations - relationships bound from JSON
+	 * @param linked - receives the linked relationships
+	 * @return - 0 on success, error code of the first class or relationship that can't be loaded otherwise
+	 */
+	private int intern(LinkedHashMap<String, UMLClass> loadedClasses, LinkedHashMap<String, UMLRelationship> loadedRelations,
+			LinkedHashMap<String, UMLRelationship> linked) {
+		SymbolTable symbols = getSymbols();
+		for(UMLClass umlClass : loadedClasses.values()) {
+			int code = umlClass.intern(symbols);
+			if(code != 0)
+				return code;
+		}
+		
+		for(UMLRelationship relation : loadedRelations.values()) {
+			if(relation == null)
+				return 107;
+			String class1 = relation.getClass1() == null ? null : relation.getClass1().getName();
+			String class2 = relation.getClass2() == null ? null : relation.getClass2().getName();
+			int code = linkLoaded(loadedClasses, class1, relation.getType(), class2, symbols, linked);
+			if(code != 0)
+				return code;
+		}
+		return 0;
+	}
+	
+	/**
+	 * Check a class read from a file the way adding it and its members is checked.
+	 * Every load checks classes with this, so a file loads the same either way.
+	 * @param key - key the class was stored under
+	 * @param umlClass - loaded class
+	 * @return - 0 if the class is valid, error code otherwise
+	 */
+	static int validateLoaded(String key, UMLClass umlClass) {
+		if(umlClass == null || !validName(umlClass.getName()) || !key.equals(umlClass.getName()))
+			return 407;
+		
+		if(umlClass.getFields() != null) {
+			for(Field field : umlClass.getFields().values()) {
+				int code = field == null ? 409 : validateLoadedField(field.getName(), field.getType());
+				if(code != 0)
+					return code;
+			}
+		}
+		
+		if(umlClass.getMethodSignatures() != null) {
+			for(Method method : umlClass.getMethodSignatures().values()) {
+				int code = method == null ? 408 : validateLoadedMethod(method.getName(), method.getReturnType());
+				if(code != 0)
+					return code;
+			}
+		}
+		return 0;
+	}
+	
+	/**
+	 * Check a field read from a file the way adding it is checked
+	 * @param name - name of the field
+	 * @param type - type of the field
+	 * @return - 0 if the field is valid, error code otherwise
+	 */
+	static int validateLoadedField(String name, String type) {
+		if(!validName(name))
+			return 409;
+		if(!validName(type))
+			return 203;
+		return 0;
+	}
+	
+	/**
+	 * Check a method read from a file the way adding it is checked
+	 * @param name - name of the method
+	 * @param returnType - return type of the method
+	 * @return - 0 if the method is valid, error code otherwise
+	 */
+	static int validateLoadedMethod(String name, String returnType) {
+		if(!validName(name))
+			return 408;
+		if(!validName(returnType))
+			return 203;
+		return 0;
+	}
+	
+	/**
+	 * Check the type of a relationship read from a file the way adding it is checked
+	 * @param class1 - name of the first class
+	 * @param type - type of the relationship
+	 * @param class2 - name of the second class
+	 * @return - true if the type is valid
+	 */
+	static boolean validLoadedType(String class1, String type, String class2) {
+		return type != null && !UMLRelationship.GENERATE_STRING(class1, type, class2).equals("Invalid Type");
+	}
+	
+	/**
+	 * Link a relationship read from a file to the loaded classes, keyed the way
+	 * adding it would key it
+	 * @param classes - loaded classes
+	 * @param class1 - name of the first class
+	 * @param type - type of the relationship
+	 * @param class2 - name of the second class
+	 * @param symbols - table of shared names
+	 * @param linked - receives the linked relationship
+	 * @return - 0 on success, 107 if a class is not loaded, 202 if the type is not valid
+	 */
+	static int linkLoaded(Map<String, UMLClass> classes, String class1, String type, String class2,
+			SymbolTable symbols, Map<String, UMLRelationship> linked) {
+		UMLClass first = class1 == null ? null : classes.get(class1);
+		UMLClass second = class2 == null ? null : classes.get(class2);
+		if(first == null || second == null)
+			return 107;
+		
+		if(!validLoadedType(class1, type, class2))
+			return 202;
+		linked.put(UMLRelationship.GENERATE_STRING(class1, type, class2), new UMLRelationship(first, symbols.intern(type), second));
+		return 0;
+	}
+	
+	/**
+	 * Get the table of shared names, creating it if the model was not built by a constructor.
+	 * Safe to call from several threads, they all get the same table.
+	 * @return - symbol table
+	 */
+	public SymbolTable getSymbols() {
+		SymbolTable table = symbols;
+		if(table == null) {
+			synchronized(this) {
+				if(symbols == null)
+					symbols = new SymbolTable();
+				table = symbols;
+			}
+		}
+		return table;
 	}
 	
 	/**
@@ -656,6 +1081,178 @@ public class UMLClassManager implements Serializable {
 		return classList;
 	}
 
+	/**
+	 * Replace the whole model, used once a file has been loaded
+	 * @param classList - new map of classes
+	 * @param relationships - new map of relationships
+	 */
+	protected void setModel(LinkedHashMap<String, UMLClass> classList, LinkedHashMap<String, UMLRelationship> relationships) {
+		// Everything that was or is now in the model changed for the next snapshot
+		if(snapshot != null) {
+			changedClasses.addAll(this.classList.keySet());
+			changedRelations.addAll(this.relationships.keySet());
+			for(UMLClass umlClass : classList.values()) {
+				umlClass.attach(this);
+				classAdded(umlClass.getName());
+			}
+			for(String key : relationships.keySet())
+				relationAdded(key);
+		}
+		this.classList = classList;
+		this.relationships = relationships;
+		if(snapshot != null)
+			indexRelations();
+	}
+	
+	/**
+	 * Take an immutable snapshot of the model. The first snapshot copies the whole
+	 * model; after that the model records what changes, and each snapshot only
+	 * copies the classes and relationships changed since the previous one.
+	 * @return - snapshot of the model as it is now
+	 */
+	public ModelSnapshot snapshot() {
+		if(snapshot == null) {
+			// Start recording changes, the whole model is new to the first snapshot
+			snapshot = ModelSnapshot.EMPTY;
+			changedClasses = new LinkedHashSet<String>(classList.keySet());
+			changedRelations = new LinkedHashSet<String>(relationships.keySet());
+			for(UMLClass umlClass : classList.values())
+				umlClass.attach(this);
+			indexRelations();
+		}
+		
+		if(!changedClasses.isEmpty() || !changedRelations.isEmpty()) {
+			snapshot = snapshot.update(classList, changedClasses, relationships, changedRelations);
+			changedClasses.clear();
+			changedRelations.clear();
+		}
+		return snapshot;
+	}
+	
+	/**
+	 * Get the last snapshot taken, which the next one is built from
+	 * @return - snapshot, null until the first one
+	 */
+	ModelSnapshot getLastSnapshot() {
+		return snapshot;
+	}
+	
+	/**
+	 * Get the names of classes changed since the last snapshot
+	 * @return - names, null until the first snapshot
+	 */
+	Set<String> getChangedClasses() {
+		return changedClasses;
+	}
+	
+	/**
+	 * Get the keys of relationships changed since the last snapshot
+	 * @return - keys, null until the first snapshot
+	 */
+	Set<String> getChangedRelations() {
+		return changedRelations;
+	}
+	
+	/**
+	 * Get the keys of the relationships of each class
+	 * @return - index, null until the first snapshot
+	 */
+	Map<String, HashSet<String>> getClassRelations() {
+		return classRelations;
+	}
+	
+	/**
+	 * Record that a class changed since the last snapshot
+	 * @param className - name of the class
+	 */
+	void classChanged(String className) {
+		if(changedClasses != null)
+			changedClasses.add(className);
+	}
+	
+	/**
+	 * Record that a class was added to the end of the model since the last snapshot
+	 * @param className - name of the class
+	 */
+	private void classAdded(String className) {
+		if(changedClasses != null) {
+			changedClasses.remove(className);
+			changedClasses.add(className);
+		}
+	}
+	
+	/**
+	 * Record that a relationship changed since the last snapshot
+	 * @param key - key of the relationship
+	 */
+	private void relationChanged(String key) {
+		if(changedRelations != null)
+			changedRelations.add(key);
+	}
+	
+	/**
+	 * Record that a relationship was added to the end of the model since the last snapshot
+	 * @param key - key of the relationship
+	 */
+	private void relationAdded(String key) {
+		if(changedRelations != null) {
+			changedRelations.remove(key);
+			changedRelations.add(key);
+		}
+	}
+	
+	/**
+	 * Record that the relationships of a renamed class changed since the last snapshot
+	 * @param oldName - name the class had
+	 * @param newName - name the class has now
+	 */
+	private void classRenamed(String oldName, String newName) {
+		if(classRelations == null)
+			return;
+		HashSet<String> keys = classRelations.remove(oldName);
+		if(keys != null) {
+			classRelations.put(newName, keys);
+			for(String key : keys)
+				relationChanged(key);
+		}
+	}
+	
+	/**
+	 * Index the relationships of every class, once changes start being recorded
+	 */
+	private void indexRelations() {
+		classRelations = new HashMap<String, HashSet<String>>();
+		for(Map.Entry<String, UMLRelationship> entry : relationships.entrySet())
+			indexRelation(entry.getKey(), entry.getValue());
+	}
+	
+	/**
+	 * Add a relationship to the index of both its classes
+	 * @param key - key of the relationship
+	 * @param relation - the relationship
+	 */
+	private void indexRelation(String key, UMLRelationship relation) {
+		if(classRelations == null)
+			return;
+		classRelations.computeIfAbsent(relation.getClass1().getName(), name -> new HashSet<String>()).add(key);
+		classRelations.computeIfAbsent(relation.getClass2().getName(), name -> new HashSet<String>()).add(key);
+	}
+	
+	/**
+	 * Remove a relationship from the index of both its classes
+	 * @param key - key of the relationship
+	 * @param relation - the relationship
+	 */
+	private void unindexRelation(String key, UMLRelationship relation) {
+		if(classRelations == null)
+			return;
+		for(String name : new String[] {relation.getClass1().getName(), relation.getClass2().getName()}) {
+			HashSet<String> keys = classRelations.get(name);
+			if(keys != null && keys.remove(key) && keys.isEmpty())
+				classRelations.remove(name);
+		}
+	}
+
 	/**
 	 * Get the map of relationships
 	 * @return - relationships
@@ -671,4 +1268,20 @@ public class UMLClassManager implements Serializable {
 	public Object[] getClassNames() {
 		return classList.keySet().toArray();
 	}
+	
+	/**
+	 * Get the number of classes without copying their names
+	 * @return - number of classes
+	 */
+	public int getClassCount() {
+		return classList.size();
+	}
+	
+	/**
+	 * Get the number of relationships without copying them
+	 * @return - number of relationships
+	 */
+	public int getRelationshipCount() {
+		return relationships.size();
+	}
 }
@@ -5,6 +5,7 @@ package observe;
 import java.util.ArrayList;
 
 // Local imports
+import core.EditorEvents;
 
 /**
  * Object to make classes observable to notify changes
@@ -16,6 +17,10 @@ public class Observable {
 	// List of 'subscribers' to be notified of changes
 	private ArrayList<Observer> observers;
 	
+	// Events held back while batching, stored as [tag, data]
+	private ArrayList<Object[]> pending;
+	private int batchSize;
+	
 	/**
 	 * Initialize the list of observers
 	 */
@@ -37,8 +42,81 @@ public class Observable {
 	 * @param data - Associated data
 	 */
 	protected void notify(String tag, Object data) {
+		// Hold the event back if batching
+		if(pending != null) {
+			pending.add(new Object[] {tag, data});
+			if(pending.size() >= batchSize)
+				flushBatch();
+			return;
+		}
+		
+		EditorEvents.Dispatch event = new EditorEvents.Dispatch();
+		event.begin();
 		for(Observer o : observers) {
 			o.updated(this, tag, data);
 		}
+		commit(event, tag, 1);
+	}
+	
+	/**
+	 * Start batching notifications. Events are delivered in groups of
+	 * batchSize, or when the batch ends, instead of one at a time.
+	 * @param batchSize - number of events to hold before delivering
+	 */
+	public void beginBatch(int batchSize) {
+		this.batchSize = Math.max(1, batchSize);
+		if(pending == null)
+			pending = new ArrayList<Object[]>(this.batchSize);
+	}
+	
+	/**
+	 * Deliver any held events and stop batching
+	 */
+	public void endBatch() {
+		if(pending == null)
+			return;
+		flushBatch();
+		pending = null;
+	}
+	
+	/**
+	 * Check if notifications are currently being batched
+	 * @return - true if batching
+	 */
+	public boolean isBatching() {
+		return pending != null;
+	}
+	
+	/**
+	 * Deliver all held events to every observer, in order
+	 */
+	private void flushBatch() {
+		if(pending.isEmpty())
+			return;
+		EditorEvents.Dispatch dispatch = new EditorEvents.Dispatch();
+		dispatch.begin();
+		for(Observer o : observers) {
+			for(Object[] event : pending) {
+				o.updated(this, (String)event[0], event[1]);
+			}
+		}
+		commit(dispatch, (String)pending.get(0)[0], pending.size());
+		pending.clear();
+	}
+	
+	/**
+	 * Commit the Flight Recorder event of a dispatch if a recording wants it
+	 * @param event - event begun before the dispatch
+	 * @param tag - tag of the first notification
+	 * @param events - number of notifications delivered
+	 */
+	private void commit(EditorEvents.Dispatch event, String tag, int events) {
+		event.end();
+		if(event.shouldCommit()) {
+			event.tag = tag;
+			event.events = events;
+			event.observers = observers.size();
+			event.commit();
+		}
 	}
 }
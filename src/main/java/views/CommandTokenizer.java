@@ -0,0 +1,133 @@
+// Package name
+package views;
+
+// System imports
+import java.util.Arrays;
+
+/**
+ * Splits a command line into whitespace separated tokens without copying it.
+ * Tokens are stored as offsets into the input and only turned into Strings
+ * when a command needs them. One instance is reused for every command.
+ * @author Ryan
+ *
+ */
+public class CommandTokenizer {
+	// Command line being tokenized
+	private CharSequence input;
+
+	// Start (inclusive) and end (exclusive) offsets of each token
+	private int[] starts = new int[16];
+	private int[] ends = new int[16];
+	private int count;
+
+	/**
+	 * Tokenize the given command line, replacing any previous tokens
+	 * @param input - command line
+	 * @return - number of tokens found
+	 */
+	public int reset(CharSequence input) {
+		this.input = input;
+		count = 0;
+
+		int length = input.length();
+		int i = 0;
+		while(i < length) {
+			// Skip whitespace between tokens
+			while(i < length && Character.isWhitespace(input.charAt(i)))
+				i++;
+			if(i == length)
+				break;
+
+			// Read token
+			int start = i;
+			while(i < length && !Character.isWhitespace(input.charAt(i)))
+				i++;
+
+			// Grow offset arrays if needed
+			if(count == starts.length) {
+				starts = Arrays.copyOf(starts, count * 2);
+				ends = Arrays.copyOf(ends, count * 2);
+			}
+			starts[count] = start;
+			ends[count] = i;
+			count++;
+		}
+		return count;
+	}
+
+	/**
+	 * Get the number of tokens
+	 * @return - token count
+	 */
+	public int count() {
+		return count;
+	}
+
+	/**
+	 * Get the offset in the input where a token starts
+	 * @param index - token index
+	 * @return - start offset
+	 */
+	public int start(int index) {
+		return starts[index];
+	}
+
+	/**
+	 * Get the offset in the input just past the end of a token
+	 * @param index - token index
+	 * @return - end offset
+	 */
+	public int end(int index) {
+		return ends[index];
+	}
+
+	/**
+	 * Get the length of the tokenized input
+	 * @return - input length
+	 */
+	public int inputLength() {
+		return input.length();
+	}
+
+	/**
+	 * Check if a token equals the given word without creating a String
+	 * @param index - token index
+	 * @param word - word to compare with
+	 * @return - true if the token matches
+	 */
+	public boolean matches(int index, String word) {
+		int start = starts[index];
+		int length = ends[index] - start;
+		if(length != word.length())
+			return false;
+		for(int i = 0; i < length; i++) {
+			if(input.charAt(start + i) != word.charAt(i))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Get a token as a String
+	 * @param index - token index
+	 * @return - token text
+	 */
+	public String get(int index) {
+		return input.subSequence(starts[index], ends[index]).toString();
+	}
+
+	/**
+	 * Append the tokens from index onward to the buffer, separated by single spaces
+	 * @param from - first token to append
+	 * @param buffer - buffer to append to
+	 * @return - the buffer
+	 */
+	public StringBuilder appendFrom(int from, StringBuilder buffer) {
+		for(int i = from; i < count; i++) {
+			if(i > from)
+				buffer.append(' ');
+			buffer.append(input, starts[i], ends[i]);
+		}
+		return buffer;
+	}
+}
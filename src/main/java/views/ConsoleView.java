@@ -1,6 +1,14 @@
 package views;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.ArrayList;
 // System imports
 import java.util.LinkedHashMap;
@@ -12,12 +20,30 @@ import java.util.Scanner;
 import controller.CommandController;
 import controller.UMLController;
 import core.ErrorHandler;
+import core.Metrics;
 import core.UMLFileIO;
+import layout.AutoLayout;
 //import model.UMLClass;
+import model.MemoryFootprint;
 import model.UMLClassManager;
 import observe.Observable;
 
 public class ConsoleView extends View {
+	// Number of observer notifications delivered together in script mode
+	private static final int SCRIPT_BATCH_SIZE = 4096;
+	
+	// Maximum number of failed commands listed in a script summary
+	private static final int SCRIPT_MAX_ERRORS = 100;
+	
+	// Output stream that discards everything, used to silence echo in script mode
+	private static final PrintStream NULL_OUTPUT = new PrintStream(new OutputStream() {
+		@Override
+		public void write(int b) {}
+		
+		@Override
+		public void write(byte[] b, int off, int len) {}
+	});
+	
 	private Scanner scanner;
 	private UMLClassManager model;
 	private UMLController controller;
@@ -26,6 +52,51 @@ public class ConsoleView extends View {
 	// All valid commands
 	private LinkedHashMap<String, String[]> validCommands;
 	
+	// Table of commands used to dispatch input
+	private Command[] commandTable;
+	
+	// Reused for every command to avoid re-splitting and re-joining input
+	private CommandTokenizer tokens;
+	private StringBuilder paramBuffer;
+	
+	// Offset into the last command where parsing failed, -1 if it parsed
+	private int errorOffset = -1;
+	
+	// True while a script runs, commands must not exit or read from the user then
+	private boolean scriptMode;
+	
+	/**
+	 * Action run for a command once its arguments have been checked
+	 */
+	private interface CommandAction {
+		int run(PrintStream output);
+	}
+	
+	/**
+	 * Entry of the command table
+	 */
+	private static class Command {
+		// Name of the parent command, null for top level commands
+		final String group;
+		final String name;
+		// Bounds on the total number of tokens
+		final int minArgs;
+		final int maxArgs;
+		// Action to run, null if the command only groups sub commands
+		final CommandAction action;
+		// Name the command's latency is recorded under
+		final String metric;
+		
+		Command(String group, String name, int minArgs, int maxArgs, CommandAction action) {
+			this.group = group;
+			this.name = name;
+			this.minArgs = minArgs;
+			this.maxArgs = maxArgs;
+			this.action = action;
+			this.metric = group == null ? "command." + name : "command." + group + " " + name;
+		}
+	}
+	
 	/**
 	 * Initialize required variables for console
 	 */
@@ -40,6 +111,10 @@ public class ConsoleView extends View {
 		
 		validCommands = new LinkedHashMap<String, String[]>();
 		populateValidCommands();
+		
+		tokens = new CommandTokenizer();
+		paramBuffer = new StringBuilder();
+		populateCommandTable();
 	}
 	
 	/**
@@ -57,11 +132,88 @@ public class ConsoleView extends View {
 				if(result != 0) {
 					System.err.println("Failed to execute command. Got error: ");
 					System.err.println(ErrorHandler.toString(result));
+					
+					// Point at where the command could not be parsed
+					if(errorOffset >= 0) {
+						System.err.println(input);
+						StringBuilder marker = new StringBuilder();
+						for(int i = 0; i < errorOffset; i++)
+							marker.append(input.charAt(i) == '\t' ? '\t' : ' ');
+						System.err.println(marker.append('^'));
+					}
 				}
 			}
 		}
 	}
 	
+	/**
+	 * Run every command in the given script file without echoing confirmations.
+	 * Blank lines and lines starting with '#' are skipped, and the script stops early
+	 * at a bare 'exit' or 'quit'. Other exit and quit commands, and commands that would
+	 * prompt the user, fail instead. Observers are notified in batches, and a summary
+	 * with the failed commands is printed once the script finishes.
+	 * @param script - path of the command file
+	 * @param output - where to print the summary
+	 * @param errors - where to print failed commands
+	 * @return 0 if every command succeeded, error code otherwise
+	 */
+	public int runScript(Path script, PrintStream output, PrintStream errors) {
+		if(!Files.exists(script)) {
+			errors.println(ErrorHandler.toString(105));
+			return 105;
+		}
+		
+		long start = System.nanoTime();
+		long executed = 0;
+		long failed = 0;
+		ArrayList<String> failures = new ArrayList<String>();
+		
+		controller.beginBatch(SCRIPT_BATCH_SIZE);
+		scriptMode = true;
+		try(BufferedReader reader = Files.newBufferedReader(script, StandardCharsets.UTF_8)) {
+			String line;
+			long lineNumber = 0;
+			while((line = reader.readLine()) != null) {
+				lineNumber++;
+				
+				// Skip blank lines and comments
+				String trimmed = line.trim();
+				if(trimmed.isEmpty() || trimmed.startsWith("#"))
+					continue;
+				
+				// Stop at the end of the script instead of exiting the program
+				if(trimmed.equals("exit") || trimmed.equals("quit"))
+					break;
+				
+				executed++;
+				int result = execCommand(line, NULL_OUTPUT);
+				if(result != 0) {
+					failed++;
+					if(failures.size() < SCRIPT_MAX_ERRORS) {
+						String location = errorOffset >= 0 ? ", column " + (errorOffset + 1) : "";
+						failures.add("Line " + lineNumber + location + ": '" + trimmed + "' " + ErrorHandler.toString(result));
+					}
+				}
+			}
+		} catch(IOException e) {
+			errors.println(ErrorHandler.toString(303));
+			return 303;
+		} finally {
+			scriptMode = false;
+			controller.endBatch();
+		}
+		
+		// Print summary
+		long elapsed = (System.nanoTime() - start) / 1000000;
+		output.println("Executed " + executed + " commands in " + elapsed + " ms. " + (executed - failed) + " succeeded, " + failed + " failed.");
+		for(String s : failures)
+			errors.println(s);
+		if(failed > failures.size())
+			errors.println("... and " + (failed - failures.size()) + " more failed commands.");
+		
+		return failed == 0 ? 0 : 113;
+	}
+	
 	/**
 	 * Execute the given command and report errors as necessary
 	 * @param command - Command to be processed
@@ -69,427 +221,483 @@ public class ConsoleView extends View {
 	 * @return boolean indicating if command was successfully executed
 	 */
 	public int execCommand(String command, PrintStream output) {
-		// Split command on white space
-		// args[0] = name of the command
-		// args[1...] = any arguments for the command
-		String[] args = command.split(" ");
+		long start = Metrics.start();
 		
-		// Result of given command
-		// Should be updated for each command
-		int result = 0;
+		// Split command on white space
+		// token 0 = name of the command
+		// token 1... = any arguments for the command
+		int count = tokens.reset(command);
+		errorOffset = -1;
 		
 		// Make sure list of args is not empty and a command exists
-		if(args.length == 0 || args[0].trim().isEmpty()) {
-			return 101;
+		if(count == 0) {
+			return Metrics.record("command.invalid", start, 101);
 		}
 		
-		// Check command, if it is a valid command then perform associated action
-		//	Otherwise return false
-		if(args[0].equals("exit") || args[0].equals("quit")) {
-			output.println("Force quitting...");
-			output.println("Goodbye :)");
-			
-			System.exit(0);
+		// Find the command, then the sub command if the command has them
+		Command entry = findCommand(null);
+		if(entry == null)
+			return Metrics.record("command.invalid", start, parseError(104, tokens.start(0)));
+		int result = checkArgCount(entry, count);
+		if(result != 0)
+			return Metrics.record("command.invalid", start, result);
+		
+		if(entry.action == null) {
+			entry = findCommand(entry.name);
+			if(entry == null)
+				return Metrics.record("command.invalid", start, parseError(104, tokens.start(1)));
+			result = checkArgCount(entry, count);
+			if(result != 0)
+				return Metrics.record("command.invalid", start, result);
 		}
-
-		//split for all add methods
-		else if(args[0].equals("add")){
-			// after first argument is add check what is being added
-			if (args.length < 3)
-			//all adds require at least 3 arguments
-			{
-				return 102;
-			}
-			if(args[1].equals("class"))
-			{
-				//add class requires only one more argument, any more or less is rejected
-				if (args.length == 3) {
-				String className = args[2];
-				result = controller.addClass(className);
-				if (result == 0)
-				{
-					//successfully added class
-					output.println("Added class \'" + className + "\'.");
-				}
-				}
-				else {
-					//if failed the arguments are invalid 
-					return 102;
-				}
-				
-			}
-			// the add field method
-			else if (args[1].equals("field"))
-			{
-				if(args.length == 5) {
-					//takes exactly five arguments; add field classname, type, fieldname
-					result = controller.addField(args[2], args[3], args[4]);
-					//adds fieldname (if valid) to given exisiting class
-					output.println("Added field \'" + args[4] + "\' to class \'" + args[2] + "\' of type \'" + args[3] + "\'.");
-				}
-				else {
-					//invalid arguments
-					return 102;
-				}
-			}
-			//add method...method
-			else if (args[1].equals("method"))
-			{
-				
-				if(args.length >= 5) {
-					//takes at least six arguments of add method class1 returnType methodName (x amount of params)
-					//combine all params into a paramlist to pass to controller
-					String paramlist = ""; 
-					int i = 5;
-					while ( i < args.length)
-					{
-						paramlist = paramlist.concat(args[i] + " ");
-						++i;
-					}
-					// Remove trailing whitespace
-					paramlist = paramlist.trim();
-					
-					result = controller.addMethod(args[2], args[3], args[4], paramlist);
-					//adds valid methodName to given exisiting class
-					output.println("Added method \'" + args[4] + "\' which accepts \'"+ paramlist + "\' with returnType: \'" + args[3] + "\' to class \'" + args[2] + "\'.");
-				}
-				else {
-					//invalid amount of arguments
-					return 102;
-				}
-			}
-			//add relationship method
-			else if (args[1].equals("relationship"))
-			{
-				if(args.length == 5) {
-					//takes exactly 5 arguments in order of add relationship class1 type class2
-					result = controller.addRelationship(args[2], args[3],  args[4]);
-					output.println("Added " + args[3] +  " relationship from \'" + args[2] + "\' to \'" + args[4] + "\'.");
-				}
-				else {
-					//invalid number arguments
-					return 102;
-				}
-			}
 		
+		return Metrics.record(entry.metric, start, entry.action.run(output));
+	}
+	
+	/**
+	 * Find the table entry matching the command's tokens
+	 * @param group - name of the parent command when matching a sub command, null otherwise
+	 * @return - matching entry, null if there is none
+	 */
+	private Command findCommand(String group) {
+		for(Command entry : commandTable) {
+			if(group == null) {
+				if(entry.group == null && tokens.matches(0, entry.name))
+					return entry;
 			}
-
-			//command split for all remove methods
-		else if (args[0].equals("remove")){
-			//remove requires at least 2 parameters
-			if (args.length < 2)
-			{
-				return 102;
-			}
-			//remove class method
-			else if (args[1].equals("class"))
-			{
-				if(args.length == 3) {
-					// Pull exactly 3 args; remove, class, className
-					String className = args[2];
-					
-					result = controller.removeClass(className);
-					if(result == 0)
-						output.println("Removed class \'" + className + "\'.");
-				} 
-				else {
-					//invalid arg count
-					return 102;
-				}
-			}
-			//remove field method
-			else if (args[1].equals("field"))
-			{
-				if(args.length == 4) {
-					//takes exactly 4 arguments; remove, field, classname, fieldname
-					result = controller.removeField(args[2], args[3]);
-					output.println("Removed field \'" + args[3] + "\' from class \'" + args[2] + "\'.");
-				}
-				else {
-					//invalid argument amount
-					return 102;
-				}
-			}
-			//remove method...method
-			else if (args[1].equals("method"))
-			{
-				if(args.length >= 5) {
-					//takes at least 5 arguments; remove, method, classname, methodname, paramName(s)
-					//take all params after args[3] and concat into a param list
-					String paramlist = ""; 
-					int i = 4;
-					while ( i < args.length)
-					{
-						paramlist = paramlist.concat(args[i] + " ");
-						++i;
-					}
-					paramlist = paramlist.trim();
-					result = controller.removeMethod(args[2], args[3], paramlist);
-					output.println("Removed method \'" + args[3] + "\' ( " + paramlist + " )" + " from class \'" + args[2] + "\'.");
-				}
-				else {
-					//invalid amount of parameters
-					return 102;
-				}
-			}
-			//remove relationship method
-			else if (args[1].equals("relationship"))
-			{
-				if(args.length == 5) {
-					//takes exaclty 5 arguments; remove, relationship, classname1, type, classname2
-					result = controller.removeRelationship(args[2], args[3], args[4]);
-					output.println("Removed " + args[3] + " relationship between \'" + args[4] + "\' and \'" + args[2] + "\'.");
-				}
-				else {
-					//invalid amount of params
-					return 102;
-				}
+			else if(group.equals(entry.group) && tokens.matches(1, entry.name)) {
+				return entry;
 			}
-
 		}
-		//split for edit command
-		else if (args[0].equals("edit"))
+		return null;
+	}
+	
+	/**
+	 * Make sure the number of tokens is within the bounds of the command
+	 * @param entry - command table entry
+	 * @param count - number of tokens
+	 * @return - 0 if the count is valid, 102 otherwise
+	 */
+	private int checkArgCount(Command entry, int count) {
+		// Too few, the error is at the end of the line
+		if(count < entry.minArgs)
+			return parseError(102, tokens.inputLength());
+		// Too many, the error is at the first extra argument
+		if(count > entry.maxArgs)
+			return parseError(102, tokens.start(entry.maxArgs));
+		return 0;
+	}
+	
+	/**
+	 * Record where in the command a parse error happened
+	 * @param code - error code
+	 * @param offset - offset into the command
+	 * @return - the passed in code
+	 */
+	private int parseError(int code, int offset) {
+		errorOffset = offset;
+		return code;
+	}
+	
+	/**
+	 * Get the offset into the last command where parsing failed
+	 * @return - offset of the parse error, -1 if the last command parsed successfully
+	 */
+	public int getErrorOffset() {
+		return errorOffset;
+	}
+	
+	/**
+	 * Join the arguments from the given token onward into the shared parameter buffer
+	 * @param from - first parameter token
+	 * @return - parameter list
+	 */
+	private String paramList(int from) {
+		paramBuffer.setLength(0);
+		return tokens.appendFrom(from, paramBuffer).toString();
+	}
+	
+	/**
+	 * Fills commandTable with every command, its sub commands and their argument bounds.
+	 * Argument bounds count every token, including the command and sub command names.
+	 */
+	private void populateCommandTable() {
+		commandTable = new Command[] {
+			new Command(null, "exit", 1, Integer.MAX_VALUE, this::execQuit),
+			new Command(null, "quit", 1, Integer.MAX_VALUE, this::execQuit),
+			new Command(null, "add", 3, Integer.MAX_VALUE, null),
+			new Command("add", "class", 3, 3, this::execAddClass),
+			new Command("add", "field", 5, 5, this::execAddField),
+			new Command("add", "method", 5, Integer.MAX_VALUE, this::execAddMethod),
+			new Command("add", "relationship", 5, 5, this::execAddRelationship),
+			new Command(null, "remove", 2, Integer.MAX_VALUE, null),
+			new Command("remove", "class", 3, 3, this::execRemoveClass),
+			new Command("remove", "field", 4, 4, this::execRemoveField),
+			new Command("remove", "method", 5, Integer.MAX_VALUE, this::execRemoveMethod),
+			new Command("remove", "relationship", 5, 5, this::execRemoveRelationship),
+			new Command(null, "edit", 3, Integer.MAX_VALUE, null),
+			new Command("edit", "class", 4, 4, this::execEditClass),
+			new Command("edit", "field", 5, 5, this::execEditField),
+			new Command("edit", "method", 5, Integer.MAX_VALUE, this::execEditMethod),
+			new Command("edit", "relationship", 6, 6, this::execEditRelationship),
+			new Command(null, "save", 1, 2, this::execSave),
+			new Command(null, "load", 2, 3, this::execLoad),
+			new Command(null, "list", 2, 3, null),
+			new Command("list", "classes", 2, 3, this::execListClasses),
+			new Command("list", "relationships", 2, 3, this::execListRelationships),
+			new Command(null, "help", 1, 2, this::execHelp),
+			new Command(null, "stats", 1, 3, this::execStats),
+			new Command(null, "layout", 1, 3, this::execLayout),
+		};
+	}
+	
+	private int execQuit(PrintStream output) {
+		// Only a bare exit ends a script, and it never ends the program
+		if(scriptMode)
+			return 115;
+		
+		output.println("Force quitting...");
+		output.println("Goodbye :)");
+		
+		System.exit(0);
+		return 0;
+	}
+	
+	private int execAddClass(PrintStream output) {
+		//add class requires only one more argument
+		String className = tokens.get(2);
+		int result = controller.addClass(className);
+		if (result == 0)
 		{
-			if(args.length < 3)
-			{
-				//all edits take at least 3 params
-				return 102;
-			}
-			//edit class method
-			else if (args[1].equals("class"))
-			{
-				if(args.length == 4) {
-					//takes 4 args; edit, class, className, newName
-					String className = args[2];
-					String newName = args[3];
-					
-					result = ((CommandController) controller).editClass(className, newName);
-					if(result == 0)
-						output.println("Changed class \'" + className + "\' to \'" + newName + "\'.");
-				}
-				else {
-					// invalid param amount
-					return 102;
-				}
-			}
-			//edit field method
-			else if (args[1].equals("field"))
-			{
-				if (args.length == 5) {
-					//takes 5 arguments; edit field classname oldfield newfield
-					String className = args[2];
-					String oldName = args[3];
-					String newName = args[4];
-						
-					result = ((CommandController) controller).editField(className, oldName, newName);
-					if(result == 0)
-						output.println("Changed field \'" + oldName + "\' to \'" + newName + "\' in class \'" + className + "\'.");
-				}
-				else {
-					//invalid param count
-					return 102;
-				}
-			}
-			//edit method..method 
-			else if (args[1].equals("method"))
-			{
-				if(args.length >= 5) {
-					// takes at least 5 arguments; edit, method, classname, oldname, newName, params
-					String className = args[2];
-					String oldName = args[3];
-					String newName = args[4];
-					String paramlist = ""; 
-					int i = 5;
-					while ( i < args.length)
-					{
-						paramlist = paramlist.concat(args[i] + " ");
-						++i;
-					}
-					paramlist = paramlist.trim();
-					result = ((CommandController) controller).editMethod(className, oldName, newName, paramlist);
-					if(result == 0)
-						output.println("Changed method \'" + oldName + "\' from \'" + className + "\' to \'" + newName + "\'.");
-				}
-				else return 102;
-			}
-			else if (args[1].equals("relationship"))
-			{
-				//needs exactly 6 arguments
-				if (args.length == 6) {
-					String originClass = args[2];
-					String oldType = args[3];
-					String destClass = args[4];
-					String newType = args[5];
-					result = controller.editRelationships(originClass, oldType, destClass, newType);
-					if (result == 0)
-						output.println("Changed relationship from class \'" + originClass + "\' to class \'" + destClass + "\' of type \'" + oldType + "\' to type \'" + newType + "\'.");
-					else 
-						output.println("");
-				
-				}
-			}
+			//successfully added class
+			output.println("Added class \'" + className + "\'.");
 		}
-
-		else if(args[0].equals("save")) {
-			String filePath = "";
+		return result;
+	}
+	
+	private int execAddField(PrintStream output) {
+		//takes exactly five arguments; add field classname, type, fieldname
+		String className = tokens.get(2);
+		String type = tokens.get(3);
+		String fieldName = tokens.get(4);
+		int result = controller.addField(className, type, fieldName);
+		//adds fieldname (if valid) to given exisiting class
+		output.println("Added field \'" + fieldName + "\' to class \'" + className + "\' of type \'" + type + "\'.");
+		return result;
+	}
+	
+	private int execAddMethod(PrintStream output) {
+		//takes at least five arguments of add method class1 returnType methodName (x amount of params)
+		String className = tokens.get(2);
+		String returnType = tokens.get(3);
+		String methodName = tokens.get(4);
+		String paramlist = paramList(5);
+		
+		int result = controller.addMethod(className, returnType, methodName, paramlist);
+		//adds valid methodName to given exisiting class
+		output.println("Added method \'" + methodName + "\' which accepts \'"+ paramlist + "\' with returnType: \'" + returnType + "\' to class \'" + className + "\'.");
+		return result;
+	}
+	
+	private int execAddRelationship(PrintStream output) {
+		//takes exactly 5 arguments in order of add relationship class1 type class2
+		String class1 = tokens.get(2);
+		String type = tokens.get(3);
+		String class2 = tokens.get(4);
+		int result = controller.addRelationship(class1, type, class2);
+		output.println("Added " + type +  " relationship from \'" + class1 + "\' to \'" + class2 + "\'.");
+		return result;
+	}
+	
+	private int execRemoveClass(PrintStream output) {
+		// Pull exactly 3 args; remove, class, className
+		String className = tokens.get(2);
+		
+		int result = controller.removeClass(className);
+		if(result == 0)
+			output.println("Removed class \'" + className + "\'.");
+		return result;
+	}
+	
+	private int execRemoveField(PrintStream output) {
+		//takes exactly 4 arguments; remove, field, classname, fieldname
+		String className = tokens.get(2);
+		String fieldName = tokens.get(3);
+		int result = controller.removeField(className, fieldName);
+		output.println("Removed field \'" + fieldName + "\' from class \'" + className + "\'.");
+		return result;
+	}
+	
+	private int execRemoveMethod(PrintStream output) {
+		//takes at least 5 arguments; remove, method, classname, methodname, paramName(s)
+		String className = tokens.get(2);
+		String methodName = tokens.get(3);
+		String paramlist = paramList(4);
+		int result = controller.removeMethod(className, methodName, paramlist);
+		output.println("Removed method \'" + methodName + "\' ( " + paramlist + " )" + " from class \'" + className + "\'.");
+		return result;
+	}
+	
+	private int execRemoveRelationship(PrintStream output) {
+		//takes exaclty 5 arguments; remove, relationship, classname1, type, classname2
+		String class1 = tokens.get(2);
+		String type = tokens.get(3);
+		String class2 = tokens.get(4);
+		int result = controller.removeRelationship(class1, type, class2);
+		output.println("Removed " + type + " relationship between \'" + class2 + "\' and \'" + class1 + "\'.");
+		return result;
+	}
+	
+	private int execEditClass(PrintStream output) {
+		//takes 4 args; edit, class, className, newName
+		String className = tokens.get(2);
+		String newName = tokens.get(3);
+		
+		int result = ((CommandController) controller).editClass(className, newName);
+		if(result == 0)
+			output.println("Changed class \'" + className + "\' to \'" + newName + "\'.");
+		return result;
+	}
+	
+	private int execEditField(PrintStream output) {
+		//takes 5 arguments; edit field classname oldfield newfield
+		String className = tokens.get(2);
+		String oldName = tokens.get(3);
+		String newName = tokens.get(4);
 			
-			if(args.length == 2) {
-				// If user specified a file path, set the file to that path.
-				filePath = args[1];
-			}
-			else if(args.length < 2) {
-				// If the user did not specify a save file check to see if one is already saved.
-				// If there is no file saved, prompt for one.
-				if(!fileIO.fileSet()) {
-					output.println("Save file not set.");
-					output.print("Save file: ");
-					filePath = scanner.nextLine();
-					
-				}
-			}
-			else {
-				// If there are more than 2 arguments indicate an error for too many arguments.
-				return 102;
-			}
-						
+		int result = ((CommandController) controller).editField(className, oldName, newName);
+		if(result == 0)
+			output.println("Changed field \'" + oldName + "\' to \'" + newName + "\' in class \'" + className + "\'.");
+		return result;
+	}
+	
+	private int execEditMethod(PrintStream output) {
+		// takes at least 5 arguments; edit, method, classname, oldname, newName, params
+		String className = tokens.get(2);
+		String oldName = tokens.get(3);
+		String newName = tokens.get(4);
+		String paramlist = paramList(5);
+		int result = ((CommandController) controller).editMethod(className, oldName, newName, paramlist);
+		if(result == 0)
+			output.println("Changed method \'" + oldName + "\' from \'" + className + "\' to \'" + newName + "\'.");
+		return result;
+	}
+	
+	private int execEditRelationship(PrintStream output) {
+		//needs exactly 6 arguments
+		String originClass = tokens.get(2);
+		String oldType = tokens.get(3);
+		String destClass = tokens.get(4);
+		String newType = tokens.get(5);
+		int result = controller.editRelationships(originClass, oldType, destClass, newType);
+		if (result == 0)
+			output.println("Changed relationship from class \'" + originClass + "\' to class \'" + destClass + "\' of type \'" + oldType + "\' to type \'" + newType + "\'.");
+		else 
+			output.println("");
+		return result;
+	}
+	
+	private int execSave(PrintStream output) {
+		String filePath = "";
+		
+		if(tokens.count() == 2) {
+			// If user specified a file path, set the file to that path.
+			filePath = tokens.get(1);
+		}
+		else {
+			// If the user did not specify a save file check to see if one is already saved.
+			// If there is no file saved, prompt for one.
 			if(!fileIO.fileSet()) {
-				// Check to see if the file is set, if not make sure that filePath is not empty
-				// Otherwise make sure the file ends with a .json and save
-				if(filePath.replaceAll(" ", "").isEmpty()) {
+				// Nobody is there to answer in a script
+				if(scriptMode)
 					return 103;
-				}
+				output.println("Save file not set.");
+				output.print("Save file: ");
+				filePath = scanner.nextLine();
 				
-				// Ensure file extension
-				if(!filePath.endsWith(".json")) {
-					filePath += ".json";
-				}
-				
-				// Set fileIO path
-				result = fileIO.setFile(filePath);
-				// Force return to prevent execution of next function
-				if(result != 0)
-					return result;
 			}
-			
-			// Write JSON to file
-			result = fileIO.writeToFile(controller.getModel().convertToJSON());
 		}
-		else if(args[0].equals("load")) {
-			// Expects args[1] to be the path to the file to load.
-			// Make sure there is enough arguments
-			if(args.length > 1) {
-				// Grab file path
-				String filePath = args[1];
-				
-				// Set the file for FileIO
-				result = fileIO.setFile(filePath);
-				if(result != 0)
-					return result;
-				
-				// Make sure the file exists
-				if(!fileIO.fileExists()) {
-					return 105;
-				}
-				
-				// Read the file in and pass it to the classManager for parsing.
-				result = controller.getModel().parseJSON((String)fileIO.readFile()[0]);
+					
+		if(!fileIO.fileSet()) {
+			// Check to see if the file is set, if not make sure that filePath is not empty
+			// Otherwise make sure the file ends with a .json and save
+			if(filePath.replaceAll(" ", "").isEmpty()) {
+				return 103;
 			}
-			else {
-				return 102;
+			
+			// Ensure file extension, compressed files keep their codec extension
+			if(!filePath.endsWith(".json") && !UMLFileIO.isCompressedPath(filePath)) {
+				filePath += ".json";
 			}
+			
+			// Set fileIO path
+			int result = fileIO.setFile(filePath);
+			// Force return to prevent execution of next function
+			if(result != 0)
+				return result;
 		}
 		
+		// Stream JSON to file
+		return fileIO.saveModel(controller.getModel());
+	}
+	
+	private int execLoad(PrintStream output) {
+		// Expects token 1 to be the path to the file to load.
+		String filePath = tokens.get(1);
 		
-		//Split for list
-		else if(args[0].equals("list")) {
-			// Expects minimum of 2 args and maximum of 3 args.
-			if(args.length == 2) {
-				if(args[1].equals("classes")) {
-					ArrayList<String[]> listBoxes = ((CommandController)controller).printClasses();
-					if(listBoxes == null) {
-						output.println("There are no classes to display.");
-					}
-					else {
-						for(String[] s : listBoxes) {
-							for(String t : s) {
-								output.println(t);
-							}
-							output.println();
-						}
-					}
-				}
-				else if(args[1].equals("relationships")) {
-					ArrayList<ArrayList<String[]>> rBoxes = ((CommandController)controller).printRelationships();
-					if(rBoxes == null) {
-						output.print("There are no relationships to display.");
-					}
-					else {
-						for(ArrayList<String[]> a : rBoxes) {
-							for(String[] s : a) {
-								for(String r : s) {
-									output.println(r);
-								}
-								output.println();
-							}
-						}
-					}
-				}
-			} else if(args.length == 3) {
-				//Expect arg[2] to be class name
-				if(args[1].equals("classes")) {
-					String[] box = ((CommandController)controller).printClasses(args[2]);
-					if(box == null) {
-						result = 109;
-					}
-					else {
-						for(String s : box)
-							output.println(s);
-					}
+		// Set the file for FileIO
+		int result = fileIO.setFile(filePath);
+		if(result != 0)
+			return result;
+		
+		// Make sure the file exists
+		if(!fileIO.fileExists()) {
+			return 105;
+		}
+		
+		// Stream the file into the classManager for parsing.
+		// An optional 'parallel' argument parses classes across all cores.
+		boolean parallel = tokens.count() > 2 && tokens.matches(2, "parallel");
+		result = fileIO.loadModel(controller.getModel(), parallel);
+		controller.modelReplaced();
+		return result;
+	}
+	
+	private int execListClasses(PrintStream output) {
+		// Buffer the listing and flush it in large chunks
+		ConsoleWriter writer = new ConsoleWriter(output);
+		try {
+			if(tokens.count() == 2) {
+				// Render each box straight into the buffer
+				if(!((CommandController)controller).printClasses(writer)) {
+					writer.println("There are no classes to display.");
 				}
-				else if(args[1].equals("relationships")) {
-					ArrayList<String[]> rList = ((CommandController)controller).printRelationships(args[2]);
-					if(rList == null) {
-						result = 109;
-					}
-					else if(rList.isEmpty()) {
-						output.println("This class has no relationships.");
-					}
-					else {
-						for(String[] a : rList) {
-							for(String s : a) {
-								output.println(s);
-							}
-							output.println();
-						}
-					}
+			}
+			else {
+				//Expect token 2 to be class name
+				if(!((CommandController)controller).printClasses(tokens.get(2), writer)) {
+					return 109;
 				}
-			} else{
-				return 102;
 			}
+		} catch(IOException e) {
+			return 114;
+		} finally {
+			writer.flush();
 		}
-		//split for help
-		else if(args[0].equals("help")) {
-			//Expect maximum of 2 args
-			if(args.length == 1) {
-				printHelp(output);
-				return 0;
+		return 0;
+	}
+	
+	private int execListRelationships(PrintStream output) {
+		// Buffer the listing and flush it in large chunks
+		ConsoleWriter writer = new ConsoleWriter(output);
+		try {
+			if(tokens.count() == 2) {
+				// Render each relationship straight into the buffer
+				if(!((CommandController)controller).printRelationships(writer)) {
+					writer.print("There are no relationships to display.");
+				}
 			}
-			else if(args.length == 2) {
-				if (validCommands.containsKey(args[1]))
-				{
-					commandHelp(args[1], output);
-					return 0;
+			else {
+				//Expect token 2 to be class name
+				int listed = ((CommandController)controller).printRelationships(tokens.get(2), writer);
+				if(listed < 0) {
+					return 109;
 				}
-				else {
-					output.println("Command does not exist, try \"help\" for a list of avaliable commands");
+				else if(listed == 0) {
+					writer.println("This class has no relationships.");
 				}
 			}
-			return 102;
+		} catch(IOException e) {
+			return 114;
+		} finally {
+			writer.flush();
+		}
+		return 0;
+	}
+	
+	private int execHelp(PrintStream output) {
+		if(tokens.count() == 1) {
+			printHelp(output);
+			return 0;
+		}
+		String command = tokens.get(1);
+		if (validCommands.containsKey(command))
+		{
+			commandHelp(command, output);
+			return 0;
+		}
+		output.println("Command does not exist, try \"help\" for a list of avaliable commands");
+		return parseError(102, tokens.start(1));
+	}
+	
+	private int execStats(PrintStream output) {
+		if(tokens.count() == 1) {
+			Metrics.print(output);
+			return 0;
+		}
+		
+		if(tokens.matches(1, "export")) {
+			// Expects token 2 to be the file to write
+			if(tokens.count() != 3)
+				return parseError(102, tokens.inputLength());
+			try(Writer writer = Files.newBufferedWriter(Paths.get(tokens.get(2)), StandardCharsets.UTF_8)) {
+				Metrics.writeJSON(writer);
+			} catch(IOException e) {
+				return 302;
+			}
+			output.println("Exported metrics to '" + tokens.get(2) + "'.");
+			return 0;
+		}
+		
+		if(tokens.count() != 2)
+			return parseError(102, tokens.start(2));
+		if(tokens.matches(1, "memory")) {
+			MemoryFootprint.of(controller.getModel()).print(output);
+		}
+		else if(tokens.matches(1, "on")) {
+			Metrics.setEnabled(true);
+			output.println("Metrics are on.");
+		}
+		else if(tokens.matches(1, "off")) {
+			Metrics.setEnabled(false);
+			output.println("Metrics are off.");
+		}
+		else if(tokens.matches(1, "reset")) {
+			Metrics.reset();
+			output.println("Metrics were reset.");
 		}
 		else {
-			return 104;
+			return parseError(104, tokens.start(1));
 		}
+		return 0;
+	}
+	
+	private int execLayout(PrintStream output) {
+		if(tokens.count() > 1 && tokens.matches(1, "incremental")) {
+			// Expects token 2 to be on or off
+			if(tokens.count() != 3)
+				return parseError(102, tokens.inputLength());
+			if(tokens.matches(2, "on"))
+				controller.setIncrementalLayout(true);
+			else if(tokens.matches(2, "off"))
+				controller.setIncrementalLayout(false);
+			else
+				return parseError(104, tokens.start(2));
+			output.println("Incremental layout is " + (controller.isIncrementalLayout() ? "on." : "off."));
+			return 0;
+		}
+		
+		if(tokens.count() != 2 && tokens.count() != 1)
+			return parseError(102, tokens.start(2));
+		
+		// Token 1 picks the layout, force when left out
+		String mode = tokens.count() == 2 ? tokens.get(1) : AutoLayout.FORCE;
+		if(!mode.equalsIgnoreCase(AutoLayout.FORCE) && !mode.equalsIgnoreCase(AutoLayout.LAYERED))
+			return parseError(104, tokens.start(1));
 		
+		int result = controller.layout(mode);
+		if(result == 0)
+			output.println("Arranged " + controller.getModel().getClassCount() + " classes with the " + mode.toLowerCase() + " layout.");
 		return result;
 	}
 	
@@ -528,9 +736,13 @@ public class ConsoleView extends View {
 		validCommands.put("exit", new String[] {"exit: Quit the program."});
 		validCommands.put("quit", new String[] {"quit: Quit the program."});
 		validCommands.put("save", new String[] {"save: Save the current state of the UML diagram.  If a file has not been set it will prompt the user."});
-		validCommands.put("load", new String[] {"load <file_path>: Load the given file into the UML editor."});
+		validCommands.put("load", new String[] {"load <file_path> [parallel]: Load the given file into the UML editor. Adding parallel loads the classes across all cores."});
 		validCommands.put("list", new String[] {"list: Can list all classes with:", "list classes", "or specific class with:", "list classes <class_name>.", "These lists take the form of boxes with the class name and its associated attributes inside.",
 		"List all relationships with:", "list relationships", "or", "list relationships <class_name>.", "Takes the form boxes for each class containing their associated attributes with a delimiter for relationship type between classes."});
+		validCommands.put("stats", new String[] {"stats: Print the count and latency percentiles of every timed operation.", "stats <on/off/reset> turns timing on or off or clears it, stats export <file_path> writes the histograms as JSON.",
+		"stats memory estimates the heap used by the classes, fields, methods and relationships of the model."});
+		validCommands.put("layout", new String[] {"layout [force/layered]: Arrange every class automatically. force places related classes near each other,", "layered puts inheritance and realization hierarchies in rows with parents on top.",
+		"layout incremental <on/off> places each new class, and each class that gains a relationship, next to its related classes without moving the others."});
 	}
 	
 	/**
@@ -0,0 +1,130 @@
+// Package name
+package views;
+
+// System imports
+import java.io.PrintStream;
+import java.io.Writer;
+
+/**
+ * Buffers console output and hands it to the underlying PrintStream in large
+ * chunks, instead of one synchronized write per line.
+ * @author Ryan
+ *
+ */
+public class ConsoleWriter extends Writer {
+	// Default number of characters held before flushing
+	public static final int DEFAULT_CAPACITY = 64 * 1024;
+
+	private static final String NEW_LINE = System.lineSeparator();
+
+	private final PrintStream output;
+	private final StringBuilder buffer;
+	private final int capacity;
+
+	/**
+	 * Create a writer with the default capacity
+	 * @param output - stream to flush to
+	 */
+	public ConsoleWriter(PrintStream output) {
+		this(output, DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Create a writer that flushes once capacity characters are buffered
+	 * @param output - stream to flush to
+	 * @param capacity - number of characters to buffer
+	 */
+	public ConsoleWriter(PrintStream output, int capacity) {
+		this.output = output;
+		this.capacity = capacity;
+		this.buffer = new StringBuilder(capacity + 256);
+	}
+
+	/**
+	 * Write a line followed by the line separator
+	 * @param line - line to write
+	 */
+	public void println(String line) {
+		buffer.append(line).append(NEW_LINE);
+		flushIfFull();
+	}
+
+	/**
+	 * Write the line separator
+	 */
+	public void println() {
+		buffer.append(NEW_LINE);
+		flushIfFull();
+	}
+
+	/**
+	 * Write text without a line separator
+	 * @param text - text to write
+	 */
+	public void print(String text) {
+		buffer.append(text);
+		flushIfFull();
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		buffer.append(cbuf, off, len);
+		flushIfFull();
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		buffer.append(str, off, off + len);
+		flushIfFull();
+	}
+
+	@Override
+	public void write(int c) {
+		buffer.append((char)c);
+		flushIfFull();
+	}
+
+	@Override
+	public Writer append(CharSequence csq) {
+		buffer.append(csq);
+		flushIfFull();
+		return this;
+	}
+
+	@Override
+	public Writer append(char c) {
+		buffer.append(c);
+		flushIfFull();
+		return this;
+	}
+
+	/**
+	 * Hand everything buffered to the output stream
+	 */
+	@Override
+	public void flush() {
+		if(buffer.length() > 0) {
+			output.print(buffer);
+			buffer.setLength(0);
+		}
+		output.flush();
+	}
+
+	/**
+	 * Flush remaining output. The underlying stream is left open.
+	 */
+	@Override
+	public void close() {
+		flush();
+	}
+
+	/**
+	 * Flush once the buffer reaches capacity
+	 */
+	private void flushIfFull() {
+		if(buffer.length() >= capacity) {
+			output.print(buffer);
+			buffer.setLength(0);
+		}
+	}
+}
@@ -15,7 +15,6 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 //Local imports
 import controller.UMLController;
-import core.ErrorHandler;
 import model.UMLClassManager;
 import observe.Observable;
 import views.components.DiagramPanel;
@@ -155,10 +154,19 @@ public class GUIView extends View {
 	 * @param parent - Parent component, can be null
 	 * @param errorCode
 	 */
-	@SuppressWarnings("static-access")
 	public void showError(JComponent parent, int errorCode) {
 		// Create error message
-		optionPane.showMessageDialog(parent, ErrorHandler.toString(errorCode), "Error", JOptionPane.ERROR_MESSAGE, testOP);
+		optionPane.showErrorDialog(parent, errorCode, testOP);
+	}
+	
+	/**
+	 * Display an information message
+	 * @param title - Title of the dialog
+	 * @param message - Message to display, text or a component
+	 */
+	@SuppressWarnings("static-access")
+	public void showMessage(String title, Object message) {
+		optionPane.showMessageDialog(window, message, title, JOptionPane.INFORMATION_MESSAGE, testOP);
 	}
 	
 	/**
@@ -212,9 +220,9 @@ public class GUIView extends View {
 		try {
 			UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
 		} catch(Exception e) {
-			return ErrorHandler.setCode(110);
+			return 110;
 		}
-		return ErrorHandler.setCode(0);
+		return 0;
 	}
 	
 	/**
@@ -258,6 +266,14 @@ public class GUIView extends View {
 		this.testOP = pane;
 	}
 	
+	/**
+	 * Get the option pane used for prompts
+	 * @return - option pane instance, null if prompting a human
+	 */
+	public TestableOptionPane getOptionPane() {
+		return testOP;
+	}
+	
 	/**
 	 * Set the file chooser for selecting files
 	 * @param chooser - file chooser instance
@@ -6,6 +6,7 @@ import java.awt.BasicStroke;
 import java.awt.Color;
 import java.awt.Component;
 import java.awt.Dimension;
+import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
@@ -22,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 
 import javax.imageio.ImageIO;
 import javax.swing.JFileChooser;
@@ -29,12 +32,18 @@ import javax.swing.JMenu;
 import javax.swing.JMenuBar;
 import javax.swing.JMenuItem;
 import javax.swing.JPopupMenu;
+import javax.swing.JTextArea;
 import javax.swing.SwingUtilities;
+import javax.swing.SwingWorker;
 
 // Local imports
-import core.ErrorHandler;
+import core.EditorEvents;
+import core.Metrics;
 import core.UMLFileIO;
+import layout.AutoLayout;
+import model.MemoryFootprint;
 import model.Method;
+import model.MethodSignature;
 import model.UMLClass;
 import model.UMLRelationship;
 import observe.Observable;
@@ -64,6 +73,12 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 	private int lastX;
 	private int lastY;
 	
+	// Class being dragged, reported to the controller once it is dropped
+	private GUIClass dragged;
+	
+	// Automatic layout running in the background, null if none has been started
+	private LayoutWorker layoutWorker;
+	
 	// Menus
 	private JPopupMenu mouseMenu;
 	private JPopupMenu classMenu;
@@ -87,6 +102,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 	private JMenuItem mainLoadFile;
 	private JMenuItem mainExportPNG;
 	private JMenuItem mainResize;
+	private JMenuItem mainMemory;
+	private JMenuItem mainLayout;
+	private JMenuItem mainIncremental;
 	
 	// MenuItems for generic mouse menu
 	private JMenuItem mouseAddClass;
@@ -154,6 +172,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 	 */
 	@Override
 	public void paintComponent(Graphics g) {
+		long start = Metrics.start();
+		EditorEvents.Paint event = new EditorEvents.Paint();
+		event.begin();
 		super.paintComponent(g);
 		// Enable better 2D graphics
 		Graphics2D g2d = (Graphics2D)g;
@@ -293,6 +314,16 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 				g2d.setTransform(old);
 			}
 		}
+		
+		event.end();
+		if(event.shouldCommit()) {
+			event.classes = guiClasses.size();
+			event.relationships = relations.size();
+			event.width = getWidth();
+			event.height = getHeight();
+			event.commit();
+		}
+		Metrics.record("diagram.paint", start);
 	}
 	
 	/**
@@ -359,6 +390,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		mainLoadFile = createMenuItem("Load File", "mainLoad");
 		mainExportPNG = createMenuItem("Export to PNG", "mainExport");
 		mainResize = createMenuItem("Resize", "mainResize");
+		mainMemory = createMenuItem("Memory Usage", "mainMemory");
+		mainLayout = createMenuItem("Auto Layout", "mainLayout");
+		mainIncremental = createMenuItem("Incremental Layout", "mainIncremental");
 		
 		//main Bar initialization
 		mainMenuBar = view.isHuman() ? new JMenuBar() : new TestableMenuBar();
@@ -385,6 +419,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		mainFile.add(mainExportPNG);
 		mainFile.addSeparator();
 		mainFile.add(mainResize);
+		mainFile.add(mainMemory);
+		mainFile.add(mainLayout);
+		mainFile.add(mainIncremental);
 		
 		//main menu items initialization 
 		mainRemoveClass = createMenuItem("Remove Class", "mainRemoveClass");
@@ -461,6 +498,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		mainLoadFile.addActionListener(loadFileAction());
 		mainExportPNG.addActionListener(exportPNGAction());
 		mainResize.addActionListener(resizeAction());
+		mainMemory.addActionListener(memoryAction());
+		mainLayout.addActionListener(layoutAction());
+		mainIncremental.addActionListener(incrementalAction());
 		mouseExportPNG.addActionListener(exportPNGAction());
 		
 		// Setup actions for class menu items
@@ -505,6 +545,15 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 				
 				// Make sure user did not cancel input
 				if(className != null) {
+					// Let the incremental layout place classes from the main menu
+					if(e.getSource() == mainAddClass && view.getController().isIncrementalLayout()) {
+						int result = view.getController().addClass(className.toString());
+						if(result != 0)
+							view.showError(DiagramPanel.this, result);
+						prev = null;
+						return;
+					}
+					
 					// Check if source is from the main menu, if so then offset the location
 					if(e.getSource() == mainAddClass) {
 						mouseX = 0;
@@ -548,7 +597,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -585,7 +636,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -628,7 +681,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -673,7 +728,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -719,7 +776,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -771,7 +830,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -820,23 +881,25 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
 				
 				// Get a list of the available field names to remove
-				Object[] availableOptions = view.getController().getModel().getClass(prev.getName()).getMethods().keySet().toArray();
+				Object[] availableOptions = view.getController().getModel().getClass(prev.getName()).getMethodSignatures().keySet().toArray();
 				
 				// Make sure there is at least one field
 				if(availableOptions.length > 0) {
 					Object methodName = view.promptSelection("Choose method name:", availableOptions);
 					// Make sure user didn't cancel input
 					if(methodName != null) {
-						Method method = view.getModel().getClass(prev.getName()).getMethods().get(methodName);
+						Method method = findMethod(view.getModel().getClass(prev.getName()), methodName);
 						// Make sure method exists
 						if(method == null) {
-							view.showError(DiagramPanel.this, ErrorHandler.setCode(406));
+							view.showError(DiagramPanel.this, 406);
 							return;
 						}
 						// Strip parameters
@@ -853,6 +916,19 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 	}
 	
 	
+	/**
+	 * Find the method the user picked from the list of method signatures
+	 * @param umlClass - class the method belongs to
+	 * @param selection - the picked signature
+	 * @return - the method, null if the class does not have it
+	 */
+	private Method findMethod(UMLClass umlClass, Object selection) {
+		if(!(selection instanceof MethodSignature))
+			return null;
+		MethodSignature signature = (MethodSignature)selection;
+		return umlClass.getMethod(signature.getName(), signature.getParams());
+	}
+	
 	/**
 	 * Get an action listener that will edit a method name from a given class
 	 * @return - ActionListener with definition for editing the name of a method
@@ -875,13 +951,15 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
 
 				// Get a list of the available method names to edit
-				Object[] availableOptions = view.getController().getModel().getClass(prev.getName()).getMethods().keySet().toArray();
+				Object[] availableOptions = view.getController().getModel().getClass(prev.getName()).getMethodSignatures().keySet().toArray();
 				
 				// Make sure there is at least one method
 				if(availableOptions.length > 0) {
@@ -893,7 +971,12 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						
 						// Make sure user didn't cancel
 						if(newMethodName != null) {
-							Method method = view.getModel().getClass(prev.getName()).getMethods().get(methodName);
+							Method method = findMethod(view.getModel().getClass(prev.getName()), methodName);
+							// Make sure method exists
+							if(method == null) {
+								view.showError(DiagramPanel.this, 406);
+								return;
+							}
 							// Strip parameters
 							String methodParams = method.getParams().substring(1, method.getParams().length() -1);
 							int result = view.getController().editMethod(prev.getName(), method.getName(), newMethodName.toString(), methodParams);
@@ -930,7 +1013,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -979,7 +1064,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						prev = temp;
 					else
 					{
-						ErrorHandler.setCode(109);
+						// A cancelled prompt is not an error
+						if(originClass != null)
+							view.showError(DiagramPanel.this, 109);
 						return;	
 					}
 				}
@@ -1020,8 +1107,8 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 				// Make sure user didn't close the console
 				if(saveFile != null) {
 					
-					// Check if file name ends with '.json' and if not add it manually
-					if(!saveFile.getPath().endsWith(".json"))
+					// Check if file name ends with '.json' (or a compressed extension) and if not add it manually
+					if(!saveFile.getPath().endsWith(".json") && !UMLFileIO.isCompressedPath(saveFile.getPath()))
 						saveFile = new File(saveFile.getAbsolutePath() + ".json");
 					
 					// Save the file
@@ -1034,9 +1121,8 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						return;
 					}
 					
-					// Write to file
-					String json = view.getController().getModel().convertToJSON();
-					result = fileIO.writeToFile(json);
+					// Stream the model to file
+					result = fileIO.saveModel(view.getController().getModel());
 					if(result != 0) {
 						view.showError(DiagramPanel.this, result);
 						return;
@@ -1071,15 +1157,9 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 						return;
 					}
 					
-					// Read from file
-					Object[] res = fileIO.readFile();
-					if((int)res[1] != 0) {
-						view.showError(DiagramPanel.this, result);
-						return;
-					}
-					
-					// Load file
-					result = view.getController().getModel().parseJSON((String)res[0]);
+					// Stream the file into the model
+					result = fileIO.loadModel(view.getController().getModel());
+					view.getController().modelReplaced();
 					if(result != 0) {
 						view.showError(DiagramPanel.this, result);
 						return;
@@ -1170,6 +1250,127 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		};
 	}
 
+	/**
+	 * Action to show how much heap the diagram uses
+	 * @return - ActionListener showing the memory estimate
+	 */
+	private ActionListener memoryAction() {
+		return new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				// Show the table in a fixed width font so the columns line up
+				JTextArea report = new JTextArea(estimateMemory().toString());
+				report.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+				report.setEditable(false);
+				view.showMessage("Memory Usage", report);
+			}
+		};
+	}
+	
+	/**
+	 * Action to arrange every class with the automatic layout
+	 * @return - ActionListener asking for the layout and applying it
+	 */
+	private ActionListener layoutAction() {
+		return new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				// Make sure at least one class exists
+				if(view.getModel().getClassNames().length == 0)
+					return;
+				
+				Object mode = view.promptSelection("Layout:", new Object[] {AutoLayout.FORCE, AutoLayout.LAYERED});
+				// Make sure user didn't cancel
+				if(mode == null)
+					return;
+				
+				// Read the model here, compute the positions off the event thread
+				AutoLayout.Pending layout = view.getController().prepareLayout(mode.toString());
+				if(layout == null) {
+					view.showError(DiagramPanel.this, 112);
+					return;
+				}
+				mainLayout.setEnabled(false);
+				layoutWorker = new LayoutWorker(layout);
+				layoutWorker.execute();
+			}
+		};
+	}
+	
+	/**
+	 * Computes an automatic layout in the background and moves the classes
+	 * on the event thread once it is done
+	 */
+	public final class LayoutWorker extends SwingWorker<Void, Void> {
+		private final AutoLayout.Pending layout;
+		
+		// Released once the positions are applied
+		private final CountDownLatch applied = new CountDownLatch(1);
+		
+		private LayoutWorker(AutoLayout.Pending layout) {
+			this.layout = layout;
+		}
+		
+		@Override
+		protected Void doInBackground() {
+			layout.run();
+			return null;
+		}
+		
+		@Override
+		protected void done() {
+			try {
+				get();
+				int result = view.getController().applyLayout(layout);
+				if(result != 0)
+					view.showError(DiagramPanel.this, result);
+			}
+			catch(InterruptedException | ExecutionException e) {
+				throw new IllegalStateException("Layout failed", e);
+			}
+			finally {
+				mainLayout.setEnabled(true);
+				applied.countDown();
+			}
+		}
+		
+		/**
+		 * Wait until the classes have been moved
+		 */
+		public void awaitApplied() throws InterruptedException {
+			applied.await();
+		}
+	}
+	
+	/**
+	 * Action to turn placing classes as they are added or related on or off
+	 * @return - ActionListener asking whether to place classes
+	 */
+	private ActionListener incrementalAction() {
+		return new ActionListener() {
+			@Override
+			public void actionPerformed(ActionEvent e) {
+				Object choice = view.promptSelection("Place new and related classes automatically:", new Object[] {"on", "off"});
+				// Make sure user didn't cancel
+				if(choice == null)
+					return;
+				view.getController().setIncrementalLayout(choice.toString().equals("on"));
+			}
+		};
+	}
+	
+	/**
+	 * Estimate the heap kept by the model and the components of the diagram
+	 * @return - estimate, including GUI components and label caches
+	 */
+	public MemoryFootprint estimateMemory() {
+		MemoryFootprint footprint = MemoryFootprint.of(view.getModel());
+		footprint.add(MemoryFootprint.GUI_COMPONENTS, 0, MemoryFootprint.hashMap(guiClasses.size()));
+		for(GUIClass guiClass : guiClasses.values())
+			guiClass.estimateMemory(footprint);
+		return footprint;
+	}
+
 	/**
 	 * Listen for changes from the model
 	 */
@@ -1213,6 +1414,21 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		else if(tag.equals("relationshipChange")) {
 			// Nothing to do
 		}
+		else if(tag.equals("layout")) {
+			// Move every class to its new spot and grow the diagram to fit them
+			for(GUIClass guiClass : guiClasses.values()) {
+				UMLClass umlClass = view.getModel().getClass(guiClass.getName());
+				guiClass.setLocation(umlClass.getX(), umlClass.getY());
+				growToFit(guiClass);
+			}
+		}
+		else if(tag.equals("classMoved")) {
+			// Move the one class the incremental layout placed
+			UMLClass umlClass = (UMLClass)data;
+			GUIClass guiClass = guiClasses.get(umlClass.getName());
+			guiClass.setLocation(umlClass.getX(), umlClass.getY());
+			growToFit(guiClass);
+		}
 		else if(tag.equals("classChange")) {
 			// Update names
 			// Because you can't edit the name field you have to remove and readd the class
@@ -1231,6 +1447,19 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		repaint();
 	}
 	
+	/**
+	 * Grow the diagram if a class reaches past its edge
+	 * @param guiClass - class that moved
+	 */
+	private void growToFit(GUIClass guiClass) {
+		int width = Math.max(getPreferredSize().width, guiClass.getX() + guiClass.getWidth());
+		int height = Math.max(getPreferredSize().height, guiClass.getY() + guiClass.getHeight());
+		if(width != getPreferredSize().width || height != getPreferredSize().height) {
+			setPreferredSize(new Dimension(width, height));
+			view.updateFrame();
+		}
+	}
+	
 	@Override
 	public void mousePressed(MouseEvent e) {
 		// Destroy last saved guiClass;
@@ -1289,6 +1518,7 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 					int newX = e.getLocationOnScreen().x - lastX;
 					int newY = e.getLocationOnScreen().y - lastY;
 					guiClass.setLocation(newX, newY);
+					dragged = guiClass;
 					
 					lastX = e.getLocationOnScreen().x - guiClass.getX();
 					lastY = e.getLocationOnScreen().y - guiClass.getY();
@@ -1354,6 +1584,14 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 		return null;
 	}
 
+	/**
+	 * Get the automatic layout started last
+	 * @return - layout worker, null if no layout has been started
+	 */
+	public LayoutWorker getLayoutWorker() {
+		return layoutWorker;
+	}
+
 	/**
 	 * @return the guiClasses
 	 */
@@ -1371,7 +1609,13 @@ public class DiagramPanel extends TestablePanel implements Observer, MouseListen
 	public void mouseExited(MouseEvent arg0) {}
 
 	@Override
-	public void mouseReleased(MouseEvent arg0) {}
+	public void mouseReleased(MouseEvent arg0) {
+		// Tell the controller where a dragged class ended up
+		if(dragged != null) {
+			view.getController().locationChanged(dragged.getName());
+			dragged = null;
+		}
+	}
 
 	@Override
 	public void mouseMoved(MouseEvent arg0) {}
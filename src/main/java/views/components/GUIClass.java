@@ -4,6 +4,7 @@ package views.components;
 //System imports
 import java.awt.Color;
 import java.awt.Component;
+import java.awt.Container;
 import java.awt.Font;
 import java.util.HashMap;
 import java.util.Iterator;
@@ -18,11 +19,13 @@ import javax.swing.SwingConstants;
 import javax.swing.border.Border;
 
 //Local imports
+import model.MemoryFootprint;
 import model.UMLClass;
 import views.components.testable.TestableLabel;
 import views.components.testable.TestablePanel;
 import views.components.testable.TestableSeparator;
 import model.Method;
+import model.MethodSignature;
 import model.Field;
 
 /**
@@ -32,6 +35,11 @@ import model.Field;
  */
 public class GUIClass extends TestablePanel {
 	private static final long serialVersionUID = 1L;
+	
+	// Approximate heap of each kind of component, measured on a 64-bit JVM
+	private static final long LABEL_BYTES = 760;
+	private static final long SEPARATOR_BYTES = 512;
+	private static final long PANEL_BYTES = 520;
 
 	// Instance of UMLClass
 	private UMLClass umlClass;
@@ -42,7 +50,7 @@ public class GUIClass extends TestablePanel {
 	// Class Properties
 	//		- Maps name to the corresponding label
 	private HashMap<String, JLabel> fieldLabels;
-	private HashMap<String, JLabel> methodLabels;
+	private HashMap<MethodSignature, JLabel> methodLabels;
 	
 	// Store separators to toggle visibility
 	private JSeparator fieldSeparator;
@@ -75,7 +83,7 @@ public class GUIClass extends TestablePanel {
 		
 		// Initialize label maps
 		fieldLabels = new HashMap<String, JLabel>();
-		methodLabels = new HashMap<String, JLabel>();
+		methodLabels = new HashMap<MethodSignature, JLabel>();
 		
 		// Set layout to be a vertical box layout
 		setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
@@ -172,7 +180,7 @@ public class GUIClass extends TestablePanel {
 		
 		// Check to see if there is a method in the class that is not a label
 		//		If so then add it to the panel
-		for(Map.Entry<String, Method> entry : umlClass.getMethods().entrySet()) {
+		for(Map.Entry<MethodSignature, Method> entry : umlClass.getMethodSignatures().entrySet()) {
 			Method method = entry.getValue();
 			if(!methodLabels.containsKey(entry.getKey())) {
 				JLabel temp = generateLabel(method.toString());
@@ -186,17 +194,17 @@ public class GUIClass extends TestablePanel {
 		// Check to see if there is a label that is not in the class
 		//		If so then remove it from the panel
 		// Map iterator
-		Iterator<Map.Entry<String, JLabel>> entryIt = methodLabels.entrySet().iterator();
+		Iterator<Map.Entry<MethodSignature, JLabel>> entryIt = methodLabels.entrySet().iterator();
 		
 		// Iterate over elements
 		while(entryIt.hasNext()) {
 			// Get entry
-			Map.Entry<String, JLabel> entry = entryIt.next();
+			Map.Entry<MethodSignature, JLabel> entry = entryIt.next();
 			
 			// Get the label name
-			String key = entry.getKey();
+			MethodSignature key = entry.getKey();
 			// Check if label is not in class list
-			if(!umlClass.getMethods().containsKey(key)) {
+			if(!umlClass.getMethodSignatures().containsKey(key)) {
 				// Remove label from display
 				methodRegion.remove(entry.getValue());
 				
@@ -269,6 +277,38 @@ public class GUIClass extends TestablePanel {
 		updateBounds();
 	}
 	
+	/**
+	 * Add the components of this class and its maps of labels to a memory estimate
+	 * @param footprint - estimate to add to
+	 */
+	public void estimateMemory(MemoryFootprint footprint) {
+		footprint.add(MemoryFootprint.GUI_COMPONENTS, 1, componentBytes(this, footprint));
+		footprint.add(MemoryFootprint.LABEL_CACHES, fieldLabels.size() + methodLabels.size(),
+				MemoryFootprint.hashMap(fieldLabels.size()) + MemoryFootprint.hashMap(methodLabels.size()));
+	}
+	
+	/**
+	 * Estimate the heap of a component and everything inside it
+	 * @param component - component to measure
+	 * @param footprint - estimate the label text is counted in
+	 * @return - bytes
+	 */
+	private static long componentBytes(Component component, MemoryFootprint footprint) {
+		long bytes;
+		if(component instanceof JLabel)
+			bytes = LABEL_BYTES + footprint.string(((JLabel)component).getText());
+		else if(component instanceof JSeparator)
+			bytes = SEPARATOR_BYTES;
+		else
+			bytes = PANEL_BYTES;
+		
+		if(component instanceof Container) {
+			for(Component child : ((Container)component).getComponents())
+				bytes += componentBytes(child, footprint);
+		}
+		return bytes;
+	}
+	
 	/**
 	 * Get the name of the represented class
 	 * @return - UMLClass name
@@ -6,6 +6,9 @@ import java.awt.Component;
 import javax.swing.Icon;
 import javax.swing.JOptionPane;
 
+// Local imports
+import core.ErrorHandler;
+
 /**
  * Wrapper class for JOptionPane because JOptionPane's 'show' methods can't be overridden
  * @author Ryan
@@ -39,4 +42,17 @@ public class JOptionPaneWrapper {
 		 if(top == null)
 			 JOptionPane.showMessageDialog(parentComponent, message, title, messageType);
 	 }
+	 
+	/**
+	 * Show an error dialog
+	 * @param parent - Parent component
+	 * @param errorCode - Code of the error to present
+	 * @param top - A TestableOptionPane for testing, null if human
+	 */
+	 public void showErrorDialog(Component parent, int errorCode, TestableOptionPane top) {
+		 if(top == null)
+			 JOptionPane.showMessageDialog(parent, ErrorHandler.toString(errorCode), "Error", JOptionPane.ERROR_MESSAGE);
+		 else
+			 top.showErrorDialog(parent, errorCode);
+	 }
 }
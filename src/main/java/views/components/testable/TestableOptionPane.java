@@ -21,6 +21,9 @@ public class TestableOptionPane {
 	// I.E. adding methods has several prompts in one call
 	private Queue<String> results;
 	
+	// Code of the last error shown, 0 if none since it was taken
+	private int shownError;
+	
 	/**
 	 * Initialize instance of a testable JOptionPane
 	 * @param desiredResult - as many values as you want the input dialog to return
@@ -36,10 +39,30 @@ public class TestableOptionPane {
 		return results.remove();
 	}
 	
-	 public String showInputDialog(Component parentComponent, Object message, 
+	 public Object showInputDialog(Component parentComponent, Object message, 
 			 String title, int messageType, Icon icon, Object[] selectionValues, Object initialSelectionValue) {
-		 return results.remove();
+		 // Pick the option shown as the given value, like a user clicking it in the list
+		 String result = results.remove();
+		 for(Object option : selectionValues) {
+			 if(option != null && option.toString().equals(result))
+				 return option;
+		 }
+		 return result;
 	 }
 	 
 	 public static void showMessageDialog(Component parentComponent, Object message, String title, int messageType) {}
+	 
+	 public void showErrorDialog(Component parent, int errorCode) {
+		 shownError = errorCode;
+	 }
+	 
+	/**
+	 * Get the code of the last error shown and clear it
+	 * @return - error code, 0 if no error was shown
+	 */
+	 public int takeShownError() {
+		 int code = shownError;
+		 shownError = 0;
+		 return code;
+	 }
 }
\ No newline at end of file
@@ -1,12 +1,34 @@
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 // System imports
 import static org.junit.Assert.assertTrue;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.junit.Test;
 
 // Local imports
+import controller.CommandController;
+import core.ErrorHandler;
+import core.ModelGenerator;
+import layout.AutoLayout;
+import model.ClassView;
+import model.CompactModel;
+import model.ConcurrentUMLClassManager;
+import model.Field;
+import model.MemoryFootprint;
+import model.MethodSignature;
+import model.ModelSnapshot;
+import model.NameValidator;
+import model.Result;
+import model.UMLClass;
 import model.UMLClassManager;
 import model.UMLRelationship;
 
@@ -78,8 +100,8 @@ public class ClassManagerTest {
 		manager.addClass("c");
 		result = manager.addMethods("c", "int", "method", "string");
 		assertEquals("Success", 0, result);
-		manager.getClass("c").getMethods().get("methodstring").setReturnType("double");
-		String type = manager.getClass("c").getMethods().get("methodstring").getReturnType();
+		manager.getClass("c").getMethod("method", "string").setReturnType("double");
+		String type = manager.getClass("c").getMethod("method", "string").getReturnType();
 		assertEquals("Return type was set successfully", "double", type);
 		result = manager.addMethods("c", "double", "method", "string");
 		assertEquals("Method exists already", 402, result);
@@ -100,12 +122,28 @@ public class ClassManagerTest {
 		UMLClassManager man = new UMLClassManager();
 		man.addClass("a");
 		man.addMethods("a", "int", "m", "int");
-		man.getClass("a").getMethods().get("mint").setName("l");
-		String name = man.getClass("a").getMethods().get("mint").getName();
+		man.getClass("a").getMethod("m", "int").setName("l");
+		String name = man.getClass("a").getMethod("m", "int").getName();
 		assertEquals("Name was set successfully", "l", name);
-		man.getClass("a").getMethods().get("mint").setParams("double");
-		String params = man.getClass("a").getMethods().get("mint").getParams();
+		man.getClass("a").getMethod("m", "int").setParams("double");
+		String params = man.getClass("a").getMethod("m", "int").getParams();
 		assertEquals("Params were set successfully", "(double)", params);
+		
+		// Signatures ignore whitespace differences and keep overloads apart
+		man.addMethods("a", "int", "sum", "int a,int  b");
+		assertEquals("Same signature with other spacing", 402, man.addMethods("a", "int", "sum", " int a , int b "));
+		assertEquals("Overload with other parameters", 0, man.addMethods("a", "int", "sum", "int a"));
+		assertTrue("Lookup with other spacing", man.getClass("a").hasMethod("sum", "int   a, int b"));
+		assertEquals("Parameters stored in canonical form", "(int a, int b)", man.getClass("a").getMethod("sum", "int a, int b").getParams());
+		assertEquals("Edit with other spacing", 0, man.editMethods("a", "sum", "add", "int a ,int b"));
+		assertEquals("Remove with other spacing", 0, man.removeMethods("a", "add", "int a, int b"));
+		
+		MethodSignature signature = new MethodSignature("put", "Map<String,  Integer> m,int  n");
+		assertEquals("Canonical parameters", "Map<String, Integer> m, int n", signature.getParams());
+		assertEquals("Generic commas do not split parameters", 2, signature.getParameterCount());
+		assertEquals("Parameter type", "Map<String, Integer>", signature.getParameterType(0));
+		assertEquals("Parameter name", "n", signature.getParameterName(1));
+		assertEquals("Equal signatures hash alike", new MethodSignature("put", "Map<String, Integer> m, int n").hashCode(), signature.hashCode());
 	}
 	
 	/*
@@ -254,6 +292,319 @@ public class ClassManagerTest {
 		assertEquals("realationship is removed", 0, flipped);
 	}
 	
+	/*
+	 * Checks single and bulk name validation
+	 */
+	@Test
+	public void nameTests() {
+		assertTrue("Letters, digits, underscores and dashes", NameValidator.isValid("aB3_-x"));
+		assertEquals("Null name", false, NameValidator.isValid(null));
+		assertEquals("Empty name", false, NameValidator.isValid(""));
+		assertEquals("Leading digit", false, NameValidator.isValid("3a"));
+		assertEquals("Leading underscore", false, NameValidator.isValid("_a"));
+		assertEquals("Space", false, NameValidator.isValid("a b"));
+		assertEquals("Special character", false, NameValidator.isValid("a*b"));
+		assertEquals("Non ASCII letter", false, NameValidator.isValid("\u00e9a"));
+		
+		assertEquals("All names valid", -1, NameValidator.findInvalid(new String[] {"a", "b", "c"}));
+		assertEquals("First invalid name", 1, NameValidator.findInvalid(new String[] {"a", "b c", "&"}));
+		assertEquals("Invalid name in list", 2, NameValidator.findInvalid(Arrays.asList("a", "b", "")));
+	}
+	
+	/*
+	 * Creates a class with members and checks its rendered box
+	 */
+	@Test
+	public void printTest() throws IOException {
+		UMLClassManager manager = new UMLClassManager();
+		manager.addClass("box");
+		manager.addFields("box", "int", "ff");
+		manager.addMethods("box", "void", "m", "int a");
+		
+		String[] expected = {"+-------------+", "|     box     |", "|   int ff    |", "|void m(int a)|", "+-------------+"};
+		assertEquals("Box is padded and centered", Arrays.toString(expected), Arrays.toString(manager.printClasses("box")));
+		
+		// Streaming the box produces the same lines
+		StringWriter out = new StringWriter();
+		assertTrue("Class printed", manager.printClasses("box", out));
+		assertEquals("Streamed box matches", String.join(System.lineSeparator(), expected) + System.lineSeparator(), out.toString());
+		assertEquals("Missing class", null, manager.printClasses("missing"));
+		assertEquals("Missing class streamed", false, manager.printClasses("missing", new StringWriter()));
+		
+		// Memoized boxes are rebuilt after every kind of change
+		manager.getClass("box").getMethod("m", "int a").setReturnType("int");
+		assertEquals("Box updated after member change", "|int m(int a)|", manager.printClasses("box")[3]);
+		manager.getClass("box").getFields().get("ff").setName("longerfield");
+		assertEquals("Box updated after field change", "|int longerfield|", manager.printClasses("box")[2]);
+		manager.editClass("box", "renamed");
+		assertEquals("Box updated after rename", "|    renamed    |", manager.printClasses("renamed")[1]);
+		manager.removeFields("renamed", "ff");
+		assertEquals("Box updated after remove", 4, manager.printClasses("renamed").length);
+	}
+	
+	/*
+	 * Checks that listing the whole model prints every relationship exactly once
+	 */
+	@Test
+	public void printRelationshipsTest() throws IOException {
+		UMLClassManager manager = new UMLClassManager();
+		manager.addClass("a");
+		manager.addClass("b");
+		manager.addClass("c");
+		manager.addRelationship("a", "aggregation", "b");
+		manager.addRelationship("b", "composition", "c");
+		manager.addRelationship("c", "inheritance", "c");
+		
+		assertEquals("One entry per relationship", 3, manager.printRelationships().size());
+		
+		String nl = System.lineSeparator();
+		String a = "+-+" + nl + "|a|" + nl + "+-+" + nl;
+		String b = "+-+" + nl + "|b|" + nl + "+-+" + nl;
+		String c = "+-+" + nl + "|c|" + nl + "+-+" + nl;
+		StringWriter out = new StringWriter();
+		assertTrue("Relationships printed", manager.printRelationships(out));
+		assertEquals("Each relationship printed once", a + nl + " |" + nl + " |" + nl + " |" + nl + "< >" + nl + nl + b + nl
+				+ b + nl + " |" + nl + " |" + nl + " |" + nl + "<=>" + nl + nl + c + nl
+				+ c + nl + " |" + nl + " |" + nl + " |" + nl + "> <" + nl + nl + c + nl, out.toString());
+		
+		assertEquals("Class relationships counted", 2, manager.printRelationships("b", new StringWriter()));
+		assertEquals("Missing class relationships", -1, manager.printRelationships("d", new StringWriter()));
+	}
+	
+	/*
+	 * Edits report their own outcome, naming what they touched
+	 */
+	@Test
+	public void resultTest() {
+		UMLClassManager manager = new UMLClassManager();
+		
+		Result result = manager.tryAddClass("a");
+		assertTrue("Add class succeeded", result.isSuccess());
+		assertEquals("Add class entity", "a", result.getEntity());
+		assertEquals("Duplicate class code", 200, manager.tryAddClass("a").getCode());
+		assertEquals("Duplicate class message", ErrorHandler.toString(200), manager.tryAddClass("a").getMessage());
+		
+		assertEquals("Field entity", "a.f", manager.tryAddFields("a", "int", "f").getEntity());
+		assertEquals("Method entity", "a.m(int x)", manager.tryAddMethods("a", "void", "m", "int x").getEntity());
+		assertEquals("Renamed method entity", "a.n(int x)", manager.tryEditMethods("a", "m", "n", "int x").getEntity());
+		assertEquals("Renamed field entity", "a.g", manager.tryEditFields("a", "f", "g").getEntity());
+		assertEquals("Missing field entity", "a.f", manager.tryRemoveFields("a", "f").getEntity());
+		assertEquals("Missing method entity", "a.m()", manager.tryRemoveMethods("a", "m", "").getEntity());
+		assertEquals("Missing method message", "a.m(): " + ErrorHandler.toString(406), manager.tryRemoveMethods("a", "m", "").toString());
+		assertEquals("Renamed class entity", "b", manager.tryEditClass("a", "b").getEntity());
+		
+		manager.addClass("c");
+		Result relation = manager.tryAddRelationship("b", "composition", "c");
+		assertEquals("Relationship entity", UMLRelationship.GENERATE_STRING("b", "composition", "c"), relation.getEntity());
+		assertEquals("Missing relationship code", 108, manager.tryRemoveRelationship("b", "aggregation", "c").getCode());
+		assertEquals("Missing class code", 109, manager.trySetClassLocation("d", 0, 0).getCode());
+	}
+	
+	/*
+	 * Repeated names are stored once, both when editing and when loading
+	 */
+	@Test
+	public void symbolsTest() {
+		UMLClassManager manager = new UMLClassManager();
+		manager.addClass("a");
+		manager.addClass("b");
+		manager.addFields("a", new String("int"), "f");
+		manager.addFields("b", new String("int"), "f");
+		manager.addMethods("a", "void", "m", new String("int x"));
+		manager.addMethods("b", "void", "m", new String("int x"));
+		manager.addRelationship("a", "aggregation", "b");
+		
+		assertTrue("Field types shared", manager.getClass("a").getFields().get("f").getType() == manager.getClass("b").getFields().get("f").getType());
+		assertTrue("Parameter lists shared", manager.getClass("a").getMethodSignatures().keySet().iterator().next().getParams() == manager.getClass("b").getMethodSignatures().keySet().iterator().next().getParams());
+		assertTrue("Methods by saved key", manager.getClass("a").getMethods().get("mint x") == manager.getClass("a").getMethod("m", "int x"));
+		
+		UMLClassManager loaded = new UMLClassManager();
+		assertEquals("Load model", 0, loaded.parseJSON(manager.convertToJSON()));
+		UMLClass a = loaded.getClass("a");
+		UMLClass b = loaded.getClass("b");
+		assertTrue("Loaded field types shared", a.getFields().get("f").getType() == b.getFields().get("f").getType());
+		assertTrue("Loaded return types shared", a.getMethod("m", "int x").getReturnType() == b.getMethod("m", "int x").getReturnType());
+		assertTrue("Loaded relationships use the loaded classes", loaded.getRelationships().values().iterator().next().getClass1() == a);
+		
+		// Unique names are left out of the table: int, void, "int x" and aggregation
+		assertEquals("Only types and parameter lists collected", 4, loaded.getSymbols().size());
+	}
+	
+	/*
+	 * Compact models save like the model they were built from and load back from the save
+	 */
+	@Test
+	public void compactTest() throws IOException {
+		UMLClassManager manager = new UMLClassManager();
+		manager.addClass("a");
+		manager.addClass("b");
+		manager.addFields("a", "int", "f");
+		manager.addFields("a", "String", "g");
+		manager.addMethods("b", "void", "m", "int x,  List<String> y");
+		manager.addMethods("b", "int", "n", "");
+		manager.addRelationship("a", "aggregation", "b");
+		manager.setClassLocation("b", 10, 20);
+		String json = manager.convertToJSON();
+		
+		CompactModel compact = CompactModel.of(manager);
+		assertEquals("Compact model saves like the model", json, compactJSON(compact));
+		assertEquals("Class count", 2, compact.getClassCount());
+		assertEquals("Member count", 4, compact.getMemberCount());
+		assertEquals("Relationship count", 1, compact.getRelationshipCount());
+		
+		CompactModel read = (CompactModel)CompactModel.read(new StringReader(json))[0];
+		assertEquals("Read compact model saves like the model", json, compactJSON(read));
+		
+		// Views read from the tables
+		ClassView b = read.getClass("b");
+		assertEquals("View name", "b", b.getName());
+		assertEquals("View location", 20, b.getY());
+		assertTrue("View finds method", b.hasMethod("m", "int x, List<String> y"));
+		assertEquals("View method", "void", b.getMethod("m", "int x,List<String> y").getReturnType());
+		assertTrue("View misses method", !b.hasMethod("m", "int x"));
+		assertTrue("View finds field", read.getClass("a").hasField("g"));
+		assertEquals("View fields", 2, read.getClass("a").getFields().size());
+		assertEquals("Missing class", null, read.getClass("c"));
+		assertEquals("Relationship first class", "a", read.getRelationshipClass1(0).getName());
+		assertEquals("Relationship type", "aggregation", read.getRelationshipType(0));
+		assertEquals("Relationship second class", "b", read.getRelationshipClass2(0).getName());
+		
+		// Only locations can change
+		read.setLocation(read.getClassId("b"), 5, 6);
+		assertEquals("Moved view", 5, b.getX());
+		
+		UMLClassManager edited = read.toManager();
+		assertEquals("Editable copy", 0, edited.addFields("b", "int", "h"));
+		assertEquals("Editable copy keeps the move", 6, edited.getClass("b").getY());
+		assertTrue("Editable copy keeps relationships", edited.getRelationships().values().iterator().next().getClass2() == edited.getClass("b"));
+	}
+	
+	// Save a compact model to a string
+	private static String compactJSON(CompactModel model) throws IOException {
+		StringWriter out = new StringWriter();
+		model.writeJSON(out);
+		return out.toString();
+	}
+	
+	/*
+	 * Snapshots keep showing the model as it was while it keeps changing
+	 */
+	@Test
+	public void snapshotTest() {
+		UMLClassManager manager = new UMLClassManager();
+		manager.addClass("a");
+		manager.addClass("b");
+		manager.addFields("a", "int", "f");
+		manager.addMethods("b", "void", "m", "int x");
+		manager.addRelationship("a", "aggregation", "b");
+		
+		ModelSnapshot first = manager.snapshot();
+		String firstJSON = manager.convertToJSON();
+		assertEquals("Snapshot saves like the model", firstJSON, snapshotJSON(first));
+		assertTrue("Unchanged model reuses the snapshot", first == manager.snapshot());
+		
+		// Change the model in every way a reader could notice
+		manager.addClass("c");
+		manager.getClass("a").getFields().get("f").setType("long");
+		manager.setClassLocation("b", 10, 20);
+		manager.editClass("a", "d");
+		manager.removeClass("c");
+		manager.addClass("c");
+		manager.addRelationship("b", "composition", "c");
+		
+		ModelSnapshot second = manager.snapshot();
+		assertTrue("Version goes up", second.getVersion() > first.getVersion());
+		assertEquals("Old snapshot unchanged", firstJSON, snapshotJSON(first));
+		assertEquals("Old snapshot keeps the old field", "int", first.getClass("a").getFields().get("f").getType());
+		assertEquals("Old snapshot keeps the old location", 0, first.getClass("b").getX());
+		assertEquals("New snapshot saves like the model", manager.convertToJSON(), snapshotJSON(second));
+		assertEquals("New snapshot sees the field change", "long", second.getClass("d").getFields().get("f").getType());
+		assertEquals("New snapshot sees the move", 20, second.getClass("b").getY());
+		assertEquals("Renamed class is gone", null, second.getClass("a"));
+		assertEquals("Relationship follows the rename", "d", second.getRelationships().iterator().next().getClass1().getName());
+		
+		ArrayList<String> order = new ArrayList<String>();
+		for(UMLClass umlClass : second.getClasses())
+			order.add(umlClass.getName());
+		assertEquals("Classes keep the model order", Arrays.asList(manager.getClassNames()).toString(), order.toString());
+		assertEquals("Relationship count", 2, second.getRelationshipCount());
+		
+		// Renames keep finding the relationships that are left
+		manager.removeRelationship("b", "composition", "c");
+		manager.editClass("b", "e");
+		manager.editClass("e", "f");
+		ModelSnapshot third = manager.snapshot();
+		assertEquals("Third snapshot saves like the model", manager.convertToJSON(), snapshotJSON(third));
+		assertEquals("Relationship follows both renames", "f", third.getRelationships().iterator().next().getClass2().getName());
+		assertEquals("Removed relationship is gone", 1, third.getRelationshipCount());
+	}
+	
+	// Save a snapshot to a string
+	private static String snapshotJSON(ModelSnapshot snapshot) {
+		StringWriter out = new StringWriter();
+		snapshot.writeJSON(out);
+		return out.toString();
+	}
+	
+	/*
+	 * Lists and exports the model from several threads while another thread edits it
+	 */
+	@Test
+	public void concurrentTest() throws InterruptedException {
+		ConcurrentUMLClassManager manager = new ConcurrentUMLClassManager();
+		manager.addClass("root");
+		AtomicReference<Throwable> failure = new AtomicReference<Throwable>();
+		
+		// Readers keep listing and exporting until the writer is done
+		ArrayList<Thread> readers = new ArrayList<Thread>();
+		for(int i = 0; i < 4; i++) {
+			Thread reader = new Thread(() -> {
+				try {
+					while(!Thread.currentThread().isInterrupted()) {
+						manager.printClasses(new StringWriter());
+						manager.printRelationships(new StringWriter());
+						manager.convertToJSON();
+						manager.read(() -> manager.getRelationships().size());
+						// Copies can be walked while the writer changes the class
+						for(Field field : manager.getClass("root").getFields().values())
+							field.getName();
+					}
+				}
+				catch(Throwable e) {
+					failure.compareAndSet(null, e);
+				}
+			});
+			readers.add(reader);
+			reader.start();
+		}
+		
+		for(int i = 0; i < 500; i++) {
+			assertEquals("Add class while reading", 0, manager.addClass("c" + i));
+			assertEquals("Add field while reading", 0, manager.addFields("c" + i, "int", "f"));
+			assertEquals("Add relationship while reading", 0, manager.addRelationship("root", "aggregation", "c" + i));
+			assertEquals("Add field to root while reading", 0, manager.addFields("root", "int", "f" + i));
+			if(i % 2 == 0)
+				assertEquals("Remove class while reading", 0, manager.removeClass("c" + i));
+		}
+		
+		for(Thread reader : readers) {
+			reader.interrupt();
+			reader.join();
+		}
+		assertEquals("Readers never saw a broken model", null, failure.get());
+		assertEquals("Every edit applied", 251, manager.getClassNames().length);
+		assertEquals("Relationships of removed classes dropped", 250, manager.getRelationships().size());
+		
+		// Saving inside a read does not wait for itself
+		assertTrue("Save inside read", manager.read(() -> manager.convertToJSON()).contains("\"c499\""));
+		
+		// Accessors hand out copies
+		manager.getClass("root").addField("int", "copy");
+		assertFalse("Copy does not change the model", manager.getClass("root").hasField("copy"));
+		manager.getRelationships().clear();
+		assertEquals("Relationships are a copy", 250, manager.getRelationshipCount());
+	}
+	
 	/*
 	 * Creates list of classes then converts to json then parses back to String
 	 */
@@ -269,4 +620,150 @@ public class ClassManagerTest {
 		int result = parse.parseJSON(j);
 		assertEquals("List is the same as start", 0, result);
 	}
+	
+	/**
+	 * Test the memory estimate of a model
+	 */
+	@Test
+	public void memoryFootprintTest() {
+		UMLClassManager model = new UMLClassManager();
+		MemoryFootprint empty = MemoryFootprint.of(model);
+		assertEquals("Empty model has no classes", 0, empty.getCount(MemoryFootprint.CLASSES));
+		
+		model.addClass("a");
+		model.addClass("b");
+		model.addFields("a", "int", "count");
+		model.addMethods("a", "void", "run", "int times");
+		model.addMethods("b", "void", "run", "int times");
+		model.addRelationship("a", "aggregation", "b");
+		model.printClasses();
+		
+		MemoryFootprint footprint = MemoryFootprint.of(model);
+		assertEquals("Counted classes", 2, footprint.getCount(MemoryFootprint.CLASSES));
+		assertEquals("Counted fields", 1, footprint.getCount(MemoryFootprint.FIELDS));
+		assertEquals("Counted methods", 2, footprint.getCount(MemoryFootprint.METHODS));
+		assertEquals("Counted relationships", 1, footprint.getCount(MemoryFootprint.RELATIONSHIPS));
+		assertEquals("Counted relationship keys", 1, footprint.getCount(MemoryFootprint.RELATIONSHIP_KEYS));
+		assertEquals("Counted rendered boxes", 2, footprint.getCount(MemoryFootprint.LABEL_CACHES));
+		assertTrue("Model grew", footprint.getTotal() > empty.getTotal());
+		assertTrue("Every category has bytes", footprint.getBytes(MemoryFootprint.FIELDS) > 0 && footprint.getBytes(MemoryFootprint.RELATIONSHIP_KEYS) > 0);
+		
+		// The second method shares its signature and names, so it costs less than the first
+		UMLClassManager one = new UMLClassManager();
+		one.addClass("a");
+		one.addMethods("a", "void", "run", "int times");
+		assertTrue("Shared names counted once", footprint.getBytes(MemoryFootprint.METHODS) < 2 * MemoryFootprint.of(one).getBytes(MemoryFootprint.METHODS));
+		
+		// Sizes are padded to 8 bytes
+		assertEquals("Object size", 16, MemoryFootprint.object(1, 0));
+		assertEquals("Array size", 24, MemoryFootprint.array(5, 1));
+		assertEquals("Format bytes", "1.5 KB", MemoryFootprint.formatBytes(1536));
+		assertTrue("Report lists categories", footprint.toString().contains("relationship keys"));
+		
+		// A snapshot keeps copies of the classes alive
+		assertEquals("No snapshot taken", 0, footprint.getBytes(MemoryFootprint.SNAPSHOT));
+		model.snapshot();
+		MemoryFootprint retained = MemoryFootprint.of(model);
+		assertEquals("Counted snapshot classes and relationships", 3, retained.getCount(MemoryFootprint.SNAPSHOT));
+		assertTrue("Snapshot has bytes", retained.getBytes(MemoryFootprint.SNAPSHOT) > 0);
+		assertEquals("Snapshot adds to the total", footprint.getTotal() + retained.getBytes(MemoryFootprint.SNAPSHOT), retained.getTotal());
+	}
+	
+	/**
+	 * Test the automatic layouts
+	 */
+	@Test
+	public void layoutTest() {
+		// Pile every class on the same spot
+		UMLClassManager model = new ModelGenerator(3).generate(300);
+		for(Object name : model.getClassNames())
+			model.setClassLocation((String)name, 0, 0);
+		
+		assertEquals("Force layout", 0, new AutoLayout().layout(model, AutoLayout.FORCE));
+		HashSet<String> spots = new HashSet<String>();
+		int minX = Integer.MAX_VALUE;
+		int minY = Integer.MAX_VALUE;
+		for(Object name : model.getClassNames()) {
+			UMLClass umlClass = model.getClass((String)name);
+			assertTrue("Classes spread apart", spots.add(umlClass.getX() + "," + umlClass.getY()));
+			minX = Math.min(minX, umlClass.getX());
+			minY = Math.min(minY, umlClass.getY());
+		}
+		assertEquals("Left margin", 20, minX);
+		assertEquals("Top margin", 20, minY);
+		
+		// The same model and settings give the same positions
+		UMLClassManager again = new ModelGenerator(3).generate(300);
+		for(Object name : again.getClassNames())
+			again.setClassLocation((String)name, 0, 0);
+		new AutoLayout().force(again);
+		for(Object name : model.getClassNames())
+			assertEquals("Deterministic", model.getClass((String)name).getX(), again.getClass((String)name).getX());
+		
+		// Parents sit above their children, even with a cycle
+		UMLClassManager tree = new UMLClassManager();
+		for(String name : new String[] {"shape", "circle", "square", "cube", "loose"})
+			tree.addClass(name);
+		tree.addRelationship("circle", "inheritance", "shape");
+		tree.addRelationship("square", "inheritance", "shape");
+		tree.addRelationship("cube", "realization", "square");
+		tree.addRelationship("shape", "inheritance", "cube");
+		assertEquals("Layered layout", 0, new AutoLayout().layout(tree, AutoLayout.LAYERED));
+		assertTrue("Parent above child", tree.getClass("shape").getY() < tree.getClass("circle").getY());
+		assertEquals("Children share a row", tree.getClass("circle").getY(), tree.getClass("square").getY());
+		assertTrue("Grandchild below child", tree.getClass("square").getY() < tree.getClass("cube").getY());
+		assertTrue("Other classes below the hierarchy", tree.getClass("cube").getY() < tree.getClass("loose").getY());
+		
+		assertEquals("Unknown layout", 112, new AutoLayout().layout(tree, "sideways"));
+	}
+	
+	/**
+	 * Test placing classes one at a time without moving the others
+	 */
+	@Test
+	public void incrementalLayoutTest() {
+		UMLClassManager model = new ModelGenerator(5).generate(400);
+		CommandController controller = new CommandController(model);
+		controller.setIncrementalLayout(true);
+		HashMap<String, String> before = new HashMap<String, String>();
+		for(Object name : model.getClassNames())
+			before.put((String)name, model.getClass((String)name).getX() + "," + model.getClass((String)name).getY());
+		String anchor = ModelGenerator.className(200);
+		
+		// A new class goes next to the class it is related to
+		assertEquals("Add class", 0, controller.addClass("extra"));
+		assertEquals("Add relationship", 0, controller.addRelationship("extra", "aggregation", anchor));
+		UMLClass extra = model.getClass("extra");
+		UMLClass related = model.getClass(anchor);
+		assertTrue("Placed near the related class", Math.abs(extra.getX() - related.getX()) < 800 && Math.abs(extra.getY() - related.getY()) < 800);
+		assertTrue("Inside the margin", extra.getX() >= 20 && extra.getY() >= 20);
+		
+		// Every other class stays where it was, and nothing shares a spot
+		HashSet<String> spots = new HashSet<String>();
+		for(Object name : model.getClassNames()) {
+			UMLClass umlClass = model.getClass((String)name);
+			String spot = umlClass.getX() + "," + umlClass.getY();
+			assertTrue("Spot is free", spots.add(spot));
+			if(before.containsKey(name))
+				assertEquals("Class pinned", before.get(name), spot);
+		}
+		
+		// A class added at a chosen spot keeps it, and one near its neighbours stays
+		assertEquals("Add class at spot", 0, controller.addClass("fixed", 5000, 5000));
+		assertEquals("Fixed spot kept", 5000, model.getClass("fixed").getX());
+		int x = extra.getX();
+		assertEquals("Second relationship", 0, controller.addRelationship(anchor, "composition", "extra"));
+		assertEquals("Close class not moved", x, extra.getX());
+		
+		// Renamed and removed classes are followed
+		assertEquals("Rename", 0, controller.editClass("extra", "renamed"));
+		assertEquals("Remove", 0, controller.removeClass(anchor));
+		assertEquals("Add after removal", 0, controller.addClass("last"));
+		assertTrue("Placed after removal", model.getClass("last").getX() >= 20);
+		
+		// Turned off, classes are added where asked
+		controller.setIncrementalLayout(false);
+		assertEquals("Add class while off", 0, controller.addClass("plain"));
+		assertEquals("Default spot while off", 0, model.getClass("plain").getX());
+	}
 }
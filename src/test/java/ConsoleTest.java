@@ -3,6 +3,8 @@ import org.junit.Test;
 
 import controller.CommandController;
 import controller.GUIController;
+import core.ErrorHandler;
+import core.Metrics;
 import model.UMLClassManager;
 
 import static org.junit.Assert.assertEquals;
@@ -12,6 +14,11 @@ import static org.junit.Assert.assertTrue;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
 
 // Local imports
 import views.ConsoleView;
@@ -60,6 +67,21 @@ public class ConsoleTest {
 		assertEquals("Invalid command 1", 104, console.execCommand("this isnt real", System.out));
 		assertEquals("Invalid command 2", 104, console.execCommand("fake command", System.out));
 		assertEquals("Invalid command 3", 104, console.execCommand("jibbersih", System.out));
+		
+		// Parse errors report where they happened
+		assertEquals("Invalid command location", 0, console.getErrorOffset());
+		assertEquals("Invalid sub command", 104, console.execCommand("add thing myclass", System.out));
+		assertEquals("Invalid sub command location", 4, console.getErrorOffset());
+		assertEquals("Too many args", 102, console.execCommand("add class myclass extra", System.out));
+		assertEquals("Too many args location", 18, console.getErrorOffset());
+		assertEquals("Too few args", 102, console.execCommand("remove field myclass", System.out));
+		assertEquals("Too few args location", 20, console.getErrorOffset());
+		assertEquals("Model errors have no location", 201, console.execCommand("remove class myclass", System.out));
+		assertEquals("Model errors location", -1, console.getErrorOffset());
+		
+		// Extra whitespace between arguments is ignored
+		assertEquals("Extra whitespace", 0, console.execCommand("  add \tclass   myclass ", System.out));
+		assertTrue("Extra whitespace class added", model.getClass("myclass") != null);
 	}
 	
 	/**
@@ -663,7 +685,7 @@ public class ConsoleTest {
 		+ "exit: Quit the program." + System.lineSeparator() + System.lineSeparator()
 		+ "quit: Quit the program." + System.lineSeparator() + System.lineSeparator()
 		+ "save: Save the current state of the UML diagram.  If a file has not been set it will prompt the user." + System.lineSeparator() + System.lineSeparator()
-		+ "load <file_path>: Load the given file into the UML editor." + System.lineSeparator() + System.lineSeparator()
+		+ "load <file_path> [parallel]: Load the given file into the UML editor. Adding parallel loads the classes across all cores." + System.lineSeparator() + System.lineSeparator()
 		+ "list: Can list all classes with:" + System.lineSeparator() + System.lineSeparator()
 		+ "list classes" + System.lineSeparator() + System.lineSeparator()
 		+ "or specific class with:" + System.lineSeparator() + System.lineSeparator()
@@ -673,7 +695,13 @@ public class ConsoleTest {
 		+ "list relationships" + System.lineSeparator() + System.lineSeparator()
 		+ "or" + System.lineSeparator() + System.lineSeparator()
 		+ "list relationships <class_name>." + System.lineSeparator() + System.lineSeparator()
-		+ "Takes the form boxes for each class containing their associated attributes with a delimiter for relationship type between classes." + System.lineSeparator() + System.lineSeparator(), bos.toString());
+		+ "Takes the form boxes for each class containing their associated attributes with a delimiter for relationship type between classes." + System.lineSeparator() + System.lineSeparator()
+		+ "stats: Print the count and latency percentiles of every timed operation." + System.lineSeparator() + System.lineSeparator()
+		+ "stats <on/off/reset> turns timing on or off or clears it, stats export <file_path> writes the histograms as JSON." + System.lineSeparator() + System.lineSeparator()
+		+ "stats memory estimates the heap used by the classes, fields, methods and relationships of the model." + System.lineSeparator() + System.lineSeparator()
+		+ "layout [force/layered]: Arrange every class automatically. force places related classes near each other," + System.lineSeparator() + System.lineSeparator()
+		+ "layered puts inheritance and realization hierarchies in rows with parents on top." + System.lineSeparator() + System.lineSeparator()
+		+ "layout incremental <on/off> places each new class, and each class that gains a relationship, next to its related classes without moving the others." + System.lineSeparator() + System.lineSeparator(), bos.toString());
 		bos.reset();
 		assertEquals("help valid return code 2", 0, console.execCommand("help add", myout));
 		myout.flush();
@@ -755,6 +783,174 @@ public class ConsoleTest {
 		// Check if it was applied
 		assertTrue("Model has the loaded class", model2.getClass("myclass") != null);
 		assertTrue("Model has the loaded class's field", model2.getClass("myclass").hasField("myInt"));
+		
+		// Load again in parallel mode
+		UMLClassManager model3 = new UMLClassManager();
+		ConsoleView console3 = new ConsoleView(model3, new CommandController(model3));
+		assertEquals("Parallel load return code", 0, console3.execCommand("load uml-output.json parallel", myout2));
+		assertTrue("Model has the parallel loaded class", model3.getClass("myclass") != null);
+		assertTrue("Model has the parallel loaded class's field", model3.getClass("myclass").hasField("myInt"));
+	}
+	
+	/**
+	 * Test running a script file in batch mode
+	 */
+	@Test
+	public void scriptMode() throws Exception {
+		// Create output streams for the summary and errors
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		PrintStream myout = new PrintStream(bos);
+		ByteArrayOutputStream bes = new ByteArrayOutputStream();
+		PrintStream myerr = new PrintStream(bes);
+		
+		UMLClassManager model = new UMLClassManager();
+		ConsoleView console = new ConsoleView(model, new CommandController(model));
+		
+		// Missing script
+		assertEquals("Missing script return code", 105, console.runScript(Paths.get("missing-script.txt"), myout, myerr));
+		bes.reset();
+		
+		// Write script with a comment, a blank line and one failing command
+		Path script = Paths.get("uml-script.txt");
+		script.toFile().deleteOnExit();
+		Files.write(script, Arrays.asList("# build a model", "add class a", "", "add class b",
+				"add relationship a aggregation b", "add class a", "exit", "add class c"), StandardCharsets.UTF_8);
+		
+		assertEquals("Script with failure return code", 113, console.runScript(script, myout, myerr));
+		myout.flush();
+		myerr.flush();
+		assertTrue("Script added classes", model.getClass("a") != null && model.getClass("b") != null);
+		assertTrue("Script stopped at exit", model.getClass("c") == null);
+		assertEquals("Script added relationship", 1, model.getRelationships().size());
+		assertTrue("Summary counts commands", bos.toString().startsWith("Executed 4 commands in "));
+		assertTrue("Summary counts failures", scrubOut(bos.toString()).endsWith("3 succeeded, 1 failed."));
+		assertEquals("Failed command reported", "Line 6: 'add class a' " + ErrorHandler.toString(200), scrubOut(bes.toString()));
+		
+		// Successful script
+		Files.write(script, Arrays.asList("add class c", "add field c int myInt"), StandardCharsets.UTF_8);
+		assertEquals("Successful script return code", 0, console.runScript(script, myout, myerr));
+		assertTrue("Script added field", model.getClass("c").hasField("myInt"));
+		
+		// Exit with arguments and a save that would prompt fail without leaving the script
+		bos.reset();
+		bes.reset();
+		Files.write(script, Arrays.asList("exit now", "quit 1", "save", "add class d"), StandardCharsets.UTF_8);
+		assertEquals("Script with rejected commands return code", 113, console.runScript(script, myout, myerr));
+		myout.flush();
+		myerr.flush();
+		assertTrue("Script kept running", model.getClass("d") != null);
+		assertTrue("Summary counts rejected commands", scrubOut(bos.toString()).endsWith("1 succeeded, 3 failed."));
+		assertTrue("Exit rejected", bes.toString().contains("Line 1: 'exit now' " + ErrorHandler.toString(115)));
+		assertTrue("Save rejected", bes.toString().contains("Line 3: 'save' " + ErrorHandler.toString(103)));
+		
+		script.toFile().delete();
+	}
+	
+	/**
+	 * Test arranging the classes with the layout command
+	 */
+	@Test
+	public void layoutCommand() {
+		// Create output stream for executing commands
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		PrintStream myout = new PrintStream(bos);
+		
+		// Setup console and model, every class starts at 0, 0
+		UMLClassManager model = new UMLClassManager();
+		ConsoleView console = new ConsoleView(model, new CommandController(model));
+		console.execCommand("add class shape", myout);
+		console.execCommand("add class circle", myout);
+		console.execCommand("add class square", myout);
+		console.execCommand("add relationship circle inheritance shape", myout);
+		console.execCommand("add relationship square inheritance shape", myout);
+		
+		bos.reset();
+		assertEquals("layout return code", 0, console.execCommand("layout", myout));
+		myout.flush();
+		assertEquals("layout output", "Arranged 3 classes with the force layout." + System.lineSeparator(), bos.toString());
+		assertTrue("Classes were spread", model.getClass("circle").getX() != model.getClass("square").getX()
+				|| model.getClass("circle").getY() != model.getClass("square").getY());
+		
+		assertEquals("layout layered return code", 0, console.execCommand("layout layered", myout));
+		assertTrue("Parent above child", model.getClass("shape").getY() < model.getClass("circle").getY());
+		assertEquals("Children share a row", model.getClass("circle").getY(), model.getClass("square").getY());
+		
+		// Bad arguments
+		assertEquals("layout unknown mode", 104, console.execCommand("layout sideways", myout));
+		assertEquals("layout too many args", 102, console.execCommand("layout force now", myout));
+		
+		// New classes are placed beside the others while incremental layout is on
+		bos.reset();
+		assertEquals("layout incremental return code", 0, console.execCommand("layout incremental on", myout));
+		myout.flush();
+		assertEquals("layout incremental output", "Incremental layout is on." + System.lineSeparator(), bos.toString());
+		console.execCommand("add class triangle", myout);
+		assertTrue("New class placed", model.getClass("triangle").getX() != 0 || model.getClass("triangle").getY() != 0);
+		assertEquals("layout incremental off", 0, console.execCommand("layout incremental off", myout));
+		assertEquals("layout incremental bad option", 104, console.execCommand("layout incremental maybe", myout));
+		assertEquals("layout incremental without option", 102, console.execCommand("layout incremental", myout));
+	}
+	
+	/**
+	 * Test timing commands and printing and exporting the stats
+	 */
+	@Test
+	public void statsCommand() throws Exception {
+		// Create output stream for executing commands
+		ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		PrintStream myout = new PrintStream(bos);
+		
+		// Setup console and model
+		UMLClassManager model = new UMLClassManager();
+		ConsoleView console = new ConsoleView(model, new CommandController(model));
+		
+		// Nothing is recorded while metrics are off
+		assertEquals("stats reset return code", 0, console.execCommand("stats reset", myout));
+		assertEquals("stats off return code", 0, console.execCommand("stats off", myout));
+		console.execCommand("add class a", myout);
+		assertTrue("Nothing recorded while off", Metrics.getHistograms().isEmpty());
+		
+		try {
+			assertEquals("stats on return code", 0, console.execCommand("stats on", myout));
+			console.execCommand("add class b", myout);
+			console.execCommand("add field b int count", myout);
+			console.execCommand("add class b", myout);
+			console.execCommand("frobnicate", myout);
+			
+			assertEquals("Command recorded", 2, Metrics.histogram("command.add class").getCount());
+			assertEquals("Controller recorded", 2, Metrics.histogram("controller.addClass").getCount());
+			assertEquals("Invalid command recorded", 1, Metrics.histogram("command.invalid").getCount());
+			
+			bos.reset();
+			assertEquals("stats return code", 0, console.execCommand("stats", myout));
+			myout.flush();
+			assertTrue("stats lists commands", bos.toString().contains("command.add field"));
+			assertTrue("stats lists controller", bos.toString().contains("controller.addField"));
+			
+			// Export as JSON
+			Path export = Paths.get("uml-stats.json");
+			export.toFile().deleteOnExit();
+			assertEquals("stats export return code", 0, console.execCommand("stats export uml-stats.json", myout));
+			String json = new String(Files.readAllBytes(export), StandardCharsets.UTF_8);
+			assertTrue("Export has operations", json.contains("\"command.add class\"") && json.contains("\"p99\""));
+			export.toFile().delete();
+			
+			// Memory estimate of the two classes
+			bos.reset();
+			assertEquals("stats memory return code", 0, console.execCommand("stats memory", myout));
+			myout.flush();
+			assertTrue("stats memory lists fields", bos.toString().contains("fields"));
+			
+			// Bad arguments
+			assertEquals("stats unknown option", 104, console.execCommand("stats sideways", myout));
+			assertEquals("stats export without file", 102, console.execCommand("stats export", myout));
+			assertEquals("stats too many args", 102, console.execCommand("stats on now", myout));
+		} finally {
+			Metrics.setEnabled(false);
+			Metrics.reset();
+		}
+		
+		myout.close();
 	}
 	
 	/**
@@ -2,9 +2,29 @@ import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertTrue;
 
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+
 import org.junit.Test;
 
+import controller.CommandController;
+import core.ModelGenerator;
 import core.UMLFileIO;
+import model.CompactModel;
+import model.UMLClassManager;
+import model.UMLRelationship;
+import views.ConsoleView;
 
 public class FileTest {
 	@Test
@@ -31,4 +51,249 @@ public class FileTest {
 		// Clean up created file
 		fileIOTest.getFile().delete();
 	}
+	
+	@Test
+	public void compressedFileTest() throws IOException {
+		UMLClassManager model = new UMLClassManager();
+		model.addClass("myclass");
+		model.addFields("myclass", "int", "myInt");
+		model.addMethods("myclass", "String", "myMethod", "int a");
+		
+		UMLFileIO fileIOTest = new UMLFileIO();
+		assertTrue("Gzip extension is compressed", UMLFileIO.isCompressedPath("test2.json.gz"));
+		assertFalse("Json extension is not compressed", UMLFileIO.isCompressedPath("test2.json"));
+		
+		fileIOTest.setFile("test2.json.gz");
+		fileIOTest.getFile().deleteOnExit();
+		assertEquals("Saved compressed model", 0, fileIOTest.saveModel(model));
+		
+		// Make sure the gzip magic bytes were written
+		FileInputStream in = new FileInputStream(fileIOTest.getFile());
+		assertEquals("First magic byte", 0x1f, in.read());
+		assertEquals("Second magic byte", 0x8b, in.read());
+		in.close();
+		
+		UMLClassManager loaded = new UMLClassManager();
+		assertEquals("Loaded compressed model", 0, fileIOTest.loadModel(loaded));
+		assertTrue("Loaded class", loaded.getClass("myclass") != null);
+		assertTrue("Loaded field", loaded.getClass("myclass").hasField("myInt"));
+		assertTrue("Loaded method", loaded.getClass("myclass").hasMethod("myMethod", "int a"));
+		
+		// Saving again writes the edits made since the last save
+		model.editFields("myclass", "myInt", "count");
+		model.addClass("other");
+		assertEquals("Saved edited model", 0, fileIOTest.saveModel(model));
+		UMLClassManager edited = new UMLClassManager();
+		assertEquals("Loaded edited model", 0, fileIOTest.loadModel(edited));
+		assertTrue("Loaded renamed field", edited.getClass("myclass").hasField("count"));
+		assertFalse("Old field name gone", edited.getClass("myclass").hasField("myInt"));
+		assertTrue("Loaded added class", edited.getClass("other") != null);
+		
+		// Compact models load from and save to the same files
+		Object[] compact = fileIOTest.loadCompact();
+		assertEquals("Loaded compact model", 0, compact[1]);
+		assertEquals("Compact class count", 2, ((CompactModel)compact[0]).getClassCount());
+		assertTrue("Compact field", ((CompactModel)compact[0]).getClass("myclass").hasField("count"));
+		assertEquals("Saved compact model", 0, fileIOTest.saveCompact((CompactModel)compact[0]));
+		UMLClassManager fromCompact = new UMLClassManager();
+		assertEquals("Loaded saved compact model", 0, fileIOTest.loadModel(fromCompact));
+		assertEquals("Compact save kept the model", edited.convertToJSON(), fromCompact.convertToJSON());
+		
+		// Format is detected from content, not the extension
+		UMLFileIO renamed = new UMLFileIO();
+		renamed.setFile("test3.json");
+		assertTrue("Renamed file", fileIOTest.getFile().renameTo(renamed.getFile()));
+		renamed.getFile().deleteOnExit();
+		UMLClassManager loaded2 = new UMLClassManager();
+		assertEquals("Loaded renamed model", 0, renamed.loadModel(loaded2));
+		assertTrue("Loaded renamed class", loaded2.getClass("myclass") != null);
+		
+		renamed.getFile().delete();
+	}
+	
+	@Test
+	public void parallelLoadTest() {
+		// Enough classes to be split into several chunks
+		UMLClassManager model = new UMLClassManager();
+		for(int i = 0; i < 2000; i++) {
+			model.addClass("class" + i);
+			model.addFields("class" + i, "int", "field" + i);
+			model.addMethods("class" + i, "String", "method" + i, "int a");
+			if(i > 0)
+				model.addRelationship("class" + (i - 1), "aggregation", "class" + i);
+		}
+		
+		UMLFileIO fileIOTest = new UMLFileIO();
+		fileIOTest.setFile("test4.json.gz");
+		fileIOTest.getFile().deleteOnExit();
+		assertEquals("Saved model", 0, fileIOTest.saveModel(model));
+		
+		UMLClassManager loaded = new UMLClassManager();
+		assertEquals("Loaded model in parallel", 0, fileIOTest.loadModel(loaded, true));
+		assertEquals("Loaded all classes", 2000, loaded.getClassNames().length);
+		assertEquals("Classes kept their order", "class1999", loaded.getClassNames()[1999]);
+		assertTrue("Loaded field", loaded.getClass("class1500").hasField("field1500"));
+		assertTrue("Loaded method", loaded.getClass("class1500").hasMethod("method1500", "int a"));
+		assertEquals("Loaded all relationships", 1999, loaded.getRelationships().size());
+		
+		// Relationships are linked to the loaded classes
+		UMLRelationship relation = loaded.getRelationships().values().iterator().next();
+		assertTrue("Relationship linked to class", relation.getClass1() == loaded.getClass("class0"));
+		
+		fileIOTest.getFile().delete();
+	}
+	
+	@Test
+	public void invalidLoadTest() {
+		UMLFileIO fileIOTest = new UMLFileIO();
+		fileIOTest.setFile("test7.json");
+		fileIOTest.getFile().deleteOnExit();
+		UMLClassManager model = new UMLClassManager();
+		model.addClass("keep");
+		
+		// Every load mode rejects the same files with the same codes
+		String[][] files = {
+			{"303", "[1, 2]"},
+			{"303", "{\"classList\": [1, 2]}"},
+			{"303", "{\"classList\": {\"a\": 5}}"},
+			{"303", "{\"classList\": {\"a\": {\"name\": \"a\"}"},
+			{"303", "{\"classList\": {\"a\": {\"name\": \"a\"]}}"},
+			{"303", "{\"classList\": {\"a\": {\"name\": \"a\"}} \"relationships\": null}"},
+			{"303", "{\"classList\": {\"a\": {\"name\": \"a\", \"methods\": {"
+					+ "\"mint x,int y\": {\"returnType\": \"void\", \"name\": \"m\", \"params\": \"int x,int y\"}, "
+					+ "\"mint x, int y\": {\"returnType\": \"int\", \"name\": \"m\", \"params\": \"int x, int y\"}}}}}"},
+			{"407", "{\"classList\": {\"a\": {\"name\": \"b\"}}}"},
+			{"407", "{\"classList\": {\"1a\": {\"name\": \"1a\"}}}"},
+			{"203", "{\"classList\": {\"a\": {\"name\": \"a\", \"fields\": {\"f\": {\"name\": \"f\", \"type\": null}}}}}"},
+			{"107", "{\"classList\": {\"a\": {\"name\": \"a\"}}, \"relationships\": {\"r\": {\"class1\": {\"name\": \"a\"}, \"type\": \"aggregation\", \"class2\": {\"name\": \"b\"}}}}"},
+			{"202", "{\"classList\": {\"a\": {\"name\": \"a\"}}, \"relationships\": {\"r\": {\"class1\": {\"name\": \"a\"}, \"type\": \"friend\", \"class2\": {\"name\": \"a\"}}}}"},
+		};
+		for(String[] file : files) {
+			assertEquals("Wrote file", 0, fileIOTest.writeToFile(file[1]));
+			assertEquals("Sequential load of " + file[1], Integer.parseInt(file[0]), fileIOTest.loadModel(model));
+			assertEquals("Parallel load of " + file[1], Integer.parseInt(file[0]), fileIOTest.loadModel(model, true));
+			assertEquals("Compact load of " + file[1], Integer.parseInt(file[0]), fileIOTest.loadCompact()[1]);
+			assertTrue("Model kept after " + file[1], model.getClass("keep") != null);
+		}
+		
+		// A bad record in a large file stops the parallel load without replacing the model
+		UMLClassManager large = new UMLClassManager();
+		for(int i = 0; i < 2000; i++)
+			large.addClass("class" + i);
+		String json = large.convertToJSON().replace("\"class100\"", "\"1class\"");
+		assertEquals("Wrote file", 0, fileIOTest.writeToFile(json));
+		assertEquals("Bad record in a large file", 407, fileIOTest.loadModel(model, true));
+		assertEquals("Model kept", 1, model.getClassCount());
+		
+		// Brackets and escaped quotes inside strings do not end a record
+		json = "{\"classList\": {\"a\": {\"name\": \"a\", \"note\": \"}]\\\"{[\"}, \"b\": {\"name\": \"b\"}}, \"relationships\": null}";
+		assertEquals("Wrote file", 0, fileIOTest.writeToFile(json));
+		assertEquals("Loaded strings with brackets in parallel", 0, fileIOTest.loadModel(model, true));
+		assertEquals("Loaded both classes", 2, model.getClassCount());
+		
+		fileIOTest.getFile().delete();
+	}
+	
+	@Test
+	public void generatorTest() throws IOException {
+		// The same seed gives the same model
+		ModelGenerator generator = new ModelGenerator(7).relationships(2);
+		UMLClassManager model = generator.generate(300);
+		assertEquals("Generated all classes", 300, model.getClassNames().length);
+		assertEquals("Deterministic", model.convertToJSON(), new ModelGenerator(7).relationships(2).generate(300).convertToJSON());
+		assertFalse("Seed changes the model", model.convertToJSON().equals(new ModelGenerator(8).relationships(2).generate(300).convertToJSON()));
+		assertTrue("Generated relationships", model.getRelationships().size() > 300);
+		
+		UMLClassManager noRealizations = new ModelGenerator(7).mix(1, 1, 1, 0).generate(300);
+		for(UMLRelationship relation : noRealizations.getRelationships().values())
+			assertFalse("Mix leaves out realizations", relation.getType().equals("realization"));
+		
+		// Replaying the script rebuilds the model, except for locations
+		Path script = Files.createTempFile("generated", ".txt");
+		try(Writer out = Files.newBufferedWriter(script)) {
+			ModelGenerator.writeScript(model, out);
+		}
+		UMLClassManager replayed = new UMLClassManager();
+		ConsoleView console = new ConsoleView(replayed, new CommandController(replayed));
+		PrintStream output = new PrintStream(new ByteArrayOutputStream());
+		assertEquals("Script runs", 0, console.runScript(script, output, output));
+		for(Object className : model.getClassNames())
+			replayed.setClassLocation((String)className, model.getClass((String)className).getX(), model.getClass((String)className).getY());
+		assertEquals("Script rebuilds the model", model.convertToJSON(), replayed.convertToJSON());
+		Files.delete(script);
+		
+		// The command line writes loadable save files
+		UMLFileIO fileIOTest = new UMLFileIO();
+		fileIOTest.setFile("test5.json.gz");
+		fileIOTest.getFile().deleteOnExit();
+		assertEquals("Command line run", 0, ModelGenerator.run(new String[] {"--classes", "50", "--seed", "3", "--out", "test5.json.gz"}));
+		UMLClassManager loaded = new UMLClassManager();
+		assertEquals("Loaded generated file", 0, fileIOTest.loadModel(loaded));
+		UMLClassManager expected = new ModelGenerator(3).generate(50);
+		assertEquals("Loaded generated classes", Arrays.asList(expected.getClassNames()), Arrays.asList(loaded.getClassNames()));
+		assertEquals("Loaded generated relationships", expected.getRelationships().keySet(), loaded.getRelationships().keySet());
+		assertEquals("Bad option", 112, ModelGenerator.run(new String[] {"--format", "xml"}));
+		fileIOTest.getFile().delete();
+		
+		// Writing to standard output leaves it open
+		PrintStream stdout = System.out;
+		ByteArrayOutputStream captured = new ByteArrayOutputStream();
+		PrintStream capture = new PrintStream(captured, true);
+		System.setOut(capture);
+		try {
+			assertEquals("Command line run to stdout", 0, ModelGenerator.run(new String[] {"--classes", "2", "--format", "script"}));
+			System.out.print("after");
+			assertFalse("Standard output still open", capture.checkError());
+			assertTrue("Output after the run kept", captured.toString().endsWith("after"));
+		} finally {
+			System.setOut(stdout);
+		}
+	}
+	
+	@Test
+	public void flightRecorderTest() throws IOException {
+		UMLClassManager model = new UMLClassManager();
+		CommandController controller = new CommandController(model);
+		UMLFileIO fileIOTest = new UMLFileIO();
+		fileIOTest.setFile("test6.json");
+		fileIOTest.getFile().deleteOnExit();
+		Path dump = Files.createTempFile("editor", ".jfr");
+		
+		// Record every editor event while editing, saving and loading
+		try(Recording recording = new Recording()) {
+			for(String name : new String[] {"ModelMutation", "Save", "Load", "LoadPhase", "Dispatch"})
+				recording.enable("umleditor." + name).withoutThreshold();
+			recording.start();
+			controller.addClass("a");
+			controller.addClass("b");
+			controller.addRelationship("a", "aggregation", "b");
+			assertEquals("Saved model", 0, fileIOTest.saveModel(model));
+			assertEquals("Loaded model", 0, fileIOTest.loadModel(new UMLClassManager()));
+			assertEquals("Loaded model in parallel", 0, fileIOTest.loadModel(new UMLClassManager(), true));
+			recording.stop();
+			recording.dump(dump);
+		}
+		
+		// Count the events by name and check their fields
+		HashMap<String, Integer> counts = new HashMap<String, Integer>();
+		for(RecordedEvent event : RecordingFile.readAllEvents(dump)) {
+			String name = event.getEventType().getName();
+			counts.merge(name, 1, Integer::sum);
+			if(name.equals("umleditor.Save")) {
+				assertEquals("Save classes", 2, event.getInt("classes"));
+				assertEquals("Save bytes", fileIOTest.getFile().length(), event.getLong("bytes"));
+			}
+			if(name.equals("umleditor.ModelMutation") && event.getString("operation").equals("controller.addRelationship"))
+				assertEquals("Mutation relationships", 1, event.getInt("relationships"));
+		}
+		assertEquals("Mutation events", Integer.valueOf(3), counts.get("umleditor.ModelMutation"));
+		assertEquals("Save events", Integer.valueOf(1), counts.get("umleditor.Save"));
+		assertEquals("Load events", Integer.valueOf(2), counts.get("umleditor.Load"));
+		// Parse and link, then read, bind and link
+		assertEquals("Load phase events", Integer.valueOf(5), counts.get("umleditor.LoadPhase"));
+		assertEquals("Dispatch events", Integer.valueOf(3), counts.get("umleditor.Dispatch"));
+		
+		Files.delete(dump);
+		fileIOTest.getFile().delete();
+	}
 }
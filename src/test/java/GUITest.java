@@ -2,13 +2,14 @@
 import org.junit.Test;
 
 import controller.GUIController;
-import core.ErrorHandler;
+import model.MemoryFootprint;
 import model.UMLClass;
 import model.UMLClassManager;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 import java.awt.Component;
 import java.awt.image.BufferedImage;
@@ -22,6 +23,7 @@ import javax.swing.JSeparator;
 
 // Local imports
 import views.GUIView;
+import views.components.DiagramPanel;
 import views.components.testable.TestableFileChooser;
 import views.components.testable.TestableMenuItem;
 import views.components.testable.TestableOptionPane;
@@ -109,7 +111,7 @@ public class GUITest {
 		
 		//Test the MainMenu initialization of components
 		assertTrue("Main File menu not empty", ((JMenu)gui.getComponent("mainFile")).getItemCount() != 0);
-		assertEquals("Main File menu number of items", 8, ((JMenu)gui.getComponent("mainFile")).getItemCount());
+		assertEquals("Main File menu number of items", 11, ((JMenu)gui.getComponent("mainFile")).getItemCount());
 		assertEquals("Main File menu first child", "mainAddClass" , ((JMenu)gui.getComponent("mainFile")).getItem(0).getName());
 		// JSeparator's seem to be represented as null menuitems
 		assertTrue("Main File menu second child separator", ((JMenu)gui.getComponent("mainFile")).getItem(1) == null);
@@ -119,6 +121,9 @@ public class GUITest {
 		assertEquals("Main File menu sixth child", "mainExport" , ((JMenu)gui.getComponent("mainFile")).getItem(5).getName());
 		assertTrue("Main File menu seventh child separator", ((JMenu)gui.getComponent("mainFile")).getItem(6) == null);
 		assertEquals("Main File menu eigth child", "mainResize" , ((JMenu)gui.getComponent("mainFile")).getItem(7).getName());
+		assertEquals("Main File menu ninth child", "mainMemory" , ((JMenu)gui.getComponent("mainFile")).getItem(8).getName());
+		assertEquals("Main File menu tenth child", "mainLayout" , ((JMenu)gui.getComponent("mainFile")).getItem(9).getName());
+		assertEquals("Main File menu eleventh child", "mainIncremental" , ((JMenu)gui.getComponent("mainFile")).getItem(10).getName());
 		
 		assertTrue("Main action menu not empty", ((JMenu)gui.getComponent("mainActions")).getItemCount() != 0);
 		assertEquals("Main action menu number of items", 13, ((JMenu)gui.getComponent("mainActions")).getItemCount());
@@ -150,25 +155,25 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass"));
 		((TestableMenuItem)gui.getComponent("mouseAddClass")).doClick();
-		assertEquals("Add class normal exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add class normal exit code", 0, shownError(gui));
 		assertNotEquals("Add class normal exist check", null, model.getClass("myclass"));
 		assertEquals("Number of classes after single add", 1, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("secondclass"));
 		((TestableMenuItem)gui.getComponent("mouseAddClass")).doClick();
-		assertEquals("Add class normal exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add class normal exit code 2", 0, shownError(gui));
 		assertNotEquals("Add class normal exist check 2", null, model.getClass("secondclass"));
 		assertEquals("Number of classes after second add", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("3*29"));
 		((TestableMenuItem)gui.getComponent("mouseAddClass")).doClick();
-		assertNotEquals("Add class invalid name error code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add class invalid name error code", 0, shownError(gui));
 		assertEquals("Add class invalid not exists check", null, model.getClass("3*29"));
 		assertEquals("Number of classes after invalid add", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("myclass"));
 		((TestableMenuItem)gui.getComponent("mouseAddClass")).doClick();
-		assertNotEquals("Add class duplicate exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add class duplicate exit code", 0, shownError(gui));
 		assertNotEquals("Add class duplicate exist check", null, model.getClass("myclass"));
 		assertEquals("Number of classes after single add", 2, model.getClassNames().length);
 	}
@@ -183,25 +188,25 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass"));
 		((TestableMenuItem)gui.getComponent("mainAddClass")).doClick();
-		assertEquals("Add class normal exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add class normal exit code", 0, shownError(gui));
 		assertNotEquals("Add class normal exist check", null, model.getClass("myclass"));
 		assertEquals("Number of classes after single add", 1, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("secondclass"));
 		((TestableMenuItem)gui.getComponent("mainAddClass")).doClick();
-		assertEquals("Add class normal exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add class normal exit code 2", 0, shownError(gui));
 		assertNotEquals("Add class normal exist check 2", null, model.getClass("secondclass"));
 		assertEquals("Number of classes after second add", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("3*29"));
 		((TestableMenuItem)gui.getComponent("mainAddClass")).doClick();
-		assertNotEquals("Add class invalid name error code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add class invalid name error code", 0, shownError(gui));
 		assertEquals("Add class invalid not exists check", null, model.getClass("3*29"));
 		assertEquals("Number of classes after invalid add", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("myclass"));
 		((TestableMenuItem)gui.getComponent("mainAddClass")).doClick();
-		assertNotEquals("Add class duplicate exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add class duplicate exit code", 0, shownError(gui));
 		assertNotEquals("Add class duplicate exist check", null, model.getClass("myclass"));
 		assertEquals("Number of classes after single add", 2, model.getClassNames().length);
 	}
@@ -224,19 +229,19 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass"));
 		((TestableMenuItem)gui.getComponent("classRemoveClass")).doClick();
-		assertEquals("Remove class normal exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove class normal exit code", 0, shownError(gui));
 		assertEquals("Remove class normal exist check", null, model.getClass("myclass"));
 		assertEquals("Number of classes after normal remove", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("secondclass"));
 		((TestableMenuItem)gui.getComponent("classRemoveClass")).doClick();
-		assertEquals("Remove class normal exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove class normal exit code 2", 0, shownError(gui));
 		assertEquals("Remove class normal exist check 2", null, model.getClass("secondclass"));
 		assertEquals("Number of classes after normal remove 2", 1, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("notreal")); // Like birds
 		((TestableMenuItem)gui.getComponent("classRemoveClass")).doClick();
-		assertNotEquals("Remove class not exist", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove class not exist", 0, shownError(gui));
 		assertEquals("Number of classes after invalid remove", 1, model.getClassNames().length);
 	}
 
@@ -258,13 +263,13 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass"));
 		((TestableMenuItem)gui.getComponent("mainRemoveClass")).doClick();
-		assertEquals("Remove class normal exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove class normal exit code", 0, shownError(gui));
 		assertEquals("Remove class normal exist check", null, model.getClass("myclass"));
 		assertEquals("Number of classes after normal remove", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("secondclass"));
 		((TestableMenuItem)gui.getComponent("mainRemoveClass")).doClick();
-		assertEquals("Remove class normal exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove class normal exit code 2", 0, shownError(gui));
 		assertEquals("Remove class normal exist check 2", null, model.getClass("secondclass"));
 		assertEquals("Number of classes after normal remove 2", 1, model.getClassNames().length);
 		
@@ -290,33 +295,33 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "changedlol"));
 		((TestableMenuItem)gui.getComponent("classEditClass")).doClick();
-		assertEquals("Edit class normal exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit class normal exit code", 0, shownError(gui));
 		assertNotEquals("Edit class new name exist check", null, model.getClass("changedlol"));
 		assertEquals("Number of class post name change", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("changedlol", "myclass"));
 		((TestableMenuItem)gui.getComponent("classEditClass")).doClick();
-		assertEquals("Edit class normal exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit class normal exit code 2", 0, shownError(gui));
 		assertNotEquals("Edit class new name exist check 2", null, model.getClass("myclass"));
 		assertEquals("Number of class post name change", 2, model.getClassNames().length);
 
 		gui.setOptionPane(new TestableOptionPane("myclass", "n*tg*(dnamebird"));
 		((TestableMenuItem)gui.getComponent("classEditClass")).doClick();
-		assertNotEquals("Edit class invalid new name exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit class invalid new name exit code", 0, shownError(gui));
 		assertNotEquals("Edit class invalid old name still exists", null, model.getClass("myclass"));
 		assertEquals("Edit class invalid new name does not exist", null, model.getClass("n*tg*(dnamebird"));
 		assertEquals("Number of class post invalid name change", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "secondclass"));
 		((TestableMenuItem)gui.getComponent("classEditClass")).doClick();
-		assertNotEquals("Edit class invalid new name exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit class invalid new name exit code 2", 0, shownError(gui));
 		assertNotEquals("Edit class invalid old name still exists 2", null, model.getClass("myclass"));
 		assertNotEquals("Edit class invalid new name still exists", null, model.getClass("secondclass"));
 		assertEquals("Number of class post invalid name change", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("notreal", "likebirds"));
 		((TestableMenuItem)gui.getComponent("classEditClass")).doClick();
-		assertNotEquals("Edit class invalid old name exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit class invalid old name exit code", 0, shownError(gui));
 		assertEquals("Edit class invalid old name still not exist", null, model.getClass("notreal"));
 		assertEquals("Edit class invalid new name not exists", null, model.getClass("likebirds"));
 		assertEquals("Number of class post invalid name change", 2, model.getClassNames().length);
@@ -339,33 +344,33 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "changedlol"));
 		((TestableMenuItem)gui.getComponent("mainEditClass")).doClick();
-		assertEquals("Edit class normal exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit class normal exit code", 0, shownError(gui));
 		assertNotEquals("Edit class new name exist check", null, model.getClass("changedlol"));
 		assertEquals("Number of class post name change", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("changedlol", "myclass"));
 		((TestableMenuItem)gui.getComponent("mainEditClass")).doClick();
-		assertEquals("Edit class normal exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit class normal exit code 2", 0, shownError(gui));
 		assertNotEquals("Edit class new name exist check 2", null, model.getClass("myclass"));
 		assertEquals("Number of class post name change", 2, model.getClassNames().length);
 
 		gui.setOptionPane(new TestableOptionPane("myclass", "n*tg*(dnamebird"));
 		((TestableMenuItem)gui.getComponent("mainEditClass")).doClick();
-		assertNotEquals("Edit class invalid new name exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit class invalid new name exit code", 0, shownError(gui));
 		assertNotEquals("Edit class invalid old name still exists", null, model.getClass("myclass"));
 		assertEquals("Edit class invalid new name does not exist", null, model.getClass("n*tg*(dnamebird"));
 		assertEquals("Number of class post invalid name change", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "secondclass"));
 		((TestableMenuItem)gui.getComponent("mainEditClass")).doClick();
-		assertNotEquals("Edit class invalid new name exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit class invalid new name exit code 2", 0, shownError(gui));
 		assertNotEquals("Edit class invalid old name still exists 2", null, model.getClass("myclass"));
 		assertNotEquals("Edit class invalid new name still exists", null, model.getClass("secondclass"));
 		assertEquals("Number of class post invalid name change", 2, model.getClassNames().length);
 		
 		gui.setOptionPane(new TestableOptionPane("notreal", "likebirds"));
 		((TestableMenuItem)gui.getComponent("mainEditClass")).doClick();
-		assertNotEquals("Edit class invalid old name exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit class invalid old name exit code", 0, shownError(gui));
 		assertEquals("Edit class invalid old name still not exist", null, model.getClass("notreal"));
 		assertEquals("Edit class invalid new name not exists", null, model.getClass("likebirds"));
 		assertEquals("Number of class post invalid name change", 2, model.getClassNames().length);
@@ -388,25 +393,25 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "int", "myfield"));
 		((TestableMenuItem)gui.getComponent("classAddField")).doClick();
-		assertEquals("Add field valid exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add field valid exit code", 0, shownError(gui));
 		assertTrue("Add field valid has field", myclass.hasField("myfield"));
 		assertEquals("Add field valid num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "UMLClass", "another"));
 		((TestableMenuItem)gui.getComponent("classAddField")).doClick();
-		assertEquals("Add field valid exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add field valid exit code 2", 0, shownError(gui));
 		assertTrue("Add field valid has field 2", myclass.hasField("another"));
 		assertEquals("Add field valid num fields 2", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "double", "myfield"));
 		((TestableMenuItem)gui.getComponent("classAddField")).doClick();
-		assertNotEquals("Add field duplicate name diff type", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add field duplicate name diff type", 0, shownError(gui));
 		assertTrue("Add field original still exists", myclass.hasField("myfield"));
 		assertEquals("Add field duplicate num fields", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "int", "m@lf0rm*dn@me"));
 		((TestableMenuItem)gui.getComponent("classAddField")).doClick();
-		assertNotEquals("Add field invalid exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add field invalid exit code", 0, shownError(gui));
 		assertFalse("Add field invalid does not exist", myclass.hasField("m@lf0rm*dn@me"));
 		assertEquals("Add filed invalid num fields", 2, myclass.getFields().size());
 	}
@@ -428,25 +433,25 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "int", "myfield"));
 		((TestableMenuItem)gui.getComponent("mainAddField")).doClick();
-		assertEquals("Add field valid exit code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add field valid exit code", 0, shownError(gui));
 		assertTrue("Add field valid has field", myclass.hasField("myfield"));
 		assertEquals("Add field valid num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "UMLClass", "another"));
 		((TestableMenuItem)gui.getComponent("mainAddField")).doClick();
-		assertEquals("Add field valid exit code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add field valid exit code 2", 0, shownError(gui));
 		assertTrue("Add field valid has field 2", myclass.hasField("another"));
 		assertEquals("Add field valid num fields 2", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "double", "myfield"));
 		((TestableMenuItem)gui.getComponent("mainAddField")).doClick();
-		assertNotEquals("Add field duplicate name diff type", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add field duplicate name diff type", 0, shownError(gui));
 		assertTrue("Add field original still exists", myclass.hasField("myfield"));
 		assertEquals("Add field duplicate num fields", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "int", "m@lf0rm*dn@me"));
 		((TestableMenuItem)gui.getComponent("mainAddField")).doClick();
-		assertNotEquals("Add field invalid exit code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add field invalid exit code", 0, shownError(gui));
 		assertFalse("Add field invalid does not exist", myclass.hasField("m@lf0rm*dn@me"));
 		assertEquals("Add filed invalid num fields", 2, myclass.getFields().size());
 	}
@@ -470,24 +475,24 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield"));
 		((TestableMenuItem)gui.getComponent("classRemoveField")).doClick();
-		assertEquals("Remove field valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove field valid return code", 0, shownError(gui));
 		assertFalse("Remove field valid no longer exists", myclass.hasField("myfield"));
 		assertEquals("Remove field valid num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield"));
 		((TestableMenuItem)gui.getComponent("classRemoveField")).doClick();
-		assertNotEquals("Remove field doesn't exist", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove field doesn't exist", 0, shownError(gui));
 		assertFalse("Remove filed not in list", myclass.hasField("myfield"));
 		assertEquals("Remove field doesn't exist num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "n*tr3@l")); // Like birds
 		((TestableMenuItem)gui.getComponent("classRemoveField")).doClick();
-		assertNotEquals("Remove field invalid", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove field invalid", 0, shownError(gui));
 		assertEquals("Remove field invalid num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "another"));
 		((TestableMenuItem)gui.getComponent("classRemoveField")).doClick();
-		assertEquals("Remove field valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove field valid return code 2", 0, shownError(gui));
 		assertFalse("Remove field valid no longer exists 2", myclass.hasField("another"));
 		assertEquals("Remove field valid num fields 2", 0, myclass.getFields().size());
 	}
@@ -511,24 +516,24 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield"));
 		((TestableMenuItem)gui.getComponent("mainRemoveField")).doClick();
-		assertEquals("Remove field valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove field valid return code", 0, shownError(gui));
 		assertFalse("Remove field valid no longer exists", myclass.hasField("myfield"));
 		assertEquals("Remove field valid num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield"));
 		((TestableMenuItem)gui.getComponent("mainRemoveField")).doClick();
-		assertNotEquals("Remove field doesn't exist", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove field doesn't exist", 0, shownError(gui));
 		assertFalse("Remove filed not in list", myclass.hasField("myfield"));
 		assertEquals("Remove field doesn't exist num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "n*tr3@l")); // Like birds
 		((TestableMenuItem)gui.getComponent("mainRemoveField")).doClick();
-		assertNotEquals("Remove field invalid", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove field invalid", 0, shownError(gui));
 		assertEquals("Remove field invalid num fields", 1, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "another"));
 		((TestableMenuItem)gui.getComponent("mainRemoveField")).doClick();
-		assertEquals("Remove field valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove field valid return code 2", 0, shownError(gui));
 		assertFalse("Remove field valid no longer exists 2", myclass.hasField("another"));
 		assertEquals("Remove field valid num fields 2", 0, myclass.getFields().size());
 	}
@@ -552,27 +557,27 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield", "other"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertEquals("Edit field valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit field valid return code", 0, shownError(gui));
 		assertFalse("Edit field valid old name doesn't exist", myclass.hasField("myfield"));
 		assertTrue("Edit field valid new name exists", myclass.hasField("other"));
 		assertEquals("Edit field valid num fields", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "other", "myfield"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertEquals("Edit field valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit field valid return code 2", 0, shownError(gui));
 		assertFalse("Edit field valid old name not exists 2", myclass.hasField("other"));
 		assertTrue("Edit field valid new name exists 2", myclass.hasField("myfield"));
 		assertEquals("Edit field valid num fields unchanged", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield", "another"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertNotEquals("Edit field duplicate return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit field duplicate return code", 0, shownError(gui));
 		assertTrue("Edit field duplicate original still exists", myclass.hasField("myfield"));
 		assertEquals("Edit field duplicate num fields unchanged", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "another", "_n*t()real"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertNotEquals("Edit field invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit field invalid return code", 0, shownError(gui));
 		assertTrue("Edit field invalid old name still exists", myclass.hasField("another"));
 		assertFalse("Edit field invalid new name does not exist", myclass.hasField("_n*t()real"));
 		assertEquals("Edit field invalid num fields unchanged", 2, myclass.getFields().size());
@@ -597,27 +602,27 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield", "other"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertEquals("Edit field valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit field valid return code", 0, shownError(gui));
 		assertFalse("Edit field valid old name doesn't exist", myclass.hasField("myfield"));
 		assertTrue("Edit field valid new name exists", myclass.hasField("other"));
 		assertEquals("Edit field valid num fields", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "other", "myfield"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertEquals("Edit field valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit field valid return code 2", 0, shownError(gui));
 		assertFalse("Edit field valid old name not exists 2", myclass.hasField("other"));
 		assertTrue("Edit field valid new name exists 2", myclass.hasField("myfield"));
 		assertEquals("Edit field valid num fields unchanged", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "myfield", "another"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertNotEquals("Edit field duplicate return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit field duplicate return code", 0, shownError(gui));
 		assertTrue("Edit field duplicate original still exists", myclass.hasField("myfield"));
 		assertEquals("Edit field duplicate num fields unchanged", 2, myclass.getFields().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "another", "_n*t()real"));
 		((TestableMenuItem)gui.getComponent("classEditField")).doClick();
-		assertNotEquals("Edit field invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit field invalid return code", 0, shownError(gui));
 		assertTrue("Edit field invalid old name still exists", myclass.hasField("another"));
 		assertFalse("Edit field invalid new name does not exist", myclass.hasField("_n*t()real"));
 		assertEquals("Edit field invalid num fields unchanged", 2, myclass.getFields().size());
@@ -642,23 +647,23 @@ public class GUITest {
 		// Adding method 'int noparams() {}'
 		gui.setOptionPane(new TestableOptionPane("myclass", "int", "noparams", ""));
 		((TestableMenuItem)gui.getComponent("classAddMethod")).doClick();
-		assertEquals("Add method valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add method valid return code", 0, shownError(gui));
 		assertEquals("Add method valid num methods", 1, myclass.getMethods().size());
 		
 		// Adding method 'void mymethod(String par1, int par2) {}'
 		gui.setOptionPane(new TestableOptionPane("myclass", "void", "mymethod", "String par1, int par2"));
 		((TestableMenuItem)gui.getComponent("classAddMethod")).doClick();
-		assertEquals("Add method valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add method valid return code 2", 0, shownError(gui));
 		assertEquals("Add method valid num methods 2", 2, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "void", "mymethod", "String overloaded"));
 		((TestableMenuItem)gui.getComponent("classAddMethod")).doClick();
-		assertEquals("Add overload method return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add overload method return code", 0, shownError(gui));
 		assertEquals("Num methods", 3, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "void", "*not()real*", ""));
 		((TestableMenuItem)gui.getComponent("classAddMethod")).doClick();
-		assertNotEquals("Add method invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add method invalid return code", 0, shownError(gui));
 		assertEquals("Num methods", 3, myclass.getMethods().size());
 	}
 	
@@ -680,23 +685,23 @@ public class GUITest {
 		// Adding method 'int noparams() {}'
 		gui.setOptionPane(new TestableOptionPane("myclass", "int", "noparams", ""));
 		((TestableMenuItem)gui.getComponent("mainAddMethod")).doClick();
-		assertEquals("Add method valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add method valid return code", 0, shownError(gui));
 		assertEquals("Add method valid num methods", 1, myclass.getMethods().size());
 		
 		// Adding method 'void mymethod(String par1, int par2) {}'
 		gui.setOptionPane(new TestableOptionPane("myclass", "void", "mymethod", "String par1, int par2"));
 		((TestableMenuItem)gui.getComponent("mainAddMethod")).doClick();
-		assertEquals("Add method valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add method valid return code 2", 0, shownError(gui));
 		assertEquals("Add method valid num methods 2", 2, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "void", "mymethod", "String overloaded"));
 		((TestableMenuItem)gui.getComponent("mainAddMethod")).doClick();
-		assertEquals("Add overload method return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add overload method return code", 0, shownError(gui));
 		assertEquals("Num methods", 3, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "void", "*not()real*", ""));
 		((TestableMenuItem)gui.getComponent("mainAddMethod")).doClick();
-		assertNotEquals("Add method invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add method invalid return code", 0, shownError(gui));
 		assertEquals("Num methods", 3, myclass.getMethods().size());
 	}
 	
@@ -720,18 +725,18 @@ public class GUITest {
 		// Remove mymethod with no params
 		gui.setOptionPane(new TestableOptionPane("myclass", "mymethod", ""));
 		((TestableMenuItem)gui.getComponent("classRemoveMethod")).doClick();
-		assertEquals("Remove method valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove method valid return code", 0, shownError(gui));
 		assertEquals("Num methods post remove", 2, myclass.getMethods().size());
 		
 		// Remove another with args
 		gui.setOptionPane(new TestableOptionPane("myclass", "another", "String par1"));
 		((TestableMenuItem)gui.getComponent("classRemoveMethod")).doClick();
-		assertEquals("Remove overload method valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove overload method valid return code", 0, shownError(gui));
 		assertEquals("Num methods post overload remove", 1, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "d*e$n0#", ""));
 		((TestableMenuItem)gui.getComponent("classRemoveMethod")).doClick();
-		assertNotEquals("Remove method invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove method invalid return code", 0, shownError(gui));
 		assertEquals("Remove invalid method nothing removed", 1, myclass.getMethods().size());
 	}
 	
@@ -755,18 +760,18 @@ public class GUITest {
 		// Remove mymethod with no params
 		gui.setOptionPane(new TestableOptionPane("myclass", "mymethod"));
 		((TestableMenuItem)gui.getComponent("mainRemoveMethod")).doClick();
-		assertEquals("Remove method valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove method valid return code", 0, shownError(gui));
 		assertEquals("Num methods post remove", 2, myclass.getMethods().size());
 		
 		// Remove another with args
 		gui.setOptionPane(new TestableOptionPane("myclass", "another", "String par1"));
 		((TestableMenuItem)gui.getComponent("mainRemoveMethod")).doClick();
-		assertEquals("Remove overload method valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove overload method valid return code", 0, shownError(gui));
 		assertEquals("Num methods post overload remove", 1, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "d*e$n0#"));
 		((TestableMenuItem)gui.getComponent("mainRemoveMethod")).doClick();
-		assertNotEquals("Remove method invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove method invalid return code", 0, shownError(gui));
 		assertEquals("Remove invalid method nothing removed", 1, myclass.getMethods().size());
 	}
 	
@@ -789,17 +794,17 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "mymethod", "newmethod", ""));
 		((TestableMenuItem)gui.getComponent("classEditMethod")).doClick();
-		assertEquals("Edit method name valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit method name valid return code", 0, shownError(gui));
 		assertEquals("Num methods the same", 3, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "newmethod", "mymethod", ""));
 		((TestableMenuItem)gui.getComponent("classEditMethod")).doClick();
-		assertEquals("Edit method name valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit method name valid return code 2", 0, shownError(gui));
 		assertEquals("Num methods unchanged", 3, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "mymethod", "another", ""));
 		((TestableMenuItem)gui.getComponent("classEditMethod")).doClick();
-		assertNotEquals("Edit method to duplicate name return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit method to duplicate name return code", 0, shownError(gui));
 		assertEquals("Num methods unchanged", 3, myclass.getMethods().size());
 	}
 	
@@ -822,17 +827,17 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "mymethod", "newmethod", ""));
 		((TestableMenuItem)gui.getComponent("mainEditMethod")).doClick();
-		assertEquals("Edit method name valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit method name valid return code", 0, shownError(gui));
 		assertEquals("Num methods the same", 3, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "newmethod", "mymethod", ""));
 		((TestableMenuItem)gui.getComponent("mainEditMethod")).doClick();
-		assertEquals("Edit method name valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Edit method name valid return code 2", 0, shownError(gui));
 		assertEquals("Num methods unchanged", 3, myclass.getMethods().size());
 		
 		gui.setOptionPane(new TestableOptionPane("myclass", "mymethod", "another", ""));
 		((TestableMenuItem)gui.getComponent("mainEditMethod")).doClick();
-		assertNotEquals("Edit method to duplicate name return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Edit method to duplicate name return code", 0, shownError(gui));
 		assertEquals("Num methods unchanged", 3, myclass.getMethods().size());
 	}
 	
@@ -856,27 +861,27 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("classAddRelationship")).doClick();
-		assertEquals("Add relationship valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add relationship valid return code", 0, shownError(gui));
 		assertEquals("Num total relationships after valid add", 1, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class2", "class3", "inheritance"));
 		((TestableMenuItem)gui.getComponent("classAddRelationship")).doClick();
-		assertEquals("Add relationship valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add relationship valid return code 2", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class3", "not real"));
 		((TestableMenuItem)gui.getComponent("classAddRelationship")).doClick();
-		assertNotEquals("Add relationship invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add relationship invalid return code", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("classAddRelationship")).doClick();
-		assertNotEquals("Add relationship duplicate return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add relationship duplicate return code", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "notreal", "aggregation"));
 		((TestableMenuItem)gui.getComponent("classAddRelationship")).doClick();
-		assertNotEquals("Add relationship invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add relationship invalid return code", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 	}
 	
@@ -900,27 +905,27 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("mainAddRelationship")).doClick();
-		assertEquals("Add relationship valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add relationship valid return code", 0, shownError(gui));
 		assertEquals("Num total relationships after valid add", 1, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class2", "class3", "inheritance"));
 		((TestableMenuItem)gui.getComponent("mainAddRelationship")).doClick();
-		assertEquals("Add relationship valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Add relationship valid return code 2", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class3", "not real"));
 		((TestableMenuItem)gui.getComponent("mainAddRelationship")).doClick();
-		assertNotEquals("Add relationship invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add relationship invalid return code", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("mainAddRelationship")).doClick();
-		assertNotEquals("Add relationship duplicate return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add relationship duplicate return code", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "notreal", "aggregation"));
 		((TestableMenuItem)gui.getComponent("mainAddRelationship")).doClick();
-		assertNotEquals("Add relationship invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Add relationship invalid return code", 0, shownError(gui));
 		assertEquals("Num total relationships", 2, model.getRelationships().size());
 	}
 	
@@ -932,7 +937,6 @@ public class GUITest {
 		UMLClassManager model = new UMLClassManager();
 		GUIController controller = new GUIController(model);
 		GUIView gui = new GUIView(controller, model, false);
-		ErrorHandler.setCode(0);
 		
 		controller.addClass("class1");
 		controller.addClass("class2");
@@ -949,17 +953,17 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("classRemoveRelationship")).doClick();
-		assertNotEquals("Remove invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove invalid return code", 0, shownError(gui));
 		assertEquals("Num relationships post invalid remove", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class2", "class3", "notrealtype"));
 		((TestableMenuItem)gui.getComponent("classRemoveRelationship")).doClick();
-		assertNotEquals("Remove invalid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove invalid return code 2", 0, shownError(gui));
 		assertEquals("Num relationships post invalid remove 2", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class3", "inheritance"));
 		((TestableMenuItem)gui.getComponent("classRemoveRelationship")).doClick();
-		assertEquals("Remove valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove valid return code 2", 0, shownError(gui));
 		assertEquals("Num relationships post valid remove 2", 1, model.getRelationships().size());
 	}
 	
@@ -983,22 +987,22 @@ public class GUITest {
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("mainRemoveRelationship")).doClick();
-		assertEquals("Remove valid return code", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove valid return code", 0, shownError(gui));
 		assertEquals("Num relationships post remove", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class2", "aggregation"));
 		((TestableMenuItem)gui.getComponent("mainRemoveRelationship")).doClick();
-		assertNotEquals("Remove invalid return code", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove invalid return code", 0, shownError(gui));
 		assertEquals("Num relationships post invalid remove", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class2", "class3", "notrealtype"));
 		((TestableMenuItem)gui.getComponent("mainRemoveRelationship")).doClick();
-		assertNotEquals("Remove invalid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertNotEquals("Remove invalid return code 2", 0, shownError(gui));
 		assertEquals("Num relationships post invalid remove 2", 2, model.getRelationships().size());
 		
 		gui.setOptionPane(new TestableOptionPane("class1", "class3", "inheritance"));
 		((TestableMenuItem)gui.getComponent("mainRemoveRelationship")).doClick();
-		assertEquals("Remove valid return code 2", 0, ErrorHandler.LAST_CODE);
+		assertEquals("Remove valid return code 2", 0, shownError(gui));
 		assertEquals("Num relationships post valid remove 2", 1, model.getRelationships().size());
 	}
 	
@@ -1132,4 +1136,97 @@ public class GUITest {
 		assertEquals("New diagram width", 800, gui.getDiagram().getWidth());
 		assertEquals("New diagram height", 800, gui.getDiagram().getHeight());
 	}
+	
+	/**
+	 * Test the memory estimate of the diagram
+	 */
+	@Test
+	public void memoryUsage() {
+		UMLClassManager model = new UMLClassManager();
+		GUIController controller = new GUIController(model);
+		GUIView gui = new GUIView(controller, model, false);
+		
+		controller.addClass("a");
+		controller.addClass("b");
+		controller.addField("a", "int", "count");
+		controller.addMethod("b", "void", "run", "int times");
+		
+		MemoryFootprint footprint = gui.getDiagram().estimateMemory();
+		assertEquals("Counted class components", 2, footprint.getCount(MemoryFootprint.GUI_COMPONENTS));
+		assertTrue("Components have bytes", footprint.getBytes(MemoryFootprint.GUI_COMPONENTS) > 0);
+		assertEquals("Counted labels", 2, footprint.getCount(MemoryFootprint.LABEL_CACHES));
+		assertEquals("Counted model classes", 2, footprint.getCount(MemoryFootprint.CLASSES));
+		
+		// The dialog shows without errors
+		((TestableMenuItem)gui.getComponent("mainMemory")).doClick();
+	}
+	
+	/**
+	 * Test arranging the diagram from the menu
+	 */
+	@Test
+	public void autoLayout() throws InterruptedException {
+		UMLClassManager model = new UMLClassManager();
+		GUIController controller = new GUIController(model);
+		GUIView gui = new GUIView(controller, model, false);
+		
+		controller.addClass("shape");
+		controller.addClass("circle");
+		controller.addRelationship("circle", "inheritance", "shape");
+		
+		gui.setOptionPane(new TestableOptionPane("layered"));
+		((TestableMenuItem)gui.getComponent("mainLayout")).doClick();
+		
+		// The positions are computed in the background and applied when done
+		DiagramPanel.LayoutWorker worker = gui.getDiagram().getLayoutWorker();
+		worker.awaitApplied();
+		assertEquals("Layout return code", 0, shownError(gui));
+		assertTrue("Parent above child", model.getClass("shape").getY() < model.getClass("circle").getY());
+		
+		// Cancelling the prompt leaves the classes where they are
+		int x = model.getClass("circle").getX();
+		gui.setOptionPane(new TestableOptionPane((String)null));
+		((TestableMenuItem)gui.getComponent("mainLayout")).doClick();
+		assertEquals("Cancelled layout", x, model.getClass("circle").getX());
+		assertSame("No layout started", worker, gui.getDiagram().getLayoutWorker());
+		
+		assertEquals("Unknown layout", 112, controller.layout("sideways"));
+	}
+	
+	/**
+	 * Test placing classes added from the menu with the incremental layout
+	 */
+	@Test
+	public void incrementalLayout() {
+		UMLClassManager model = new UMLClassManager();
+		GUIController controller = new GUIController(model);
+		GUIView gui = new GUIView(controller, model, false);
+		
+		gui.setOptionPane(new TestableOptionPane("on"));
+		((TestableMenuItem)gui.getComponent("mainIncremental")).doClick();
+		assertTrue("Incremental layout on", controller.isIncrementalLayout());
+		
+		// Classes from the main menu are placed clear of each other
+		gui.setOptionPane(new TestableOptionPane("first", "second"));
+		((TestableMenuItem)gui.getComponent("mainAddClass")).doClick();
+		((TestableMenuItem)gui.getComponent("mainAddClass")).doClick();
+		assertEquals("Add class return code", 0, shownError(gui));
+		assertTrue("First class inside the margin", model.getClass("first").getX() >= 20 && model.getClass("first").getY() >= 20);
+		assertTrue("Second class beside the first", model.getClass("first").getX() != model.getClass("second").getX()
+				|| model.getClass("first").getY() != model.getClass("second").getY());
+		
+		gui.setOptionPane(new TestableOptionPane("off"));
+		((TestableMenuItem)gui.getComponent("mainIncremental")).doClick();
+		assertTrue("Incremental layout off", !controller.isIncrementalLayout());
+	}
+	
+	/**
+	 * Take the code of the last error the view showed
+	 * @param gui - view under test
+	 * @return - error code, 0 if no error was shown
+	 */
+	private static int shownError(GUIView gui) {
+		TestableOptionPane pane = gui.getOptionPane();
+		return pane == null ? 0 : pane.takeShownError();
+	}
 }
@@ -0,0 +1,66 @@
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import controller.CommandController;
+import core.LatencyHistogram;
+import core.Metrics;
+import core.UMLFileIO;
+import model.UMLClassManager;
+
+public class MetricsTest {
+	@Test
+	public void histogramTest() {
+		// Percentiles stay within a bucket of the recorded values
+		LatencyHistogram histogram = new LatencyHistogram();
+		for(int i = 1; i <= 1000; i++)
+			histogram.record(i * 1000);
+		assertEquals("Histogram count", 1000, histogram.getCount());
+		assertEquals("Histogram min", 1000, histogram.getMin());
+		assertEquals("Histogram max", 1000000, histogram.getMax());
+		assertEquals("Histogram mean", 500500.0, histogram.getMean(), 0.001);
+		long median = histogram.getValueAtPercentile(50);
+		assertTrue("Histogram median " + median, median >= 500000 && median <= 500000 * 1.04);
+		long p99 = histogram.getValueAtPercentile(99);
+		assertTrue("Histogram p99 " + p99, p99 >= 990000 && p99 <= 1000000);
+	}
+	
+	@Test
+	public void controllerTest() {
+		Metrics.reset();
+		Metrics.setEnabled(true);
+		try {
+			// Failed edits are timed like the ones that succeed
+			CommandController controller = new CommandController(new UMLClassManager());
+			assertEquals("Add class", 0, controller.addClass("a"));
+			assertEquals("Add duplicate class", 200, controller.addClass("a"));
+			assertEquals("Both adds recorded", 2, Metrics.histogram("controller.addClass").getCount());
+			assertEquals("Remove missing field", 403, controller.removeField("b", "f"));
+			assertEquals("Failed remove recorded", 1, Metrics.histogram("controller.removeField").getCount());
+		} finally {
+			Metrics.setEnabled(false);
+			Metrics.reset();
+		}
+	}
+	
+	@Test
+	public void failedWriteTest() {
+		Metrics.reset();
+		Metrics.setEnabled(true);
+		try {
+			// The file can't be created in a directory that doesn't exist
+			UMLFileIO fileIOTest = new UMLFileIO();
+			fileIOTest.setFile("no-such-directory" + File.separator + "test.json");
+			assertEquals("Save without directory", 301, fileIOTest.saveModel(new UMLClassManager()));
+			assertEquals("Failed save recorded", 1, Metrics.histogram("file.save").getCount());
+			assertEquals("Write without directory", 301, fileIOTest.writeToFile("text"));
+			assertEquals("Failed write recorded", 1, Metrics.histogram("file.write").getCount());
+		} finally {
+			Metrics.setEnabled(false);
+			Metrics.reset();
+		}
+	}
+}